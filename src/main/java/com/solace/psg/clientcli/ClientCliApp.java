@@ -23,8 +23,10 @@ package com.solace.psg.clientcli;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.solace.psg.clientcli.daemon.DaemonClient;
 import com.solace.psg.clientcli.utils.SubscriptionConverter;
 import com.solace.psg.sempv2.admin.model.Subscription;
+import com.solace.psg.util.queuecopy.SessionPool;
 
 import picocli.CommandLine;
 
@@ -37,17 +39,49 @@ public class ClientCliApp
 {
 	private static final Logger logger = LogManager.getLogger(ClientCliApp.class);
 
+	/**
+	 * Creates the command line for the sol commands.
+	 * @return the command line
+	 */
+	public static CommandLine createCommandLine()
+	{
+		CommandLine cmd = new CommandLine(new SolCommand());//.setColorScheme(myColorScheme()); 
+		cmd.registerConverter(Subscription.class, new SubscriptionConverter());
+		cmd.setCaseInsensitiveEnumValuesAllowed(true);
+		return cmd;
+	}
+	
+	/**
+	 * Checks if the command should be forwarded to a running daemon.
+	 * @param args the arguments
+	 * @return true if the daemon may run the command
+	 */
+	private static boolean useDaemon(String[] args)
+	{
+		if (!DaemonClient.isForwardable(args))
+			return false;
+		
+		return !"off".equalsIgnoreCase(System.getenv("SOL_DAEMON"));
+	}
+
 	public static void main( String[] args )
     {
+		// Forwarding happens before the commands and the configuration are loaded to keep the client start up short.
+		if (useDaemon(args) && DaemonClient.execute(args) != null)
+			return;
+		
         try
 		{
-        	CommandLine cmd = new CommandLine(new SolCommand());//.setColorScheme(myColorScheme()); 
-        	cmd.registerConverter(Subscription.class, new SubscriptionConverter());
-        	cmd.execute(args);
+        	createCommandLine().execute(args);
 		}
 		catch (Exception e)
 		{
 			logger.error("Client CLI App exception occured: {}, {}", e.getMessage(), e.getCause()); 
 		}
+        finally
+        {
+        	// Messaging sessions are kept warm between operations, the process is done with them now.
+        	SessionPool.getInstance().close();
+        }
     }
 }
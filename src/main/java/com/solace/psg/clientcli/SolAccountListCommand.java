@@ -34,6 +34,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.maven.shared.utils.StringUtils;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 import com.solace.psg.sempv2.admin.model.DataCenter;
 import com.solace.psg.sempv2.admin.model.Organization;
 import com.solace.psg.sempv2.apiclient.ApiException;
@@ -93,12 +94,13 @@ public class SolAccountListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing organization accounts:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing organization accounts:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
@@ -109,18 +111,24 @@ public class SolAccountListCommand implements Runnable
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occurred while running list command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occurred while running list command: " + e.getResponseBody());
 			logger.error("Error occurred while running list command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occurred while running list command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occurred while running list command: " + e.getMessage());
 			logger.error("Error occurred while running list command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printResults(List<Organization> orgs, String message) throws IOException
 	{
+		if (!StructuredWriter.isTable())
+		{
+			StructuredWriter.printList(orgs);
+			return;
+		}
+		
 		System.out.println(message);
 		logger.debug("Printing accounts list");
 		
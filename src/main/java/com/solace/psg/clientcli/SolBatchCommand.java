@@ -0,0 +1,444 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.maven.shared.utils.StringUtils;
+
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.sempv2.apiclient.ApiException;
+import com.solace.psg.tablereporter.Block;
+import com.solace.psg.tablereporter.Board;
+import com.solace.psg.tablereporter.Table;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Command class to run sol commands from a batch file in a single process.
+ * 
+ * Each line of the file is a sol command. Commands up to a 'wait' line do not depend on each other 
+ * and run concurrently, the commands after it start once all of them have completed.
+ *
+ */
+@Command(name = "batch", description = "Runs sol commands from a batch file.")
+public class SolBatchCommand implements Runnable 
+{
+	private static final Logger logger = LogManager.getLogger(SolBatchCommand.class);
+	
+	private static final String BARRIER = "wait";
+	
+	private static final List<String> NESTED_COMMANDS = Arrays.asList("batch", "shell", "daemon");
+	
+	private static final List<String> SERVICE_OPTIONS = Arrays.asList("-serviceId", "-sid", "-serviceName", "-sn");
+	
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+	
+	@Parameters(index = "0", arity = "1", description="the batch file")
+	private String file;
+	
+	@Option(names = {"-threads", "-t"}, defaultValue = "8", description = "the maximum number of commands running concurrently. Default is 8.")
+	private int threads;
+	
+	@Option(names = {"-serviceId", "-sid"}, description="the service ID used by commands not naming a service") 
+	private String serviceId;
+	
+	@Option(names = {"-serviceName", "-sn"}, description="the service name used by commands not naming a service") 
+	private String serviceName;
+	
+	@Option(names = {"-stopOnError", "-soe"}, defaultValue = "false", description = "Stops before the next wait group if a command failed. Default is false.")
+	private boolean stopOnError;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolBatchCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol batch <file> [-threads=<count>] [-serviceId=id | -serviceName=name] [-stopOnError] \n");
+	    System.out.println(" Runs one sol command per line, the leading 'sol' is optional and lines starting with # are comments.");
+	    System.out.println(" Commands between 'wait' lines run concurrently, 'wait' waits for all previous commands to complete.");
+	    System.out.println(" The service given to the batch is used by all commands that take a service and do not name one.");
+	    System.out.println(" Example command: sol batch provision.sol -serviceName=myservice -threads=16");
+	}
+	
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running batch command.");
+		
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+		
+		try
+		{
+			List<List<Step>> groups = parse(file);
+			List<Step> steps = new ArrayList<Step>();
+			for (List<Step> group : groups)
+				steps.addAll(group);
+			
+			if (steps.isEmpty())
+			{
+				System.out.println("No commands found in batch file " + file + ".");
+				return;
+			}
+			
+			String sid = resolveServiceId();
+			if ((serviceId != null || serviceName != null) && sid == null)
+			{
+				System.out.println("No service found for the provided details.");
+				return;
+			}
+			
+			System.out.println("Running " + steps.size() + " commands from " + file + "...");
+			long elapsed = execute(groups, sid);
+			
+			printResults(steps, elapsed);
+		}
+		catch (ApiException e)
+		{
+			System.out.println("Error occured while running batch command: " + e.getResponseBody());
+			logger.error("Error occured while running batch command: {}", e.getResponseBody());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running batch command: " + e.getMessage());
+			logger.error("Error occured while running batch command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Parses the batch file into groups of commands separated by wait lines.
+	 * @param path the file path
+	 * @return the groups
+	 * @throws IOException
+	 */
+	private List<List<Step>> parse(String path) throws IOException
+	{
+		List<List<Step>> groups = new ArrayList<List<Step>>();
+		List<Step> group = new ArrayList<Step>();
+		
+		List<String> lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+		for (int i = 0; i < lines.size(); i++)
+		{
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			
+			List<String> args = SolShellCommand.splitLine(line);
+			if (args.size() > 0 && args.get(0).equals("sol"))
+				args.remove(0);
+			if (args.isEmpty())
+				continue;
+			
+			if (NESTED_COMMANDS.contains(args.get(0)))
+				throw new IllegalArgumentException("The " + args.get(0) + " command on line " + (i + 1) + " cannot run inside a batch.");
+			
+			if (args.size() == 1 && args.get(0).equals(BARRIER))
+			{
+				if (!group.isEmpty())
+					groups.add(group);
+				group = new ArrayList<Step>();
+			}
+			else
+			{
+				group.add(new Step(i + 1, args.toArray(new String[0])));
+			}
+		}
+		
+		if (!group.isEmpty())
+			groups.add(group);
+		
+		return groups;
+	}
+	
+	/**
+	 * Resolves the batch service once, so the commands share the resolved service details.
+	 * @return the service ID or null if no service was provided or found
+	 * @throws Exception
+	 */
+	private String resolveServiceId() throws Exception
+	{
+		ServiceDetails sd = ServiceResolver.getInstance().resolve(serviceId, serviceName);
+		return sd != null ? sd.getServiceId() : null;
+	}
+	
+	/**
+	 * Executes the groups one after the other, with the commands of a group running concurrently.
+	 * @param groups the groups
+	 * @param sid the batch service ID or null
+	 * @return the elapsed time in ns
+	 * @throws Exception
+	 */
+	private long execute(List<List<Step>> groups, String sid) throws Exception
+	{
+		PrintStream sysOut = System.out;
+		PrintStream sysErr = System.err;
+		ThreadLocal<ByteArrayOutputStream> buffers = new ThreadLocal<ByteArrayOutputStream>();
+		// Commands are not thread safe, each worker reuses its own command line.
+		ThreadLocal<CommandLine> commands = ThreadLocal.withInitial(ClientCliApp::createCommandLine);
+		
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		long start = System.nanoTime();
+		try
+		{
+			// Output of concurrent commands is collected per command and printed when it completes.
+			System.setOut(new PrintStream(new StepOutputStream(buffers, sysOut), true));
+			System.setErr(new PrintStream(new StepOutputStream(buffers, sysErr), true));
+			
+			for (List<Step> group : groups)
+			{
+				List<Future<?>> futures = new ArrayList<Future<?>>(group.size());
+				for (Step step : group)
+					futures.add(pool.submit(() -> execute(step, sid, commands.get(), buffers, sysOut)));
+				
+				boolean failed = false;
+				for (int i = 0; i < futures.size(); i++)
+				{
+					futures.get(i).get();
+					failed |= group.get(i).exitCode != 0;
+				}
+				
+				if (failed && stopOnError)
+				{
+					sysOut.println("Stopping the batch after a failed command.");
+					break;
+				}
+			}
+		}
+		finally
+		{
+			System.setOut(sysOut);
+			System.setErr(sysErr);
+			pool.shutdownNow();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		
+		return System.nanoTime() - start;
+	}
+	
+	/**
+	 * Executes a single command and prints its output.
+	 * @param step the step
+	 * @param sid the batch service ID or null
+	 * @param cmd the command line of the worker
+	 * @param buffers the per thread output buffers
+	 * @param out the console
+	 */
+	private void execute(Step step, String sid, CommandLine cmd, ThreadLocal<ByteArrayOutputStream> buffers, PrintStream out)
+	{
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		buffers.set(buffer);
+		long start = System.nanoTime();
+		try
+		{
+			step.exitCode = cmd.execute(withService(cmd, step.args, sid));
+		}
+		catch (Exception e)
+		{
+			step.exitCode = 1;
+			logger.error("Error occured while running batch line {}: {}, {}", step.lineNumber, e.getMessage(), e.getCause());
+		}
+		finally
+		{
+			step.nanos = System.nanoTime() - start;
+			buffers.remove();
+			synchronized (out)
+			{
+				out.println("[" + step.lineNumber + "] sol " + String.join(" ", step.args));
+				out.write(buffer.toByteArray(), 0, buffer.size());
+				out.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Adds the batch service to the arguments if the command takes a service and none was provided.
+	 * @param cmd the command line
+	 * @param args the arguments
+	 * @param sid the batch service ID or null
+	 * @return the arguments
+	 */
+	private static String[] withService(CommandLine cmd, String[] args, String sid)
+	{
+		if (sid == null)
+			return args;
+		
+		CommandLine current = cmd;
+		for (String arg : args)
+		{
+			Map<String, CommandLine> subcommands = current.getSubcommands();
+			if (!subcommands.containsKey(arg))
+				break;
+			
+			current = subcommands.get(arg);
+		}
+		
+		if (current.getCommandSpec().findOption("-sid") == null)
+			return args;
+		
+		for (String arg : args)
+		{
+			String name = arg.contains("=") ? arg.substring(0, arg.indexOf('=')) : arg;
+			if (SERVICE_OPTIONS.contains(name))
+				return args;
+		}
+		
+		String[] result = Arrays.copyOf(args, args.length + 1);
+		result[args.length] = "-sid=" + sid;
+		return result;
+	}
+	
+	private void printResults(List<Step> steps, long elapsed)
+	{
+		List<String> headersList = Arrays.asList("Line", "Command", "Result", "Time (ms)");
+		List<List<String>> rowsList = new ArrayList<List<String>>(steps.size());
+		
+		int failed = 0;
+		int skipped = 0;
+		for (Step step : steps)
+		{
+			String result;
+			if (step.nanos < 0)
+			{
+				result = "skipped";
+				skipped++;
+			}
+			else if (step.exitCode != 0)
+			{
+				result = "failed (" + step.exitCode + ")";
+				failed++;
+			}
+			else
+			{
+				result = "ok";
+			}
+			
+			String time = step.nanos < 0 ? "" : Long.toString(TimeUnit.NANOSECONDS.toMillis(step.nanos));
+			rowsList.add(Arrays.asList("" + step.lineNumber, StringUtils.abbreviate(String.join(" ", step.args), 64), result, time));
+		}
+		
+		List<Integer> colAlignList = Arrays.asList(Block.DATA_MIDDLE_RIGHT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_RIGHT);
+		List<Integer> colWidthsListEdited = Arrays.asList(6, 65, 13, 10);
+		int width = Board.getRecommendedWidth(colWidthsListEdited, true);
+				
+		Board board = new Board(width);	
+		Table table = new Table(board, width, headersList, rowsList);		
+		table.setColWidthsList(colWidthsListEdited);
+		table.setColAlignsList(colAlignList);
+		
+		Block block = table.tableToBlocks();
+		board.setInitialBlock(block);
+		
+		System.out.println(board.build().getPreview());
+		System.out.println("Completed " + (steps.size() - skipped) + " of " + steps.size() + " commands in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms, " + failed + " failed.");
+	}
+	
+	/**
+	 * A command of the batch file.
+	 */
+	private static class Step
+	{
+		private final int lineNumber;
+		private final String[] args;
+		private volatile int exitCode;
+		private volatile long nanos = -1;
+		
+		Step(int lineNumber, String[] args)
+		{
+			this.lineNumber = lineNumber;
+			this.args = args;
+		}
+	}
+	
+	/**
+	 * Output stream writing to the buffer of the current command, or to the console outside of commands.
+	 */
+	private static class StepOutputStream extends OutputStream
+	{
+		private final ThreadLocal<ByteArrayOutputStream> buffers;
+		private final PrintStream console;
+		
+		StepOutputStream(ThreadLocal<ByteArrayOutputStream> buffers, PrintStream console)
+		{
+			this.buffers = buffers;
+			this.console = console;
+		}
+		
+		@Override
+		public void write(int b)
+		{
+			ByteArrayOutputStream buffer = buffers.get();
+			if (buffer != null)
+				buffer.write(b);
+			else
+				console.write(b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			ByteArrayOutputStream buffer = buffers.get();
+			if (buffer != null)
+				buffer.write(b, off, len);
+			else
+				console.write(b, off, len);
+		}
+		
+		@Override
+		public void flush()
+		{
+			if (buffers.get() == null)
+				console.flush();
+		}
+	}
+}
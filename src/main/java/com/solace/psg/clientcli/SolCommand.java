@@ -19,7 +19,10 @@
  */
 package com.solace.psg.clientcli;
 
+import com.solace.psg.clientcli.utils.StructuredWriter;
+
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
 
 /**
  * Sol Command base class.
@@ -29,7 +32,9 @@ import picocli.CommandLine.Command;
 @Command(name = "sol", subcommands = {
 		SolAboutCommand.class,
 		SolAccountCommand.class,
+		SolBatchCommand.class,
 		SolConfigCommand.class,
+		SolDaemonCommand.class,
 		SolDcCommand.class,
 		SolHammerCommand.class,
 		SolJoltCommand.class,
@@ -37,6 +42,7 @@ import picocli.CommandLine.Command;
 		SolLogoutCommand.class,
 		SolUserRolesCommand.class,
 		SolServiceCommand.class,
+		SolShellCommand.class,
 		SolUserCommand.class,
 		SolVersionCommand.class 
 })
@@ -49,6 +55,16 @@ public class SolCommand implements Runnable
 	{
 	}
 	
+	/**
+	 * Sets the output format for the command being run.
+	 * @param format the format
+	 */
+	@Option(names = {"-o", "-output"}, defaultValue = "table", description = "Output format: table, json, jsonl, csv or yaml.")
+	private void setOutput(StructuredWriter.Format format)
+	{
+		StructuredWriter.setFormat(format);
+	}
+	
 	@Command(name = "help")
 	public void helpCommand() {
 	    System.out.println("Here are some common commands to begin with. \n");  
@@ -65,6 +81,14 @@ public class SolCommand implements Runnable
 	    System.out.println(" sol service|user| <subparameters> \n");
 	    System.out.println("For various helper operations user the hammer command:");
 	    System.out.println(" sol hammer <option> \n");
+	    System.out.println("To run the commands of a file in a single process:");
+	    System.out.println(" sol batch <file> \n");
+	    System.out.println("To run commands interactively in a single process:");
+	    System.out.println(" sol shell \n");
+	    System.out.println("To keep a background process warm for faster commands:");
+	    System.out.println(" sol daemon start|stop|status \n");
+	    System.out.println("To print results as json, jsonl, csv or yaml instead of tables:");
+	    System.out.println(" sol -o <format> <command> \n");
 	    System.out.println("To display the current Client CLI version:");
 	    System.out.println(" sol version \n");
 	    System.out.println("Type sol -h or --help for all available commands.");
@@ -23,6 +23,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -49,6 +50,9 @@ public class SolConfigCommand implements Runnable
 	@Option(names = {"-r", "-reset"}, fallbackValue = "false", description = "Resets the configuration."  )
 	private Boolean reset;
 
+	@Option(names = {"-sct", "-serviceCacheTtl"}, description = "Sets how long service details are cached in milliseconds, 0 disables the cache."  )
+	private Long serviceCacheTtl;
+
 	@ArgGroup(exclusive = true, multiplicity = "0..1")
     ExcParam excl;
 
@@ -89,6 +93,7 @@ public class SolConfigCommand implements Runnable
 	    System.out.println(" sol config [-e, -encrypted=true|false] default: true \n");
 	    System.out.println(" sol config [-p, -prompt=true|false] default: true \n");
 	    System.out.println(" sol config [-r, -reset=true|false] default: false\n");
+	    System.out.println(" sol config [-sct, -serviceCacheTtl=<milliseconds>] default: 600000\n");
 	    System.out.println(" sol config [-c, -set path to cliToSemp\n");
 	    System.out.println(" sol config [-perl, -set path to Perl\n");
 	    System.out.println(" sol config [-l, -loads a profile name\n");
@@ -135,6 +140,13 @@ public class SolConfigCommand implements Runnable
 				config.reset();
 				changed = true;
 			}
+
+			if (serviceCacheTtl != null)
+			{
+				config.setServiceCacheTtl(serviceCacheTtl);
+				ServiceResolver.getInstance().invalidate();
+				changed = true;
+			}
 			
 			if (changed)
 			{
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.daemon.DaemonClient;
+import com.solace.psg.clientcli.daemon.DaemonServer;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Command class to start, stop and check the background sol daemon.
+ * 
+ * While the daemon runs, sol commands are forwarded to it and run without the JVM start up cost.
+ *
+ */
+@Command(name = "daemon", description = "Starts, stops or checks the sol daemon.")
+public class SolDaemonCommand implements Runnable 
+{
+	private static final Logger logger = LogManager.getLogger(SolDaemonCommand.class);
+	
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+	
+	@Parameters(index = "0", arity = "0..1", defaultValue = "status", description="the action: start, stop or status")
+	private String action;
+	
+	@Option(names = {"-port"}, defaultValue = "0", description = "the loopback port to listen on, 0 picks a free port")
+	private int port;
+	
+	@Option(names = {"-idle"}, defaultValue = "0", description = "the number of minutes without commands after which the daemon stops, 0 runs until stopped")
+	private int idleMinutes;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolDaemonCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol daemon [start|stop|status] [-port=<port>] [-idle=<minutes>] \n");
+	    System.out.println(" start - runs the daemon in the foreground, sol commands from other terminals are forwarded to it");
+	    System.out.println(" stop - stops the running daemon");
+	    System.out.println(" status - shows if the daemon is running");
+	    System.out.println(" Set the SOL_DAEMON environment variable to 'off' to run commands without the daemon.");
+	    System.out.println(" Example command: sol daemon start -idle=60");
+	    System.out.println(" Example command: sol daemon stop");
+	}
+	
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running daemon command.");
+		
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+		
+		try
+		{
+			switch (action)
+			{
+				case "start":
+					if (DaemonClient.ping())
+					{
+						System.out.println("The sol daemon is already running.");
+						return;
+					}
+					
+					DaemonServer server = new DaemonServer(ClientCliApp::createCommandLine);
+					server.setPort(port);
+					server.setIdleTimeout(idleMinutes * 60000L);
+					System.out.println("Sol daemon started, press Ctrl+C or run 'sol daemon stop' to stop it.");
+					server.run();
+					break;
+				case "stop":
+					if (DaemonClient.stop())
+						System.out.println("Sol daemon stopped.");
+					else
+						System.out.println("The sol daemon is not running.");
+					break;
+				case "status":
+					if (DaemonClient.ping())
+						System.out.println("The sol daemon is running.");
+					else
+						System.out.println("The sol daemon is not running.");
+					break;
+				default:
+					System.out.println("Unknown daemon action: " + action + ". Try invoking command with -h for list of parameters.");
+			}
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occurred while running daemon command: " + e.getMessage());
+			logger.error("Error occurred while running daemon command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+}
@@ -31,6 +31,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.maven.shared.utils.StringUtils;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 import com.solace.psg.sempv2.admin.model.DataCenter;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
@@ -91,12 +92,13 @@ public class SolDcListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing Data centers:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing Data centers:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
@@ -107,18 +109,24 @@ public class SolDcListCommand implements Runnable
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occurred while running list command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occurred while running list command: " + e.getResponseBody());
 			logger.error("Error occurred while running list command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occurred while running list command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occurred while running list command: " + e.getMessage());
 			logger.error("Error occurred while running list command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printResults(List<DataCenter> dcs, String message) throws IOException
 	{
+		if (!StructuredWriter.isTable())
+		{
+			StructuredWriter.printList(dcs);
+			return;
+		}
+		
 		System.out.println(message);
 		logger.debug("Printing DC list");
 		
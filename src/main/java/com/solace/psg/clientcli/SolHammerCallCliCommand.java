@@ -28,10 +28,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 import com.solace.psg.clientcli.sempv1.CliToSempHelper;
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
-import com.solace.psg.sempv2.ServiceManager;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -103,33 +103,17 @@ public class SolHammerCallCliCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-						
-			ServiceDetails sd = null;
-			if (excl != null && excl.serviceId != null)
-			{
-				sd = sm.getServiceDetails(excl.serviceId);
-			}
-			else if (excl != null && excl.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(excl.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = excl != null ? excl.serviceId : null;
+			String serviceName = excl != null ? excl.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null) 
 			{
 				ServiceManagementContext ctx = new ServiceManagementContext(sd);
@@ -152,10 +136,8 @@ public class SolHammerCallCliCommand implements Runnable
 				
 				String sempCommand = getCommand(process);
 				System.out.println("Executing command. Service SEMP v1 response: ");
-				String response = helper.executeCommand(ctx.getSempV1Url(), ctx.getSempUsername(), ctx.getSempPassword(), sempCommand);
-				System.out.println(response);
-				
-				System.exit(0);
+				helper.executeCommand(ctx.getSempV1Url(), ctx.getSempUsername(), ctx.getSempPassword(), sempCommand, System.out);
+				System.out.println();
 			}
 			else
 			{
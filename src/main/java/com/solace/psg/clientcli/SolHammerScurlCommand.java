@@ -24,12 +24,12 @@ import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
 import com.solace.psg.sempv2.apiclient.ApiException;
 
-import com.solace.psg.sempv2.ServiceManager;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -102,33 +102,17 @@ public class SolHammerScurlCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sf = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-						
-			ServiceDetails sd = null;
-			if (excl != null && excl.serviceId != null)
-			{
-				sd = sf.getServiceDetails(excl.serviceId);
-			}
-			else if (excl != null && excl.serviceName != null)
-			{
-				sd = sf.getServiceDetailsByName(excl.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sf.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sf.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = excl != null ? excl.serviceId : null;
+			String serviceName = excl != null ? excl.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null) 
 			{
 				ServiceManagementContext ctx = new ServiceManagementContext(sd);
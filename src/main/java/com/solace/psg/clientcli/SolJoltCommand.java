@@ -59,7 +59,8 @@ public class SolJoltCommand implements Runnable
 		}
 		catch (IOException e)
 		{
-			System.out.print("Ups! The vending machine seems broken!");
+			// Also an error status of the joke service, its error page is not printed as a joke.
+			System.out.println("Ups! The vending machine seems broken!");
 			logger.error("Error occurred: {}, {}", e.getMessage(), e.getCause());
 		}
 		
@@ -26,13 +26,13 @@ import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.admin.model.Subscription;
 import com.solace.psg.sempv2.apiclient.ApiException;
 import com.solace.psg.util.FileUtils;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
 
 import picocli.CommandLine.ArgGroup;
@@ -179,41 +179,25 @@ public class SolServiceBridgeCreateCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (local != null && local.localServiceId != null)
-			{
-				sd = sm.getServiceDetails(local.localServiceId);
-			}
-			else if (local != null && local.localServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(local.localServiceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = local != null ? local.localServiceId : null;
+			String serviceName = local != null ? local.localServiceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
 					
 			ServiceDetails rsd = null;
 			if (remote.remoteServiceId != null)
 			{
-				rsd = sm.getServiceDetails(remote.remoteServiceId);
+				rsd = resolver.getServiceDetails(remote.remoteServiceId);
 			}
 			else if (remote.remoteServiceName != null)
 			{
-				rsd = sm.getServiceDetailsByName(remote.remoteServiceName);
+				rsd = resolver.getServiceDetailsByName(remote.remoteServiceName);
 			}	
 			
 			if (sd != null && rsd != null)
@@ -20,7 +20,7 @@
 package com.solace.psg.clientcli;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.List;
 
@@ -29,16 +29,15 @@ import org.apache.logging.log4j.Logger;
 import org.apache.maven.shared.utils.StringUtils;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
 import com.solace.psg.sempv2.config.model.MsgVpnBridge;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
-import com.solace.psg.tablereporter.Block;
-import com.solace.psg.tablereporter.Board;
-import com.solace.psg.tablereporter.Table;
+import com.solace.psg.tablereporter.TableWriter;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -99,42 +98,27 @@ public class SolServiceBridgeListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing bridges:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing bridges:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
-			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
-				System.out.println("Service ID or service name was not provided.");
+				StructuredWriter.messages().println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				VpnManager vf = new VpnManager(sd);
@@ -144,23 +128,29 @@ public class SolServiceBridgeListCommand implements Runnable
 			}
 			else
 			{
-				System.out.println("No service found for the provided details.");
+				StructuredWriter.messages().println("No service found for the provided details.");
 			}
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occured while running bridge command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occured while running bridge command: " + e.getResponseBody());
 			logger.error("Error occured while running bridge command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running bridge command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running bridge command: " + e.getMessage());
 			logger.error("Error occured while running bridge command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printResults(List<MsgVpnBridge> bridges, String message) throws IOException
 	{
+		if (!StructuredWriter.isTable())
+		{
+			StructuredWriter.printList(bridges);
+			return;
+		}
+		
 		System.out.println(message);
 		logger.debug("Printing bridge list.");
 		
@@ -172,28 +162,15 @@ public class SolServiceBridgeListCommand implements Runnable
 		
 		List<String> headersList = Arrays.asList("Bridge name", "Enabled", "Virtual router", "Max TTL");
 
-		List<List<String>> rowsList = new ArrayList<List<String>>(bridges.size());
-
+		List<Integer> colWidthsList = Arrays.asList(25, 10, 20, 10);
+		
+		// Rows are written one by one instead of laying out the whole board first.
+		TableWriter writer = new TableWriter(new PrintWriter(System.out), headersList, colWidthsList).setAutoFlush(false);
 		for (MsgVpnBridge b : bridges)
 		{
-			rowsList.add(Arrays.asList(StringUtils.abbreviate(b.getBridgeName(), 23), "" + b.isEnabled(), b.getBridgeVirtualRouter().getValue(), "" + b.getMaxTtl()));
+			writer.writeRow(Arrays.asList(StringUtils.abbreviate(b.getBridgeName(), 23), "" + b.isEnabled(), b.getBridgeVirtualRouter().getValue(), "" + b.getMaxTtl()));
 		}
-		
-		List<Integer> colAlignList = Arrays.asList(Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT);
-		List<Integer> colWidthsListEdited = Arrays.asList(25, 10, 20, 10);
-		int width = Board.getRecommendedWidth(colWidthsListEdited, true);
-				
-		Board board = new Board(width);	
-		Table table = new Table(board, width, headersList, rowsList);		
-		table.setColWidthsList(colWidthsListEdited);
-		table.setColAlignsList(colAlignList);
-		
-		Block block = table.tableToBlocks();
-		//block.setBelowBlock(summaryBlock);
-		board.setInitialBlock(block);
-		
-		String tableString = board.build().getPreview();
-		System.out.println(tableString);
+		writer.finish();
 	}
 
 }
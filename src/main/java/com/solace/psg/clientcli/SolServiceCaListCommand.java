@@ -29,12 +29,12 @@ import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
 import com.solace.psg.sempv2.config.model.CertAuthority;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
 import com.solace.psg.tablereporter.Block;
 import com.solace.psg.tablereporter.Board;
@@ -108,33 +108,17 @@ public class SolServiceCaListCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
-			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				List<String> cas = sd.getCertificateAuthorities();
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 import com.solace.psg.sempv2.admin.model.ClientProfile;
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
@@ -105,33 +106,19 @@ public class SolServiceClientProfileCreateCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			ServiceManager sm = resolver.getServiceManager();
 			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
-			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				ClientProfile profile = new ClientProfile();
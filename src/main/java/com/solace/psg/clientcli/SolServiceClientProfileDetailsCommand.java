@@ -25,17 +25,16 @@ import java.io.IOException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
 
 import com.solace.psg.sempv2.config.model.MsgVpnClientProfile;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
 
 
@@ -103,42 +102,27 @@ public class SolServiceClientProfileDetailsCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Client profile details:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Client profile details:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
-			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
-			{
-				System.out.println("Service ID or service name was not provided.");
+				StructuredWriter.messages().println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				VpnManager vf = new VpnManager(sd);
@@ -148,28 +132,27 @@ public class SolServiceClientProfileDetailsCommand implements Runnable
 			}
 			else
 			{
-				System.out.println("No service found for the provided details.");
+				StructuredWriter.messages().println("No service found for the provided details.");
 			}
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occured while running client profile command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occured while running client profile command: " + e.getResponseBody());
 			logger.error("Error occured while running client profile command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running client profile command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running client profile command: " + e.getMessage());
 			logger.error("Error occured while running client profile command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printDetails(MsgVpnClientProfile cp, String message) throws IOException
 	{
-		System.out.println(message);
+		if (StructuredWriter.isTable())
+			System.out.println(message);
 		logger.debug("Printing client profile details.");
 		
-		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-		String yaml = mapper.writeValueAsString(cp);
-		System.out.println(yaml);
+		StructuredWriter.print(cp);
 	}
 }
@@ -20,7 +20,7 @@
 package com.solace.psg.clientcli;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.List;
 
@@ -29,17 +29,16 @@ import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
 
 import com.solace.psg.sempv2.config.model.MsgVpnClientProfile;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
-import com.solace.psg.tablereporter.Block;
-import com.solace.psg.tablereporter.Board;
-import com.solace.psg.tablereporter.Table;
+import com.solace.psg.tablereporter.TableWriter;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -100,42 +99,27 @@ public class SolServiceClientProfileListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing client profiles:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing client profiles:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
-			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
-				System.out.println("Service ID or service name was not provided.");
+				StructuredWriter.messages().println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				VpnManager vf = new VpnManager(sd);
@@ -145,50 +129,43 @@ public class SolServiceClientProfileListCommand implements Runnable
 			}
 			else
 			{
-				System.out.println("No service found for the provided details.");
+				StructuredWriter.messages().println("No service found for the provided details.");
 			}
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occured while running client profile command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occured while running client profile command: " + e.getResponseBody());
 			logger.error("Error occured while running client profile command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running client profile command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running client profile command: " + e.getMessage());
 			logger.error("Error occured while running client profile command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printResults(List<MsgVpnClientProfile> cps, String message) throws IOException
 	{
+		if (!StructuredWriter.isTable())
+		{
+			StructuredWriter.printList(cps);
+			return;
+		}
+		
 		System.out.println(message);
 		logger.debug("Printing client profile list.");
 		
 		List<String> headersList = Arrays.asList("Profile name", "Guar. Send", "Guar. Reci.", "Use Tx", "Bridge conn", "Allow create", "Max Ingress", "Max Egress", "Max subscr.", "Max Tx", "Max Sess Tx", "Max Conn Usr");
 
-		List<List<String>> rowsList = new ArrayList<List<String>>(cps.size());
-
+		List<Integer> colWidthsList = Arrays.asList(25, 11, 11, 10, 11, 12, 11, 11, 11, 9, 11, 12);
+		
+		// Rows are written one by one instead of laying out the whole board first.
+		TableWriter writer = new TableWriter(new PrintWriter(System.out), headersList, colWidthsList).setAutoFlush(false);
 		for (MsgVpnClientProfile cp : cps)
 		{
-			rowsList.add(Arrays.asList(cp.getClientProfileName(), "" + cp.isAllowGuaranteedMsgSendEnabled(), "" + cp.isAllowGuaranteedMsgReceiveEnabled(), "" + cp.isTlsAllowDowngradeToPlainTextEnabled(), "" + cp.isAllowBridgeConnectionsEnabled(), "" + cp.isAllowGuaranteedEndpointCreateEnabled(), "" + cp.getMaxIngressFlowCount(), "" + cp.getMaxEgressFlowCount(), "" + cp.getMaxSubscriptionCount(), "" + cp.getMaxTransactedSessionCount(), "" + cp.getMaxTransactionCount(), ""  + cp.getServiceSmfMaxConnectionCountPerClientUsername()));
+			writer.writeRow(Arrays.asList(cp.getClientProfileName(), "" + cp.isAllowGuaranteedMsgSendEnabled(), "" + cp.isAllowGuaranteedMsgReceiveEnabled(), "" + cp.isTlsAllowDowngradeToPlainTextEnabled(), "" + cp.isAllowBridgeConnectionsEnabled(), "" + cp.isAllowGuaranteedEndpointCreateEnabled(), "" + cp.getMaxIngressFlowCount(), "" + cp.getMaxEgressFlowCount(), "" + cp.getMaxSubscriptionCount(), "" + cp.getMaxTransactedSessionCount(), "" + cp.getMaxTransactionCount(), ""  + cp.getServiceSmfMaxConnectionCountPerClientUsername()));
 		}
-		
-		List<Integer> colAlignList = Arrays.asList(Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT);
-		List<Integer> colWidthsListEdited = Arrays.asList(25, 11, 11, 10, 11, 12, 11, 11, 11, 9, 11, 12);
-		int width = Board.getRecommendedWidth(colWidthsListEdited, true);
-				
-		Board board = new Board(width);	
-		Table table = new Table(board, width, headersList, rowsList);		
-		table.setColWidthsList(colWidthsListEdited);
-		table.setColAlignsList(colAlignList);
-		
-		Block block = table.tableToBlocks();
-		//block.setBelowBlock(summaryBlock);
-		board.setInitialBlock(block);
-		
-		String tableString = board.build().getPreview();
-		System.out.println(tableString);
+		writer.finish();
 	}
 
 }
@@ -42,9 +42,12 @@ import picocli.CommandLine.Option;
 		SolServiceConfigCommand.class,
 		SolServiceDeleteCommand.class,
 		SolServiceDetailsCommand.class,
+	    SolServiceExporterCommand.class,
 	    SolServiceListCommand.class,    
 	    SolServiceLogCommand.class,    
 	    SolServiceQueueCommand.class,
+	    SolServiceRecordCommand.class,
+	    SolServiceReplayCommand.class,
 	    SolServiceSetCommand.class,	      
 		SolServiceTypesCommand.class,
 		SolServiceUsernameCommand.class
@@ -78,9 +81,12 @@ public class SolServiceCommand implements Runnable
 	    System.out.println(" create   - Creates a service.");
 	    System.out.println(" delete   - Deteles a service.");
 	    System.out.println(" details  - Lists all service details for a service.");
+	    System.out.println(" exporter - Serves service metrics for Prometheus.");
 	    System.out.println(" list     - Lists all services for a Solace Cloud Console Account.");
 	    System.out.println(" log      - Shows service logs.");
 	    System.out.println(" queue    - Handles service queues.");
+	    System.out.println(" record   - Records service and queue metrics to a file.");
+	    System.out.println(" replay   - Queries a metrics recording.");
 	    System.out.println(" set      - Sets a service as the default service context by service name or service ID.");
 	    System.out.println(" types    - Displays available service types.");
 	    System.out.println(" username - Handles service usernames.");
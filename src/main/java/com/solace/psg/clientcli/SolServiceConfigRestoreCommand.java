@@ -29,6 +29,7 @@ import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
@@ -43,7 +44,6 @@ import com.solace.tools.solconfig.model.AttributeType;
 import com.solace.tools.solconfig.model.ConfigBroker;
 import com.solace.tools.solconfig.model.ConfigObject;
 
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
 
 import picocli.CommandLine.ArgGroup;
@@ -127,33 +127,17 @@ public class SolServiceConfigRestoreCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (excl != null && excl.serviceId != null)
-			{
-				sd = sm.getServiceDetails(excl.serviceId);
-			}
-			else if (excl != null && excl.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(excl.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = excl != null ? excl.serviceId : null;
+			String serviceName = excl != null ? excl.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				VpnManager vf = new VpnManager(sd);
@@ -25,6 +25,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 import com.solace.psg.sempv2.admin.model.Service;
 import com.solace.psg.sempv2.apiclient.ApiException;
 import com.solace.psg.sempv2.ServiceManager;
@@ -129,7 +130,10 @@ public class SolServiceDeleteCommand implements Runnable
 			}
 			
 			if (result)
+			{
+				ServiceResolver.getInstance().invalidate();
 				System.out.println("Service successfully deleted.");
+			}
 			else 
 				System.out.println("Service failed to delete. Switch to debug and check logs for more info.");
 		}
@@ -19,17 +19,17 @@
  */
 package com.solace.psg.clientcli;
 
+import java.io.IOException;
+
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 import com.solace.psg.sempv2.apiclient.ApiException;
-import com.solace.psg.sempv2.ServiceManager;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -90,66 +90,49 @@ public class SolServiceDetailsCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing service details:");
+			if (StructuredWriter.isTable())
+				System.out.println("Listing service details:");
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try to login first.");	
+				StructuredWriter.messages().println("Token is not set. Try to login first.");	
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			ServiceDetails sd = null;
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			if (exclusive != null && exclusive.serviceId != null)
-			{
-				sd = sm.getServiceDetails(exclusive.serviceId);			
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null && !ctxServiceId.isEmpty())
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null && !ctxServiceName.isEmpty())
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else 
-			{
-				System.out.println("No service ID or Name provided.");
+				StructuredWriter.messages().println("No service ID or Name provided.");
 				return;
 			}
 
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				printServiceDetails(sd);
 			}
 			else 
 			{
-				System.out.println("No service details available for the provided service ID or Name.");
+				StructuredWriter.messages().println("No service details available for the provided service ID or Name.");
 			}
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occurred while running service details command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occurred while running service details command: " + e.getResponseBody());
 			logger.error("Error occurred while running service details command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occurred while running service details command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occurred while running service details command: " + e.getMessage());
 			logger.error("Error occurred while running service details command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
-	private void printServiceDetails(ServiceDetails sd) throws JsonProcessingException
+	private void printServiceDetails(ServiceDetails sd) throws IOException
 	{
-		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-		String yaml = mapper.writeValueAsString(sd);
-		System.out.println(yaml);
+		StructuredWriter.print(sd);
 	}
 }
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.exporter.ExporterServer;
+import com.solace.psg.clientcli.exporter.MetricsCollector;
+
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+
+import com.solace.psg.sempv2.apiclient.ApiException;
+
+import com.solace.psg.sempv2.VpnManager;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command class to serve service metrics to Prometheus.
+ *
+ *
+ *
+ */
+@Command(name = "exporter", description = "Serves queue, client profile and bridge metrics for Prometheus.")
+public class SolServiceExporterCommand implements Runnable
+{
+	private static final Logger logger = LogManager.getLogger(SolServiceExporterCommand.class);
+
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+
+	@ArgGroup(exclusive = true, multiplicity = "0..1")
+    Exclusive exclusive;
+
+    static class Exclusive {
+        @Option(names = {"-serviceName", "-sn"}, required = true) String serviceName;
+        @Option(names = {"-serviceId", "-sid"}, required = true) String serviceId;
+    }
+
+	@Option(names = {"-port"}, defaultValue = "9628", description="Port to serve the metrics on. Default is 9628.")
+	private int port;
+
+	@Option(names = {"-bind"}, defaultValue = "0.0.0.0", description="Address to listen on. Default is all interfaces.")
+	private String bindAddress;
+
+	@Option(names = {"-cache"}, defaultValue = "10", description="Seconds the collected metrics are served to scrapes before they are collected again. Default is 10.")
+	private int cacheSeconds;
+
+	@Option(names = {"-qm", "-queueMetrics"}, description="Comma separated queue monitoring attributes to export. Default is all.")
+	private String queueMetrics;
+
+	@Option(names = {"-cm", "-cpMetrics"}, description="Comma separated client profile monitoring attributes to export. Default is all.")
+	private String clientProfileMetrics;
+
+	@Option(names = {"-bm", "-bridgeMetrics"}, description="Comma separated bridge monitoring attributes to export. Default is all.")
+	private String bridgeMetrics;
+
+	@Option(names = {"-w", "-where"}, description="Server side filter of the exported queues, e.g. queueName==orders*.")
+	private String where;
+
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolServiceExporterCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol service exporter [-port=<port>] \n");
+	    System.out.println(" exporter - serves the queue, client profile and bridge stats of a service on /metrics for Prometheus.");
+	    System.out.println(" -port          - port to listen on, default is 9628");
+	    System.out.println(" -bind          - address to listen on, default is all interfaces");
+	    System.out.println(" -cache         - seconds the metrics are cached between scrapes, default is 10");
+	    System.out.println(" -queueMetrics  - queue attributes to export, default is all");
+	    System.out.println(" -cpMetrics     - client profile attributes to export, default is all");
+	    System.out.println(" -bridgeMetrics - bridge attributes to export, default is all");
+	    System.out.println(" -where         - filter of the exported queues, e.g. queueName==orders*");
+
+	    System.out.println(" Example command: sol service exporter -port=9628 -queueMetrics=msgSpoolUsage,rxMsgRate,txMsgRate,bindCount");
+	}
+
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running service exporter command.");
+
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+
+		if (cacheSeconds < 0)
+		{
+			System.out.println("The cache parameter cannot be negative.");
+			return;
+		}
+
+		try
+		{
+			String token = ConfigurationManager.getInstance().getCloudAccountToken();
+			if (token == null || token.isEmpty() )
+			{
+				System.out.println("Token is not set. Try login first.");
+				return;
+			}
+
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
+			{
+				System.out.println("Service ID or service name was not provided.");
+				return;
+			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+
+			if (sd != null)
+			{
+				VpnManager vf = new VpnManager(sd);
+				MetricsCollector collector = new MetricsCollector(vf.getDefaultVpnContext(), queueMetrics, where, clientProfileMetrics, bridgeMetrics);
+				ExporterServer server = new ExporterServer(collector, cacheSeconds * 1000L);
+				server.start(new InetSocketAddress(bindAddress, port));
+
+				System.out.println("Serving metrics on http://" + bindAddress + ":" + port + "/metrics. Press Ctrl+C to stop.");
+
+				// The server threads serve the scrapes until the process is stopped.
+				CountDownLatch stopped = new CountDownLatch(1);
+				Runtime.getRuntime().addShutdownHook(new Thread(() ->
+				{
+					server.stop();
+					stopped.countDown();
+				}));
+				stopped.await();
+			}
+			else
+			{
+				System.out.println("No service found for the provided details.");
+			}
+		}
+		catch (ApiException e)
+		{
+			System.out.println("Error occured while running exporter command: " + e.getResponseBody());
+			logger.error("Error occured while running exporter command: {}", e.getResponseBody());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running exporter command: " + e.getMessage());
+			logger.error("Error occured while running exporter command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+}
@@ -30,6 +30,7 @@ import org.apache.logging.log4j.Logger;
 import org.apache.maven.shared.utils.StringUtils;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 import com.solace.psg.sempv2.admin.model.Service;
 import com.solace.psg.sempv2.apiclient.ApiException;
 import com.solace.psg.sempv2.ServiceManager;
@@ -94,12 +95,13 @@ public class SolServiceListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing services:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing services:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try to login first.");	
+				StructuredWriter.messages().println("Token is not set. Try to login first.");	
 				return;
 			}
 			
@@ -117,7 +119,7 @@ public class SolServiceListCommand implements Runnable
 			{
 				String userId = ConfigurationManager.getInstance().getCloudAccountUserId();
 				if (userId.isEmpty())
-					System.out.println("Current user Id is empty or not set. Ignoring '-mine' option.");
+					StructuredWriter.messages().println("Current user Id is empty or not set. Ignoring '-mine' option.");
 				else
 					services = services.stream().filter(service -> service.getUserId().contentEquals(userId)).collect(Collectors.toList());;
 			}
@@ -126,18 +128,24 @@ public class SolServiceListCommand implements Runnable
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occured while running list command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occured while running list command: " + e.getResponseBody());
 			logger.error("Error occured while running list command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running list command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running list command: " + e.getMessage());
 			logger.error("Error occured while running list command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printResults(List<Service> services, String message) throws IOException
 	{
+		if (!StructuredWriter.isTable())
+		{
+			StructuredWriter.printList(services);
+			return;
+		}
+		
 		System.out.println(message);
 		logger.debug("Printing service list");
 		
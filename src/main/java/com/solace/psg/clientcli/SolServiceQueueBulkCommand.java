@@ -0,0 +1,237 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.sempv2.apiclient.ApiException;
+import com.solace.psg.util.provision.QueueManifest;
+import com.solace.psg.util.provision.QueueProvisioner;
+import com.solace.psg.util.provision.QueueSpec;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Command class to create the queues of a YAML or CSV manifest.
+ * 
+ * 
+ *
+ */
+@Command(name = "bulk", description = "Creates the queues of a manifest.")
+public class SolServiceQueueBulkCommand implements Runnable 
+{
+	private static final Logger logger = LogManager.getLogger(SolServiceQueueBulkCommand.class);
+	
+	private static final int PROGRESS_INTERVAL = 100;
+	
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+	
+	@ArgGroup(exclusive = true, multiplicity = "0..1")
+    Exclusive excl;
+
+    static class Exclusive {
+        @Option(names = {"-serviceName", "-sn"}, required = true) String serviceName;
+        @Option(names = {"-serviceId", "-sid"}, required = true) String serviceId;
+    }
+
+	@Parameters(index = "0", arity = "1", description="the YAML or CSV manifest file")
+	private String manifest;
+
+	@Option(names = {"-t", "-threads"} , defaultValue = "8",  description="Sets the number of concurrent requests. Default is 8.")
+	private int threads;	
+
+	@Option(names = {"-r", "-retries"} , defaultValue = "5",  description="Sets the number of retries of a request rejected with 429 or 503. Default is 5.")
+	private int retries;	
+
+	@Option(names = {"-q", "-quota"} , defaultValue = ClientCliGlobals.DEFAULT_QUEUE_QUOTA,  description="Sets the quota in Mb of queues without a quota. Default is 5000 Mb.")
+	private long quota;	
+
+	@Option(names = {"-mt", "-maxTtl"} , defaultValue = ClientCliGlobals.DEFAULT_QUEUE_TTL,  description="Sets the maximum TTL of queues without a maximum TTL. Default is 0.")
+	private long maxTtl;	
+
+	@Option(names = {"-dr", "-dryRun"} , defaultValue = "false",  description="Only shows which queues would be created. Default is false.")
+	private boolean dryRun;	
+
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolServiceQueueBulkCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol service queue bulk <manifest> [-threads=<count>] [-retries=<count>] [-q=<default quota>] [-mt=<default max TTL>] [-dryRun] \n");
+	    System.out.println(" bulk - Creates the queues of a YAML or CSV manifest, existing queues are left unchanged apart from adding their missing subscriptions.");
+	    System.out.println(" A YAML manifest lists queues with name, accessType (exclusive|non-exclusive), quota, maxTtl, respectTtl, dmq and subscriptions.");
+	    System.out.println(" A CSV manifest has a header row with the same columns, subscriptions are separated by ';'.");
+
+	    System.out.println(" Example command: sol service queue bulk queues.yaml -threads=16");
+	    System.out.println(" Example command: sol service queue bulk queues.csv -serviceName=myservice -dryRun");
+	}
+	
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running queue bulk command.");
+		
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+		
+		try
+		{
+			List<QueueSpec> specs = QueueManifest.load(Paths.get(manifest));
+			
+			String token = ConfigurationManager.getInstance().getCloudAccountToken();
+			if (token == null || token.isEmpty() )
+			{
+				System.out.println("Token is not set. Try login first.");	
+				return;
+			}
+			
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = excl != null ? excl.serviceId : null;
+			String serviceName = excl != null ? excl.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
+			{
+				System.out.println("Service ID or service name was not provided.");
+				return;
+			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
+			if (sd == null)
+			{
+				System.out.println("No service found for the provided details.");
+				return;
+			}
+			
+			QueueProvisioner provisioner = new QueueProvisioner(sd, quota, maxTtl);
+			provisioner.setThreads(threads);
+			provisioner.setRetries(retries);
+			
+			QueueProvisioner.Plan plan = provisioner.plan(specs);
+			printPlan(specs.size(), plan);
+			
+			if (dryRun || (plan.getToCreate().isEmpty() && plan.getMissingSubscriptions().isEmpty()))
+				return;
+			
+			int total = plan.getToCreate().size();
+			AtomicInteger done = new AtomicInteger();
+			long start = System.nanoTime();
+			
+			List<QueueProvisioner.Result> results = provisioner.provision(plan.getToCreate(), result -> 
+			{
+				int count = done.incrementAndGet();
+				if (count % PROGRESS_INTERVAL == 0 && count < total)
+					System.out.println("Created " + count + " of " + total + " queues...");
+			});
+			
+			if (!results.isEmpty())
+				printResults(results, System.nanoTime() - start);
+			
+			if (!plan.getMissingSubscriptions().isEmpty())
+			{
+				start = System.nanoTime();
+				printSubscriptionResults(provisioner.addSubscriptions(plan.getMissingSubscriptions(), null), System.nanoTime() - start);
+			}
+		}
+		catch (ApiException e)
+		{
+			System.out.println("Error occured while running command: " + e.getResponseBody());
+			logger.error("Error occured while running command: {}", e.getResponseBody());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running  command: " + e.getMessage());
+			logger.error("Error occured while running  command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+	
+	private void printPlan(int count, QueueProvisioner.Plan plan)
+	{
+		System.out.println("Manifest lists " + count + " queues: " + plan.getToCreate().size() + " to create, " + plan.getExisting().size() + " already exist.");
+		
+		for (Map.Entry<String, String> entry : plan.getDifferences().entrySet())
+			System.out.println(" Existing queue " + entry.getKey() + " differs from the manifest and is left unchanged: " + entry.getValue());
+		
+		if (dryRun)
+		{
+			for (QueueSpec spec : plan.getToCreate())
+				System.out.println(" Would create queue " + spec.getName() + (spec.getSubscriptions().isEmpty() ? "" : " with " + spec.getSubscriptions().size() + " subscriptions"));
+			for (Map.Entry<String, List<String>> entry : plan.getMissingSubscriptions().entrySet())
+				System.out.println(" Would add " + entry.getValue().size() + " subscriptions to existing queue " + entry.getKey() + ": " + String.join(", ", entry.getValue()));
+		}
+	}
+	
+	private void printSubscriptionResults(List<QueueProvisioner.Result> results, long elapsed)
+	{
+		int failed = 0;
+		for (QueueProvisioner.Result result : results)
+		{
+			if (!result.isSuccess())
+			{
+				failed++;
+				System.out.println(" Failed to add subscriptions to queue " + result.getName() + ": " + result.getError());
+			}
+		}
+		
+		System.out.println("Added missing subscriptions to " + (results.size() - failed) + " of " + results.size() + " existing queues in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms, " + failed + " failed.");
+	}
+	
+	private void printResults(List<QueueProvisioner.Result> results, long elapsed)
+	{
+		int failed = 0;
+		int retried = 0;
+		for (QueueProvisioner.Result result : results)
+		{
+			retried += result.getRetries();
+			if (!result.isSuccess())
+			{
+				failed++;
+				System.out.println(" Failed to create queue " + result.getName() + ": " + result.getError());
+			}
+		}
+		
+		System.out.println("Created " + (results.size() - failed) + " of " + results.size() + " queues in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms with " + retried + " retries, " + failed + " failed.");
+	}
+}
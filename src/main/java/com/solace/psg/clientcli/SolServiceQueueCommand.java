@@ -34,13 +34,17 @@ import picocli.CommandLine.Option;
  *
  */
 @Command(name = "queue", description = "Handles queue operations.", subcommands = {
+	    SolServiceQueueBulkCommand.class,
 	    SolServiceQueueCopyCommand.class,
 	    SolServiceQueueCreateCommand.class,
 	    SolServiceQueueDeleteCommand.class,
 	    SolServiceQueueDetailsCommand.class,
+	    SolServiceQueueExportCommand.class,
+	    SolServiceQueueImportCommand.class,
 	    SolServiceQueueListCommand.class,
 	    SolServiceQueuePurgeCommand.class,
-	    SolServiceQueueStatsCommand.class
+	    SolServiceQueueStatsCommand.class,
+	    SolServiceQueueTopCommand.class
 })
 public class SolServiceQueueCommand implements Runnable 
 {
@@ -62,11 +66,15 @@ public class SolServiceQueueCommand implements Runnable
 	private void showHelp()
 	{
 	    System.out.println(" sol service queue: ");
+	    System.out.println(" bulk    - Creates the queues of a manifest.");
 	    System.out.println(" copy    - Copies messages from a queue to another.");
 	    System.out.println(" create  - Creates a queue.");
 	    System.out.println(" delete  - Deteles a queue.");
 	    System.out.println(" details - Details of a queue.");
+	    System.out.println(" export  - Exports messages of a queue to a file.");
+	    System.out.println(" import  - Imports messages from a file to a queue.");
 	    System.out.println(" stats   - Statistics for a queue.");
+	    System.out.println(" top     - Shows the busiest queues.");
 	    System.out.println(" list    - Lists all queues.");
 	    System.out.println(" purge   - Purges messages from a queue.");
 
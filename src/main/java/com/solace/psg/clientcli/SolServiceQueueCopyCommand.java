@@ -19,20 +19,37 @@
  */
 package com.solace.psg.clientcli;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.SempPager;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
 import com.solace.psg.sempv2.apiclient.ApiException;
+import com.solace.psg.sempv2.config.model.MsgVpnQueue;
 
 
+import com.solace.psg.util.queuecopy.CopyCheckpoint;
+import com.solace.psg.util.queuecopy.MultiQueueCopy;
+import com.solace.psg.util.queuecopy.PublishThrottle;
 import com.solace.psg.util.queuecopy.SimpleQueueCopy;
 import com.solace.psg.util.queuecopy.VPN;
-import com.solace.psg.sempv2.ServiceManager;
+import com.solace.psg.sempv2.VpnManager;
 
 
 import picocli.CommandLine.ArgGroup;
@@ -51,6 +68,11 @@ public class SolServiceQueueCopyCommand implements Runnable
 {
 	private static final Logger logger = LogManager.getLogger(SolServiceQueueCopyCommand.class);
 	
+	/**
+	 * Progress display refresh interval in milliseconds.
+	 */
+	private static final long PROGRESS_INTERVAL = 1000;
+	
 	@Option(names = {"-h", "-help"})
 	private boolean help;
 	
@@ -108,6 +130,69 @@ public class SolServiceQueueCopyCommand implements Runnable
 	@Option(names = {"-ttl"}, description = "Sets a TTL value for all messages to be processed.")
 	private long ttl;	
 
+    @Option(names = {"-pl", "-pipelined"}, description = "Uses the pipelined copy engine with batched publishing and acknowledgement on publish confirmation.", defaultValue = "false", arity = "0..1") 
+    private boolean pipelined;
+
+    @Option(names = {"-d", "-drain"}, description = "Copies the messages currently spooled on the source queue and finishes as soon as it is empty. -mn is optional and limits the count.", defaultValue = "false", arity = "0..1") 
+    private boolean drain;
+
+	@Option(names = {"-sel", "-selector"}, description = "JMS-style selector evaluated by the broker, e.g. \"region = 'EU'\"")
+	private String selector;	
+
+	@Option(names = {"-from"}, description = "copies only messages with a sender timestamp at or after this time, as ISO-8601 instant or epoch milliseconds")
+	private String fromTime;	
+
+	@Option(names = {"-to"}, description = "copies only messages with a sender timestamp at or before this time, as ISO-8601 instant or epoch milliseconds")
+	private String toTime;	
+
+	@Option(names = {"-fromId"}, description = "copies only messages with a replication group message ID at or after this ID, e.g. rmid1:0d77c-b0b2e66aece-00000000-00000001")
+	private String fromMessageId;	
+
+	@Option(names = {"-toId"}, description = "copies only messages with a replication group message ID at or before this ID")
+	private String toMessageId;	
+
+	@Option(names = {"-pw", "-publishWindow"}, description = "number of messages published without a confirmation from the remote service [1..255]. Default is 255.")
+	private Integer publishWindow;	
+
+	@Option(names = {"-mr", "-maxRetries"}, description = "number of times a message rejected by the remote service is re-published. Default is 3.")
+	private Integer maxRetries;	
+
+	@Option(names = {"-pq", "-parkQueue"}, description = "remote queue for messages which could not be published to the remote queue. By default they are left on the local queue.")
+	private String parkQueueName;	
+
+	@Option(names = {"-lqs", "-localQueues"}, split = ",", description = "comma separated list of local queue names, each optionally mapped to a remote queue as <local>=<remote>")
+	private List<String> localQueueNames;	
+
+	@Option(names = {"-lqw", "-localQueueWildcard"}, description = "wildcard of local queue names to copy, e.g. orders.*")
+	private String localQueueWildcard;	
+
+	@Option(names = {"-rqp", "-remoteQueuePattern"}, description = "remote queue name pattern for multiple queues, where {queue} is replaced by the local queue name. Default is the local queue name.")
+	private String remoteQueuePattern;	
+
+	@Option(names = {"-w", "-workers"}, description = "number of queues copied concurrently. Default is 4.", defaultValue = "4")
+	private int workers;	
+
+	@Option(names = {"-bs", "-batchSize"}, description = "Publish batch size for the pipelined copy engine [1..50]. Default is 50.")
+	private Integer batchSize;	
+
+	@Option(names = {"-rate"}, description = "maximum publish rate in messages per second. Default is unlimited.")
+	private double rate;	
+
+	@Option(names = {"-bandwidth"}, description = "maximum publish rate in bytes per second. Default is unlimited.")
+	private long bandwidth;	
+
+	@Option(names = {"-cp", "-checkpoint"}, description = "checkpoint file recording the progress of a single queue copy")
+	private String checkpointFileName;	
+
+	@Option(names = {"-cpi", "-checkpointInterval"}, description = "number of copied messages between checkpoints. Default is 1000.", defaultValue = "1000")
+	private int checkpointInterval;	
+
+    @Option(names = {"-resume"}, description = "Resumes the copy recorded in the checkpoint file", defaultValue = "false", arity = "0..1") 
+    private boolean resume;
+
+    @Option(names = {"-adaptive"}, description = "Backs off when the remote publish window is full or the remote spool is over quota", defaultValue = "false", arity = "0..1") 
+    private boolean adaptive;
+
     /**
 	 * Initialises a new instance of the class.
 	 */
@@ -125,8 +210,24 @@ public class SolServiceQueueCopyCommand implements Runnable
 	    System.out.println(" Example command: sol service queue copy [-ln=<localServiceName>] -lq=<localQueueName> -lu=<local username> -lp=<local password> -rn=<remoteServiceName> -rq=<remoteQueueName> -ru=<remote username> -rp=<remote password> -mn=<message number to copy> [-r]");
 	    System.out.println(" Example command: sol service queue copy -lq=<source queue name> -rq=<target queue name> -mn=<message number>\n");
 	    System.out.println(" Example command: sol service queue copy -lq=<source queue name> -rq=<target queue name> -mn=<message number> -dmq -ttl=<ttl value> \n");
+	    System.out.println(" Example command: sol service queue copy -lq=<source queue name> -rq=<target queue name> -mn=<message number> -pl [-bs=<batch size>] \n");
 	    System.out.println(" When -r | -remove is used, messages are removed from the source queue, which makes this a move operation.");
+	    System.out.println(" Example command: sol service queue copy -lqw=<local queue wildcard> [-rqp=<remote queue pattern>] -rn=<remoteServiceName> -mn=<message number per queue> [-w=<workers>] -r \n");
+	    System.out.println(" Example command: sol service queue copy -lqs=<queue1>,<queue2>=<remote queue2> -rn=<remoteServiceName> -mn=<message number per queue> \n");
+	    System.out.println(" When -d | -drain is used, the message number is the number of messages currently on the queue and the copy finishes as soon as the source queue is empty.");
+	    System.out.println(" Example command: sol service queue copy -lq=<source queue name> -rq=<target queue name> -mn=<message number> -sel=\"region = 'EU'\" -from=2022-03-01T10:00:00Z -to=2022-03-01T11:00:00Z \n");
+	    System.out.println(" When -sel, -from, -to, -fromId or -toId is used, messages are filtered by the broker where possible and a copy browses the source queue without consuming it.");
+	    System.out.println(" -fromId and -toId take replication group message IDs (rmid1:...). The source queue is browsed from its start, a move removes only the messages in the range.");
+	    System.out.println(" When -lqs or -lqw is used, the queues are copied concurrently over one shared session per service using the pipelined engine.");
+	    System.out.println(" A queue cannot be copied onto itself: without -rn, set -rq or -rqp to other queue names.");
+	    System.out.println(" Messages are removed from the source queue only after the remote service confirmed them. Rejected messages are re-published -mr times and then moved to the -pq park queue, or left on the source queue.");
 	    System.out.println(" When -dmq is used, messages' DMQ eligible flag will be set to true.");
+	    System.out.println(" When -pl | -pipelined is used, messages are received asynchronously and published in batches. Source messages are acknowledged only after the target confirms them.");
+	    System.out.println(" Example command: sol service queue copy -r -lq=<source queue name> -rq=<target queue name> -mn=<message number> -rate=<msgs/s> [-bandwidth=<bytes/s>] [-adaptive] \n");
+	    System.out.println(" When -rate or -bandwidth is used, publishing is paced. When -adaptive is used, the copy backs off while the remote publish window is full or the remote spool is over quota.");
+	    System.out.println(" Example command: sol service queue copy -r -lq=<source queue name> -rq=<target queue name> -mn=<message number> -cp=<checkpoint file> [-cpi=<checkpoint interval>] \n");
+	    System.out.println(" Example command: sol service queue copy -cp=<checkpoint file> -resume [-rn=<remoteServiceName>] \n");
+	    System.out.println(" When -cp | -checkpoint is used, the progress is saved to the file every -cpi messages. -resume continues the recorded copy with its queues and settings.");
 	    System.out.println(" When remote service name or Id is not specified, the copy operation works only on one broker.");
 	}
 	
@@ -145,6 +246,25 @@ public class SolServiceQueueCopyCommand implements Runnable
 		
 		try
 		{
+			CopyCheckpoint checkpoint = null;
+			if (resume)
+			{
+				if (checkpointFileName == null)
+				{
+					System.out.println("A checkpoint file is required to resume a copy. Use -cp=<file>.");
+					return;
+				}
+				
+				checkpoint = CopyCheckpoint.load(Paths.get(checkpointFileName));
+				if (checkpoint.isCompleted())
+				{
+					System.out.println("The copy recorded in " + checkpointFileName + " has already completed.");
+					return;
+				}
+				
+				applyCheckpoint(checkpoint);
+			}
+			
 			if (remove)
 				System.out.println("Moving messages:");	
 			else
@@ -157,43 +277,27 @@ public class SolServiceQueueCopyCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (local != null && local.localServiceId != null)
-			{
-				sd = sm.getServiceDetails(local.localServiceId);
-			}
-			else if (local != null && local.localServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(local.localServiceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = local != null ? local.localServiceId : null;
+			String serviceName = local != null ? local.localServiceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
 					
 			ServiceDetails rsd = null;
 			if (remote == null)
 				rsd = sd;
 			else if (remote.remoteServiceId != null)
 			{
-				rsd = sm.getServiceDetails(remote.remoteServiceId);
+				rsd = resolver.getServiceDetails(remote.remoteServiceId);
 			}
 			else if (remote.remoteServiceName != null)
 			{
-				rsd = sm.getServiceDetailsByName(remote.remoteServiceName);
+				rsd = resolver.getServiceDetailsByName(remote.remoteServiceName);
 			}
 			
 			if (sd != null && rsd != null)
@@ -224,30 +328,72 @@ public class SolServiceQueueCopyCommand implements Runnable
 					remoteVpn.setPassword(remoteQueuePassword);
 				}
 				
-				SimpleQueueCopy sqc = new SimpleQueueCopy(localVpn, remoteVpn, localQueueName, remoteQueueName, messageNumber, remove);
+				if (checkpoint != null && (!localVpn.getName().equals(checkpoint.getSourceVpnName()) || !remoteVpn.getName().equals(checkpoint.getTargetVpnName())))
+				{
+					System.out.println("The services do not match the checkpoint VPNs " + checkpoint.getSourceVpnName() + " and " + checkpoint.getTargetVpnName() + ".");
+					return;
+				}
+				
+				if (localQueueNames != null || localQueueWildcard != null)
+				{
+					if (checkpointFileName != null)
+						System.out.println("Checkpoints are supported for single queue copies only and are ignored.");
+					copyQueues(sd, localVpn, remoteVpn);
+					return;
+				}
+				
+				if (MultiQueueCopy.isSameQueue(localVpn, localQueueName, remoteVpn, remoteQueueName))
+				{
+					System.out.println("Queue " + localQueueName + " cannot be copied onto itself. Set another remote queue or remote service.");
+					return;
+				}
+				
+				long count = messageNumber;
+				if (drain)
+				{
+					long depth = getQueueDepth(createMessagePager(lsc), localQueueName);
+					if (depth == 0)
+					{
+						System.out.println("No messages spooled on queue " + localQueueName + ".");
+						return;
+					}
+					count = messageNumber > 0 ? Math.min(messageNumber, depth) : depth;
+				}
+				
+				SimpleQueueCopy sqc = new SimpleQueueCopy(localVpn, remoteVpn, localQueueName, remoteQueueName, count, remove);
+				sqc.setDrain(drain);
+				sqc.setSelector(selector);
+				sqc.setTimeRange(parseTime(fromTime), parseTime(toTime));
+				sqc.setMessageIdRange(fromMessageId, toMessageId);
 				sqc.setDmqEligible(dmq);
 				sqc.setTtl(ttl);
+				sqc.setPipelined(pipelined);
+				if (batchSize != null)
+					sqc.setBatchSize(batchSize);
+				if (publishWindow != null)
+					sqc.setWindowSize(publishWindow);
+				if (maxRetries != null)
+					sqc.setMaxRetries(maxRetries);
+				sqc.setParkQueueName(parkQueueName);
+				sqc.setThrottle(createThrottle());
+				if (checkpointFileName != null)
+					sqc.setCheckpoint(Paths.get(checkpointFileName), checkpointInterval);
+				if (checkpoint != null)
+					sqc.resume(checkpoint);
 				
 				Thread thread = new Thread(sqc);
 				thread.start();			
 
-				
-				while (sqc.getStatus() != SimpleQueueCopy.STATUS_COMPLETED && sqc.getStatus() != SimpleQueueCopy.STATUS_ERRORED)
-				{
-					if (sqc.getStatus() == SimpleQueueCopy.STATUS_INITIALIZING)
-						System.out.print("Initializing the copy process.");
-
-					Thread.sleep(1000);
-					if (sqc.getStatus() == SimpleQueueCopy.STATUS_PROCESSING)
-						System.out.print(".");
-				}
+				System.out.print("Initializing the copy process.");
+				waitForCompletion(sqc);
 				
 				System.out.println("");
+				if (sqc.getMessagesParked() > 0)
+					System.out.println(sqc.getMessagesParked() + " messages could not be published and were parked on queue " + parkQueueName + ".");
+				if (sqc.getMessagesFailed() > 0)
+					System.out.println(sqc.getMessagesFailed() + " messages could not be published and were left on the source queue.");
 				if ((sqc.getStatus() == SimpleQueueCopy.STATUS_COMPLETED))
-					if (remove)
-						System.out.println(sqc.getMessagesCopied() + " messages moved successfully.");
-					else
-						System.out.println(sqc.getMessagesCopied() + " messages copied successfully.");
+					System.out.println(String.format("%d messages %s successfully in %.1f s.", sqc.getMessagesCopied(), remove ? "moved" : "copied", sqc.getElapsedMillis() / 1000.0));
 				else
 					System.out.println("Error copying messages. Check logs for more details.");	
 			}
@@ -267,4 +413,230 @@ public class SolServiceQueueCopyCommand implements Runnable
 			logger.error("Error occured while running  command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
+	
+	/**
+	 * Restores the queues and settings of the copy recorded in a checkpoint.
+	 * @param checkpoint the checkpoint
+	 */
+	private void applyCheckpoint(CopyCheckpoint checkpoint)
+	{
+		localQueueName = checkpoint.getSourceQueueName();
+		remoteQueueName = checkpoint.getTargetQueueName();
+		localQueueNames = null;
+		localQueueWildcard = null;
+		messageNumber = checkpoint.getMessageCount();
+		remove = checkpoint.isMove();
+		drain = false;
+		selector = checkpoint.getSelector();
+		fromTime = checkpoint.getFromTime() != null ? checkpoint.getFromTime().toString() : null;
+		toTime = checkpoint.getToTime() != null ? checkpoint.getToTime().toString() : null;
+		fromMessageId = checkpoint.getFromMessageId();
+		toMessageId = checkpoint.getToMessageId();
+		dmq = checkpoint.isDmqEligible();
+		ttl = checkpoint.getTtl();
+		
+		System.out.println(String.format("Resuming %s of queue %s to %s after %d of %d messages.", remove ? "move" : "copy", 
+				localQueueName, remoteQueueName, checkpoint.getMessagesCopied(), messageNumber));
+	}
+	
+	/**
+	 * Creates the publish throttle from the rate options.
+	 * @return the throttle or null if no limit is set
+	 */
+	private PublishThrottle createThrottle()
+	{
+		if (rate <= 0 && bandwidth <= 0 && !adaptive)
+			return null;
+		
+		return new PublishThrottle(Math.max(0, rate), Math.max(0, bandwidth), adaptive);
+	}
+	
+	/**
+	 * Parses a time option given as ISO-8601 instant or as epoch milliseconds.
+	 * @param value the option value
+	 * @return epoch milliseconds or null if not set
+	 */
+	private Long parseTime(String value)
+	{
+		if (value == null || value.isEmpty())
+			return null;
+		
+		if (value.chars().allMatch(Character::isDigit))
+			return Long.valueOf(value);
+		
+		return Instant.parse(value).toEpochMilli();
+	}
+	
+	/**
+	 * Creates the pager counting the messages of a queue.
+	 * @param context the management context of the VPN
+	 * @return the pager
+	 */
+	private SempPager createMessagePager(ServiceManagementContext context)
+	{
+		SempPager pager = new SempPager(context);
+		pager.setSelect("msgId");
+		return pager;
+	}
+	
+	/**
+	 * Gets the number of messages currently spooled on a queue from its message collection. 
+	 * The spooledMsgCount of the queue stats is a cumulative count and not the depth.
+	 * @param pager the message pager
+	 * @param queueName the queue name
+	 * @return the message count
+	 * @throws IOException
+	 */
+	private long getQueueDepth(SempPager pager, String queueName) throws IOException
+	{
+		long depth = pager.countMonitor("queues", queueName, "msgs");
+		logger.debug("Queue {} has {} spooled messages.", queueName, depth);
+		
+		return depth;
+	}
+	
+	/**
+	 * Waits for the copy process to complete and renders the progress once per second.
+	 * @param sqc the copy process
+	 * @throws InterruptedException
+	 */
+	private void waitForCompletion(SimpleQueueCopy sqc) throws InterruptedException
+	{
+		long lastCount = 0;
+		long lastTime = System.currentTimeMillis();
+		
+		while (true)
+		{
+			try
+			{
+				sqc.getCompletion().get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+				return;
+			}
+			catch (ExecutionException e)
+			{
+				logger.debug("Copy process completed with error: {}", e.getMessage());
+				return;
+			}
+			catch (TimeoutException e)
+			{
+				if (sqc.getStatus() == SimpleQueueCopy.STATUS_PROCESSING)
+				{
+					long now = System.currentTimeMillis();
+					long count = sqc.getMessagesCopied();
+					long rate = (count - lastCount) * 1000 / Math.max(1L, now - lastTime);
+					System.out.print(String.format("\r%d messages processed, %d msg/s.        ", count, rate));
+					
+					lastCount = count;
+					lastTime = now;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Copies multiple queues concurrently.
+	 * @param sd the local service details
+	 * @param localVpn the local VPN
+	 * @param remoteVpn the remote VPN
+	 * @throws Exception
+	 */
+	private void copyQueues(ServiceDetails sd, VPN localVpn, VPN remoteVpn) throws Exception
+	{
+		Map<String, String> queueMapping = new LinkedHashMap<String, String>();
+		if (localQueueNames != null)
+		{
+			for (String name : localQueueNames)
+			{
+				int index = name.indexOf('=');
+				if (index > 0)
+					queueMapping.put(name.substring(0, index), name.substring(index + 1));
+				else
+					queueMapping.put(name, MultiQueueCopy.getTargetQueueName(remoteQueuePattern, name));
+			}
+		}
+		
+		if (localQueueWildcard != null)
+		{
+			VpnManager vf = new VpnManager(sd);
+			List<MsgVpnQueue> queues = vf.listQueues();
+			for (MsgVpnQueue q : queues)
+			{
+				String name = q.getQueueName();
+				if (MultiQueueCopy.matches(name, localQueueWildcard) && !queueMapping.containsKey(name))
+					queueMapping.put(name, MultiQueueCopy.getTargetQueueName(remoteQueuePattern, name));
+			}
+		}
+		
+		List<String> sameQueues = new ArrayList<String>();
+		for (Map.Entry<String, String> entry : queueMapping.entrySet())
+		{
+			if (MultiQueueCopy.isSameQueue(localVpn, entry.getKey(), remoteVpn, entry.getValue()))
+				sameQueues.add(entry.getKey());
+		}
+		if (!sameQueues.isEmpty())
+		{
+			System.out.println("Queues " + String.join(", ", sameQueues) + " cannot be copied onto themselves. Use -rqp to map them to other queues or -rn to copy them to another service.");
+			return;
+		}
+		
+		Map<String, Long> messageCounts = null;
+		if (drain)
+		{
+			SempPager pager = createMessagePager(new ServiceManagementContext(sd));
+			messageCounts = new LinkedHashMap<String, Long>();
+			for (String name : new ArrayList<String>(queueMapping.keySet()))
+			{
+				long depth = getQueueDepth(pager, name);
+				if (depth == 0)
+					queueMapping.remove(name);
+				else
+					messageCounts.put(name, messageNumber > 0 ? Math.min(messageNumber, depth) : depth);
+			}
+		}
+		
+		if (queueMapping.isEmpty())
+		{
+			System.out.println("No queues with messages found for the provided names or wildcard.");
+			return;
+		}
+		
+		System.out.println("Processing " + queueMapping.size() + " queues with " + workers + " workers...");
+		
+		MultiQueueCopy mqc = new MultiQueueCopy(localVpn, remoteVpn, queueMapping, messageNumber, remove);
+		mqc.setParallelism(workers);
+		mqc.setDrain(drain);
+		mqc.setSelector(selector);
+		mqc.setTimeRange(parseTime(fromTime), parseTime(toTime));
+		mqc.setMessageIdRange(fromMessageId, toMessageId);
+		mqc.setMessageCounts(messageCounts);
+		mqc.setDmqEligible(dmq);
+		mqc.setTtl(ttl);
+		if (batchSize != null)
+			mqc.setBatchSize(batchSize);
+		if (publishWindow != null)
+			mqc.setWindowSize(publishWindow);
+		if (maxRetries != null)
+			mqc.setMaxRetries(maxRetries);
+		mqc.setParkQueueName(parkQueueName);
+		mqc.setThrottle(createThrottle());
+		
+		mqc.copy();
+		
+		int failed = 0;
+		for (SimpleQueueCopy sqc : mqc.getCopies())
+		{
+			String result = sqc.getStatus() == SimpleQueueCopy.STATUS_COMPLETED ? sqc.getMessagesCopied() + " messages" : "failed";
+			if (sqc.getMessagesParked() > 0 || sqc.getMessagesFailed() > 0)
+				result += ", " + sqc.getMessagesParked() + " parked, " + sqc.getMessagesFailed() + " left on source";
+			if (sqc.getStatus() != SimpleQueueCopy.STATUS_COMPLETED)
+				failed++;
+			System.out.println(" " + sqc.getSourceQueueName() + " -> " + sqc.getTargetQueueName() + ": " + result);
+		}
+		
+		System.out.println(String.format("%d messages (%d bytes) %s from %d queues in %.1f s: %.0f msg/s, %.0f bytes/s.", 
+				mqc.getMessagesCopied(), mqc.getBytesCopied(), remove ? "moved" : "copied", mqc.getCopies().size(), 
+				mqc.getElapsedMillis() / 1000.0, mqc.getMessageRate(), mqc.getByteRate()));
+		if (failed > 0)
+			System.out.println("Error copying " + failed + " queues. Check logs for more details.");
+	}
 }
@@ -0,0 +1,181 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli;
+
+import java.nio.file.Paths;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
+import com.solace.psg.sempv2.apiclient.ApiException;
+import com.solace.psg.util.queuecopy.QueueImport;
+import com.solace.psg.util.queuecopy.VPN;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Command class to handle queue import.
+ * 
+ * 
+ *
+ */
+@Command(name = "import", description = "Imports queue messages from a file.")
+public class SolServiceQueueImportCommand implements Runnable 
+{
+	private static final Logger logger = LogManager.getLogger(SolServiceQueueImportCommand.class);
+	
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+	
+	@ArgGroup(exclusive = true, multiplicity = "0..1")
+    Exclusive exclusive;
+
+    static class Exclusive {
+        @Option(names = {"-serviceName", "-sn"}, required = true) String serviceName;
+        @Option(names = {"-serviceId", "-sid"}, required = true) String serviceId;
+    }
+    
+	@Parameters(index = "0", arity = "1", description="the queue name")
+	private String queueName;
+	
+	@Option(names = {"-f", "-file"}, required = true, description = "archive file")
+	private String fileName;	
+
+	@Option(names = {"-u", "-username"}, arity = "0..1", description = "queue username")
+	private String username;	
+	
+	@Option(names = {"-p", "-password"}, arity = "0..1", description = "queue password")
+	private String password;	
+
+    @Option(names = {"-s", "-secure"}, description = "Connect securely", defaultValue = "true", arity = "0..1") 
+    private boolean secure;
+
+    @Option(names = {"-mm", "-memoryMap"}, description = "Memory map an uncompressed archive instead of streaming it", defaultValue = "false", arity = "0..1") 
+    private boolean memoryMap;
+
+	@Option(names = {"-bs", "-batchSize"}, description = "Publish batch size [1..50]. Default is 50.")
+	private Integer batchSize;	
+
+	@Option(names = {"-pw", "-publishWindow"}, description = "number of messages published without a confirmation [1..255]. Default is 255.")
+	private Integer publishWindow;	
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolServiceQueueImportCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol service queue import <queueName> -f=<file> [-mm] [-bs=<batch size>] [-pw=<publish window>]\n");
+	    System.out.println(" import - Publishes the messages of an archive file created by export to a queue.");
+
+	    System.out.println(" Example command: sol service queue import <queueName> -f=backup.sqa");
+	    System.out.println(" Compressed archives are detected automatically. -mm | -memoryMap applies to uncompressed archives only.");
+	}
+	
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running queue import command.");
+		
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+		
+		try
+		{
+			System.out.println("Importing messages:");	
+			
+			String token = ConfigurationManager.getInstance().getCloudAccountToken();
+			if (token == null || token.isEmpty() )
+			{
+				System.out.println("Token is not set. Try login first.");	
+				return;
+			}
+			
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
+			{
+				System.out.println("Service ID or service name was not provided.");
+				return;
+			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
+			if (sd != null)
+			{
+				ServiceManagementContext sc = new ServiceManagementContext(sd);
+				String url = secure ? sc.getSecureSmfUrlWithPrefix() : sc.getSmfUrlWithPrefix();
+				VPN vpn = new VPN(url, sc.getVpnName(), sc.getUserUsername(), sc.getUserPassword());
+				if (username != null)
+				{
+					vpn.setUsername(username);
+					vpn.setPassword(password);
+				}
+				
+				QueueImport queueImport = new QueueImport(vpn, queueName, Paths.get(fileName));
+				queueImport.setMemoryMap(memoryMap);
+				if (batchSize != null)
+					queueImport.setBatchSize(batchSize);
+				if (publishWindow != null)
+					queueImport.setWindowSize(publishWindow);
+				long start = System.currentTimeMillis();
+				queueImport.importMessages();
+				
+				if (queueImport.getMessagesFailed() > 0)
+					System.out.println(queueImport.getMessagesFailed() + " messages were rejected by the queue.");
+				System.out.println(String.format("%d messages imported from %s in %.1f s.", queueImport.getMessagesImported(), 
+						fileName, (System.currentTimeMillis() - start) / 1000.0));
+			}
+			else
+			{
+				System.out.println("No service found for the provided details.");
+			}
+		}
+		catch (ApiException e)
+		{
+			System.out.println("Error occured while running queue command: " + e.getResponseBody());
+			logger.error("Error occured while running queue command: {}", e.getResponseBody());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running queue command: " + e.getMessage());
+			logger.error("Error occured while running queue command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+}
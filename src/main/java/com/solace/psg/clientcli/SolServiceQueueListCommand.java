@@ -20,6 +20,7 @@
 package com.solace.psg.clientcli;
 
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -28,18 +29,19 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.maven.shared.utils.StringUtils;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.SempPager;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
 
-import com.solace.psg.sempv2.config.model.MsgVpnQueue;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
-import com.solace.psg.tablereporter.Block;
-import com.solace.psg.tablereporter.Board;
-import com.solace.psg.tablereporter.Table;
+import com.solace.psg.tablereporter.TableWriter;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -56,6 +58,11 @@ public class SolServiceQueueListCommand implements Runnable
 {
 	private static final Logger logger = LogManager.getLogger(SolServiceQueueListCommand.class);
 	
+	private static final int SELECT_MAX_WIDTH = 65;
+	
+	private static final List<String> DEFAULT_ATTRIBUTES = Arrays.asList("queueName", "accessType", "ingressEnabled", "egressEnabled", 
+			"consumerAckPropagationEnabled", "maxMsgSpoolUsage", "deadMsgQueue");
+	
 	@Option(names = {"-h", "-help"})
 	private boolean help;
 	
@@ -67,6 +74,15 @@ public class SolServiceQueueListCommand implements Runnable
         @Option(names = {"-serviceId", "-sid"}, required = true) String serviceId;
     }
 	
+	@Option(names = {"-w", "-where"}, description="Server side filter, e.g. queueName==app*,maxMsgSpoolUsage>100.")
+	private String where;
+	
+	@Option(names = {"-s", "-select"}, description="Comma separated attributes to list, e.g. queueName,accessType,owner.")
+	private String select;
+	
+	@Option(names = {"-c", "-count"}, defaultValue = "100", description="Number of queues requested per page. Default is 100.")
+	private int pageSize;
+	
 	/**
 	 * Initialises a new instance of the class.
 	 */
@@ -80,9 +96,13 @@ public class SolServiceQueueListCommand implements Runnable
 	private void showHelp()
 	{
 	    System.out.println(" sol service queue list \n");
-	    System.out.println(" list - lists all queues.");
+	    System.out.println(" list - lists all queues, page by page.");
+	    System.out.println(" -where  - server side filter, e.g. queueName==app*,maxMsgSpoolUsage>100");
+	    System.out.println(" -select - comma separated attributes to list instead of the default columns");
+	    System.out.println(" -count  - number of queues requested per page, default is 100");
 
 	    System.out.println(" Example command: sol service queue list");
+	    System.out.println(" Example command: sol service queue list -where=queueName==orders* -select=queueName,owner,maxMsgSpoolUsage");
 	}
 	
 	/**
@@ -100,101 +120,145 @@ public class SolServiceQueueListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing queues:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing queues:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
-			{
-				System.out.println("Service ID or service name was not provided.");
+				StructuredWriter.messages().println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				VpnManager vf = new VpnManager(sd);
-				List<MsgVpnQueue> queues = vf.listQueues();
-
-				printResults(queues, "");		
+				SempPager pager = new SempPager(vf.getDefaultVpnContext());
+				pager.setPageSize(pageSize);
+				pager.setWhere(where);
+				pager.setSelect(select);
+				
+				if (StructuredWriter.isTable())
+					printTable(pager);
+				else
+					printStructured(pager);
 			}
 			else
 			{
-				System.out.println("No service found for the provided details.");
+				StructuredWriter.messages().println("No service found for the provided details.");
 			}
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occured while running queue command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occured while running queue command: " + e.getResponseBody());
 			logger.error("Error occured while running queue command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running queue command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running queue command: " + e.getMessage());
 			logger.error("Error occured while running queue command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
-	private void printResults(List<MsgVpnQueue> queues, String message) throws IOException
+	/**
+	 * Prints the queues as a table.
+	 * @param pager the pager
+	 * @throws IOException
+	 */
+	private void printTable(SempPager pager) throws IOException
 	{
-		System.out.println(message);
-		if (queues == null || queues.size() == 0)
+		System.out.println();
+		
+		// Rows are written as each page arrives, only one page is kept in memory.
+		PrintWriter out = new PrintWriter(System.out);
+		TableWriter writer = createTableWriter(out);
+		List<String> attributes = getAttributes();
+		long count = pager.readConfig("queues", page -> 
 		{
-			System.out.println("No queues available to list.");
-			return;
+			for (JsonNode q : page)
+				writer.writeRow(getValues(q, attributes));
+			writer.flush();
+			return true;
+		});
+		
+		if (count > 0)
+			writer.finish();
+		
+		System.out.println(count > 0 ? count + " queues listed." : "No queues available to list.");
+	}
+	
+	/**
+	 * Prints the queues in the selected output format. The SEMP objects are written as they are received.
+	 * @param pager the pager
+	 * @throws IOException
+	 */
+	private void printStructured(SempPager pager) throws IOException
+	{
+		List<String> columns = (select != null && !select.isBlank()) ? getAttributes() : null;
+		try (StructuredWriter writer = StructuredWriter.open(columns))
+		{
+			pager.readConfig("queues", page -> 
+			{
+				for (JsonNode q : page)
+					writer.writeRow(q);
+				writer.flush();
+				return true;
+			});
+		}
+	}
+	
+	/**
+	 * Creates the table writer for the selected attributes or the default queue columns.
+	 * @param out the output
+	 * @return the table writer
+	 */
+	private TableWriter createTableWriter(PrintWriter out)
+	{
+		if (select != null && !select.isBlank())
+		{
+			// Widths of the selected attributes are sampled from the first page.
+			return new TableWriter(out, getAttributes(), pageSize, SELECT_MAX_WIDTH).setAutoFlush(false);
 		}
-			
-		logger.debug("Printing queue list.");
 		
 		List<String> headersList = Arrays.asList("Queue name", "Access type", "Ingress on", "Egress on", "Cons. Ack on", "Max spool", "DMQ");
-
-		List<List<String>> rowsList = new ArrayList<List<String>>(queues.size());
-
-		for (MsgVpnQueue q : queues)
+		List<Integer> colWidthsList = Arrays.asList(65, 14, 11, 11, 13, 12, 20);
+		return new TableWriter(out, headersList, colWidthsList).setAutoFlush(false);
+	}
+	
+	private List<String> getAttributes()
+	{
+		if (select != null && !select.isBlank())
 		{
-			rowsList.add(Arrays.asList(StringUtils.abbreviate(q.getQueueName(), 64), q.getAccessType().toString(), "" + q.isIngressEnabled(), "" + q.isEgressEnabled(), "" +  q.isConsumerAckPropagationEnabled(), "" + q.getMaxMsgSpoolUsage() , StringUtils.abbreviate(q.getDeadMsgQueue(), 19) ));
+			List<String> attributes = new ArrayList<String>();
+			for (String attribute : select.split(","))
+				attributes.add(attribute.trim());
+			
+			return attributes;
 		}
 		
-		List<Integer> colAlignList = Arrays.asList(Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_LEFT);
-		List<Integer> colWidthsListEdited = Arrays.asList(65, 14, 11, 11, 13, 12, 20);
-		int width = Board.getRecommendedWidth(colWidthsListEdited, true);
-				
-		Board board = new Board(width);	
-		Table table = new Table(board, width, headersList, rowsList);		
-		table.setColWidthsList(colWidthsListEdited);
-		table.setColAlignsList(colAlignList);
-		
-		Block block = table.tableToBlocks();
-		//block.setBelowBlock(summaryBlock);
-		board.setInitialBlock(block);
+		return DEFAULT_ATTRIBUTES;
+	}
+	
+	private static List<String> getValues(JsonNode q, List<String> attributes)
+	{
+		List<String> values = new ArrayList<String>(attributes.size());
+		for (String attribute : attributes)
+		{
+			String value = q.path(attribute).asText("");
+			values.add(attribute.equals("queueName") ? StringUtils.abbreviate(value, 64) : value);
+		}
 		
-		String tableString = board.build().getPreview();
-		System.out.println(tableString);
+		return values;
 	}
-
 }
@@ -20,21 +20,30 @@
 package com.solace.psg.clientcli;
 
 import java.io.IOException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 import com.solace.psg.sempv2.monitor.model.MsgVpnQueue;
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 
 import com.solace.psg.sempv2.apiclient.ApiException;
-import com.solace.psg.sempv2.ServiceManager;
 import com.solace.psg.sempv2.VpnManager;
+import com.solace.psg.util.StringHelper;
 
 
 import picocli.CommandLine.ArgGroup;
@@ -53,6 +62,8 @@ public class SolServiceQueueStatsCommand implements Runnable
 {
 	private static final Logger logger = LogManager.getLogger(SolServiceQueueStatsCommand.class);
 	
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+	
 	@Option(names = {"-h", "-help"})
 	private boolean help;
 	
@@ -66,6 +77,23 @@ public class SolServiceQueueStatsCommand implements Runnable
     
 	@Parameters(index = "0", arity = "1", description="the queue name")
 	private String queueName;
+	
+	@Option(names = {"-watch", "-w"}, description="Polls the stats every <seconds> and prints the rates of each interval.")
+	private Integer watchInterval;
+	
+	/**
+	 * State of one watch run, so a reused command instance starts every run afresh.
+	 */
+	private static class WatchState
+	{
+		MsgVpnQueue lastStats;
+		
+		long lastPollTime;
+		
+		int lastLineLength;
+		
+		StructuredWriter writer;
+	}
     
 	
 	/**
@@ -82,8 +110,10 @@ public class SolServiceQueueStatsCommand implements Runnable
 	{
 	    System.out.println(" sol service queue stats <queueName> \n");
 	    System.out.println(" stats - stats for a queue");
+	    System.out.println(" -watch - polls the stats every <seconds> and shows ingress and egress msg/s, spool growth and consumers");
 
-	    System.out.println(" Example command: sol service cp details <queueName>");
+	    System.out.println(" Example command: sol service queue stats <queueName>");
+	    System.out.println(" Example command: sol service queue stats <queueName> -watch=5");
 	}
 	
 	/**
@@ -101,76 +131,205 @@ public class SolServiceQueueStatsCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Queues stats:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Queues stats:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (exclusive != null && exclusive.serviceId != null)
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
-				sd = sm.getServiceDetails(exclusive.serviceId);
-			}
-			else if (exclusive != null && exclusive.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(exclusive.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
-			{
-				System.out.println("Service ID or service name was not provided.");
+				StructuredWriter.messages().println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				VpnManager vf = new VpnManager(sd);
+				if (watchInterval != null)
+				{
+					watch(vf);
+					return;
+				}
+				
 				MsgVpnQueue queue = vf.getQueueStats(queueName);
 
 				printDetails(queue, "");		
 			}
 			else
 			{
-				System.out.println("No service found for the provided details.");
+				StructuredWriter.messages().println("No service found for the provided details.");
 			}
 		}
 		catch (ApiException e)
 		{
 			if (e.getResponseBody().contains("NOT_FOUND"))
-					System.out.println("No queue found with the provided name.");
+					StructuredWriter.messages().println("No queue found with the provided name.");
 			else
-				System.out.println("Error occured while running queue command: " + e.getResponseBody());
+				StructuredWriter.messages().println("Error occured while running queue command: " + e.getResponseBody());
 			logger.error("Error occured while running queue command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running queue command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running queue command: " + e.getMessage());
 			logger.error("Error occured while running queue command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
+	/**
+	 * Polls the queue stats until the command is interrupted. The same VPN manager and its HTTP connection are used for all polls.
+	 * @param vf the VPN manager
+	 * @throws Exception
+	 */
+	private void watch(VpnManager vf) throws Exception
+	{
+		if (watchInterval < 1)
+		{
+			StructuredWriter.messages().println("Watch interval should be at least 1 second.");
+			return;
+		}
+		
+		WatchState state = new WatchState();
+		if (StructuredWriter.isTable())
+			System.out.println("Watching queue " + queueName + " every " + watchInterval + " s. Press Ctrl+C to stop.");
+		else
+			state.writer = StructuredWriter.open(null);
+		
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try
+		{
+			ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> poll(vf, state), 0, watchInterval, TimeUnit.SECONDS);
+			
+			// The polls only stop on an error.
+			future.get();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof WatchException)
+				throw (Exception) e.getCause().getCause();
+			throw e;
+		}
+		finally
+		{
+			scheduler.shutdownNow();
+			if (state.writer == null)
+				System.out.println();
+			else
+				state.writer.close();
+		}
+	}
+	
+	/**
+	 * Reads the queue stats once and prints the rates since the previous poll.
+	 * @param vf the VPN manager
+	 * @param state the state of the watch run
+	 */
+	private void poll(VpnManager vf, WatchState state)
+	{
+		try
+		{
+			MsgVpnQueue stats = vf.getQueueStats(queueName);
+			long now = System.nanoTime();
+			
+			long ingress;
+			long spoolGrowth = 0;
+			long consumersDelta = 0;
+			MsgVpnQueue lastStats = state.lastStats;
+			if (lastStats != null)
+			{
+				double seconds = Math.max(1L, now - state.lastPollTime) / 1e9;
+				
+				// Spooled message count is a counter, a negative delta means the stats were cleared.
+				ingress = Math.round(Math.max(0L, value(stats.getSpooledMsgCount()) - value(lastStats.getSpooledMsgCount())) / seconds);
+				spoolGrowth = Math.round((value(stats.getMsgSpoolUsage()) - value(lastStats.getMsgSpoolUsage())) / seconds);
+				consumersDelta = value(stats.getBindCount()) - value(lastStats.getBindCount());
+			}
+			else
+			{
+				ingress = value(stats.getRxMsgRate());
+			}
+			
+			state.lastStats = stats;
+			state.lastPollTime = now;
+			
+			Map<String, Object> sample = new LinkedHashMap<String, Object>();
+			sample.put("time", LocalTime.now().format(TIME_FORMAT));
+			sample.put("queueName", queueName);
+			sample.put("ingressMsgRate", ingress);
+			sample.put("egressMsgRate", value(stats.getTxMsgRate()));
+			sample.put("msgSpoolUsage", value(stats.getMsgSpoolUsage()));
+			sample.put("msgSpoolGrowthRate", spoolGrowth);
+			sample.put("bindCount", value(stats.getBindCount()));
+			sample.put("bindCountDelta", consumersDelta);
+			
+			if (state.writer != null)
+			{
+				state.writer.writeRow(sample);
+				state.writer.flush();
+			}
+			else
+			{
+				printLine(state, String.format("%s  in %,d msg/s  out %,d msg/s  spool %s (%s%s/s)  consumers %d (%+d)", sample.get("time"), ingress, 
+						sample.get("egressMsgRate"), StringHelper.formatBytes(value(stats.getMsgSpoolUsage())), spoolGrowth < 0 ? "-" : "+", StringHelper.formatBytes(Math.abs(spoolGrowth)), 
+						sample.get("bindCount"), consumersDelta));
+			}
+		}
+		catch (Exception e)
+		{
+			throw new WatchException(e);
+		}
+	}
+	
+	/**
+	 * Redraws the watch line in place.
+	 * @param state the state of the watch run
+	 * @param line the line
+	 */
+	private static void printLine(WatchState state, String line)
+	{
+		StringBuilder sb = new StringBuilder(line.length() + state.lastLineLength + 1);
+		sb.append('\r').append(line);
+		for (int i = line.length(); i < state.lastLineLength; i++)
+			sb.append(' ');
+		
+		state.lastLineLength = line.length();
+		System.out.print(sb);
+		System.out.flush();
+	}
+	
+	private static long value(Number n)
+	{
+		return n != null ? n.longValue() : 0L;
+	}
+	
+	/**
+	 * Carries a poll failure out of the scheduler.
+	 */
+	private static class WatchException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		WatchException(Exception cause)
+		{
+			super(cause);
+		}
+	}
+	
 	private void printDetails(MsgVpnQueue queue, String message) throws IOException
 	{
-		System.out.println(message);
+		if (StructuredWriter.isTable())
+			System.out.println(message);
 		logger.debug("Printing queue details.");
 		
-		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-		String yaml = mapper.writeValueAsString(queue);
-		System.out.println(yaml);
+		StructuredWriter.print(queue);
 	}
 }
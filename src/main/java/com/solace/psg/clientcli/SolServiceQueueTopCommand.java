@@ -0,0 +1,503 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.maven.shared.utils.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.SempPager;
+import com.solace.psg.clientcli.utils.StructuredWriter;
+
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
+
+import com.solace.psg.sempv2.apiclient.ApiException;
+
+import com.solace.psg.sempv2.VpnManager;
+import com.solace.psg.tablereporter.TableWriter;
+import com.solace.psg.util.StringHelper;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command class to show the busiest queues of a service, refreshed in place.
+ *
+ *
+ *
+ */
+@Command(name = "top", description = "Shows the busiest service queues.")
+public class SolServiceQueueTopCommand implements Runnable
+{
+	private static final Logger logger = LogManager.getLogger(SolServiceQueueTopCommand.class);
+
+	private static final String CLEAR_SCREEN = "\033[H\033[2J";
+
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+	private static final String QUEUE_ATTRIBUTES = "queueName,msgSpoolUsage,rxMsgRate,txMsgRate,bindCount";
+
+	private static final int TREND_SAMPLES = 12;
+
+	/**
+	 * Sort orders of the queues.
+	 */
+	enum SortKey
+	{
+		USAGE, RATE, AGE
+	}
+
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+
+	@ArgGroup(exclusive = true, multiplicity = "0..1")
+    Exclusive exclusive;
+
+    static class Exclusive {
+        @Option(names = {"-serviceName", "-sn"}, required = true) String serviceName;
+        @Option(names = {"-serviceId", "-sid"}, required = true) String serviceId;
+    }
+
+	@Option(names = {"-s", "-sort"}, defaultValue = "usage", description="Sort order: usage, rate or age. Default is usage.")
+	private SortKey sortKey;
+
+	@Option(names = {"-n", "-lines"}, defaultValue = "20", description="Number of queues shown. Default is 20.")
+	private int lines;
+
+	@Option(names = {"-i", "-interval"}, defaultValue = "5", description="Refresh interval in seconds. Default is 5.")
+	private int interval;
+
+	@Option(names = {"-p", "-parallel"}, defaultValue = "8", description="Maximum concurrent requests for the oldest message of the queues. Default is 8.")
+	private int parallel;
+
+	@Option(names = {"-w", "-where"}, description="Server side filter, e.g. queueName==app*.")
+	private String where;
+
+	@Option(names = {"-c", "-count"}, defaultValue = "100", description="Number of queues requested per page. Default is 100.")
+	private int pageSize;
+
+	@Option(names = {"-once"}, description="Prints the queues once instead of refreshing them.")
+	private boolean once;
+
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolServiceQueueTopCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol service queue top \n");
+	    System.out.println(" top - shows the queues with the highest spool usage, message rate or oldest message, refreshed in place.");
+	    System.out.println(" -sort     - usage, rate or age, default is usage");
+	    System.out.println(" -lines    - number of queues shown, default is 20");
+	    System.out.println(" -interval - refresh interval in seconds, default is 5");
+	    System.out.println(" -parallel - maximum concurrent requests for the oldest messages, default is 8");
+	    System.out.println(" -where    - server side filter, e.g. queueName==app*");
+	    System.out.println(" -once     - prints the queues once");
+
+	    System.out.println(" Example command: sol service queue top");
+	    System.out.println(" Example command: sol service queue top -sort=age -lines=50 -where=queueName==orders*");
+	}
+
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running queue top command.");
+
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+
+		if (interval < 1 || parallel < 1 || lines < 1)
+		{
+			System.out.println("The interval, parallel and lines parameters should be at least 1.");
+			return;
+		}
+
+		try
+		{
+			String token = ConfigurationManager.getInstance().getCloudAccountToken();
+			if (token == null || token.isEmpty() )
+			{
+				System.out.println("Token is not set. Try login first.");
+				return;
+			}
+
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
+			{
+				System.out.println("Service ID or service name was not provided.");
+				return;
+			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+
+			if (sd != null)
+			{
+				VpnManager vf = new VpnManager(sd);
+				top(vf.getDefaultVpnContext());
+			}
+			else
+			{
+				System.out.println("No service found for the provided details.");
+			}
+		}
+		catch (ApiException e)
+		{
+			System.out.println("Error occured while running queue command: " + e.getResponseBody());
+			logger.error("Error occured while running queue command: {}", e.getResponseBody());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running queue command: " + e.getMessage());
+			logger.error("Error occured while running queue command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Samples the queues and prints them until the command is interrupted.
+	 * @param context the management context of the VPN
+	 * @throws Exception
+	 */
+	private void top(ServiceManagementContext context) throws Exception
+	{
+		SempPager queuePager = new SempPager(context);
+		queuePager.setPageSize(pageSize);
+		queuePager.setWhere(where);
+		queuePager.setSelect(QUEUE_ATTRIBUTES);
+
+		// Only the first message of a queue is requested, the messages are listed oldest first.
+		SempPager msgPager = new SempPager(context);
+		msgPager.setPageSize(1);
+		msgPager.setSelect("spooledTime");
+
+		// The spool usage trends of this run, by queue name.
+		Map<String, Trend> trends = new HashMap<String, Trend>();
+		ExecutorService executor = Executors.newFixedThreadPool(parallel);
+		try
+		{
+			while (true)
+			{
+				List<QueueRow> rows = sample(queuePager, msgPager, executor, trends);
+				if (!StructuredWriter.isTable())
+				{
+					printStructured(rows);
+					return;
+				}
+
+				printTable(rows, context.getVpnName());
+				if (once)
+					return;
+
+				Thread.sleep(interval * 1000L);
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads the stats of all queues page by page and the oldest messages of the queues that are shown.
+	 * @param queuePager the queue pager
+	 * @param msgPager the queue message pager
+	 * @param executor the executor for the message requests
+	 * @param trends the spool usage trends of the run, updated with the sample
+	 * @return the queues sorted by the selected key
+	 * @throws Exception
+	 */
+	private List<QueueRow> sample(SempPager queuePager, SempPager msgPager, ExecutorService executor, Map<String, Trend> trends) throws Exception
+	{
+		List<QueueRow> rows = new ArrayList<QueueRow>();
+		queuePager.readMonitor("queues", page ->
+		{
+			for (JsonNode q : page)
+				rows.add(new QueueRow(q));
+			return true;
+		});
+
+		Set<String> names = new HashSet<String>();
+		for (QueueRow row : rows)
+		{
+			names.add(row.name);
+			row.trend = trends.computeIfAbsent(row.name, name -> new Trend(TREND_SAMPLES)).add(row.usage);
+		}
+		trends.keySet().retainAll(names);
+
+		if (sortKey == SortKey.AGE)
+		{
+			// All queues holding messages are candidates for the oldest message.
+			List<QueueRow> candidates = new ArrayList<QueueRow>();
+			for (QueueRow row : rows)
+				if (row.usage > 0)
+					candidates.add(row);
+
+			readOldestMessages(candidates, msgPager, executor);
+			rows.sort(getComparator());
+		}
+		else
+		{
+			rows.sort(getComparator());
+			readOldestMessages(rows.subList(0, Math.min(lines, rows.size())), msgPager, executor);
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Reads the spool time of the oldest message of the queues concurrently.
+	 * @param rows the queues
+	 * @param msgPager the queue message pager
+	 * @param executor the executor
+	 * @throws Exception
+	 */
+	private void readOldestMessages(List<QueueRow> rows, SempPager msgPager, ExecutorService executor) throws Exception
+	{
+		List<Future<?>> futures = new ArrayList<Future<?>>(rows.size());
+		for (QueueRow row : rows)
+		{
+			futures.add(executor.submit(() ->
+			{
+				msgPager.readMonitor("queues", row.name, "msgs", page ->
+				{
+					row.oldest = page.isEmpty() ? 0L : page.get(0).path("spooledTime").asLong();
+					return false;
+				});
+				return null;
+			}));
+		}
+
+		try
+		{
+			for (Future<?> future : futures)
+				future.get();
+		}
+		catch (ExecutionException e)
+		{
+			throw (Exception) e.getCause();
+		}
+	}
+
+	/**
+	 * Gets the comparator for the selected sort order, the busiest queue first.
+	 * @return the comparator
+	 */
+	private Comparator<QueueRow> getComparator()
+	{
+		Comparator<QueueRow> comparator;
+		switch (sortKey)
+		{
+			case RATE:
+				comparator = Comparator.comparingLong(row -> row.rxRate + row.txRate);
+				break;
+			case AGE:
+				// Queues without messages have no age and sort last.
+				comparator = Comparator.comparingLong(row -> row.oldest > 0 ? -row.oldest : Long.MIN_VALUE);
+				break;
+			default:
+				comparator = Comparator.comparingLong(row -> row.usage);
+				break;
+		}
+
+		return comparator.reversed().thenComparing(row -> row.name);
+	}
+
+	/**
+	 * Redraws the screen with the top queues.
+	 * @param rows the sorted queues
+	 * @param vpnName the VPN name
+	 * @throws IOException
+	 */
+	private void printTable(List<QueueRow> rows, String vpnName) throws IOException
+	{
+		long now = System.currentTimeMillis() / 1000;
+
+		// The frame is built first and printed at once to avoid flickering.
+		StringWriter frame = new StringWriter();
+		if (!once)
+			frame.append(CLEAR_SCREEN);
+		frame.append(String.format("Queues of %s at %s: %d queues by %s.%s%n%n", vpnName, LocalTime.now().format(TIME_FORMAT), rows.size(),
+				sortKey.name().toLowerCase(), once ? "" : " Press Ctrl+C to stop."));
+
+		List<String> headersList = Arrays.asList("Queue name", "Spool usage", "Trend", "In msg/s", "Out msg/s", "Consumers", "Oldest msg");
+		List<Integer> colWidthsList = Arrays.asList(50, 12, 7, 11, 11, 11, 12);
+		TableWriter writer = new TableWriter(frame, headersList, colWidthsList).setAutoFlush(false);
+		for (QueueRow row : rows.subList(0, Math.min(lines, rows.size())))
+		{
+			writer.writeRow(Arrays.asList(StringUtils.abbreviate(row.name, 48), StringHelper.formatBytes(row.usage), row.trend.getArrow(),
+					String.format("%,d", row.rxRate), String.format("%,d", row.txRate), "" + row.consumers, formatAge(row.oldest > 0 ? now - row.oldest : -1)));
+		}
+		writer.finish();
+
+		System.out.print(frame);
+		System.out.flush();
+	}
+
+	/**
+	 * Prints the top queues in the selected output format.
+	 * @param rows the sorted queues
+	 * @throws IOException
+	 */
+	private void printStructured(List<QueueRow> rows) throws IOException
+	{
+		long now = System.currentTimeMillis() / 1000;
+
+		List<Map<String, Object>> objects = new ArrayList<Map<String, Object>>();
+		for (QueueRow row : rows.subList(0, Math.min(lines, rows.size())))
+		{
+			Map<String, Object> object = new LinkedHashMap<String, Object>();
+			object.put("queueName", row.name);
+			object.put("msgSpoolUsage", row.usage);
+			object.put("rxMsgRate", row.rxRate);
+			object.put("txMsgRate", row.txRate);
+			object.put("bindCount", row.consumers);
+			object.put("oldestMsgAge", row.oldest > 0 ? now - row.oldest : null);
+			objects.add(object);
+		}
+
+		StructuredWriter.printList(objects);
+	}
+
+	private static String formatAge(long seconds)
+	{
+		if (seconds < 0)
+			return "";
+		if (seconds < 60)
+			return seconds + "s";
+		if (seconds < 3600)
+			return String.format("%dm%02ds", seconds / 60, seconds % 60);
+		if (seconds < 86400)
+			return String.format("%dh%02dm", seconds / 3600, (seconds % 3600) / 60);
+
+		return String.format("%dd%02dh", seconds / 86400, (seconds % 86400) / 3600);
+	}
+
+	/**
+	 * Stats of a queue in one refresh.
+	 */
+	private static class QueueRow
+	{
+		final String name;
+
+		final long usage;
+
+		final long rxRate;
+
+		final long txRate;
+
+		final long consumers;
+
+		volatile long oldest;
+
+		Trend trend;
+
+		QueueRow(JsonNode q)
+		{
+			name = q.path("queueName").asText();
+			usage = q.path("msgSpoolUsage").asLong();
+			rxRate = q.path("rxMsgRate").asLong();
+			txRate = q.path("txMsgRate").asLong();
+			consumers = q.path("bindCount").asLong();
+		}
+	}
+
+	/**
+	 * Ring buffer with the recent spool usage samples of a queue.
+	 */
+	private static class Trend
+	{
+		private final long[] samples;
+
+		private int next;
+
+		private int size;
+
+		Trend(int capacity)
+		{
+			samples = new long[capacity];
+		}
+
+		/**
+		 * Adds a sample, replacing the oldest one when the buffer is full.
+		 * @param sample the sample
+		 * @return this trend
+		 */
+		Trend add(long sample)
+		{
+			samples[next] = sample;
+			next = (next + 1) % samples.length;
+			if (size < samples.length)
+				size++;
+
+			return this;
+		}
+
+		/**
+		 * Compares the latest sample with the oldest one in the buffer.
+		 * @return ^ for growing, v for shrinking and - for a flat usage
+		 */
+		String getArrow()
+		{
+			if (size < 2)
+				return "-";
+
+			long latest = samples[(next - 1 + samples.length) % samples.length];
+			long oldest = samples[(next - size + samples.length) % samples.length];
+
+			return latest > oldest ? "^" : latest < oldest ? "v" : "-";
+		}
+	}
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
+import com.solace.psg.clientcli.utils.SempPager;
+
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
+
+import com.solace.psg.sempv2.apiclient.ApiException;
+
+import com.solace.psg.sempv2.VpnManager;
+import com.solace.psg.util.timeseries.SeriesFileWriter;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command class to record service and queue metrics to a local file.
+ *
+ *
+ *
+ */
+@Command(name = "record", description = "Records service and queue metrics to a file.")
+public class SolServiceRecordCommand implements Runnable
+{
+	private static final Logger logger = LogManager.getLogger(SolServiceRecordCommand.class);
+
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+
+	@ArgGroup(exclusive = true, multiplicity = "0..1")
+    Exclusive exclusive;
+
+    static class Exclusive {
+        @Option(names = {"-serviceName", "-sn"}, required = true) String serviceName;
+        @Option(names = {"-serviceId", "-sid"}, required = true) String serviceId;
+    }
+
+	@Option(names = {"-f", "-file"}, required = true, description="The recording file. Samples are appended to an existing recording.")
+	private File file;
+
+	@Option(names = {"-i", "-interval"}, defaultValue = "10", description="Sampling interval in seconds. Default is 10.")
+	private int interval;
+
+	@Option(names = {"-d", "-duration"}, defaultValue = "0", description="Recording duration in minutes. Default is 0 to record until stopped.")
+	private int duration;
+
+	@Option(names = {"-qm", "-queueMetrics"}, defaultValue = "msgSpoolUsage,spooledMsgCount,rxMsgRate,txMsgRate,bindCount", description="Comma separated queue monitoring attributes to record, empty for none.")
+	private String queueMetrics;
+
+	@Option(names = {"-vm", "-vpnMetrics"}, defaultValue = "msgSpoolUsage,rxMsgRate,txMsgRate", description="Comma separated VPN monitoring attributes to record, empty for none.")
+	private String vpnMetrics;
+
+	@Option(names = {"-w", "-where"}, description="Server side filter of the recorded queues, e.g. queueName==orders*.")
+	private String where;
+
+	@Option(names = {"-b", "-blockRows"}, defaultValue = "60", description="Samples kept in memory before they are written as a block. Default is 60.")
+	private int blockRows;
+
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolServiceRecordCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol service record -f=<file> \n");
+	    System.out.println(" record - samples service and queue metrics on a schedule and appends them to a compact recording file.");
+	    System.out.println(" -interval     - sampling interval in seconds, default is 10");
+	    System.out.println(" -duration     - recording duration in minutes, default is to record until stopped");
+	    System.out.println(" -queueMetrics - queue monitoring attributes, default is msgSpoolUsage,spooledMsgCount,rxMsgRate,txMsgRate,bindCount");
+	    System.out.println(" -vpnMetrics   - VPN monitoring attributes, default is msgSpoolUsage,rxMsgRate,txMsgRate");
+	    System.out.println(" -where        - filter of the recorded queues, e.g. queueName==orders*");
+	    System.out.println(" Use 'sol service replay' to query a recording.");
+
+	    System.out.println(" Example command: sol service record -f=metrics.sts -interval=30 -where=queueName==orders*");
+	}
+
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running service record command.");
+
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+
+		if (interval < 1 || blockRows < 1)
+		{
+			System.out.println("The interval and block rows parameters should be at least 1.");
+			return;
+		}
+
+		try
+		{
+			String token = ConfigurationManager.getInstance().getCloudAccountToken();
+			if (token == null || token.isEmpty() )
+			{
+				System.out.println("Token is not set. Try login first.");
+				return;
+			}
+
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = exclusive != null ? exclusive.serviceId : null;
+			String serviceName = exclusive != null ? exclusive.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
+			{
+				System.out.println("Service ID or service name was not provided.");
+				return;
+			}
+			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+
+			if (sd != null)
+			{
+				VpnManager vf = new VpnManager(sd);
+				record(vf.getDefaultVpnContext());
+			}
+			else
+			{
+				System.out.println("No service found for the provided details.");
+			}
+		}
+		catch (ApiException e)
+		{
+			System.out.println("Error occured while running record command: " + e.getResponseBody());
+			logger.error("Error occured while running record command: {}", e.getResponseBody());
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running record command: " + e.getMessage());
+			logger.error("Error occured while running record command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Samples the metrics until the duration elapsed or the command is interrupted.
+	 * @param context the management context of the VPN
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void record(ServiceManagementContext context) throws IOException, InterruptedException
+	{
+		SempPager queuePager = null;
+		if (!queueMetrics.isBlank())
+		{
+			queuePager = new SempPager(context);
+			queuePager.setWhere(where);
+			queuePager.setSelect("queueName," + queueMetrics);
+		}
+
+		SempPager vpnPager = null;
+		if (!vpnMetrics.isBlank())
+		{
+			vpnPager = new SempPager(context);
+			vpnPager.setSelect(vpnMetrics);
+		}
+
+		if (queuePager == null && vpnPager == null)
+		{
+			System.out.println("No queue or VPN metrics selected to record.");
+			return;
+		}
+
+		SeriesFileWriter writer = new SeriesFileWriter(file, blockRows);
+
+		// Ctrl+C ends a recording, the samples of the current block are written before the process exits.
+		Thread closer = new Thread(() ->
+		{
+			try
+			{
+				writer.close();
+			}
+			catch (IOException e)
+			{
+				logger.error("Error occured while closing the recording: {}", e.getMessage());
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(closer);
+
+		System.out.println("Recording to " + file + " every " + interval + " s" + (duration > 0 ? " for " + duration + " min." : ". Press Ctrl+C to stop."));
+		try
+		{
+			long end = duration > 0 ? System.currentTimeMillis() + duration * 60000L : Long.MAX_VALUE;
+			long next = System.currentTimeMillis();
+			long samples = 0;
+			long skipped = 0;
+			int series = 0;
+			while (true)
+			{
+				long time = System.currentTimeMillis();
+				Map<String, Long> row = null;
+				try
+				{
+					row = sample(queuePager, vpnPager);
+				}
+				catch (IOException e)
+				{
+					// A failed SEMP request loses one sample, the recording goes on with the next one.
+					skipped++;
+					logger.warn("Skipping the sample at {}: {}", time, e.getMessage());
+				}
+
+				if (row != null)
+				{
+					writer.append(time, row);
+					samples++;
+					series = row.size();
+				}
+
+				System.out.print("\rRecorded " + samples + " samples of " + series + " series" + (skipped > 0 ? ", skipped " + skipped + "." : "."));
+				System.out.flush();
+
+				next += interval * 1000L;
+				if (next >= end)
+					break;
+
+				Thread.sleep(Math.max(0L, next - System.currentTimeMillis()));
+			}
+			System.out.println();
+		}
+		finally
+		{
+			writer.close();
+			try
+			{
+				Runtime.getRuntime().removeShutdownHook(closer);
+			}
+			catch (IllegalStateException e)
+			{
+				// The process is already shutting down.
+			}
+		}
+	}
+
+	/**
+	 * Reads one sample of the metrics.
+	 * @param queuePager the queue pager or null
+	 * @param vpnPager the VPN pager or null
+	 * @return the values by series name
+	 * @throws IOException
+	 */
+	private Map<String, Long> sample(SempPager queuePager, SempPager vpnPager) throws IOException
+	{
+		Map<String, Long> row = new LinkedHashMap<String, Long>();
+		if (vpnPager != null)
+			addMetrics(row, "vpn/", vpnPager.readMonitorVpn());
+
+		if (queuePager != null)
+		{
+			queuePager.readMonitor("queues", page ->
+			{
+				for (JsonNode q : page)
+					addMetrics(row, "queue/" + q.path("queueName").asText() + "/", q);
+				return true;
+			});
+		}
+
+		return row;
+	}
+
+	/**
+	 * Adds the numeric attributes of a monitoring object as series.
+	 * @param row the row
+	 * @param prefix the series name prefix of the object
+	 * @param object the monitoring object
+	 */
+	private static void addMetrics(Map<String, Long> row, String prefix, JsonNode object)
+	{
+		object.fields().forEachRemaining(field ->
+		{
+			JsonNode value = field.getValue();
+			if (value.isIntegralNumber())
+				row.put(prefix + field.getKey(), value.asLong());
+			else if (value.isNumber())
+				row.put(prefix + field.getKey(), Math.round(value.asDouble()));
+		});
+	}
+}
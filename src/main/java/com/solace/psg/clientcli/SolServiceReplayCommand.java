@@ -0,0 +1,256 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.utils.StructuredWriter;
+import com.solace.psg.tablereporter.TableWriter;
+import com.solace.psg.util.timeseries.Downsampler;
+import com.solace.psg.util.timeseries.SeriesFileReader;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Command class to query a metrics recording.
+ *
+ *
+ *
+ */
+@Command(name = "replay", description = "Queries a metrics recording.")
+public class SolServiceReplayCommand implements Runnable
+{
+	private static final Logger logger = LogManager.getLogger(SolServiceReplayCommand.class);
+
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+	private static final int MAX_COLUMN_WIDTH = 40;
+
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+
+	@Parameters(index = "0", arity = "0..1", description="the recording file")
+	private File file;
+
+	@Option(names = {"-from"}, description="Start of the range as ISO-8601 instant or epoch milliseconds, inclusive.")
+	private String from;
+
+	@Option(names = {"-to"}, description="End of the range as ISO-8601 instant or epoch milliseconds, exclusive.")
+	private String to;
+
+	@Option(names = {"-step"}, defaultValue = "0", description="Downsampling step in seconds. Default is 0 to show every sample.")
+	private int step;
+
+	@Option(names = {"-agg"}, defaultValue = "avg", description="Aggregation of the samples of a step: avg, min, max or last. Default is avg.")
+	private Downsampler.Aggregation aggregation;
+
+	@Option(names = {"-series"}, split = ",", description="Comma separated parts of the series names to show, e.g. queue/orders,vpn/.")
+	private List<String> series;
+
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolServiceReplayCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol service replay <file> \n");
+	    System.out.println(" replay - shows the samples of a recording made with 'sol service record'.");
+	    System.out.println(" -from   - start of the range as ISO-8601 instant or epoch milliseconds");
+	    System.out.println(" -to     - end of the range as ISO-8601 instant or epoch milliseconds");
+	    System.out.println(" -step   - downsampling step in seconds");
+	    System.out.println(" -agg    - avg, min, max or last value of a step, default is avg");
+	    System.out.println(" -series - parts of the series names to show, e.g. queue/orders/msgSpoolUsage,vpn/");
+
+	    System.out.println(" Example command: sol service replay metrics.sts -from=2022-06-01T00:00:00Z -step=3600 -agg=max -series=msgSpoolUsage");
+	}
+
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running service replay command.");
+
+		if (help || file == null)
+		{
+			showHelp();
+			return;
+		}
+
+		if (step < 0)
+		{
+			System.out.println("The step parameter cannot be negative.");
+			return;
+		}
+
+		try (SeriesFileReader reader = new SeriesFileReader(file))
+		{
+			long start = parseTime(from, Long.MIN_VALUE);
+			long end = parseTime(to, Long.MAX_VALUE);
+			Predicate<String> filter = getFilter();
+
+			List<String> columns = new ArrayList<String>();
+			for (String name : reader.readColumns(start, end))
+				if (filter == null || filter.test(name))
+					columns.add(name);
+
+			if (columns.isEmpty())
+			{
+				System.out.println("No samples recorded for the provided range and series.");
+				return;
+			}
+
+			if (StructuredWriter.isTable())
+				replayTable(reader, start, end, filter, columns);
+			else
+				replayStructured(reader, start, end, filter, columns);
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occured while running replay command: " + e.getMessage());
+			logger.error("Error occured while running replay command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+
+	/**
+	 * Prints the samples as a table with one column per series.
+	 */
+	private void replayTable(SeriesFileReader reader, long start, long end, Predicate<String> filter, List<String> columns) throws IOException
+	{
+		List<String> headersList = new ArrayList<String>(columns.size() + 1);
+		headersList.add("Time");
+		headersList.addAll(columns);
+
+		// The widths of the series columns are sampled from the first rows.
+		PrintWriter out = new PrintWriter(System.out);
+		TableWriter writer = new TableWriter(out, headersList, TableWriter.DEFAULT_SAMPLE_SIZE, MAX_COLUMN_WIDTH).setAutoFlush(false);
+		long count = replay(reader, start, end, filter, (time, row) ->
+		{
+			// Samples without any of the selected series are left out.
+			if (row.isEmpty())
+				return;
+			
+			List<String> values = new ArrayList<String>(headersList.size());
+			values.add(TIME_FORMAT.format(Instant.ofEpochMilli(time)));
+			for (String column : columns)
+			{
+				Long value = row.get(column);
+				values.add(value != null ? value.toString() : "");
+			}
+			writer.writeRow(values);
+		});
+
+		writer.finish();
+		System.out.println(count + " samples read from the recording.");
+	}
+
+	/**
+	 * Prints the samples in the selected output format, one object per sample.
+	 */
+	private void replayStructured(SeriesFileReader reader, long start, long end, Predicate<String> filter, List<String> columns) throws IOException
+	{
+		// CSV needs all the series in the header, later samples can have series the first one does not have.
+		List<String> csvColumns = new ArrayList<String>(columns.size() + 1);
+		csvColumns.add("time");
+		csvColumns.addAll(columns);
+		
+		try (StructuredWriter writer = StructuredWriter.open(csvColumns))
+		{
+			replay(reader, start, end, filter, (time, row) ->
+			{
+				if (row.isEmpty())
+					return;
+				
+				Map<String, Object> object = new LinkedHashMap<String, Object>();
+				object.put("time", Instant.ofEpochMilli(time).toString());
+				object.putAll(row);
+				writer.writeRow(object);
+			});
+		}
+	}
+
+	/**
+	 * Reads the samples of the range, downsampled when a step is set.
+	 * @return the number of rows read from the recording
+	 */
+	private long replay(SeriesFileReader reader, long start, long end, Predicate<String> filter, SeriesFileReader.RowHandler handler) throws IOException
+	{
+		if (step == 0)
+			return reader.read(start, end, filter, handler);
+
+		Downsampler downsampler = new Downsampler(step * 1000L, aggregation, handler);
+		long count = reader.read(start, end, filter, downsampler);
+		downsampler.finish();
+
+		return count;
+	}
+
+	private Predicate<String> getFilter()
+	{
+		if (series == null || series.isEmpty())
+			return null;
+
+		return name ->
+		{
+			for (String part : series)
+				if (name.contains(part.trim()))
+					return true;
+			return false;
+		};
+	}
+
+	/**
+	 * Parses a time option given as ISO-8601 instant or as epoch milliseconds.
+	 * @param value the option value
+	 * @param defaultValue the value when the option is not set
+	 * @return epoch milliseconds
+	 */
+	private long parseTime(String value, long defaultValue)
+	{
+		if (value == null || value.isEmpty())
+			return defaultValue;
+
+		if (value.chars().allMatch(Character::isDigit))
+			return Long.parseLong(value);
+
+		return Instant.parse(value).toEpochMilli();
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Command class to run an interactive shell executing sol commands in a single process.
+ * 
+ * The configuration, HTTP clients and messaging sessions stay warm between the commands.
+ *
+ */
+@Command(name = "shell", description = "Runs an interactive sol shell.")
+public class SolShellCommand implements Runnable 
+{
+	private static final Logger logger = LogManager.getLogger(SolShellCommand.class);
+	
+	private static final String PROMPT = "sol> ";
+	
+	@Option(names = {"-h", "-help"})
+	private boolean help;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public SolShellCommand()
+	{
+	}
+
+	/**
+	 * Shows help menu.
+	 */
+	private void showHelp()
+	{
+	    System.out.println(" sol shell \n");
+	    System.out.println(" Runs sol commands interactively, the leading 'sol' is optional. Type 'exit' or 'quit' to leave the shell.");
+	    System.out.println(" Example command: sol shell");
+	    System.out.println(" sol> service list");
+	}
+	
+	/**
+	 * Runs the command.
+	 */
+	public void run()
+	{
+		logger.debug("Running shell command.");
+		
+		if (help)
+		{
+			showHelp();
+			return;
+		}
+		
+		try
+		{
+			BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+			
+			while (true)
+			{
+				System.out.print(PROMPT);
+				System.out.flush();
+				
+				String line = reader.readLine();
+				if (line == null)
+					break;
+				
+				List<String> args = splitLine(line);
+				if (args.size() > 0 && args.get(0).equals("sol"))
+					args.remove(0);
+				if (args.isEmpty())
+					continue;
+				
+				String first = args.get(0);
+				if (first.equals("exit") || first.equals("quit"))
+					break;
+				if (first.equals("shell") || first.equals("daemon"))
+				{
+					System.out.println("The " + first + " command is not available inside the shell.");
+					continue;
+				}
+				
+				ConfigurationManager.getInstance().reloadIfChanged();
+				try
+				{
+					// Picocli keeps the option values of a parsed command, so each line gets new command instances.
+					CommandLine cmd = ClientCliApp.createCommandLine();
+					cmd.execute(args.toArray(new String[0]));
+				}
+				catch (Exception e)
+				{
+					System.out.println("Error occurred while running command: " + e.getMessage());
+					logger.error("Error occurred while running shell command: {}, {}", e.getMessage(), e.getCause());
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			System.out.println("Error occurred while running shell command: " + e.getMessage());
+			logger.error("Error occurred while running shell command: {}, {}", e.getMessage(), e.getCause());
+		}
+	}
+	
+	/**
+	 * Splits a command line into arguments, honouring single and double quotes.
+	 * @param line the line
+	 * @return the arguments
+	 */
+	static List<String> splitLine(String line)
+	{
+		List<String> result = new ArrayList<String>();
+		StringBuilder current = new StringBuilder();
+		boolean inArg = false;
+		char quote = 0;
+		
+		for (int i = 0; i < line.length(); i++)
+		{
+			char c = line.charAt(i);
+			if (quote != 0)
+			{
+				if (c == quote)
+					quote = 0;
+				else
+					current.append(c);
+			}
+			else if (c == '"' || c == '\'')
+			{
+				quote = c;
+				inArg = true;
+			}
+			else if (Character.isWhitespace(c))
+			{
+				if (inArg)
+				{
+					result.add(current.toString());
+					current.setLength(0);
+					inArg = false;
+				}
+			}
+			else
+			{
+				current.append(c);
+				inArg = true;
+			}
+		}
+		
+		if (inArg)
+			result.add(current.toString());
+		
+		return result;
+	}
+}
@@ -30,6 +30,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.utils.StructuredWriter;
 import com.solace.psg.sempv2.admin.model.User;
 import com.solace.psg.sempv2.apiclient.ApiException;
 import com.solace.psg.sempv2.ServiceManager;
@@ -88,12 +89,13 @@ public class SolUserListCommand implements Runnable
 		
 		try
 		{
-			System.out.println("Listing users:");	
+			if (StructuredWriter.isTable())
+				System.out.println("Listing users:");
 			
 			String token = ConfigurationManager.getInstance().getCloudAccountToken();
 			if (token == null || token.isEmpty() )
 			{
-				System.out.println("Token is not set. Try login first.");	
+				StructuredWriter.messages().println("Token is not set. Try login first.");	
 				return;
 			}
 			
@@ -104,18 +106,24 @@ public class SolUserListCommand implements Runnable
 		}
 		catch (ApiException e)
 		{
-			System.out.println("Error occured while running list command: " + e.getResponseBody());
+			StructuredWriter.messages().println("Error occured while running list command: " + e.getResponseBody());
 			logger.error("Error occured while running list command: {}", e.getResponseBody());
 		}
 		catch (Exception e)
 		{
-			System.out.println("Error occured while running list command: " + e.getMessage());
+			StructuredWriter.messages().println("Error occured while running list command: " + e.getMessage());
 			logger.error("Error occured while running list command: {}, {}", e.getMessage(), e.getCause());
 		}
 	}
 	
 	private void printResults(List<User> users, String message) throws IOException
 	{
+		if (!StructuredWriter.isTable())
+		{
+			StructuredWriter.printList(users);
+			return;
+		}
+		
 		System.out.println(message);
 		logger.debug("Printing user list");
 		
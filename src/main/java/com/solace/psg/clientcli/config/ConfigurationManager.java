@@ -55,6 +55,12 @@ public class ConfigurationManager
 	private Properties props = new Properties();
 	
 	private boolean encryptDetails = true;
+	
+	private long lastModified = 0;
+	
+	private String encryptedToken;
+	
+	private String decryptedToken;
 
 	private static ConfigurationManager instance = new ConfigurationManager();
 	
@@ -172,6 +178,7 @@ public class ConfigurationManager
 				props.load(input);		
 				
 				encryptDetails = getEncryptDetails();
+				lastModified = propsFile.lastModified();
 			}
 		}
 		catch(Exception ex)
@@ -192,6 +199,19 @@ public class ConfigurationManager
 		}
 	}
 	
+	/**
+	 * Reloads the config file properties if the file was changed by another process.
+	 */
+	public synchronized void reloadIfChanged()
+	{
+		File propsFile = new File(filename);
+		if (propsFile.exists() && propsFile.lastModified() != lastModified)
+		{
+			props.clear();
+			load();
+		}
+	}
+	
 	/**
 	 * Stored all the config values.
 	 * @throws Exception
@@ -209,6 +229,8 @@ public class ConfigurationManager
 			
 			output = new FileOutputStream(filename);
 			props.store(output, null);
+			output.close();
+			lastModified = file.lastModified();
 		}
 		catch (IOException ex)
 		{
@@ -311,12 +333,21 @@ public class ConfigurationManager
 	 * @return token
 	 * @throws Exception
 	 */
-	public String getCloudAccountToken() throws Exception
+	public synchronized String getCloudAccountToken() throws Exception
 	{
 		String token = props.getProperty("cloudToken");
 		
 		if (token != null && token.startsWith(ENC))
-			token = decryptPassword(token.substring(ENC.length()));
+		{
+			// A long running process reads the token for every command, decrypt it only once.
+			if (!token.equals(encryptedToken))
+			{
+				decryptedToken = decryptPassword(token.substring(ENC.length()));
+				encryptedToken = token;
+			}
+			
+			token = decryptedToken;
+		}
 		
 		return token;
 	}
@@ -494,6 +525,25 @@ public class ConfigurationManager
 		props.setProperty("encryptDetails", Boolean.toString(value));
 	}
 	
+	/**
+	 * Gets the service details cache TTL in milliseconds.
+	 * @return TTL or null if not set
+	 */
+	public Long getServiceCacheTtl()
+	{
+		String ttl = props.getProperty("serviceCacheTtl");
+		return ttl != null ? Long.valueOf(ttl) : null;
+	}
+
+	/**
+	 * Sets the service details cache TTL in milliseconds, 0 disables the cache.
+	 * @param ttl TTL
+	 */
+	public void setServiceCacheTtl(long ttl)
+	{
+		props.setProperty("serviceCacheTtl", Long.toString(ttl));
+	}
+	
 	/**
 	 * Sets prompt to confirm.
 	 * @param name name
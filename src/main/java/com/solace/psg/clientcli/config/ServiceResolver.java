@@ -0,0 +1,388 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli.config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.psg.sempv2.ServiceManager;
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.util.AES;
+
+/**
+ * Class to resolve service details with an on-disk cache.
+ * 
+ * Service details are cached per service ID and service names are mapped to service IDs, both with a TTL. 
+ * The cache is stored encrypted next to the configuration profile and is dropped when the cloud account token changes.
+ *
+ */
+public class ServiceResolver
+{
+	private static final Logger logger = LogManager.getLogger(ServiceResolver.class);
+
+	public static final String CACHE_NAME = "service_cache.conf"; 
+	public static final long DEFAULT_TTL = 600000;
+	
+	private static final String ID_PREFIX = "id.";
+	private static final String NAME_PREFIX = "name.";
+	private static final String TOKEN_HASH = "tokenHash";
+	private static final String SEPARATOR = "|";
+	
+	private static ServiceResolver instance = new ServiceResolver();
+	
+	private String filename = ConfigurationManager.FOLDER + File.separator + CACHE_NAME;
+	
+	private Properties cache = new Properties();
+	
+	private Map<String, String> decoded = new HashMap<String, String>();
+	
+	private ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+	
+	private String token;
+	
+	private ServiceManager serviceManager;
+	
+	/**
+	 * Returns singleton resolver.
+	 * @return
+	 */
+	public static ServiceResolver getInstance()
+	{
+		return instance;
+	}
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	private ServiceResolver()
+	{
+		load();
+	}
+	
+	/**
+	 * Gets a service manager for the current cloud account token. The manager is reused while the token does not change.
+	 * @return service manager
+	 * @throws Exception
+	 */
+	public synchronized ServiceManager getServiceManager() throws Exception
+	{
+		String currentToken = ConfigurationManager.getInstance().getCloudAccountToken();
+		if (serviceManager == null || !currentToken.equals(token))
+		{
+			checkToken(currentToken);
+			serviceManager = new ServiceManager(currentToken);
+			token = currentToken;
+		}
+		
+		return serviceManager;
+	}
+	
+	/**
+	 * Gets whether a command has a service to resolve, either given by ID or name or set in the current context.
+	 * @param serviceId the service ID given to the command or null
+	 * @param serviceName the service name given to the command or null
+	 * @return true if a service was selected
+	 */
+	public boolean hasService(String serviceId, String serviceName)
+	{
+		ConfigurationManager config = ConfigurationManager.getInstance();
+		return isSet(serviceId) || isSet(serviceName) || isSet(config.getCurrentServiceId()) || isSet(config.getCurrentServiceName());
+	}
+	
+	/**
+	 * Resolves the service of a command: the given service ID, the given service name, 
+	 * the service ID of the current context and the service name of the current context, in that order.
+	 * @param serviceId the service ID given to the command or null
+	 * @param serviceName the service name given to the command or null
+	 * @return service details or null if no service was selected or found
+	 * @throws Exception
+	 */
+	public ServiceDetails resolve(String serviceId, String serviceName) throws Exception
+	{
+		if (isSet(serviceId))
+			return getServiceDetails(serviceId);
+		if (isSet(serviceName))
+			return getServiceDetailsByName(serviceName);
+		
+		ConfigurationManager config = ConfigurationManager.getInstance();
+		if (isSet(config.getCurrentServiceId()))
+			return getServiceDetails(config.getCurrentServiceId());
+		if (isSet(config.getCurrentServiceName()))
+			return getServiceDetailsByName(config.getCurrentServiceName());
+		
+		return null;
+	}
+	
+	/**
+	 * Gets service details by service ID, from the cache if not expired.
+	 * @param serviceId the service ID
+	 * @return service details
+	 * @throws Exception
+	 */
+	public synchronized ServiceDetails getServiceDetails(String serviceId) throws Exception
+	{
+		ServiceManager sm = getServiceManager();
+		
+		ServiceDetails sd = getCached(serviceId);
+		if (sd == null)
+		{
+			sd = sm.getServiceDetails(serviceId);
+			put(serviceId, sd);
+			store();
+		}
+		
+		return sd;
+	}
+
+	/**
+	 * Gets service details by service name, from the cache if not expired.
+	 * @param serviceName the service name
+	 * @return service details
+	 * @throws Exception
+	 */
+	public synchronized ServiceDetails getServiceDetailsByName(String serviceName) throws Exception
+	{
+		ServiceManager sm = getServiceManager();
+		
+		String serviceId = getValue(NAME_PREFIX + serviceName);
+		ServiceDetails sd = serviceId != null ? getCached(serviceId) : null;
+		if (sd == null)
+		{
+			sd = sm.getServiceDetailsByName(serviceName);
+			if (sd != null && sd.getServiceId() != null)
+			{
+				put(sd.getServiceId(), sd);
+				cache.setProperty(NAME_PREFIX + serviceName, System.currentTimeMillis() + SEPARATOR + sd.getServiceId());
+				store();
+			}
+		}
+		
+		return sd;
+	}
+	
+	/**
+	 * Removes all cached service details, e.g. after a service was deleted.
+	 */
+	public synchronized void invalidate()
+	{
+		String hash = cache.getProperty(TOKEN_HASH);
+		cache.clear();
+		decoded.clear();
+		if (hash != null)
+			cache.setProperty(TOKEN_HASH, hash);
+		
+		store();
+	}
+	
+	/**
+	 * Gets whether a service ID or name is set.
+	 * @param value the value
+	 * @return
+	 */
+	private static boolean isSet(String value)
+	{
+		return value != null && !value.isEmpty();
+	}
+	
+	/**
+	 * Gets the cache TTL in milliseconds, 0 disables the cache.
+	 * @return
+	 */
+	private long getTtl()
+	{
+		Long ttl = ConfigurationManager.getInstance().getServiceCacheTtl();
+		return ttl != null ? ttl : DEFAULT_TTL;
+	}
+	
+	/**
+	 * Gets a copy of cached service details.
+	 * @param serviceId the service ID
+	 * @return service details or null if not cached, expired or unreadable
+	 */
+	private ServiceDetails getCached(String serviceId)
+	{
+		String value = getValue(ID_PREFIX + serviceId);
+		if (value == null)
+			return null;
+		
+		try
+		{
+			// Commands running in one process, e.g. a batch, share the decrypted details, but each caller 
+			// gets its own copy, so a command changing its details does not change those of another command.
+			String json = decoded.get(value);
+			if (json == null)
+			{
+				json = AES.decrypt(value);
+				decoded.put(value, json);
+			}
+			ServiceDetails sd = mapper.readValue(json, ServiceDetails.class);
+			logger.debug("Using cached service details for service ID {}.", serviceId);
+			return sd;
+		}
+		catch (Exception e)
+		{
+			// A corrupt entry or one encrypted with a different key is evicted, so it is fetched and stored again.
+			logger.warn("Evicting unreadable cached service details for service ID {}: {}", serviceId, e.getMessage());
+			decoded.remove(value);
+			cache.remove(ID_PREFIX + serviceId);
+			store();
+			return null;
+		}
+	}
+	
+	/**
+	 * Gets a cached value if it has not expired.
+	 * @param key the key
+	 * @return the value or null
+	 */
+	private String getValue(String key)
+	{
+		String entry = cache.getProperty(key);
+		if (entry == null)
+			return null;
+		
+		int index = entry.indexOf(SEPARATOR);
+		if (index < 0)
+			return null;
+		
+		long time = Long.parseLong(entry.substring(0, index));
+		if (System.currentTimeMillis() - time > getTtl())
+		{
+			cache.remove(key);
+			return null;
+		}
+		
+		return entry.substring(index + 1);
+	}
+	
+	/**
+	 * Caches service details.
+	 * @param serviceId the service ID
+	 * @param sd service details
+	 */
+	private void put(String serviceId, ServiceDetails sd)
+	{
+		if (sd == null || getTtl() <= 0)
+			return;
+		
+		try
+		{
+			String value = AES.encrypt(mapper.writeValueAsString(sd));
+			cache.setProperty(ID_PREFIX + serviceId, System.currentTimeMillis() + SEPARATOR + value);
+		}
+		catch (Exception e)
+		{
+			logger.debug("Could not cache service details for service ID {}: {}", serviceId, e.getMessage());
+		}
+	}
+	
+	/**
+	 * Drops the cache if it was written for a different cloud account token.
+	 * @param currentToken the current token
+	 * @throws Exception
+	 */
+	private void checkToken(String currentToken) throws Exception
+	{
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest(currentToken.getBytes(StandardCharsets.UTF_8)))
+			sb.append(String.format("%02x", b));
+		String hash = sb.toString();
+		
+		if (!hash.equals(cache.getProperty(TOKEN_HASH)))
+		{
+			logger.debug("Cloud account token changed, clearing the service cache.");
+			cache.clear();
+			decoded.clear();
+			cache.setProperty(TOKEN_HASH, hash);
+		}
+	}
+	
+	/**
+	 * Loads the cache file.
+	 */
+	private void load()
+	{
+		File file = new File(filename);
+		if (!file.exists())
+			return;
+		
+		try (InputStream input = new FileInputStream(file))
+		{
+			cache.load(input);
+		}
+		catch (Exception ex)
+		{
+			logger.error("Error while trying to read service cache file: {} ", ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Stores the cache file. The cache is written to a temporary file that replaces the cache file, 
+	 * so a concurrent process never reads a partly written cache.
+	 */
+	private void store()
+	{
+		File file = new File(filename);
+		if (file.getParentFile() != null && !file.getParentFile().exists())
+			file.getParentFile().mkdir();
+		
+		Path target = file.toPath().toAbsolutePath();
+		Path tmp = null;
+		try
+		{
+			tmp = Files.createTempFile(target.getParent(), CACHE_NAME, ".tmp");
+			try (OutputStream output = Files.newOutputStream(tmp))
+			{
+				cache.store(output, null);
+			}
+			
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (Exception ex)
+		{
+			logger.error("Error while trying to write service cache file: {} ", ex.getMessage());
+			try
+			{
+				if (tmp != null)
+					Files.deleteIfExists(tmp);
+			}
+			catch (Exception e)
+			{
+				logger.debug("Could not delete temporary service cache file {}: {}", tmp, e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin client forwarding a command to the running daemon and printing its output. 
+ * 
+ * The client does not use picocli, logging or the configuration, so it starts quickly.
+ *
+ */
+public final class DaemonClient
+{
+	private static final int CONNECT_TIMEOUT = 1000;
+	
+	// Commands which run until stopped, read from the console or run other commands, they always run in the client.
+	private static final String[][] LOCAL_COMMANDS = {
+		{"daemon"},
+		{"shell"},
+		{"batch"},
+		{"service", "delete"},
+		{"service", "exporter"},
+		{"service", "record"},
+		{"service", "queue", "top"}
+	};
+	
+	// Queue stats only runs until stopped with the watch option.
+	private static final String[] WATCH_COMMAND = {"service", "queue", "stats"};
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	private DaemonClient()
+	{
+	}
+	
+	/**
+	 * Checks if a command can be forwarded to the daemon. 
+	 * @param args the command arguments
+	 * @return false for the commands which must run in the client
+	 */
+	public static boolean isForwardable(String[] args)
+	{
+		if (args.length == 0)
+			return false;
+		
+		List<String> names = getCommandNames(args);
+		for (String[] command : LOCAL_COMMANDS)
+		{
+			if (startsWith(names, command))
+				return false;
+		}
+		
+		if (startsWith(names, WATCH_COMMAND))
+		{
+			for (String arg : args)
+			{
+				if (arg.equals("-watch") || arg.equals("-w") || arg.startsWith("-watch=") || arg.startsWith("-w="))
+					return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the arguments which are not options, skipping the value of the root output option.
+	 * @param args the arguments
+	 * @return the command names followed by the parameters
+	 */
+	private static List<String> getCommandNames(String[] args)
+	{
+		List<String> names = new ArrayList<String>(args.length);
+		for (int i = 0; i < args.length; i++)
+		{
+			if (args[i].equals("-o") || args[i].equals("-output"))
+				i++;
+			else if (!args[i].startsWith("-"))
+				names.add(args[i]);
+		}
+		
+		return names;
+	}
+	
+	private static boolean startsWith(List<String> names, String[] command)
+	{
+		if (names.size() < command.length)
+			return false;
+		
+		for (int i = 0; i < command.length; i++)
+		{
+			if (!names.get(i).equals(command[i]))
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Executes a command on the running daemon.
+	 * @param args the command arguments
+	 * @return the exit code or null if no daemon is reachable
+	 */
+	public static Integer execute(String[] args)
+	{
+		DaemonProtocol info = DaemonProtocol.read();
+		if (info == null)
+			return null;
+		
+		Socket socket;
+		DataOutputStream out;
+		try
+		{
+			socket = connect(info);
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.writeUTF(info.getSecret());
+			out.writeByte(DaemonProtocol.REQUEST_EXECUTE);
+			out.writeInt(args.length);
+			for (String arg : args)
+				out.writeUTF(arg);
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			// Stale info file, the command runs locally.
+			return null;
+		}
+		
+		try (Socket s = socket)
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+			while (true)
+			{
+				byte type = in.readByte();
+				if (type == DaemonProtocol.FRAME_EXIT)
+					return in.readInt();
+				
+				byte[] data = new byte[in.readInt()];
+				in.readFully(data);
+				PrintStream target = type == DaemonProtocol.FRAME_ERR ? System.err : System.out;
+				target.write(data);
+				target.flush();
+			}
+		}
+		catch (IOException e)
+		{
+			System.err.println("Connection to the sol daemon was lost: " + e.getMessage());
+			return 1;
+		}
+	}
+	
+	/**
+	 * Checks if the daemon is running.
+	 * @return true if the daemon answered
+	 */
+	public static boolean ping()
+	{
+		return request(DaemonProtocol.REQUEST_PING);
+	}
+	
+	/**
+	 * Stops the running daemon.
+	 * @return true if the daemon was asked to stop
+	 */
+	public static boolean stop()
+	{
+		return request(DaemonProtocol.REQUEST_STOP);
+	}
+	
+	/**
+	 * Sends a request without arguments and waits for the answer.
+	 * @param type the request type
+	 * @return true if the daemon answered
+	 */
+	private static boolean request(byte type)
+	{
+		DaemonProtocol info = DaemonProtocol.read();
+		if (info == null)
+			return false;
+		
+		try (Socket socket = connect(info))
+		{
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeUTF(info.getSecret());
+			out.writeByte(type);
+			out.flush();
+			
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			return in.readByte() == DaemonProtocol.FRAME_EXIT;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+	}
+	
+	private static Socket connect(DaemonProtocol info) throws IOException
+	{
+		Socket socket = new Socket();
+		try
+		{
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), info.getPort()), CONNECT_TIMEOUT);
+			return socket;
+		}
+		catch (IOException e)
+		{
+			socket.close();
+			throw e;
+		}
+	}
+}
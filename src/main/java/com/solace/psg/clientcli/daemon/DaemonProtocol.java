@@ -0,0 +1,142 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli.daemon;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+
+/**
+ * Constants and the info file shared by the daemon server and client. 
+ * 
+ * The running daemon publishes its port and a secret in the info file, which is readable by the owner only. 
+ * Every request starts with the secret, so only the owner can use the daemon.
+ *
+ */
+public final class DaemonProtocol
+{
+	public static final String INFO_NAME = "daemon.info";
+	
+	public static final byte REQUEST_EXECUTE = 1;
+	public static final byte REQUEST_PING = 2;
+	public static final byte REQUEST_STOP = 3;
+	
+	public static final byte FRAME_OUT = 1;
+	public static final byte FRAME_ERR = 2;
+	public static final byte FRAME_EXIT = 3;
+	
+	private static final String PORT = "port";
+	private static final String SECRET = "secret";
+	
+	private static final String filePath = ConfigurationManager.FOLDER + File.separator + INFO_NAME;
+	
+	private final int port;
+	private final String secret;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param port the daemon port
+	 * @param secret the daemon secret
+	 */
+	public DaemonProtocol(int port, String secret)
+	{
+		this.port = port;
+		this.secret = secret;
+	}
+	
+	public int getPort()
+	{
+		return port;
+	}
+	
+	public String getSecret()
+	{
+		return secret;
+	}
+	
+	/**
+	 * Reads the info file of the running daemon.
+	 * @return the daemon info or null if no daemon info exists
+	 */
+	public static DaemonProtocol read()
+	{
+		File file = new File(filePath);
+		if (!file.exists())
+			return null;
+		
+		Properties props = new Properties();
+		try (InputStream input = new FileInputStream(file))
+		{
+			props.load(input);
+			return new DaemonProtocol(Integer.parseInt(props.getProperty(PORT)), props.getProperty(SECRET));
+		}
+		catch (Exception e)
+		{
+			return null;
+		}
+	}
+	
+	/**
+	 * Writes the info file, readable by the owner only where the file system supports it.
+	 * @throws IOException
+	 */
+	public void write() throws IOException
+	{
+		File file = new File(filePath);
+		if (file.getParentFile() != null && !file.getParentFile().exists())
+			file.getParentFile().mkdir();
+		
+		file.delete();
+		file.createNewFile();
+		try
+		{
+			Files.setPosixFilePermissions(file.toPath(), PosixFilePermissions.fromString("rw-------"));
+		}
+		catch (UnsupportedOperationException e)
+		{
+			file.setReadable(false, false);
+			file.setReadable(true, true);
+		}
+		
+		Properties props = new Properties();
+		props.setProperty(PORT, Integer.toString(port));
+		props.setProperty(SECRET, secret);
+		try (OutputStream output = new FileOutputStream(file))
+		{
+			props.store(output, null);
+		}
+	}
+	
+	/**
+	 * Deletes the info file.
+	 */
+	public static void delete()
+	{
+		new File(filePath).delete();
+	}
+}
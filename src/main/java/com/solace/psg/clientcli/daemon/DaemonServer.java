@@ -0,0 +1,448 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.clientcli.config.ConfigurationManager;
+
+import picocli.CommandLine;
+
+/**
+ * Daemon keeping the JVM, the configuration, the HTTP clients and the messaging sessions warm between commands. 
+ * 
+ * The daemon listens on the loopback interface only. Each request runs on its own thread with a new command line, 
+ * and System.out and System.err are routed per thread to the client of the request. A request is cancelled by 
+ * interrupting its thread when the client disconnects. Commands which run until stopped or read from the console 
+ * are not forwarded to the daemon.
+ *
+ */
+public class DaemonServer
+{
+	private static final Logger logger = LogManager.getLogger(DaemonServer.class);
+	
+	private static final int SECRET_LENGTH = 32;
+	
+	private final Supplier<CommandLine> commandFactory;
+	
+	private int port = 0;
+	
+	private long idleTimeout = 0;
+	
+	private volatile boolean running;
+	
+	private volatile long lastActivity;
+	
+	private final AtomicInteger active = new AtomicInteger();
+	
+	// The client streams of the request running on a thread, inherited by the threads the command starts.
+	private final InheritableThreadLocal<PrintStream> clientOut = new InheritableThreadLocal<PrintStream>();
+	private final InheritableThreadLocal<PrintStream> clientErr = new InheritableThreadLocal<PrintStream>();
+	
+	private ServerSocket server;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param commandFactory creates the command line used to execute the requests
+	 */
+	public DaemonServer(Supplier<CommandLine> commandFactory)
+	{
+		this.commandFactory = commandFactory;
+	}
+	
+	/**
+	 * Sets the port to listen on, 0 picks a free port.
+	 * @param port the port
+	 */
+	public void setPort(int port)
+	{
+		this.port = port;
+	}
+	
+	/**
+	 * Sets the time without requests after which the daemon stops, 0 runs until stopped.
+	 * @param idleTimeout the idle timeout in ms
+	 */
+	public void setIdleTimeout(long idleTimeout)
+	{
+		this.idleTimeout = idleTimeout;
+	}
+	
+	/**
+	 * Runs the daemon until it is stopped or idle for longer than the idle timeout.
+	 * @throws IOException
+	 */
+	public void run() throws IOException
+	{
+		String secret = createSecret();
+		
+		PrintStream sysOut = System.out;
+		PrintStream sysErr = System.err;
+		InputStream sysIn = System.in;
+		ExecutorService workers = Executors.newCachedThreadPool(r ->
+		{
+			Thread thread = new Thread(r, "sol-daemon-request");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+		try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress()))
+		{
+			this.server = server;
+			if (idleTimeout > 0)
+				server.setSoTimeout((int) Math.min(idleTimeout, Integer.MAX_VALUE));
+			
+			System.setOut(new PrintStream(new RoutingOutputStream(clientOut, sysOut), true));
+			System.setErr(new PrintStream(new RoutingOutputStream(clientErr, sysErr), true));
+			// Interactive commands run in the client, the daemon has no console to read from.
+			System.setIn(new ByteArrayInputStream(new byte[0]));
+			
+			new DaemonProtocol(server.getLocalPort(), secret).write();
+			logger.info("Sol daemon listening on port {}.", server.getLocalPort());
+			
+			lastActivity = System.currentTimeMillis();
+			running = true;
+			while (running)
+			{
+				Socket socket;
+				try
+				{
+					socket = server.accept();
+				}
+				catch (SocketTimeoutException e)
+				{
+					if (active.get() == 0 && System.currentTimeMillis() - lastActivity >= idleTimeout)
+					{
+						logger.info("Sol daemon idle for {} ms, stopping.", idleTimeout);
+						running = false;
+					}
+					continue;
+				}
+				catch (IOException e)
+				{
+					// The server socket is closed by a stop request.
+					if (running)
+						logger.warn("Sol daemon failed to accept a request: {}", e.getMessage());
+					continue;
+				}
+				
+				workers.execute(() -> serve(socket, secret));
+			}
+		}
+		finally
+		{
+			workers.shutdownNow();
+			System.setOut(sysOut);
+			System.setErr(sysErr);
+			System.setIn(sysIn);
+			DaemonProtocol.delete();
+			logger.info("Sol daemon stopped.");
+		}
+	}
+	
+	/**
+	 * Serves a connection.
+	 * @param socket the client socket
+	 * @param secret the daemon secret
+	 */
+	private void serve(Socket socket, String secret)
+	{
+		try (Socket s = socket)
+		{
+			handle(s, secret);
+		}
+		catch (IOException e)
+		{
+			logger.warn("Sol daemon request failed: {}", e.getMessage());
+		}
+	}
+	
+	/**
+	 * Handles a single request.
+	 * @param socket the client socket
+	 * @param secret the daemon secret
+	 * @throws IOException
+	 */
+	private void handle(Socket socket, String secret) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		
+		String clientSecret = in.readUTF();
+		if (!MessageDigest.isEqual(secret.getBytes(), clientSecret.getBytes()))
+		{
+			logger.warn("Sol daemon rejected a request with an invalid secret.");
+			return;
+		}
+		
+		byte type = in.readByte();
+		switch (type)
+		{
+			case DaemonProtocol.REQUEST_PING:
+				writeExit(out, 0);
+				break;
+			case DaemonProtocol.REQUEST_STOP:
+				running = false;
+				writeExit(out, 0);
+				server.close();
+				break;
+			case DaemonProtocol.REQUEST_EXECUTE:
+				String[] args = new String[in.readInt()];
+				for (int i = 0; i < args.length; i++)
+					args[i] = in.readUTF();
+				
+				writeExit(out, execute(args, in, out));
+				break;
+			default:
+				logger.warn("Sol daemon received an unknown request type: {}", type);
+		}
+	}
+	
+	/**
+	 * Executes the command with the standard streams of this thread routed to the client.
+	 * @param args the arguments
+	 * @param in the client input, read to detect a disconnect
+	 * @param out the client stream
+	 * @return the exit code
+	 */
+	private int execute(String[] args, InputStream in, DataOutputStream out)
+	{
+		PrintStream requestOut = new PrintStream(new FrameOutputStream(out, DaemonProtocol.FRAME_OUT), true);
+		PrintStream requestErr = new PrintStream(new FrameOutputStream(out, DaemonProtocol.FRAME_ERR), true);
+		Cancellation cancellation = new Cancellation(Thread.currentThread(), in);
+		
+		active.incrementAndGet();
+		try
+		{
+			clientOut.set(requestOut);
+			clientErr.set(requestErr);
+			
+			// Commands keep state between runs, so every request gets its own command line.
+			CommandLine cmd = commandFactory.get();
+			// picocli keeps its own writers for usage and error messages.
+			cmd.setOut(new PrintWriter(requestOut, true));
+			cmd.setErr(new PrintWriter(requestErr, true));
+			// Picks up a login or config change made by a process not using the daemon.
+			ConfigurationManager.getInstance().reloadIfChanged();
+			
+			cancellation.start();
+			return cmd.execute(args);
+		}
+		catch (Exception e)
+		{
+			logger.error("Sol daemon command exception occured: {}, {}", e.getMessage(), e.getCause());
+			return 1;
+		}
+		finally
+		{
+			cancellation.finish();
+			requestOut.flush();
+			requestErr.flush();
+			clientOut.remove();
+			clientErr.remove();
+			active.decrementAndGet();
+			lastActivity = System.currentTimeMillis();
+		}
+	}
+	
+	private static void writeExit(DataOutputStream out, int code) throws IOException
+	{
+		out.writeByte(DaemonProtocol.FRAME_EXIT);
+		out.writeInt(code);
+		out.flush();
+	}
+	
+	private static String createSecret()
+	{
+		byte[] bytes = new byte[SECRET_LENGTH];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+			sb.append(String.format("%02x", b));
+		
+		return sb.toString();
+	}
+	
+	/**
+	 * Output stream writing each chunk as a typed frame to the client.
+	 */
+	private static class FrameOutputStream extends OutputStream
+	{
+		private final DataOutputStream out;
+		private final byte type;
+		
+		FrameOutputStream(DataOutputStream out, byte type)
+		{
+			this.out = out;
+			this.type = type;
+		}
+		
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+				return;
+			
+			// The output and error frames of a request share the client stream.
+			synchronized (out)
+			{
+				out.writeByte(type);
+				out.writeInt(len);
+				out.write(b, off, len);
+			}
+		}
+		
+		@Override
+		public void flush() throws IOException
+		{
+			synchronized (out)
+			{
+				out.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Output stream writing to the client stream of the current thread, or to the console without one.
+	 */
+	private static class RoutingOutputStream extends OutputStream
+	{
+		private final ThreadLocal<PrintStream> routes;
+		private final PrintStream console;
+		
+		RoutingOutputStream(ThreadLocal<PrintStream> routes, PrintStream console)
+		{
+			this.routes = routes;
+			this.console = console;
+		}
+		
+		private PrintStream target()
+		{
+			PrintStream route = routes.get();
+			return route != null ? route : console;
+		}
+		
+		@Override
+		public void write(int b)
+		{
+			target().write(b);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			target().write(b, off, len);
+		}
+		
+		@Override
+		public void flush()
+		{
+			target().flush();
+		}
+	}
+	
+	/**
+	 * Interrupts the thread of a request when its client disconnects, e.g. on Ctrl+C.
+	 */
+	private static class Cancellation implements Runnable
+	{
+		private final Thread worker;
+		private final InputStream in;
+		private boolean finished = false;
+		
+		Cancellation(Thread worker, InputStream in)
+		{
+			this.worker = worker;
+			this.in = in;
+		}
+		
+		void start()
+		{
+			Thread watcher = new Thread(this, "sol-daemon-cancel");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+		
+		@Override
+		public void run()
+		{
+			try
+			{
+				// The client sends nothing after the request, the read returns when it disconnects.
+				while (in.read() >= 0)
+					;
+			}
+			catch (IOException e)
+			{
+				// Disconnected or closed after the request.
+			}
+			
+			synchronized (this)
+			{
+				if (!finished)
+				{
+					logger.info("Sol daemon client disconnected, cancelling the command.");
+					worker.interrupt();
+				}
+			}
+		}
+		
+		/**
+		 * Marks the request finished, a later disconnect does not interrupt the thread anymore.
+		 */
+		void finish()
+		{
+			synchronized (this)
+			{
+				finished = true;
+			}
+			// Clears an interrupt which arrived while the command was finishing.
+			Thread.interrupted();
+		}
+	}
+}
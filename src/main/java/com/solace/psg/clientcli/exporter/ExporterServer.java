@@ -0,0 +1,199 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the metrics of a collector on /metrics with the HTTP server of the JDK.
+ *
+ * The metrics are collected when a scrape finds the cached metrics older than the cache time. Scrapes arriving
+ * while a collection runs wait for it instead of starting their own, so several scrapers cost one SEMP fetch.
+ *
+ */
+public class ExporterServer
+{
+	private static final Logger logger = LogManager.getLogger(ExporterServer.class);
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final int THREADS = 4;
+
+	private final MetricsCollector collector;
+
+	private final long cacheMillis;
+
+	private final Object lock = new Object();
+
+	private HttpServer server;
+
+	private ExecutorService executor;
+
+	private String cached;
+
+	private long cachedAt;
+
+	private CompletableFuture<String> pending;
+
+	/**
+	 * Initialises a new instance of the class.
+	 * @param collector the metrics collector
+	 * @param cacheMillis the time the collected metrics are served from the cache
+	 */
+	public ExporterServer(MetricsCollector collector, long cacheMillis)
+	{
+		this.collector = collector;
+		this.cacheMillis = cacheMillis;
+	}
+
+	/**
+	 * Starts the server.
+	 * @param address the address to listen on
+	 * @throws IOException
+	 */
+	public void start(InetSocketAddress address) throws IOException
+	{
+		server = HttpServer.create(address, 0);
+		server.createContext("/metrics", this::handleMetrics);
+		executor = Executors.newFixedThreadPool(THREADS);
+		server.setExecutor(executor);
+		server.start();
+
+		logger.info("Exporter listening on {}.", address);
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	public void stop()
+	{
+		if (server != null)
+			server.stop(0);
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	private void handleMetrics(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			if (!"GET".equals(exchange.getRequestMethod()))
+			{
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+
+			byte[] body;
+			int status = 200;
+			try
+			{
+				body = getMetrics().getBytes(StandardCharsets.UTF_8);
+			}
+			catch (Exception e)
+			{
+				logger.error("Error occured while collecting the metrics: {}", e.getMessage());
+				body = ("Error occured while collecting the metrics: " + e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8);
+				status = 503;
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream out = exchange.getResponseBody())
+			{
+				out.write(body);
+			}
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Gets the cached metrics or collects them. Only one collection runs at a time.
+	 * @return the metrics
+	 * @throws Exception
+	 */
+	String getMetrics() throws Exception
+	{
+		CompletableFuture<String> future;
+		boolean collect = false;
+		synchronized (lock)
+		{
+			if (cached != null && System.currentTimeMillis() - cachedAt < cacheMillis)
+				return cached;
+
+			if (pending == null)
+			{
+				pending = new CompletableFuture<String>();
+				collect = true;
+			}
+			future = pending;
+		}
+
+		if (collect)
+		{
+			try
+			{
+				String metrics = collector.collect();
+				synchronized (lock)
+				{
+					cached = metrics;
+					cachedAt = System.currentTimeMillis();
+					pending = null;
+				}
+				future.complete(metrics);
+			}
+			catch (Throwable e)
+			{
+				// Errors as well, a pending collection which never completes would block every later scrape.
+				synchronized (lock)
+				{
+					pending = null;
+				}
+				future.completeExceptionally(e);
+			}
+		}
+
+		try
+		{
+			return future.get();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof Exception)
+				throw (Exception) e.getCause();
+			throw new IOException("Error occured while collecting the metrics: " + e.getCause(), e.getCause());
+		}
+	}
+}
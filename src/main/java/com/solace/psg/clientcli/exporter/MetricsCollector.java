@@ -0,0 +1,227 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli.exporter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.solace.psg.clientcli.utils.SempPager;
+import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
+
+/**
+ * Collects queue, client profile and bridge stats from the SEMP v2 monitoring API and renders them in the Prometheus text format.
+ *
+ * Every numeric and boolean attribute becomes a gauge named solace_&lt;object&gt;_&lt;attribute&gt;, labelled with the VPN and the object names.
+ * The cumulative message and byte counts, the attributes ending in MsgCount or ByteCount, become counters with a _total suffix. 
+ * The counts of messages currently held, e.g. txUnackedMsgCount, stay gauges.
+ *
+ */
+public class MetricsCollector
+{
+	private static final Logger logger = LogManager.getLogger(MetricsCollector.class);
+
+	// Message counts that go up and down with the messages currently held, not cumulative counts.
+	private static final Set<String> GAUGE_COUNTS = new HashSet<String>(Arrays.asList("txUnackedMsgCount", "inProgressAckMsgCount"));
+
+	private final String vpnName;
+
+	private final Collection[] collections;
+
+	/**
+	 * A monitored collection of the VPN.
+	 */
+	private static class Collection
+	{
+		final String path;
+
+		final String metricPrefix;
+
+		final Map<String, String> labels;
+
+		final SempPager pager;
+
+		Collection(ServiceManagementContext context, String path, String metricPrefix, Map<String, String> labels, String select, String where)
+		{
+			this.path = path;
+			this.metricPrefix = metricPrefix;
+			this.labels = labels;
+
+			pager = new SempPager(context);
+			pager.setWhere(where);
+			// The name attributes are always needed for the labels.
+			if (select != null && !select.isBlank())
+				pager.setSelect(String.join(",", labels.keySet()) + "," + select);
+		}
+	}
+
+	/**
+	 * Initialises a new instance of the class.
+	 * @param context the management context of the VPN
+	 * @param queueSelect the queue attributes, or null for all
+	 * @param queueWhere the queue filter, or null for all queues
+	 * @param clientProfileSelect the client profile attributes, or null for all
+	 * @param bridgeSelect the bridge attributes, or null for all
+	 */
+	public MetricsCollector(ServiceManagementContext context, String queueSelect, String queueWhere, String clientProfileSelect, String bridgeSelect)
+	{
+		vpnName = context.getVpnName();
+
+		Map<String, String> queueLabels = new LinkedHashMap<String, String>();
+		queueLabels.put("queueName", "queue");
+
+		Map<String, String> clientProfileLabels = new LinkedHashMap<String, String>();
+		clientProfileLabels.put("clientProfileName", "client_profile");
+
+		Map<String, String> bridgeLabels = new LinkedHashMap<String, String>();
+		bridgeLabels.put("bridgeName", "bridge");
+		bridgeLabels.put("bridgeVirtualRouter", "virtual_router");
+
+		collections = new Collection[] {
+			new Collection(context, "queues", "solace_queue_", queueLabels, queueSelect, queueWhere),
+			new Collection(context, "clientProfiles", "solace_client_profile_", clientProfileLabels, clientProfileSelect, null),
+			new Collection(context, "bridges", "solace_bridge_", bridgeLabels, bridgeSelect, null)
+		};
+	}
+
+	/**
+	 * Reads all collections and renders the metrics.
+	 * @return the metrics in the Prometheus text format
+	 * @throws IOException
+	 */
+	public String collect() throws IOException
+	{
+		long start = System.nanoTime();
+
+		// Samples are grouped per metric, the format expects all samples of a metric after its TYPE line.
+		Map<String, StringBuilder> families = new LinkedHashMap<String, StringBuilder>();
+		Set<String> counters = new HashSet<String>();
+		for (Collection collection : collections)
+		{
+			long count = collection.pager.readMonitor(collection.path, page ->
+			{
+				for (JsonNode object : page)
+					addSamples(families, counters, collection, object);
+				return true;
+			});
+			logger.debug("Collected {} {} for the metrics.", count, collection.path);
+		}
+
+		StringBuilder sb = new StringBuilder(families.size() * 256);
+		for (Map.Entry<String, StringBuilder> family : families.entrySet())
+		{
+			sb.append("# TYPE ").append(family.getKey()).append(counters.contains(family.getKey()) ? " counter\n" : " gauge\n");
+			sb.append(family.getValue());
+		}
+
+		sb.append("# TYPE solace_exporter_collect_duration_seconds gauge\n");
+		sb.append("solace_exporter_collect_duration_seconds{vpn=\"").append(escape(vpnName)).append("\"} ")
+				.append((System.nanoTime() - start) / 1e9).append('\n');
+
+		return sb.toString();
+	}
+
+	private void addSamples(Map<String, StringBuilder> families, Set<String> counters, Collection collection, JsonNode object)
+	{
+		StringBuilder labels = new StringBuilder(64);
+		labels.append("{vpn=\"").append(escape(vpnName)).append('"');
+		for (Map.Entry<String, String> label : collection.labels.entrySet())
+			labels.append(',').append(label.getValue()).append("=\"").append(escape(object.path(label.getKey()).asText())).append('"');
+		labels.append("} ");
+
+		Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+		while (fields.hasNext())
+		{
+			Map.Entry<String, JsonNode> field = fields.next();
+			JsonNode value = field.getValue();
+			String sample;
+			if (value.isIntegralNumber())
+				sample = Long.toString(value.asLong());
+			else if (value.isNumber())
+				sample = Double.toString(value.asDouble());
+			else if (value.isBoolean())
+				sample = value.asBoolean() ? "1" : "0";
+			else
+				continue;
+
+			String name = collection.metricPrefix + toSnakeCase(field.getKey());
+			if (isCounter(field.getKey()))
+			{
+				name += "_total";
+				counters.add(name);
+			}
+			families.computeIfAbsent(name, n -> new StringBuilder()).append(name).append(labels).append(sample).append('\n');
+		}
+	}
+
+	/**
+	 * Checks if a SEMP attribute is a cumulative count, e.g. spooledMsgCount or rxByteCount.
+	 * @param name the attribute name
+	 * @return true for a counter
+	 */
+	static boolean isCounter(String name)
+	{
+		return (name.endsWith("MsgCount") || name.endsWith("ByteCount")) && !GAUGE_COUNTS.contains(name);
+	}
+
+	/**
+	 * Converts a SEMP attribute name to a metric name, e.g. msgSpoolUsage to msg_spool_usage.
+	 * @param name the attribute name
+	 * @return the metric name part
+	 */
+	static String toSnakeCase(String name)
+	{
+		StringBuilder sb = new StringBuilder(name.length() + 8);
+		for (int i = 0; i < name.length(); i++)
+		{
+			char c = name.charAt(i);
+			if (Character.isUpperCase(c))
+			{
+				if (i > 0 && !Character.isUpperCase(name.charAt(i - 1)))
+					sb.append('_');
+				sb.append(Character.toLowerCase(c));
+			}
+			else
+			{
+				sb.append(Character.isLetterOrDigit(c) ? c : '_');
+			}
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Escapes a label value.
+	 * @param value the value
+	 * @return the escaped value
+	 */
+	static String escape(String value)
+	{
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
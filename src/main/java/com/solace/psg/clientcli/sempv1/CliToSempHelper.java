@@ -5,14 +5,9 @@ package com.solace.psg.clientcli.sempv1;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
-import org.apache.http.HttpEntity;
 import org.apache.http.auth.AuthenticationException;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.util.EntityUtils;
-
-import com.solace.psg.sempv1.HttpSempSession;
-import com.solace.psg.sempv1.SempSession;
 
 /**
  * Class to be used for Cli-To-Semp tool. 
@@ -34,21 +29,21 @@ public class CliToSempHelper
 		this.cliToSempPath = cliToSempPath;
 	}
 	
+	/**
+	 * Executes a SEMP v1 command on the pooled session of the URL and user.
+	 * @return the response
+	 */
 	public String executeCommand(String url, String username, String password, String command) throws AuthenticationException, IOException
 	{
-		SempSession session = new HttpSempSession();
-		session.setSolaceSEMPURI(url);
-		session.setSolaceSEMPUsername(username);
-		session.setSolaceSEMPPassword(password);
-		session.open();
-		CloseableHttpResponse response = session.executeRequest(command);
-		
-		HttpEntity httpEntity = response.getEntity();
-		String apiOutput = EntityUtils.toString(httpEntity);
-		
-		session.close();
+		return SempSessionPool.getInstance().executeRequest(url, username, password, command);
+	}
 
-		return apiOutput;
+	/**
+	 * Executes a SEMP v1 command on the pooled session of the URL and user and writes the response to the output as it arrives.
+	 */
+	public void executeCommand(String url, String username, String password, String command, OutputStream output) throws AuthenticationException, IOException
+	{
+		SempSessionPool.getInstance().executeRequest(url, username, password, command, output);
 	}
 
 	/**
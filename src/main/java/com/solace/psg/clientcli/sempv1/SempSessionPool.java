@@ -0,0 +1,348 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli.sempv1;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.auth.AuthenticationException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solace.psg.sempv1.HttpSempSession;
+import com.solace.psg.sempv1.SempSession;
+
+/**
+ * Keeps open SEMP v1 sessions per SEMP URL and user for the lifetime of the process.
+ *
+ * A session holds its HTTP connections open between requests, so a sequence of SEMP v1 calls only pays the
+ * connection setup once. A session is used by one caller at a time: callers check a session out and return it,
+ * concurrent callers get their own sessions. A session which failed is closed instead of being returned, the
+ * other sessions of the same URL and user stay open. The sessions are closed when the process exits.
+ *
+ */
+public class SempSessionPool
+{
+	private static final Logger logger = LogManager.getLogger(SempSessionPool.class);
+
+	private static final SempSessionPool instance = new SempSessionPool();
+
+	static final int MAX_IDLE_SESSIONS = 4;
+
+	/**
+	 * Opens SEMP v1 sessions.
+	 */
+	interface SessionFactory
+	{
+		/**
+		 * Opens a session.
+		 * @param url the SEMP v1 URL
+		 * @param username the SEMP username
+		 * @param password the SEMP password
+		 * @return the open session
+		 * @throws IOException
+		 */
+		SempSession open(String url, String username, String password) throws IOException;
+	}
+
+	private final SessionFactory factory;
+
+	// Idle sessions by key, guarded by this.
+	private final Map<String, Deque<PooledSession>> idle = new HashMap<String, Deque<PooledSession>>();
+
+	// Checked out sessions, guarded by this.
+	private final Map<SempSession, PooledSession> checkedOut = new IdentityHashMap<SempSession, PooledSession>();
+
+	private boolean closed = false;
+
+	/**
+	 * An open session with its key and the password it was opened with.
+	 */
+	private static class PooledSession
+	{
+		final String key;
+
+		final SempSession session;
+
+		final String password;
+
+		PooledSession(String key, SempSession session, String password)
+		{
+			this.key = key;
+			this.session = session;
+			this.password = password;
+		}
+	}
+
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	private SempSessionPool()
+	{
+		this(SempSessionPool::openSession);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::closeAll));
+	}
+
+	/**
+	 * Initialises a new instance of the class opening its sessions with a factory.
+	 * @param factory the session factory
+	 */
+	SempSessionPool(SessionFactory factory)
+	{
+		this.factory = factory;
+	}
+
+	/**
+	 * Gets the instance.
+	 * @return the pool
+	 */
+	public static SempSessionPool getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Checks out an idle session for a SEMP URL and user, opening one if none is idle. The session has to be
+	 * handed back with release() or, if it failed, discard().
+	 * @param url the SEMP v1 URL
+	 * @param username the SEMP username
+	 * @param password the SEMP password
+	 * @return the session
+	 * @throws AuthenticationException
+	 * @throws IOException
+	 */
+	public SempSession acquire(String url, String username, String password) throws AuthenticationException, IOException
+	{
+		String key = username + "@" + url;
+		List<PooledSession> stale = new ArrayList<PooledSession>();
+		try
+		{
+			synchronized (this)
+			{
+				Deque<PooledSession> sessions = idle.get(key);
+				PooledSession pooled;
+				while (sessions != null && (pooled = sessions.pollFirst()) != null)
+				{
+					if (Objects.equals(pooled.password, password))
+					{
+						checkedOut.put(pooled.session, pooled);
+						return pooled.session;
+					}
+					stale.add(pooled);
+				}
+			}
+		}
+		finally
+		{
+			for (PooledSession pooled : stale)
+				close(pooled);
+		}
+
+		// Opened outside the lock, so a slow connection does not hold up the other callers.
+		SempSession session = factory.open(url, username, password);
+		logger.debug("Opened SEMP v1 session for {}.", key);
+
+		synchronized (this)
+		{
+			checkedOut.put(session, new PooledSession(key, session, password));
+		}
+
+		return session;
+	}
+
+	/**
+	 * Returns a checked out session to the pool.
+	 * @param session the session
+	 */
+	public void release(SempSession session)
+	{
+		PooledSession excess = null;
+		synchronized (this)
+		{
+			PooledSession pooled = checkedOut.remove(session);
+			if (pooled == null)
+				return;
+
+			Deque<PooledSession> sessions = idle.computeIfAbsent(pooled.key, k -> new ArrayDeque<PooledSession>());
+			if (closed || sessions.size() >= MAX_IDLE_SESSIONS)
+				excess = pooled;
+			else
+				sessions.addFirst(pooled);
+		}
+
+		if (excess != null)
+			close(excess);
+	}
+
+	/**
+	 * Closes a checked out session which failed, instead of returning it to the pool.
+	 * @param session the session
+	 */
+	public void discard(SempSession session)
+	{
+		PooledSession pooled;
+		synchronized (this)
+		{
+			pooled = checkedOut.remove(session);
+		}
+
+		if (pooled != null)
+			close(pooled);
+	}
+
+	/**
+	 * Executes a SEMP v1 request and returns the response.
+	 * @param url the SEMP v1 URL
+	 * @param username the SEMP username
+	 * @param password the SEMP password
+	 * @param request the SEMP request
+	 * @return the response
+	 * @throws AuthenticationException
+	 * @throws IOException
+	 */
+	public String executeRequest(String url, String username, String password, String request) throws AuthenticationException, IOException
+	{
+		SempSession session = acquire(url, username, password);
+		boolean succeeded = false;
+		try
+		{
+			String result;
+			try (CloseableHttpResponse response = session.executeRequest(request))
+			{
+				result = EntityUtils.toString(response.getEntity());
+			}
+			succeeded = true;
+			return result;
+		}
+		finally
+		{
+			giveBack(session, succeeded);
+		}
+	}
+
+	/**
+	 * Executes a SEMP v1 request and writes the response to the output as it arrives.
+	 * @param url the SEMP v1 URL
+	 * @param username the SEMP username
+	 * @param password the SEMP password
+	 * @param request the SEMP request
+	 * @param output the output, not closed
+	 * @throws AuthenticationException
+	 * @throws IOException
+	 */
+	public void executeRequest(String url, String username, String password, String request, OutputStream output) throws AuthenticationException, IOException
+	{
+		SempSession session = acquire(url, username, password);
+		boolean succeeded = false;
+		try
+		{
+			try (CloseableHttpResponse response = session.executeRequest(request))
+			{
+				HttpEntity entity = response.getEntity();
+				if (entity != null)
+				{
+					entity.writeTo(output);
+					EntityUtils.consume(entity);
+				}
+			}
+			output.flush();
+			succeeded = true;
+		}
+		finally
+		{
+			giveBack(session, succeeded);
+		}
+	}
+
+	/**
+	 * Returns a session after a request, or closes it if the request failed.
+	 * @param session the session
+	 * @param succeeded true if the request succeeded
+	 */
+	private void giveBack(SempSession session, boolean succeeded)
+	{
+		if (succeeded)
+			release(session);
+		else
+			discard(session);
+	}
+
+	/**
+	 * Opens an HTTP SEMP v1 session.
+	 * @param url the SEMP v1 URL
+	 * @param username the SEMP username
+	 * @param password the SEMP password
+	 * @return the open session
+	 */
+	private static SempSession openSession(String url, String username, String password)
+	{
+		SempSession session = new HttpSempSession();
+		session.setSolaceSEMPURI(url);
+		session.setSolaceSEMPUsername(username);
+		session.setSolaceSEMPPassword(password);
+		session.open();
+		return session;
+	}
+
+	/**
+	 * Closes a session.
+	 * @param pooled the session
+	 */
+	private void close(PooledSession pooled)
+	{
+		try
+		{
+			pooled.session.close();
+		}
+		catch (Exception e)
+		{
+			logger.debug("Error occurred while closing SEMP v1 session: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Closes all idle sessions. Sessions checked out at this point are closed when they are returned.
+	 */
+	public void closeAll()
+	{
+		List<PooledSession> sessions = new ArrayList<PooledSession>();
+		synchronized (this)
+		{
+			closed = true;
+			for (Deque<PooledSession> deque : idle.values())
+				sessions.addAll(deque);
+			idle.clear();
+		}
+
+		for (PooledSession pooled : sessions)
+			close(pooled);
+	}
+}
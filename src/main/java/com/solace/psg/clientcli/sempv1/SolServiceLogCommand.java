@@ -32,14 +32,13 @@ import org.apache.logging.log4j.Logger;
 import org.xml.sax.SAXException;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
-import com.solace.psg.sempv1.HttpSempSession;
+import com.solace.psg.clientcli.config.ServiceResolver;
 import com.solace.psg.sempv1.LogType;
 import com.solace.psg.sempv1.SempSession;
 import com.solace.psg.sempv1.ShowCommands;
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
 import com.solace.psg.sempv2.apiclient.ApiException;
-import com.solace.psg.sempv2.ServiceManager;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -114,33 +113,17 @@ public class SolServiceLogCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (excl != null && excl.serviceId != null)
-			{
-				sd = sm.getServiceDetails(excl.serviceId);
-			}
-			else if (excl != null && excl.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(excl.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = excl != null ? excl.serviceId : null;
+			String serviceName = excl != null ? excl.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				 displayLog(sd);
@@ -167,9 +150,23 @@ public class SolServiceLogCommand implements Runnable
 		System.out.println("Retrieving " + logType.toString() + " log...");
 		
 		ServiceManagementContext ctx = new ServiceManagementContext(sd);
-		SempSession session = new HttpSempSession(ctx.getSempUsername(), ctx.getSempPassword(), ctx.getSempV1Url());
-		ShowCommands com = new ShowCommands(session);
-		List<String> result = com.getLogTail(logType, lineCount);
+		SempSessionPool pool = SempSessionPool.getInstance();
+		SempSession session = pool.acquire(ctx.getSempV1Url(), ctx.getSempUsername(), ctx.getSempPassword());
+		List<String> result = null;
+		boolean succeeded = false;
+		try
+		{
+			ShowCommands com = new ShowCommands(session);
+			result = com.getLogTail(logType, lineCount);
+			succeeded = true;
+		}
+		finally
+		{
+			if (succeeded)
+				pool.release(session);
+			else
+				pool.discard(session);
+		}
 		
 		if (result != null && result.size() > 0)
 		{
@@ -30,13 +30,12 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.solace.psg.clientcli.config.ConfigurationManager;
+import com.solace.psg.clientcli.config.ServiceResolver;
 import com.solace.psg.sempv1.AdminCommands;
-import com.solace.psg.sempv1.HttpSempSession;
 import com.solace.psg.sempv1.SempSession;
 import com.solace.psg.sempv2.admin.model.ServiceDetails;
 import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
 import com.solace.psg.sempv2.apiclient.ApiException;
-import com.solace.psg.sempv2.ServiceManager;
 
 import picocli.CommandLine.ArgGroup;
 import picocli.CommandLine.Command;
@@ -108,33 +107,17 @@ public class SolServiceQueuePurgeCommand implements Runnable
 				return;
 			}
 			
-			ServiceManager sm = new ServiceManager(token);
-			String ctxServiceId = ConfigurationManager.getInstance().getCurrentServiceId();
-			String ctxServiceName = ConfigurationManager.getInstance().getCurrentServiceName();
-			
-			ServiceDetails sd = null;
-			if (excl != null && excl.serviceId != null)
-			{
-				sd = sm.getServiceDetails(excl.serviceId);
-			}
-			else if (excl != null && excl.serviceName != null)
-			{
-				sd = sm.getServiceDetailsByName(excl.serviceName);
-			}
-			else if (ctxServiceId != null)
-			{
-				sd = sm.getServiceDetails(ctxServiceId);
-			}
-			else if (ctxServiceName != null)
-			{
-				sd = sm.getServiceDetailsByName(ctxServiceName);
-			}
-			else
+			ServiceResolver resolver = ServiceResolver.getInstance();
+			String serviceId = excl != null ? excl.serviceId : null;
+			String serviceName = excl != null ? excl.serviceName : null;
+			if (!resolver.hasService(serviceId, serviceName))
 			{
 				System.out.println("Service ID or service name was not provided.");
 				return;
 			}
 			
+			ServiceDetails sd = resolver.resolve(serviceId, serviceName);
+			
 			if (sd != null)
 			{
 				purgeQueue(sd);
@@ -159,9 +142,23 @@ public class SolServiceQueuePurgeCommand implements Runnable
 	private void purgeQueue(ServiceDetails sd) throws AuthenticationException, ClientProtocolException, IOException, JAXBException 
 	{
 		ServiceManagementContext ctx = new ServiceManagementContext(sd);
-		SempSession session = new HttpSempSession(ctx.getSempUsername(), ctx.getSempPassword(), ctx.getSempV1Url());
-		AdminCommands com = new AdminCommands(session);
-		boolean result = com.purgeQueueMessages(ctx.getVpnName(), queueName);
+		SempSessionPool pool = SempSessionPool.getInstance();
+		SempSession session = pool.acquire(ctx.getSempV1Url(), ctx.getSempUsername(), ctx.getSempPassword());
+		boolean result = false;
+		boolean succeeded = false;
+		try
+		{
+			AdminCommands com = new AdminCommands(session);
+			result = com.purgeQueueMessages(ctx.getVpnName(), queueName);
+			succeeded = true;
+		}
+		finally
+		{
+			if (succeeded)
+				pool.release(session);
+			else
+				pool.discard(session);
+		}
 		
 		if (result)
 			System.out.println("Messages purged succesfully.");
@@ -1,23 +1,57 @@
 /**
- * 
+ *
  */
 package com.solace.psg.clientcli.utils;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
-import com.squareup.okhttp.Call;
-import com.squareup.okhttp.OkHttpClient;
-import com.squareup.okhttp.Request;
-import com.squareup.okhttp.Response;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 /**
- * Simple HTTP interface.
- * 
+ * Simple HTTP interface and the shared HTTP client of the CLI.
+ *
+ * All requests should go through the shared client so connections, and their TLS handshakes, are reused. The
+ * client keeps idle connections alive, negotiates HTTP/2 where the server supports it and transparently requests
+ * and decodes gzip responses. The timeouts are read from the system properties sol.http.connectTimeout,
+ * sol.http.readTimeout and sol.http.writeTimeout in seconds.
  *
  */
 public class HttpClient
 {
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10;
+
+	public static final int DEFAULT_READ_TIMEOUT = 30;
+
+	public static final int DEFAULT_WRITE_TIMEOUT = 30;
+
+	private static final int MAX_IDLE_CONNECTIONS = 8;
+
+	private static final int KEEP_ALIVE_MINUTES = 5;
+
+	/**
+	 * Holds the shared client, created on first use.
+	 */
+	private static class Holder
+	{
+		static final OkHttpClient CLIENT = new OkHttpClient.Builder()
+				.connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+				.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+				.connectTimeout(Integer.getInteger("sol.http.connectTimeout", DEFAULT_CONNECT_TIMEOUT), TimeUnit.SECONDS)
+				.readTimeout(Integer.getInteger("sol.http.readTimeout", DEFAULT_READ_TIMEOUT), TimeUnit.SECONDS)
+				.writeTimeout(Integer.getInteger("sol.http.writeTimeout", DEFAULT_WRITE_TIMEOUT), TimeUnit.SECONDS)
+				.retryOnConnectionFailure(true)
+				.build();
+	}
+
 	private String url;
+
 	/**
 	 * Initialises a new instance of the class.
 	 */
@@ -26,19 +60,40 @@ public class HttpClient
 		this.url = url;
 	}
 
+	/**
+	 * Gets the shared client.
+	 * @return the client
+	 */
+	public static OkHttpClient getSharedClient()
+	{
+		return Holder.CLIENT;
+	}
+
 	/**
 	 * Executes response.
 	 * @return the body.
-	 * @throws IOException
+	 * @throws IOException if the request fails or the response status is not 2xx
 	 */
 	public String executeRequest() throws IOException
 	{
-		OkHttpClient client = new OkHttpClient();
+		try (Response response = execute())
+		{
+			return response.body().string();
+		}
+	}
 
+	private Response execute() throws IOException
+	{
 	    Request request = new Request.Builder().url(url).build();
-	 
-	    Call call = client.newCall(request);
-	    Response response = call.execute();		 
-	    return response.body().string();
+	    Response response = getSharedClient().newCall(request).execute();
+	    if (!response.isSuccessful())
+	    {
+	    	try (ResponseBody body = response.body())
+	    	{
+	    		throw new IOException("HTTP request failed with " + response.code() + ": " + body.string());
+	    	}
+	    }
+
+	    return response;
 	}
 }
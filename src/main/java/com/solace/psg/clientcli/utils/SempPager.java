@@ -0,0 +1,327 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.clientcli.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
+
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Reads a SEMP v2 collection page by page following the paging cursors. 
+ * 
+ * Only one page is held in memory at a time and each page is handed to the caller as soon as it arrives. 
+ *
+ */
+public class SempPager
+{
+	private static final Logger logger = LogManager.getLogger(SempPager.class);
+	
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	
+	private final String baseUrl;
+	
+	private final String vpnName;
+	
+	private final String credential;
+	
+	private final OkHttpClient client = HttpClient.getSharedClient();
+	
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	private int pageSize = DEFAULT_PAGE_SIZE;
+	
+	private String where;
+	
+	private String select;
+	
+	/**
+	 * Page handler.
+	 */
+	public interface PageHandler
+	{
+		/**
+		 * Handles a page of objects.
+		 * @param objects the objects of the page
+		 * @return true to read the next page
+		 * @throws IOException
+		 */
+		boolean handle(List<JsonNode> objects) throws IOException;
+	}
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param context the management context of the VPN
+	 */
+	public SempPager(ServiceManagementContext context)
+	{
+		this(getBaseUrl(context.getSempV1Url()), context.getVpnName(), context.getSempUsername(), context.getSempPassword());
+	}
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param baseUrl the URL of the SEMP service, without the SEMP path
+	 * @param vpnName the VPN name
+	 * @param username the SEMP username
+	 * @param password the SEMP password
+	 */
+	SempPager(String baseUrl, String vpnName, String username, String password)
+	{
+		this.baseUrl = baseUrl;
+		this.vpnName = vpnName;
+		this.credential = Credentials.basic(username, password);
+	}
+	
+	/**
+	 * Gets the URL of the SEMP service from the SEMP v1 URL.
+	 * @param sempV1Url the SEMP v1 URL
+	 * @return the URL without the SEMP path
+	 */
+	private static String getBaseUrl(String sempV1Url)
+	{
+		return sempV1Url.substring(0, sempV1Url.indexOf("/SEMP"));
+	}
+	
+	/**
+	 * Sets the number of objects requested per page.
+	 * @param pageSize the page size
+	 */
+	public void setPageSize(int pageSize)
+	{
+		this.pageSize = pageSize;
+	}
+	
+	/**
+	 * Sets the server side filter, e.g. queueName==app*,maxMsgSpoolUsage>100.
+	 * @param where the where expression or null
+	 */
+	public void setWhere(String where)
+	{
+		this.where = where;
+	}
+	
+	/**
+	 * Sets the attributes returned by the server, e.g. queueName,accessType.
+	 * @param select the attribute names or null
+	 */
+	public void setSelect(String select)
+	{
+		this.select = select;
+	}
+	
+	/**
+	 * Reads a collection of the VPN.
+	 * @param collection the collection path below the VPN, e.g. queues
+	 * @param handler the page handler
+	 * @return the number of objects read
+	 * @throws IOException
+	 */
+	public long readConfig(String collection, PageHandler handler) throws IOException
+	{
+		return read(newUrl("config").addPathSegments(collection), handler);
+	}
+	
+	/**
+	 * Reads a collection of a single object, e.g. the subscriptions of a queue.
+	 * @param collection the collection path below the VPN, e.g. queues
+	 * @param name the object name, encoded as one path segment
+	 * @param subCollection the collection of the object, e.g. subscriptions
+	 * @param handler the page handler
+	 * @return the number of objects read
+	 * @throws IOException
+	 */
+	public long readConfig(String collection, String name, String subCollection, PageHandler handler) throws IOException
+	{
+		return read(newUrl("config").addPathSegments(collection).addPathSegment(name).addPathSegments(subCollection), handler);
+	}
+	
+	/**
+	 * Reads a collection of the VPN from the monitoring API.
+	 * @param collection the collection path below the VPN, e.g. queues
+	 * @param handler the page handler
+	 * @return the number of objects read
+	 * @throws IOException
+	 */
+	public long readMonitor(String collection, PageHandler handler) throws IOException
+	{
+		return read(newUrl("monitor").addPathSegments(collection), handler);
+	}
+	
+	/**
+	 * Reads a collection of a single object from the monitoring API, e.g. the messages of a queue.
+	 * @param collection the collection path below the VPN, e.g. queues
+	 * @param name the object name, encoded as one path segment
+	 * @param subCollection the collection of the object, e.g. msgs
+	 * @param handler the page handler
+	 * @return the number of objects read
+	 * @throws IOException
+	 */
+	public long readMonitor(String collection, String name, String subCollection, PageHandler handler) throws IOException
+	{
+		return read(newUrl("monitor").addPathSegments(collection).addPathSegment(name).addPathSegments(subCollection), handler);
+	}
+	
+	/**
+	 * Creates the URL of the VPN for a SEMP v2 API.
+	 * @param api the API, config or monitor
+	 * @return the URL builder
+	 */
+	private HttpUrl.Builder newUrl(String api)
+	{
+		return HttpUrl.get(baseUrl).newBuilder()
+				.addPathSegments("SEMP/v2/" + api + "/msgVpns")
+				.addPathSegment(vpnName);
+	}
+	
+	/**
+	 * Counts the objects of a collection of a single object from the monitoring API, e.g. the messages currently 
+	 * spooled on a queue. The total count of the first page is used if the broker reports it, otherwise all pages 
+	 * are read. Set a small select, e.g. msgId, to keep the pages small.
+	 * @param collection the collection path below the VPN, e.g. queues
+	 * @param name the object name, encoded as one path segment
+	 * @param subCollection the collection of the object, e.g. msgs
+	 * @return the number of objects
+	 * @throws IOException
+	 */
+	public long countMonitor(String collection, String name, String subCollection) throws IOException
+	{
+		String url = getFirstPageUrl(newUrl("monitor").addPathSegments(collection).addPathSegment(name).addPathSegments(subCollection));
+		
+		long count = 0;
+		while (url != null)
+		{
+			JsonNode page = get(url);
+			JsonNode total = page.path("meta").path("count");
+			if (total.isIntegralNumber())
+				return total.asLong();
+			
+			count += page.path("data").size();
+			url = getNextPageUrl(page);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Reads all pages of a collection.
+	 * @param builder the collection URL
+	 * @param handler the page handler
+	 * @return the number of objects read
+	 * @throws IOException
+	 */
+	private long read(HttpUrl.Builder builder, PageHandler handler) throws IOException
+	{
+		String url = getFirstPageUrl(builder);
+		
+		long count = 0;
+		while (url != null)
+		{
+			JsonNode page = get(url);
+			
+			List<JsonNode> objects = new ArrayList<JsonNode>();
+			for (JsonNode node : page.path("data"))
+				objects.add(node);
+			count += objects.size();
+			logger.debug("Read SEMP page with {} objects from {}.", objects.size(), url);
+			
+			if (!handler.handle(objects))
+				break;
+			
+			url = getNextPageUrl(page);
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Adds the paging and filter parameters to a collection URL.
+	 * @param builder the collection URL
+	 * @return the URL of the first page
+	 */
+	private String getFirstPageUrl(HttpUrl.Builder builder)
+	{
+		builder.addQueryParameter("count", Integer.toString(pageSize));
+		if (where != null && !where.isEmpty())
+			builder.addQueryParameter("where", where);
+		if (select != null && !select.isEmpty())
+			builder.addQueryParameter("select", select);
+		
+		return builder.build().toString();
+	}
+	
+	/**
+	 * Gets the URL of the next page from the paging cursor of a page.
+	 * @param page the page
+	 * @return the URL or null if it is the last page
+	 */
+	private static String getNextPageUrl(JsonNode page)
+	{
+		JsonNode next = page.path("meta").path("paging").path("nextPageUri");
+		return next.isTextual() ? next.asText() : null;
+	}
+	
+	/**
+	 * Reads the attributes of the VPN from the monitoring API, limited by the select attributes.
+	 * @return the VPN attributes
+	 * @throws IOException
+	 */
+	public JsonNode readMonitorVpn() throws IOException
+	{
+		HttpUrl.Builder builder = newUrl("monitor");
+		if (select != null && !select.isEmpty())
+			builder.addQueryParameter("select", select);
+		
+		return get(builder.build().toString()).path("data");
+	}
+	
+	/**
+	 * Sends a GET request.
+	 * @param url the URL
+	 * @return the response document
+	 * @throws IOException
+	 */
+	private JsonNode get(String url) throws IOException
+	{
+		Request request = new Request.Builder().url(url).header("Authorization", credential).get().build();
+		try (Response response = client.newCall(request).execute())
+		{
+			if (!response.isSuccessful())
+				throw new IOException("SEMP request failed with " + response.code() + ": " + response.body().string());
+			
+			try (InputStream input = response.body().byteStream())
+			{
+				return mapper.readTree(input);
+			}
+		}
+	}
+}
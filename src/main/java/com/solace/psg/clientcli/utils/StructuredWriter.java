@@ -0,0 +1,359 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.clientcli.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Writes command results as JSON, JSON Lines, CSV or YAML straight to stdout.
+ *
+ * The selected format is kept per thread, so shell, batch and daemon workers can run commands with different formats.
+ * Outside the table format stdout carries only the data, the status and error messages of the commands go to stderr.
+ *
+ */
+public class StructuredWriter implements Closeable, Flushable
+{
+	/**
+	 * Supported output formats. TABLE keeps the human readable output of each command.
+	 */
+	public enum Format
+	{
+		TABLE, JSON, JSONL, CSV, YAML
+	}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<Format> currentFormat = ThreadLocal.withInitial(() -> Format.TABLE);
+
+	private static final ObjectMapper jsonMapper = configure(new ObjectMapper());
+
+	private static final ObjectMapper yamlMapper = configure(new ObjectMapper(new YAMLFactory()));
+
+	// The default YAML output of the details and stats commands, with the default mapper settings.
+	private static final ObjectMapper tableMapper = new ObjectMapper(new YAMLFactory());
+
+	private final Format format;
+
+	private final boolean list;
+
+	private final OutputStream out;
+
+	private JsonGenerator generator;
+
+	private Writer csv;
+
+	private List<String> columns;
+
+	private long rowCount;
+
+	private boolean closed;
+
+	/**
+	 * Sets the output format for commands run by the current thread.
+	 * @param format the format
+	 */
+	public static void setFormat(Format format)
+	{
+		currentFormat.set(format == null ? Format.TABLE : format);
+	}
+
+	/**
+	 * Gets the output format of the current thread.
+	 * @return the format
+	 */
+	public static Format getFormat()
+	{
+		return currentFormat.get();
+	}
+
+	/**
+	 * Checks if the commands should print their usual tables and messages.
+	 * @return true for the table format
+	 */
+	public static boolean isTable()
+	{
+		return currentFormat.get() == Format.TABLE;
+	}
+
+	/**
+	 * Gets the stream for the status and error messages of the commands.
+	 * @return stdout for the table format, stderr otherwise
+	 */
+	public static PrintStream messages()
+	{
+		return isTable() ? System.out : System.err;
+	}
+
+	/**
+	 * Opens a writer for a list of rows in the current format.
+	 * @param columns the CSV columns, or null to take the fields of the first row
+	 * @return the writer
+	 * @throws IOException
+	 */
+	public static StructuredWriter open(List<String> columns) throws IOException
+	{
+		return new StructuredWriter(currentFormat.get(), columns, true);
+	}
+
+	/**
+	 * Prints a single object in the current format. The table format prints it as YAML, including the null fields.
+	 * @param value the object
+	 * @throws IOException
+	 */
+	public static void print(Object value) throws IOException
+	{
+		Format format = currentFormat.get();
+		if (format == Format.TABLE)
+		{
+			System.out.println(tableMapper.writeValueAsString(value));
+			return;
+		}
+
+		try (StructuredWriter writer = new StructuredWriter(format, null, false))
+		{
+			writer.writeRow(value);
+		}
+	}
+
+	/**
+	 * Prints a list of objects in the current format.
+	 * @param rows the objects
+	 * @throws IOException
+	 */
+	public static void printList(Iterable<?> rows) throws IOException
+	{
+		try (StructuredWriter writer = open(null))
+		{
+			for (Object row : rows)
+				writer.writeRow(row);
+		}
+	}
+
+	/**
+	 * Applies the settings shared by all the output mappers.
+	 * @param mapper the mapper
+	 * @return the mapper
+	 */
+	private static ObjectMapper configure(ObjectMapper mapper)
+	{
+		mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+		mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+		// stdout belongs to the process, the generators must not close it.
+		mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		return mapper;
+	}
+
+	/**
+	 * Initialises a new instance of the class.
+	 * @param format the format
+	 * @param columns the CSV columns
+	 * @param list true if the rows are written as one list
+	 * @throws IOException
+	 */
+	private StructuredWriter(Format format, List<String> columns, boolean list) throws IOException
+	{
+		if (format == Format.TABLE)
+			throw new IllegalStateException("Table output is written by the command itself.");
+
+		this.format = format;
+		this.columns = columns;
+		this.list = list;
+
+		// Wraps the current stdout, batch steps replace it with their own stream.
+		out = new BufferedOutputStream(System.out, BUFFER_SIZE)
+		{
+			@Override
+			public void close() throws IOException
+			{
+				// The YAML generator closes its target regardless of AUTO_CLOSE_TARGET, stdout has to stay open.
+				flush();
+			}
+		};
+
+		switch (format)
+		{
+			case CSV:
+				csv = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+				break;
+			case YAML:
+				generator = yamlMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+				break;
+			default:
+				generator = jsonMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+				generator.setRootValueSeparator(null);
+				break;
+		}
+
+		if (list && (format == Format.JSON || format == Format.YAML))
+			generator.writeStartArray();
+	}
+
+	/**
+	 * Gets the number of rows written.
+	 * @return the row count
+	 */
+	public long getRowCount()
+	{
+		return rowCount;
+	}
+
+	/**
+	 * Writes a row. The row can be a model object or a JSON node.
+	 * @param row the row
+	 * @throws IOException
+	 */
+	public void writeRow(Object row) throws IOException
+	{
+		if (format == Format.CSV)
+		{
+			writeCsv(row instanceof JsonNode ? (JsonNode) row : jsonMapper.valueToTree(row));
+		}
+		else
+		{
+			generator.writeObject(row);
+			if (format == Format.JSONL)
+				generator.writeRaw('\n');
+		}
+
+		rowCount++;
+	}
+
+	/**
+	 * Writes a CSV line and the header before the first line.
+	 * @param node the row
+	 * @throws IOException
+	 */
+	private void writeCsv(JsonNode node) throws IOException
+	{
+		if (rowCount == 0)
+		{
+			if (columns == null)
+			{
+				columns = new ArrayList<String>();
+				Iterator<String> names = node.fieldNames();
+				while (names.hasNext())
+					columns.add(names.next());
+			}
+
+			writeCsvLine(columns);
+		}
+
+		List<String> values = new ArrayList<String>(columns.size());
+		for (String column : columns)
+		{
+			JsonNode value = node.get(column);
+			if (value == null || value.isNull())
+				values.add("");
+			else
+				values.add(value.isValueNode() ? value.asText() : value.toString());
+		}
+
+		writeCsvLine(values);
+	}
+
+	/**
+	 * Writes CSV values with RFC 4180 quoting.
+	 * @param values the values
+	 * @throws IOException
+	 */
+	private void writeCsvLine(List<String> values) throws IOException
+	{
+		for (int i = 0; i < values.size(); i++)
+		{
+			if (i > 0)
+				csv.write(',');
+
+			String value = values.get(i);
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)
+			{
+				csv.write('"');
+				csv.write(value.replace("\"", "\"\""));
+				csv.write('"');
+			}
+			else
+			{
+				csv.write(value);
+			}
+		}
+
+		csv.write("\r\n");
+	}
+
+	/**
+	 * Flushes the written rows to stdout.
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		if (generator != null)
+			generator.flush();
+		else
+			csv.flush();
+
+		out.flush();
+	}
+
+	/**
+	 * Completes the output. The stdout stream is left open.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+
+		closed = true;
+
+		if (generator != null)
+		{
+			if (list && (format == Format.JSON || format == Format.YAML))
+				generator.writeEndArray();
+			if (format == Format.JSON)
+				generator.writeRaw('\n');
+
+			generator.close();
+		}
+		else
+		{
+			csv.flush();
+		}
+
+		out.flush();
+	}
+}
@@ -85,7 +85,11 @@ public final class Block
 
 	private Block belowBlock;
 
-	private List<CharMap> charrsList;
+	private List<String> dataLines;
+
+	private int startingX;
+
+	private int dataStartingY;
 
 	private String preview;
 
@@ -116,7 +120,7 @@ public final class Block
 		this.y = 0;
 		this.rightBlock = null;
 		this.belowBlock = null;
-		this.charrsList = new ArrayList<>();
+		this.dataLines = null;
 		this.preview = "";
 		this.index = nextIndex;
 		Block.nextIndex++;
@@ -416,22 +420,21 @@ public final class Block
 	 */
 	protected Block invalidate()
 	{
-		charrsList = new ArrayList<>();
+		dataLines = null;
 		preview = "";
 		return this;
 	}
 
 	/**
-	 * Builds the block.
+	 * Builds the block layout: the data lines and where they start.
 	 * 
 	 * @return the block.
 	 */
 	protected Block build()
 	{
-		if (charrsList.isEmpty())
+		if (dataLines == null)
 		{
 			int ix = x;
-			int iy = y;
 			int blockLeftSideSpaces = -1;
 			int additionalWidth = (isGridAllowed() ? 2 : 0);
 			switch (getBlockAlign())
@@ -459,7 +462,7 @@ public final class Block
 				data = toString();
 			}
 			String[] lines = data.split("\n");
-			List<String> dataInLines = new ArrayList<>();
+			List<String> dataInLines = new ArrayList<>(Math.min(lines.length, getHeight()) + 1);
 			if (board.showBlockIndex)
 			{
 				dataInLines.add("i = " + index);
@@ -489,128 +492,98 @@ public final class Block
 					{
 						String prifix = dataLine.substring(getWidth(), dataLine.length());
 						String suffix = dataInLines.get(i + 1);
-						String combinedValue = prifix.concat((suffix.length() > 0 ? String.valueOf(CharMap.S) : ""))
+						String combinedValue = prifix.concat((suffix.length() > 0 ? String.valueOf(Canvas.S) : ""))
 								.concat(suffix);
 						dataInLines.set(i + 1, combinedValue);
 					}
 				}
 			}
 
-			for (int i = 0; i < dataInLines.size(); i++)
-			{
-				if (dataInLines.remove(""))
-				{
-					i--;
-				}
-			}
+			dataInLines.removeIf(String::isEmpty);
 
 			int givenAlign = getDataAlign();
 			int dataStartingLineIndex = -1;
 			int additionalHeight = (isGridAllowed() ? 1 : 0);
 			if (givenAlign == DATA_TOP_LEFT || givenAlign == DATA_TOP_MIDDLE || givenAlign == DATA_TOP_RIGHT)
 			{
-				dataStartingLineIndex = iy + additionalHeight;
+				dataStartingLineIndex = y + additionalHeight;
 			}
 			else if (givenAlign == DATA_MIDDLE_LEFT || givenAlign == DATA_CENTER || givenAlign == DATA_MIDDLE_RIGHT)
 			{
-				dataStartingLineIndex = iy + additionalHeight
+				dataStartingLineIndex = y + additionalHeight
 						+ ((getHeight() - dataInLines.size()) / 2 + (getHeight() - dataInLines.size()) % 2);
 			}
 			else if (givenAlign == DATA_BOTTOM_LEFT || givenAlign == DATA_BOTTOM_MIDDLE
 					|| givenAlign == DATA_BOTTOM_RIGHT)
 			{
-				dataStartingLineIndex = iy + additionalHeight + (getHeight() - dataInLines.size());
+				dataStartingLineIndex = y + additionalHeight + (getHeight() - dataInLines.size());
 			}
-			int dataEndingLineIndex = dataStartingLineIndex + dataInLines.size();
 
-			int extendedIX = ix + getWidth() + (isGridAllowed() ? 2 : 0);
-			int extendedIY = iy + getHeight() + (isGridAllowed() ? 2 : 0);
-			int startingIX = ix;
-			int startingIY = iy;
-			for (; iy < extendedIY; iy++)
+			this.startingX = ix;
+			this.dataStartingY = dataStartingLineIndex;
+			this.dataLines = dataInLines;
+		}
+		return this;
+	}
+
+	/**
+	 * Renders the block grid and data into the canvas.
+	 * @param canvas the canvas
+	 */
+	protected void render(Canvas canvas)
+	{
+		build();
+		int grid = isGridAllowed() ? 1 : 0;
+		int endingX = startingX + getWidth() + 2 * grid - 1;
+		int endingY = y + getHeight() + 2 * grid - 1;
+		if (isGridAllowed())
+		{
+			for (int ix = startingX; ix <= endingX; ix++)
 			{
-				for (; ix < extendedIX; ix++)
-				{
-					boolean writeData;
-					if (isGridAllowed())
-					{
-						if ((iy == startingIY) || (iy == extendedIY - 1))
-						{
-							if ((ix == startingIX) || (ix == extendedIX - 1))
-							{
-								charrsList.add(new CharMap(ix, iy, CharMap.P));
-								writeData = false;
-							}
-							else
-							{
-								charrsList.add(new CharMap(ix, iy, CharMap.D));
-								writeData = false;
-							}
-						}
-						else
-						{
-							if ((ix == startingIX) || (ix == extendedIX - 1))
-							{
-								charrsList.add(new CharMap(ix, iy, CharMap.VL));
-								writeData = false;
-							}
-							else
-							{
-								writeData = true;
-							}
-						}
-					}
-					else
-					{
-						writeData = true;
-					}
-					if (writeData && (iy >= dataStartingLineIndex && iy < dataEndingLineIndex))
-					{
-						int dataLineIndex = iy - dataStartingLineIndex;
-						String lineData = dataInLines.get(dataLineIndex);
-						if (!lineData.isEmpty())
-						{
-							int dataLeftSideSpaces = -1;
-							if (givenAlign == DATA_TOP_LEFT || givenAlign == DATA_MIDDLE_LEFT
-									|| givenAlign == DATA_BOTTOM_LEFT)
-							{
-								dataLeftSideSpaces = 0;
-							}
-							else if (givenAlign == DATA_TOP_MIDDLE || givenAlign == DATA_CENTER
-									|| givenAlign == DATA_BOTTOM_MIDDLE)
-							{
-								dataLeftSideSpaces = (getWidth() - lineData.length()) / 2
-										+ (getWidth() - lineData.length()) % 2;
-							}
-							else if (givenAlign == DATA_TOP_RIGHT || givenAlign == DATA_MIDDLE_RIGHT
-									|| givenAlign == DATA_BOTTOM_RIGHT)
-							{
-								dataLeftSideSpaces = getWidth() - lineData.length();
-							}
-							int dataStartingIndex = (startingIX + dataLeftSideSpaces + (isGridAllowed() ? 1 : 0));
-							int dataEndingIndex = (startingIX + dataLeftSideSpaces + lineData.length()
-									- (isGridAllowed() ? 0 : 1));
-							if (ix >= dataStartingIndex && ix <= dataEndingIndex)
-							{
-								char charData = lineData.charAt(ix - dataStartingIndex);
-								charrsList.add(new CharMap(ix, iy, charData));
-							}
-						}
-					}
-				}
-				ix = startingIX;
+				char c = (ix == startingX || ix == endingX) ? Canvas.P : Canvas.D;
+				canvas.put(ix, y, c);
+				canvas.put(ix, endingY, c);
+			}
+			for (int iy = y + 1; iy < endingY; iy++)
+			{
+				canvas.put(startingX, iy, Canvas.VL);
+				canvas.put(endingX, iy, Canvas.VL);
 			}
 		}
-		return this;
+
+		int givenAlign = getDataAlign();
+		for (int i = 0; i < dataLines.size(); i++)
+		{
+			String lineData = dataLines.get(i);
+			int dataLeftSideSpaces = 0;
+			if (givenAlign == DATA_TOP_MIDDLE || givenAlign == DATA_CENTER || givenAlign == DATA_BOTTOM_MIDDLE)
+			{
+				dataLeftSideSpaces = (getWidth() - lineData.length()) / 2 + (getWidth() - lineData.length()) % 2;
+			}
+			else if (givenAlign == DATA_TOP_RIGHT || givenAlign == DATA_MIDDLE_RIGHT || givenAlign == DATA_BOTTOM_RIGHT)
+			{
+				dataLeftSideSpaces = getWidth() - lineData.length();
+			}
+			canvas.put(startingX + dataLeftSideSpaces + grid, dataStartingY + i, lineData);
+		}
 	}
 
 	/**
-	 * Gets the chars.
-	 * @return list of chars
+	 * Gets the height the block and its right and below blocks need on the board.
+	 * @return the height
 	 */
-	protected List<CharMap> getChars()
+	protected int getExtent()
 	{
-		return this.charrsList;
+		int extent = y + getHeight() + (isGridAllowed() ? 2 : 0);
+		if (rightBlock != null)
+		{
+			extent = Math.max(extent, rightBlock.getExtent());
+		}
+		if (belowBlock != null)
+		{
+			extent = Math.max(extent, belowBlock.getExtent());
+		}
+		return extent;
 	}
 
 	/**
@@ -619,42 +592,11 @@ public final class Block
 	 */
 	public String getPreview()
 	{
-		build();
 		if (preview.isEmpty())
 		{
-			int maxY = -1;
-			int maxX = -1;
-			for (CharMap charr : charrsList)
-			{
-				int testY = charr.getY();
-				int testX = charr.getX();
-				if (maxY < testY)
-				{
-					maxY = testY;
-				}
-				if (maxX < testX)
-				{
-					maxX = testX;
-				}
-			}
-			String[][] dataPoints = new String[maxY + 1][board.boardWidth];
-			for (CharMap charr : charrsList)
-			{
-				dataPoints[charr.getY()][charr.getX()] = String.valueOf(charr.getC());
-			}
-
-			for (String[] dataPoint : dataPoints)
-			{
-				for (String point : dataPoint)
-				{
-					if (point == null)
-					{
-						point = String.valueOf(CharMap.S);
-					}
-					preview = preview.concat(point);
-				}
-				preview = preview.concat(String.valueOf(CharMap.NL));
-			}
+			Canvas canvas = new Canvas(board.boardWidth, y + getHeight() + (isGridAllowed() ? 2 : 0));
+			render(canvas);
+			preview = canvas.toString();
 		}
 		return preview;
 	}
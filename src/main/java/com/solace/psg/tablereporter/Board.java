@@ -23,7 +23,6 @@
  */
 package com.solace.psg.tablereporter;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -40,8 +39,6 @@ public class Board
 
 	private Block initialBlock;
 
-	private List<CharMap> charrs;
-
 	private String preview;
 
 	public static final int APPEND_RIGHT = 16;
@@ -55,7 +52,6 @@ public class Board
 	public Board(int boardWidth)
 	{
 		this.boardWidth = boardWidth;
-		this.charrs = new ArrayList<>();
 		this.preview = "";
 		this.showBlockIndex = false;
 		Block.nextIndex = 0;
@@ -252,55 +248,16 @@ public class Board
 	}
 
 	/**
-	 * Builds the board.
+	 * Builds the board by rendering all blocks into a single canvas.
 	 * @return the board
 	 */
 	public Board build()
 	{
-		if (charrs.isEmpty())
+		if (preview.isEmpty() && initialBlock != null)
 		{
-			// rearranegCoordinates(initialBlock);
-			buildBlock(initialBlock);
-			dumpCharrsFromBlock(initialBlock);
-
-			int maxY = -1;
-			int maxX = -1;
-			for (CharMap charr : charrs)
-			{
-				int testY = charr.getY();
-				int testX = charr.getX();
-				if (maxY < testY)
-				{
-					maxY = testY;
-				}
-				if (maxX < testX)
-				{
-					maxX = testX;
-				}
-			}
-			String[][] dataPoints = new String[maxY + 1][boardWidth];
-			for (CharMap charr : charrs)
-			{
-				String currentValue = dataPoints[charr.getY()][charr.getX()];
-				String newValue = String.valueOf(charr.getC());
-				if (currentValue == null || !currentValue.equals("+"))
-				{
-					dataPoints[charr.getY()][charr.getX()] = newValue;
-				}
-			}
-
-			for (String[] dataPoint : dataPoints)
-			{
-				for (String point : dataPoint)
-				{
-					if (point == null)
-					{
-						point = String.valueOf(CharMap.S);
-					}
-					preview = preview.concat(point);
-				}
-				preview = preview.concat(String.valueOf(CharMap.NL));
-			}
+			Canvas canvas = new Canvas(boardWidth, initialBlock.getExtent());
+			renderBlock(initialBlock, canvas);
+			preview = canvas.toString();
 		}
 
 		return this;
@@ -323,36 +280,22 @@ public class Board
 	public Board invalidate()
 	{
 		invalidateBlock(initialBlock);
-		charrs = new ArrayList<>();
 		preview = "";
 		return this;
 	}
 
 	/**
-	 * Builds the block.
-	 * @param block the block./
-	 */
-	private void buildBlock(Block block)
-	{
-		if (block != null)
-		{
-			block.build();
-			buildBlock(block.getRightBlock());
-			buildBlock(block.getBelowBlock());
-		}
-	}
-
-	/**
-	 * Dump characters from the block.
-	 * @param block
+	 * Renders the block and its right and below blocks.
+	 * @param block the block
+	 * @param canvas the canvas
 	 */
-	private void dumpCharrsFromBlock(Block block)
+	private void renderBlock(Block block, Canvas canvas)
 	{
 		if (block != null)
 		{
-			charrs.addAll(block.getChars());
-			dumpCharrsFromBlock(block.getRightBlock());
-			dumpCharrsFromBlock(block.getBelowBlock());
+			block.render(canvas);
+			renderBlock(block.getRightBlock(), canvas);
+			renderBlock(block.getBelowBlock(), canvas);
 		}
 	}
 
@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Thahzan Mohomed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.solace.psg.tablereporter;
+
+import java.util.Arrays;
+
+/**
+ * Class to hold the characters of a rendered board. This implementation is base on Wagu
+ * library, but writes the characters straight into a single buffer.
+ * 
+ * @author Victor Tsonkov
+ */
+final class Canvas
+{
+
+	protected static final char S = ' ';
+
+	protected static final char NL = '\n';
+
+	protected static final char P = '+';
+
+	protected static final char D = '-';
+
+	protected static final char VL = '|';
+
+	private final int width;
+
+	private char[] cells;
+
+	private int maxY;
+
+	/**
+	 * Initialises a new instance of the class.
+	 * @param width the width
+	 * @param height the expected height, the canvas grows if needed
+	 */
+	protected Canvas(int width, int height)
+	{
+		this.width = width;
+		this.cells = new char[width * Math.max(height, 1)];
+		this.maxY = -1;
+		Arrays.fill(cells, S);
+	}
+
+	/**
+	 * Puts a character. A grid crossing is kept when a neighbouring block draws its border over it.
+	 * @param x X
+	 * @param y Y
+	 * @param c the character
+	 */
+	protected void put(int x, int y, char c)
+	{
+		if (x < 0 || x >= width || y < 0)
+		{
+			return;
+		}
+		ensureHeight(y + 1);
+		int index = y * width + x;
+		if (cells[index] != P)
+		{
+			cells[index] = c;
+		}
+		if (y > maxY)
+		{
+			maxY = y;
+		}
+	}
+
+	/**
+	 * Puts a line of characters.
+	 * @param x X of the first character
+	 * @param y Y
+	 * @param line the characters
+	 */
+	protected void put(int x, int y, String line)
+	{
+		for (int i = 0; i < line.length(); i++)
+		{
+			put(x + i, y, line.charAt(i));
+		}
+	}
+
+	/**
+	 * Grows the buffer to the given number of lines.
+	 * @param height the height
+	 */
+	private void ensureHeight(int height)
+	{
+		if (width > 0 && cells.length < height * width)
+		{
+			int oldLength = cells.length;
+			cells = Arrays.copyOf(cells, Math.max(height, cells.length / width * 2) * width);
+			Arrays.fill(cells, oldLength, cells.length, S);
+		}
+	}
+
+	/**
+	 * Gets the lines up to the last line written.
+	 * @return the text
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder((maxY + 1) * (width + 1));
+		for (int y = 0; y <= maxY; y++)
+		{
+			sb.append(cells, y * width, width).append(NL);
+		}
+		return sb.toString();
+	}
+}
@@ -414,13 +414,13 @@ public final class Table
 		{
 			for (int i = 0; i < headersList.size(); i++)
 			{
-				String columnData = "";
+				StringBuilder columnData = new StringBuilder();
 				for (int j = 0; j < rowsList.size(); j++)
 				{
 					String rowData = rowsList.get(j).get(i);
-					columnData = columnData.concat(rowData).concat("\n");
+					columnData.append(rowData).append('\n');
 				}
-				Block block = new Block(board, colWidthsList.get(i), rowsList.size(), columnData);
+				Block block = new Block(board, colWidthsList.get(i), rowsList.size(), columnData.toString());
 				int alignIndex = colAlignsList.get(i);
 				block.setDataAlign(alignIndex);
 				if (initialTableBlock.getBelowBlock() == null)
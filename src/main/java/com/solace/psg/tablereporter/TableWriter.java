@@ -0,0 +1,326 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Thahzan Mohomed
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.solace.psg.tablereporter;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class to write a table row by row. The output has the same layout as a {@link Table} with 
+ * GRID_COLUMN, but each row is written as soon as it is supplied, so the memory use does not 
+ * depend on the number of rows.
+ * 
+ * The column widths are either fixed or sampled from the first rows, which are held back until 
+ * the sample is complete. Values longer than the column are cut.
+ */
+public class TableWriter implements Closeable, Flushable
+{
+
+	public static final int DEFAULT_SAMPLE_SIZE = 100;
+
+	private final Writer out;
+
+	private final List<String> headersList;
+
+	private List<Integer> colWidthsList;
+
+	private List<Integer> colAlignsList;
+
+	private final int sampleSize;
+
+	private final int maxColWidth;
+
+	private List<List<String>> sampleRows;
+
+	private boolean headerWritten;
+
+	private boolean finished;
+
+	private boolean autoFlush;
+
+	private long rowCount;
+
+	private char[] line;
+
+	/**
+	 * Initialises a new instance of the class with fixed column widths.
+	 * @param out the writer
+	 * @param headersList the headers
+	 * @param colWidthsList the column widths
+	 */
+	public TableWriter(Writer out, List<String> headersList, List<Integer> colWidthsList)
+	{
+		this(out, headersList, colWidthsList, 0, 0);
+	}
+
+	/**
+	 * Initialises a new instance of the class with column widths sampled from the first rows.
+	 * @param out the writer
+	 * @param headersList the headers
+	 * @param sampleSize the number of rows to sample
+	 * @param maxColWidth the maximum column width
+	 */
+	public TableWriter(Writer out, List<String> headersList, int sampleSize, int maxColWidth)
+	{
+		this(out, headersList, null, Math.max(sampleSize, 1), maxColWidth);
+	}
+
+	private TableWriter(Writer out, List<String> headersList, List<Integer> colWidthsList, int sampleSize, int maxColWidth)
+	{
+		if (headersList.size() <= 0)
+		{
+			throw new RuntimeException("Header size must be large than zero. " + headersList.size() + " found.");
+		}
+		if (colWidthsList != null && colWidthsList.size() != headersList.size())
+		{
+			throw new RuntimeException("Column width count(" + colWidthsList.size() + ") and header size("
+					+ headersList.size() + ") are not equal");
+		}
+		this.out = out;
+		this.headersList = headersList;
+		this.colWidthsList = colWidthsList;
+		this.colAlignsList = Collections.nCopies(headersList.size(), Block.DATA_MIDDLE_LEFT);
+		this.sampleSize = sampleSize;
+		this.maxColWidth = maxColWidth;
+		this.sampleRows = new ArrayList<>();
+		this.autoFlush = true;
+	}
+
+	/**
+	 * Sets the column align list, using the Block DATA_*_LEFT, DATA_*_MIDDLE and DATA_*_RIGHT values.
+	 * @param colAlignsList the list
+	 * @return the table writer
+	 */
+	public TableWriter setColAlignsList(List<Integer> colAlignsList)
+	{
+		if (colAlignsList.size() != headersList.size())
+		{
+			throw new RuntimeException("Column align count(" + colAlignsList.size() + ") and header size("
+					+ headersList.size() + ") are not equal");
+		}
+		this.colAlignsList = colAlignsList;
+		return this;
+	}
+
+	/**
+	 * Sets if the writer is flushed after each row. Default is true.
+	 * @param autoFlush true or false
+	 * @return the table writer
+	 */
+	public TableWriter setAutoFlush(boolean autoFlush)
+	{
+		this.autoFlush = autoFlush;
+		return this;
+	}
+
+	/**
+	 * Gets the number of rows supplied.
+	 * @return the count
+	 */
+	public long getRowCount()
+	{
+		return rowCount;
+	}
+
+	/**
+	 * Writes a row, or holds it back while the column widths are sampled.
+	 * @param row the row values
+	 * @throws IOException
+	 */
+	public void writeRow(List<String> row) throws IOException
+	{
+		if (row.size() != headersList.size())
+		{
+			throw new RuntimeException("Size(" + row.size() + ") of the row(" + rowCount + ") and header size("
+					+ headersList.size() + ") are not equal");
+		}
+		rowCount++;
+
+		if (colWidthsList == null)
+		{
+			sampleRows.add(row);
+			if (sampleRows.size() >= sampleSize)
+			{
+				writeSample();
+			}
+			return;
+		}
+
+		writeHeader();
+		writeValues(row);
+		if (autoFlush)
+		{
+			out.flush();
+		}
+	}
+
+	/**
+	 * Writes the rows held back and the bottom border.
+	 * @throws IOException
+	 */
+	public void finish() throws IOException
+	{
+		if (finished)
+		{
+			return;
+		}
+		finished = true;
+		if (colWidthsList == null)
+		{
+			writeSample();
+		}
+		writeHeader();
+		writeBorder();
+		out.flush();
+	}
+
+	/**
+	 * Flushes the writer.
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	/**
+	 * Finishes the table. The writer is not closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		finish();
+	}
+
+	/**
+	 * Sets the column widths from the sampled rows and writes them.
+	 * @throws IOException
+	 */
+	private void writeSample() throws IOException
+	{
+		List<Integer> widths = new ArrayList<>(headersList.size());
+		for (int i = 0; i < headersList.size(); i++)
+		{
+			int width = headersList.get(i).length();
+			for (List<String> row : sampleRows)
+			{
+				String value = row.get(i);
+				width = Math.max(width, value == null ? 0 : value.length());
+			}
+			widths.add(maxColWidth > 0 ? Math.min(width, maxColWidth) : width);
+		}
+		colWidthsList = widths;
+
+		writeHeader();
+		for (List<String> row : sampleRows)
+		{
+			writeValues(row);
+		}
+		sampleRows = null;
+		if (autoFlush)
+		{
+			out.flush();
+		}
+	}
+
+	private void writeHeader() throws IOException
+	{
+		if (!headerWritten)
+		{
+			int width = 1;
+			for (Integer colWidth : colWidthsList)
+			{
+				width += colWidth + 1;
+			}
+			line = new char[width];
+
+			headerWritten = true;
+			writeBorder();
+			writeValues(headersList);
+			writeBorder();
+		}
+	}
+
+	private void writeBorder() throws IOException
+	{
+		int x = 0;
+		line[x++] = Canvas.P;
+		for (Integer colWidth : colWidthsList)
+		{
+			for (int i = 0; i < colWidth; i++)
+			{
+				line[x++] = Canvas.D;
+			}
+			line[x++] = Canvas.P;
+		}
+		out.write(line, 0, x);
+		out.write(Canvas.NL);
+	}
+
+	/**
+	 * Writes a line of values, aligned in their columns.
+	 * @param values the values
+	 * @throws IOException
+	 */
+	private void writeValues(List<String> values) throws IOException
+	{
+		int x = 0;
+		line[x++] = Canvas.VL;
+		for (int i = 0; i < colWidthsList.size(); i++)
+		{
+			int colWidth = colWidthsList.get(i);
+			String value = values.get(i) == null ? "" : values.get(i).replace(Canvas.NL, Canvas.S);
+			if (value.length() > colWidth)
+			{
+				value = value.substring(0, colWidth);
+			}
+
+			int align = colAlignsList.get(i);
+			int leftSpaces = 0;
+			if (align == Block.DATA_TOP_MIDDLE || align == Block.DATA_CENTER || align == Block.DATA_BOTTOM_MIDDLE)
+			{
+				leftSpaces = (colWidth - value.length()) / 2 + (colWidth - value.length()) % 2;
+			}
+			else if (align == Block.DATA_TOP_RIGHT || align == Block.DATA_MIDDLE_RIGHT || align == Block.DATA_BOTTOM_RIGHT)
+			{
+				leftSpaces = colWidth - value.length();
+			}
+
+			for (int s = 0; s < colWidth; s++)
+			{
+				line[x + s] = Canvas.S;
+			}
+			value.getChars(0, value.length(), line, x + leftSpaces);
+			x += colWidth;
+			line[x++] = Canvas.VL;
+		}
+		out.write(line, 0, x);
+		out.write(Canvas.NL);
+	}
+}
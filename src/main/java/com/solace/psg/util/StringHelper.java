@@ -68,5 +68,20 @@ public class StringHelper
 	{
 		return (value != null) ? value.toString() : "";
 	}
+	
+	/**
+	 * Formats a byte count as B, KB or MB. 
+	 * @param bytes the byte count
+	 * @return the formatted size
+	 */
+	public static String formatBytes(long bytes)
+	{
+		if (bytes < 1024)
+			return bytes + " B";
+		if (bytes < 1024 * 1024)
+			return String.format("%.1f KB", bytes / 1024.0);
+		
+		return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+	}
 
 }
@@ -0,0 +1,232 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.provision;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Reads queue provisioning manifests. 
+ * 
+ * A YAML manifest is a list of queues or an object with a 'queues' list. A CSV manifest has a header row 
+ * with the columns name, accessType, quota, maxTtl, respectTtl, dmq and subscriptions, where the 
+ * subscriptions are separated by ';'. Only the name column is required.
+ *
+ */
+public final class QueueManifest
+{
+	private static final String SUBSCRIPTION_SEPARATOR = ";";
+	
+	/**
+	 * This class should not be instantiated
+	 */
+	private QueueManifest()
+	{
+	}
+	
+	/**
+	 * Loads a manifest, as CSV if the file name ends with .csv and as YAML otherwise.
+	 * @param path the manifest file
+	 * @return the queues
+	 * @throws IOException
+	 */
+	public static List<QueueSpec> load(Path path) throws IOException
+	{
+		List<QueueSpec> queues;
+		if (path.getFileName().toString().toLowerCase().endsWith(".csv"))
+			queues = loadCsv(path);
+		else
+			queues = loadYaml(path);
+		
+		validate(queues);
+		return queues;
+	}
+	
+	private static List<QueueSpec> loadYaml(Path path) throws IOException
+	{
+		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+		JsonNode root = mapper.readTree(path.toFile());
+		if (root != null && root.has("queues"))
+			root = root.get("queues");
+		
+		List<QueueSpec> queues = new ArrayList<QueueSpec>();
+		if (root == null || root.isNull())
+			return queues;
+		if (!root.isArray())
+			throw new IOException("The manifest must be a list of queues or contain a 'queues' list.");
+		
+		for (JsonNode node : root)
+			queues.add(mapper.treeToValue(node, QueueSpec.class));
+		
+		return queues;
+	}
+	
+	private static List<QueueSpec> loadCsv(Path path) throws IOException
+	{
+		List<QueueSpec> queues = new ArrayList<QueueSpec>();
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		
+		Map<String, Integer> columns = null;
+		for (int i = 0; i < lines.size(); i++)
+		{
+			String line = lines.get(i);
+			if (line.trim().isEmpty() || line.startsWith("#"))
+				continue;
+			
+			List<String> values = splitCsv(line);
+			if (columns == null)
+			{
+				columns = new HashMap<String, Integer>();
+				for (int c = 0; c < values.size(); c++)
+					columns.put(values.get(c).trim().toLowerCase(), c);
+				
+				if (!columns.containsKey("name"))
+					throw new IOException("The CSV manifest header must contain a name column.");
+				continue;
+			}
+			
+			try
+			{
+				QueueSpec spec = new QueueSpec();
+				spec.setName(value(values, columns, "name"));
+				spec.setAccessType(value(values, columns, "accesstype"));
+				spec.setDmq(value(values, columns, "dmq"));
+				
+				String quota = value(values, columns, "quota");
+				if (quota != null)
+					spec.setQuota(Long.valueOf(quota));
+				String maxTtl = value(values, columns, "maxttl");
+				if (maxTtl != null)
+					spec.setMaxTtl(Long.valueOf(maxTtl));
+				String respectTtl = value(values, columns, "respectttl");
+				if (respectTtl != null)
+					spec.setRespectTtl(Boolean.valueOf(respectTtl));
+				
+				String subscriptions = value(values, columns, "subscriptions");
+				if (subscriptions != null)
+				{
+					for (String topic : subscriptions.split(SUBSCRIPTION_SEPARATOR))
+						if (!topic.trim().isEmpty())
+							spec.getSubscriptions().add(topic.trim());
+				}
+				
+				queues.add(spec);
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IOException("Invalid number on line " + (i + 1) + " of the CSV manifest: " + e.getMessage());
+			}
+		}
+		
+		return queues;
+	}
+	
+	/**
+	 * Checks the queues have unique names and valid access types.
+	 * @param queues the queues
+	 * @throws IOException
+	 */
+	private static void validate(List<QueueSpec> queues) throws IOException
+	{
+		Set<String> names = new HashSet<String>();
+		for (int i = 0; i < queues.size(); i++)
+		{
+			QueueSpec spec = queues.get(i);
+			if (spec.getName() == null || spec.getName().trim().isEmpty())
+				throw new IOException("Queue " + (i + 1) + " of the manifest has no name.");
+			if (!names.add(spec.getName()))
+				throw new IOException("Queue " + spec.getName() + " is listed more than once in the manifest.");
+			if (spec.getAccessType() != null && !Arrays.asList(QueueSpec.EXCLUSIVE, QueueSpec.NON_EXCLUSIVE).contains(spec.getAccessType().toLowerCase()))
+				throw new IOException("Queue " + spec.getName() + " has an invalid access type: " + spec.getAccessType());
+		}
+	}
+	
+	private static String value(List<String> values, Map<String, Integer> columns, String column)
+	{
+		Integer index = columns.get(column);
+		if (index == null || index >= values.size())
+			return null;
+		
+		String value = values.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+	
+	/**
+	 * Splits a CSV line, honouring double quoted values.
+	 * @param line the line
+	 * @return the values
+	 */
+	private static List<String> splitCsv(String line)
+	{
+		List<String> values = new ArrayList<String>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		
+		for (int i = 0; i < line.length(); i++)
+		{
+			char c = line.charAt(i);
+			if (quoted)
+			{
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"')
+				{
+					current.append('"');
+					i++;
+				}
+				else if (c == '"')
+				{
+					quoted = false;
+				}
+				else
+				{
+					current.append(c);
+				}
+			}
+			else if (c == '"')
+			{
+				quoted = true;
+			}
+			else if (c == ',')
+			{
+				values.add(current.toString());
+				current.setLength(0);
+			}
+			else
+			{
+				current.append(c);
+			}
+		}
+		
+		values.add(current.toString());
+		return values;
+	}
+}
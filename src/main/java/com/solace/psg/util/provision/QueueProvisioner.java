@@ -0,0 +1,610 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.provision;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.psg.clientcli.utils.HttpClient;
+import com.solace.psg.clientcli.utils.SempPager;
+import com.solace.psg.sempv2.VpnManager;
+import com.solace.psg.sempv2.admin.model.ServiceDetails;
+import com.solace.psg.sempv2.admin.model.ServiceManagementContext;
+import com.solace.psg.sempv2.apiclient.ApiException;
+import com.solace.psg.sempv2.config.model.MsgVpnQueue;
+import com.solace.psg.sempv2.config.model.MsgVpnQueue.AccessTypeEnum;
+import com.solace.psg.sempv2.config.model.MsgVpnQueue.PermissionEnum;
+
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Creates the queues of a manifest through SEMP v2 with concurrent requests. 
+ * 
+ * Queues that already exist are not changed, only the subscriptions of the manifest missing on them are added, 
+ * so a manifest can be applied again after a partial run. Requests rejected with 429 or 503 are retried with an 
+ * exponential back-off.
+ *
+ */
+public class QueueProvisioner
+{
+	private static final Logger logger = LogManager.getLogger(QueueProvisioner.class);
+	
+	public static final int DEFAULT_THREADS = 8;
+	public static final int DEFAULT_RETRIES = 5;
+	public static final long INITIAL_BACKOFF = 500;
+	public static final long MAX_BACKOFF = 10000;
+	
+	private static final String ALREADY_EXISTS = "ALREADY_EXISTS";
+	private static final MediaType JSON = MediaType.get("application/json");
+	private static final ObjectMapper mapper = new ObjectMapper();
+	
+	private final ServiceDetails sd;
+	
+	private int threads = DEFAULT_THREADS;
+	
+	private int retries = DEFAULT_RETRIES;
+	
+	private long defaultQuota;
+	
+	private long defaultMaxTtl;
+	
+	private final ThreadLocal<VpnManager> vpnManagers;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param sd the service details
+	 * @param defaultQuota the quota in Mb of queues without a quota
+	 * @param defaultMaxTtl the max TTL of queues without a max TTL
+	 */
+	public QueueProvisioner(ServiceDetails sd, long defaultQuota, long defaultMaxTtl)
+	{
+		this.sd = sd;
+		this.defaultQuota = defaultQuota;
+		this.defaultMaxTtl = defaultMaxTtl;
+		this.vpnManagers = ThreadLocal.withInitial(() -> new VpnManager(sd));
+	}
+	
+	/**
+	 * Sets the number of concurrent requests.
+	 * @param threads the number of threads
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = Math.max(1, threads);
+	}
+	
+	/**
+	 * Sets the number of retries of a rejected request.
+	 * @param retries the number of retries
+	 */
+	public void setRetries(int retries)
+	{
+		this.retries = Math.max(0, retries);
+	}
+	
+	/**
+	 * Compares the manifest with the queues of the service. The subscriptions of the existing queues are read 
+	 * with concurrent requests.
+	 * @param specs the manifest queues
+	 * @return the plan
+	 * @throws ApiException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public Plan plan(List<QueueSpec> specs) throws ApiException, IOException, InterruptedException
+	{
+		Map<String, MsgVpnQueue> existing = new HashMap<String, MsgVpnQueue>();
+		List<MsgVpnQueue> queues = vpnManagers.get().listQueues();
+		if (queues != null)
+		{
+			for (MsgVpnQueue q : queues)
+				existing.put(q.getQueueName(), q);
+		}
+		
+		Plan plan = new Plan();
+		for (QueueSpec spec : specs)
+		{
+			MsgVpnQueue q = existing.get(spec.getName());
+			if (q == null)
+			{
+				plan.toCreate.add(spec);
+				continue;
+			}
+			
+			plan.existing.add(spec);
+			String difference = compare(spec, q);
+			if (difference != null)
+				plan.differences.put(spec.getName(), difference);
+		}
+		
+		List<QueueSpec> subscribed = new ArrayList<QueueSpec>();
+		for (QueueSpec spec : plan.existing)
+		{
+			if (!spec.getSubscriptions().isEmpty())
+				subscribed.add(spec);
+		}
+		
+		List<Callable<List<String>>> tasks = new ArrayList<Callable<List<String>>>(subscribed.size());
+		for (QueueSpec spec : subscribed)
+			tasks.add(() -> getMissingSubscriptions(spec));
+		
+		List<List<String>> missing = invokeAll(tasks, null);
+		for (int i = 0; i < subscribed.size(); i++)
+		{
+			if (!missing.get(i).isEmpty())
+				plan.missingSubscriptions.put(subscribed.get(i).getName(), missing.get(i));
+		}
+		
+		return plan;
+	}
+	
+	/**
+	 * Reads the subscriptions of an existing queue and compares them with the manifest.
+	 * @param spec the manifest queue
+	 * @return the subscriptions of the manifest missing on the queue
+	 * @throws IOException
+	 */
+	private List<String> getMissingSubscriptions(QueueSpec spec) throws IOException
+	{
+		Set<String> existing = new HashSet<String>();
+		SempPager pager = new SempPager(vpnManagers.get().getDefaultVpnContext());
+		pager.setSelect("subscriptionTopic");
+		pager.readConfig("queues", spec.getName(), "subscriptions", objects ->
+		{
+			for (JsonNode node : objects)
+				existing.add(node.path("subscriptionTopic").asText());
+			return true;
+		});
+		
+		List<String> missing = new ArrayList<String>();
+		for (String topic : spec.getSubscriptions())
+		{
+			if (!existing.contains(topic) && !missing.contains(topic))
+				missing.add(topic);
+		}
+		
+		return missing;
+	}
+	
+	/**
+	 * Creates the queues with their subscriptions.
+	 * @param specs the queues to create
+	 * @param listener called with the result of every queue, from the worker threads
+	 * @return the results in the order of the queues
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	public List<Result> provision(List<QueueSpec> specs, Consumer<Result> listener) throws InterruptedException, IOException
+	{
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>(specs.size());
+		for (QueueSpec spec : specs)
+			tasks.add(() -> create(spec));
+		
+		return invokeAll(tasks, listener);
+	}
+	
+	/**
+	 * Adds the missing subscriptions to existing queues.
+	 * @param subscriptions the subscriptions to add by queue name
+	 * @param listener called with the result of every queue, from the worker threads
+	 * @return the results in the order of the queues
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	public List<Result> addSubscriptions(Map<String, List<String>> subscriptions, Consumer<Result> listener) throws InterruptedException, IOException
+	{
+		List<Callable<Result>> tasks = new ArrayList<Callable<Result>>(subscriptions.size());
+		for (Map.Entry<String, List<String>> entry : subscriptions.entrySet())
+			tasks.add(() -> subscribe(entry.getKey(), entry.getValue()));
+		
+		return invokeAll(tasks, listener);
+	}
+	
+	/**
+	 * Runs tasks on the worker threads.
+	 * @param tasks the tasks
+	 * @param listener called with the result of every task, from the worker threads, or null
+	 * @return the results in the order of the tasks
+	 * @throws InterruptedException
+	 * @throws IOException if a task failed, the remaining tasks are cancelled
+	 */
+	private <T> List<T> invokeAll(List<Callable<T>> tasks, Consumer<T> listener) throws InterruptedException, IOException
+	{
+		List<T> results = new ArrayList<T>(tasks.size());
+		if (tasks.isEmpty())
+			return results;
+		
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+		try
+		{
+			List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+			for (Callable<T> task : tasks)
+			{
+				futures.add(pool.submit(() -> 
+				{
+					T result = task.call();
+					if (listener != null)
+						listener.accept(result);
+					return result;
+				}));
+			}
+			
+			for (Future<T> future : futures)
+			{
+				try
+				{
+					results.add(future.get());
+				}
+				catch (ExecutionException e)
+				{
+					if (e.getCause() instanceof IOException)
+						throw (IOException) e.getCause();
+					throw new IOException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e.getCause());
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+			pool.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Creates a queue and its subscriptions.
+	 * @param spec the queue
+	 * @return the result
+	 */
+	private Result create(QueueSpec spec)
+	{
+		Result result = new Result(spec.getName());
+		long start = System.nanoTime();
+		try
+		{
+			MsgVpnQueue request = toRequest(spec);
+			execute(result, () -> 
+			{
+				if (!vpnManagers.get().addQueue(request))
+					throw new IOException("Queue creation was not confirmed.");
+			});
+			
+			for (String topic : spec.getSubscriptions())
+				execute(result, () -> addSubscription(spec.getName(), topic));
+			
+			result.success = true;
+		}
+		catch (ApiException e)
+		{
+			result.error = e.getResponseBody() != null ? e.getResponseBody() : e.getMessage();
+			logger.error("Error creating queue {}: {}", spec.getName(), result.error);
+		}
+		catch (Exception e)
+		{
+			result.error = e.getMessage();
+			logger.error("Error creating queue {}: {}", spec.getName(), e.getMessage());
+		}
+		
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+	
+	/**
+	 * Adds subscriptions to an existing queue.
+	 * @param queueName the queue name
+	 * @param topics the topic subscriptions
+	 * @return the result
+	 */
+	private Result subscribe(String queueName, List<String> topics)
+	{
+		Result result = new Result(queueName);
+		long start = System.nanoTime();
+		try
+		{
+			for (String topic : topics)
+				execute(result, () -> addSubscription(queueName, topic));
+			
+			result.success = true;
+		}
+		catch (Exception e)
+		{
+			result.error = e.getMessage();
+			logger.error("Error adding subscriptions to queue {}: {}", queueName, e.getMessage());
+		}
+		
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+	
+	/**
+	 * Executes a request, retrying it while the broker is overloaded.
+	 * @param result the result counting the retries
+	 * @param call the request
+	 * @throws Exception
+	 */
+	private void execute(Result result, SempCall call) throws Exception
+	{
+		long backoff = INITIAL_BACKOFF;
+		for (int attempt = 0; ; attempt++)
+		{
+			try
+			{
+				call.run();
+				return;
+			}
+			catch (Exception e)
+			{
+				if (isAlreadyExisting(e))
+				{
+					// A previous attempt or run created it.
+					return;
+				}
+				
+				if (attempt >= retries || !isRetryable(e))
+					throw e;
+				
+				result.retries++;
+				long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+				logger.debug("Broker busy while creating queue {}, retrying in {} ms.", result.name, delay);
+				Thread.sleep(delay);
+				backoff = Math.min(backoff * 2, MAX_BACKOFF);
+			}
+		}
+	}
+	
+	private MsgVpnQueue toRequest(QueueSpec spec)
+	{
+		MsgVpnQueue request = new MsgVpnQueue();
+		request.setQueueName(spec.getName());
+		request.setMaxMsgSpoolUsage(spec.getQuota() != null ? spec.getQuota() : defaultQuota);
+		request.setPermission(PermissionEnum.CONSUME);
+		request.setMaxTtl(spec.getMaxTtl() != null ? spec.getMaxTtl() : defaultMaxTtl);
+		request.setRespectTtlEnabled(spec.getRespectTtl() != null ? spec.getRespectTtl() : false);
+		request.setEgressEnabled(true);
+		request.setIngressEnabled(true);
+		request.setAccessType(spec.isExclusive() ? AccessTypeEnum.EXCLUSIVE : AccessTypeEnum.NON_EXCLUSIVE);
+		if (spec.getDmq() != null && !spec.getDmq().isBlank())
+			request.setDeadMsgQueue(spec.getDmq());
+		
+		return request;
+	}
+	
+	/**
+	 * Describes the settings of an existing queue that differ from the manifest. Only the settings the manifest sets 
+	 * are compared, the subscriptions are compared separately.
+	 * @param spec the manifest queue
+	 * @param q the existing queue
+	 * @return the differences or null
+	 */
+	private String compare(QueueSpec spec, MsgVpnQueue q)
+	{
+		List<String> differences = new ArrayList<String>();
+		
+		AccessTypeEnum accessType = spec.isExclusive() ? AccessTypeEnum.EXCLUSIVE : AccessTypeEnum.NON_EXCLUSIVE;
+		if (spec.getAccessType() != null && q.getAccessType() != accessType)
+			differences.add("access type " + q.getAccessType() + " instead of " + accessType);
+		if (spec.getQuota() != null && !spec.getQuota().equals(q.getMaxMsgSpoolUsage()))
+			differences.add("quota " + q.getMaxMsgSpoolUsage() + " instead of " + spec.getQuota());
+		if (spec.getMaxTtl() != null && !spec.getMaxTtl().equals(q.getMaxTtl()))
+			differences.add("max TTL " + q.getMaxTtl() + " instead of " + spec.getMaxTtl());
+		if (spec.getRespectTtl() != null && !spec.getRespectTtl().equals(q.isRespectTtlEnabled()))
+			differences.add("respect TTL " + q.isRespectTtlEnabled() + " instead of " + spec.getRespectTtl());
+		if (spec.getDmq() != null && !spec.getDmq().equals(q.getDeadMsgQueue()))
+			differences.add("DMQ " + q.getDeadMsgQueue() + " instead of " + spec.getDmq());
+		
+		return differences.isEmpty() ? null : String.join(", ", differences);
+	}
+	
+	/**
+	 * Adds a topic subscription to a queue.
+	 * @param queueName the queue name
+	 * @param topic the topic subscription
+	 * @throws IOException
+	 * @throws SempException
+	 */
+	private void addSubscription(String queueName, String topic) throws IOException, SempException
+	{
+		ServiceManagementContext context = vpnManagers.get().getDefaultVpnContext();
+		String host = context.getSempV1Url();
+		host = host.substring(0, host.indexOf("/SEMP"));
+		
+		HttpUrl url = HttpUrl.get(host).newBuilder()
+				.addPathSegments("SEMP/v2/config/msgVpns")
+				.addPathSegment(context.getVpnName())
+				.addPathSegment("queues")
+				.addPathSegment(queueName)
+				.addPathSegment("subscriptions")
+				.build();
+		
+		String body = mapper.writeValueAsString(Collections.singletonMap("subscriptionTopic", topic));
+		Request request = new Request.Builder()
+				.url(url)
+				.header("Authorization", Credentials.basic(context.getSempUsername(), context.getSempPassword()))
+				.post(RequestBody.create(body, JSON))
+				.build();
+		
+		try (Response response = HttpClient.getSharedClient().newCall(request).execute())
+		{
+			if (!response.isSuccessful())
+				throw new SempException(response.code(), response.body() != null ? response.body().string() : "");
+		}
+	}
+	
+	private static boolean isRetryable(Exception e)
+	{
+		int code = 0;
+		if (e instanceof ApiException)
+			code = ((ApiException) e).getCode();
+		else if (e instanceof SempException)
+			code = ((SempException) e).code;
+		
+		return code == 429 || code == 503;
+	}
+	
+	private static boolean isAlreadyExisting(Exception e)
+	{
+		String body = null;
+		if (e instanceof ApiException)
+			body = ((ApiException) e).getResponseBody();
+		else if (e instanceof SempException)
+			body = ((SempException) e).getMessage();
+		
+		return body != null && body.contains(ALREADY_EXISTS);
+	}
+	
+	/**
+	 * A SEMP request.
+	 */
+	private interface SempCall
+	{
+		void run() throws Exception;
+	}
+	
+	/**
+	 * SEMP v2 error response.
+	 */
+	private static class SempException extends Exception
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final int code;
+		
+		SempException(int code, String body)
+		{
+			super(body);
+			this.code = code;
+		}
+	}
+	
+	/**
+	 * Comparison of a manifest with the queues of the service.
+	 */
+	public static class Plan
+	{
+		private final List<QueueSpec> toCreate = new ArrayList<QueueSpec>();
+		private final List<QueueSpec> existing = new ArrayList<QueueSpec>();
+		private final Map<String, String> differences = new LinkedHashMap<String, String>();
+		private final Map<String, List<String>> missingSubscriptions = new LinkedHashMap<String, List<String>>();
+		
+		/**
+		 * Gets the queues missing from the service.
+		 * @return the queues to create
+		 */
+		public List<QueueSpec> getToCreate()
+		{
+			return Collections.unmodifiableList(toCreate);
+		}
+		
+		/**
+		 * Gets the queues that already exist, only their missing subscriptions are added.
+		 * @return the existing queues
+		 */
+		public List<QueueSpec> getExisting()
+		{
+			return Collections.unmodifiableList(existing);
+		}
+		
+		/**
+		 * Gets the existing queues with settings different from the manifest, which are not changed.
+		 * @return the differences by queue name
+		 */
+		public Map<String, String> getDifferences()
+		{
+			return Collections.unmodifiableMap(differences);
+		}
+		
+		/**
+		 * Gets the subscriptions of the manifest missing on the existing queues.
+		 * @return the subscriptions to add by queue name
+		 */
+		public Map<String, List<String>> getMissingSubscriptions()
+		{
+			return Collections.unmodifiableMap(missingSubscriptions);
+		}
+	}
+	
+	/**
+	 * Result of the creation of a queue.
+	 */
+	public static class Result
+	{
+		private final String name;
+		private volatile boolean success;
+		private volatile String error;
+		private volatile int retries;
+		private volatile long nanos;
+		
+		Result(String name)
+		{
+			this.name = name;
+		}
+		
+		public String getName()
+		{
+			return name;
+		}
+		
+		public boolean isSuccess()
+		{
+			return success;
+		}
+		
+		public String getError()
+		{
+			return error;
+		}
+		
+		public int getRetries()
+		{
+			return retries;
+		}
+		
+		public long getNanos()
+		{
+			return nanos;
+		}
+	}
+}
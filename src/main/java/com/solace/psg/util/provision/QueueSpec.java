@@ -0,0 +1,135 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.provision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queue entry of a provisioning manifest. Unset values use the provisioning defaults.
+ *
+ */
+public class QueueSpec
+{
+	public static final String EXCLUSIVE = "exclusive";
+	public static final String NON_EXCLUSIVE = "non-exclusive";
+	
+	private String name;
+	private String accessType;
+	private Long quota;
+	private Long maxTtl;
+	private Boolean respectTtl;
+	private String dmq;
+	private List<String> subscriptions = new ArrayList<String>();
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	public QueueSpec()
+	{
+	}
+	
+	public String getName()
+	{
+		return name;
+	}
+	
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+	
+	/**
+	 * Gets the access type, exclusive or non-exclusive.
+	 * @return the access type or null
+	 */
+	public String getAccessType()
+	{
+		return accessType;
+	}
+	
+	public void setAccessType(String accessType)
+	{
+		this.accessType = accessType;
+	}
+	
+	/**
+	 * Gets the queue quota in Mb.
+	 * @return the quota or null
+	 */
+	public Long getQuota()
+	{
+		return quota;
+	}
+	
+	public void setQuota(Long quota)
+	{
+		this.quota = quota;
+	}
+	
+	public Long getMaxTtl()
+	{
+		return maxTtl;
+	}
+	
+	public void setMaxTtl(Long maxTtl)
+	{
+		this.maxTtl = maxTtl;
+	}
+	
+	public Boolean getRespectTtl()
+	{
+		return respectTtl;
+	}
+	
+	public void setRespectTtl(Boolean respectTtl)
+	{
+		this.respectTtl = respectTtl;
+	}
+	
+	public String getDmq()
+	{
+		return dmq;
+	}
+	
+	public void setDmq(String dmq)
+	{
+		this.dmq = dmq;
+	}
+	
+	public List<String> getSubscriptions()
+	{
+		return subscriptions;
+	}
+	
+	public void setSubscriptions(List<String> subscriptions)
+	{
+		this.subscriptions = subscriptions != null ? subscriptions : new ArrayList<String>();
+	}
+	
+	/**
+	 * Checks if the queue is exclusive.
+	 * @return true if exclusive
+	 */
+	public boolean isExclusive()
+	{
+		return EXCLUSIVE.equalsIgnoreCase(accessType);
+	}
+}
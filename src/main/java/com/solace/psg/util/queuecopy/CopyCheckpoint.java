@@ -0,0 +1,279 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * Persisted progress of a queue copy, used to resume an interrupted copy or move. 
+ * 
+ * The checkpoint is a small properties file. It is replaced atomically and forced to disk on every save, 
+ * so a crash leaves either the previous or the new checkpoint.
+ *
+ */
+public class CopyCheckpoint
+{
+	private static final String SOURCE_VPN = "sourceVpn";
+	private static final String TARGET_VPN = "targetVpn";
+	private static final String SOURCE_QUEUE = "sourceQueue";
+	private static final String TARGET_QUEUE = "targetQueue";
+	private static final String MOVE = "move";
+	private static final String MESSAGE_COUNT = "messageCount";
+	private static final String MESSAGES_COPIED = "messagesCopied";
+	private static final String BYTES_COPIED = "bytesCopied";
+	private static final String LAST_MESSAGE_ID = "lastMessageId";
+	private static final String SELECTOR = "selector";
+	private static final String FROM_TIME = "fromTime";
+	private static final String TO_TIME = "toTime";
+	private static final String FROM_MESSAGE_ID = "fromMessageId";
+	private static final String TO_MESSAGE_ID = "toMessageId";
+	private static final String DMQ_ELIGIBLE = "dmqEligible";
+	private static final String TTL = "ttl";
+	private static final String COMPLETED = "completed";
+	private static final String UPDATED = "updated";
+	
+	private final Properties properties;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param properties the checkpoint properties
+	 */
+	private CopyCheckpoint(Properties properties)
+	{
+		this.properties = properties;
+	}
+	
+	/**
+	 * Creates a checkpoint from the current state of a copy.
+	 * @param sourceVpn the source VPN name
+	 * @param targetVpn the target VPN name
+	 * @param sourceQueue the source queue name
+	 * @param targetQueue the target queue name
+	 * @param move true for a move
+	 * @param messageCount the total number of messages to copy
+	 */
+	public CopyCheckpoint(String sourceVpn, String targetVpn, String sourceQueue, String targetQueue, boolean move, long messageCount)
+	{
+		this(new Properties());
+		set(SOURCE_VPN, sourceVpn);
+		set(TARGET_VPN, targetVpn);
+		set(SOURCE_QUEUE, sourceQueue);
+		set(TARGET_QUEUE, targetQueue);
+		set(MOVE, move);
+		set(MESSAGE_COUNT, messageCount);
+	}
+	
+	/**
+	 * Loads a checkpoint file.
+	 * @param file the checkpoint file
+	 * @return the checkpoint
+	 * @throws IOException
+	 */
+	public static CopyCheckpoint load(Path file) throws IOException
+	{
+		Properties properties = new Properties();
+		try (InputStream is = Files.newInputStream(file))
+		{
+			properties.load(is);
+		}
+		
+		if (properties.getProperty(SOURCE_QUEUE) == null || properties.getProperty(TARGET_QUEUE) == null)
+			throw new IOException("File " + file + " is not a queue copy checkpoint.");
+		
+		return new CopyCheckpoint(properties);
+	}
+	
+	/**
+	 * Saves the checkpoint to a temporary file, forces it to disk and replaces the checkpoint file.
+	 * @param file the checkpoint file
+	 * @throws IOException
+	 */
+	public void save(Path file) throws IOException
+	{
+		set(UPDATED, System.currentTimeMillis());
+		
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(1024);
+		properties.store(bos, "Queue copy checkpoint");
+		
+		Path absolute = file.toAbsolutePath();
+		Path tmp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(bos.toByteArray());
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			channel.force(true);
+		}
+		
+		Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	public String getSourceVpnName()
+	{
+		return properties.getProperty(SOURCE_VPN);
+	}
+	
+	public String getTargetVpnName()
+	{
+		return properties.getProperty(TARGET_VPN);
+	}
+	
+	public String getSourceQueueName()
+	{
+		return properties.getProperty(SOURCE_QUEUE);
+	}
+	
+	public String getTargetQueueName()
+	{
+		return properties.getProperty(TARGET_QUEUE);
+	}
+	
+	public boolean isMove()
+	{
+		return Boolean.parseBoolean(properties.getProperty(MOVE));
+	}
+	
+	public long getMessageCount()
+	{
+		return getLong(MESSAGE_COUNT, 0L);
+	}
+	
+	public long getMessagesCopied()
+	{
+		return getLong(MESSAGES_COPIED, 0L);
+	}
+	
+	public long getBytesCopied()
+	{
+		return getLong(BYTES_COPIED, 0L);
+	}
+	
+	/**
+	 * Gets the replication group message ID up to which every source message was confirmed by the target.
+	 * @return the message ID or null if no message was copied
+	 */
+	public String getLastMessageId()
+	{
+		return properties.getProperty(LAST_MESSAGE_ID);
+	}
+	
+	public String getSelector()
+	{
+		return properties.getProperty(SELECTOR);
+	}
+	
+	public Long getFromTime()
+	{
+		return getLong(FROM_TIME, null);
+	}
+	
+	public Long getToTime()
+	{
+		return getLong(TO_TIME, null);
+	}
+	
+	public String getFromMessageId()
+	{
+		return properties.getProperty(FROM_MESSAGE_ID);
+	}
+	
+	public String getToMessageId()
+	{
+		return properties.getProperty(TO_MESSAGE_ID);
+	}
+	
+	public boolean isDmqEligible()
+	{
+		return Boolean.parseBoolean(properties.getProperty(DMQ_ELIGIBLE));
+	}
+	
+	public long getTtl()
+	{
+		return getLong(TTL, 0L);
+	}
+	
+	/**
+	 * Gets whether the copy finished.
+	 * @return
+	 */
+	public boolean isCompleted()
+	{
+		return Boolean.parseBoolean(properties.getProperty(COMPLETED));
+	}
+	
+	/**
+	 * Sets the progress of the copy.
+	 * @param messagesCopied the messages confirmed by the target, up to the last message ID unless moved
+	 * @param bytesCopied the bytes confirmed by the target, up to the last message ID unless moved
+	 * @param lastMessageId the source message ID up to which every message was confirmed, or null
+	 * @param completed true if the copy finished
+	 */
+	public void setProgress(long messagesCopied, long bytesCopied, String lastMessageId, boolean completed)
+	{
+		set(MESSAGES_COPIED, messagesCopied);
+		set(BYTES_COPIED, bytesCopied);
+		set(LAST_MESSAGE_ID, lastMessageId);
+		set(COMPLETED, completed);
+	}
+	
+	/**
+	 * Sets the message filters of the copy.
+	 */
+	public void setFilters(String selector, Long fromTime, Long toTime, String fromMessageId, String toMessageId)
+	{
+		set(SELECTOR, selector);
+		set(FROM_TIME, fromTime);
+		set(TO_TIME, toTime);
+		set(FROM_MESSAGE_ID, fromMessageId);
+		set(TO_MESSAGE_ID, toMessageId);
+	}
+	
+	/**
+	 * Sets the message settings of the copy.
+	 */
+	public void setMessageSettings(boolean dmqEligible, long ttl)
+	{
+		set(DMQ_ELIGIBLE, dmqEligible);
+		set(TTL, ttl);
+	}
+	
+	private void set(String key, Object value)
+	{
+		if (value == null)
+			properties.remove(key);
+		else
+			properties.setProperty(key, value.toString());
+	}
+	
+	private Long getLong(String key, Long defaultValue)
+	{
+		String value = properties.getProperty(key);
+		return value != null ? Long.valueOf(value) : defaultValue;
+	}
+}
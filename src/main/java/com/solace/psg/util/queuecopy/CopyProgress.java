@@ -0,0 +1,151 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Progress of a copy up to which every source message has been handled by the target. 
+ * 
+ * The target confirms messages out of order, as rejected messages are re-published later and some are never 
+ * published. A checkpoint must not skip such messages on resume, so the progress only advances over a message 
+ * once it and all messages received before it are confirmed or parked. A failed message stops the progress 
+ * for the rest of the copy, it stays on the source queue and is copied again on resume.
+ *
+ */
+final class CopyProgress
+{
+	private static final int PENDING = 0;
+	private static final int CONFIRMED = 1;
+	private static final int PARKED = 2;
+	
+	/**
+	 * A received message in source order.
+	 */
+	private static final class Entry
+	{
+		final String messageId;
+		final long bytes;
+		int state = PENDING;
+		
+		Entry(String messageId, long bytes)
+		{
+			this.messageId = messageId;
+			this.bytes = bytes;
+		}
+	}
+	
+	// Messages not yet passed by the progress, keyed by receive sequence. Guarded by this.
+	private final TreeMap<Long, Entry> entries = new TreeMap<Long, Entry>();
+	
+	private String lastMessageId;
+	private long messagesCopied;
+	private long bytesCopied;
+	private boolean failed = false;
+	
+	/**
+	 * Continues from the progress of a checkpoint.
+	 * @param lastMessageId the last message ID of the checkpoint, or null
+	 * @param messagesCopied the messages copied up to it
+	 * @param bytesCopied the bytes copied up to it
+	 */
+	synchronized void resume(String lastMessageId, long messagesCopied, long bytesCopied)
+	{
+		this.lastMessageId = lastMessageId;
+		this.messagesCopied = messagesCopied;
+		this.bytesCopied = bytesCopied;
+	}
+	
+	/**
+	 * Adds a received message. Messages must be added in the order they were received from the source queue.
+	 * @param sequence the receive sequence of the message
+	 * @param messageId the replication group message ID, or null
+	 * @param bytes the size of the message
+	 */
+	synchronized void add(long sequence, String messageId, long bytes)
+	{
+		if (!failed)
+			entries.put(sequence, new Entry(messageId, bytes));
+	}
+	
+	/**
+	 * Records the outcome of a message and advances the progress over the messages handled in order.
+	 * @param sequence the receive sequence of the message
+	 * @param confirmed true if the target confirmed the message, false if it failed for good
+	 * @param parked true if the message was confirmed on the park queue
+	 */
+	synchronized void complete(long sequence, boolean confirmed, boolean parked)
+	{
+		Entry entry = entries.get(sequence);
+		if (entry == null)
+			return;
+		
+		if (!confirmed)
+		{
+			// Nothing after a failed message is passed, the entries are not needed any more.
+			failed = true;
+			entries.clear();
+			return;
+		}
+		
+		entry.state = parked ? PARKED : CONFIRMED;
+		
+		Map.Entry<Long, Entry> first;
+		while ((first = entries.firstEntry()) != null && first.getValue().state != PENDING)
+		{
+			Entry handled = entries.pollFirstEntry().getValue();
+			if (handled.messageId != null)
+				lastMessageId = handled.messageId;
+			if (handled.state == CONFIRMED)
+			{
+				messagesCopied++;
+				bytesCopied += handled.bytes;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the message ID up to which all messages were handled.
+	 * @return the message ID, or null if none
+	 */
+	synchronized String getLastMessageId()
+	{
+		return lastMessageId;
+	}
+	
+	/**
+	 * Gets the number of messages copied up to the last message ID.
+	 * @return the count
+	 */
+	synchronized long getMessagesCopied()
+	{
+		return messagesCopied;
+	}
+	
+	/**
+	 * Gets the bytes copied up to the last message ID.
+	 * @return the bytes
+	 */
+	synchronized long getBytesCopied()
+	{
+		return bytesCopied;
+	}
+}
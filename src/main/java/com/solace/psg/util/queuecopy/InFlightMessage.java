@@ -0,0 +1,130 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+
+/**
+ * Publish correlation key for a copied message. 
+ * Links the published target message back to its source message and to the copy owning it.
+ * The same key is reused when the message is re-published or parked.
+ * 
+ *
+ */
+final class InFlightMessage implements SessionPool.CorrelationKey
+{
+	private final SimpleQueueCopy owner;
+	private final BytesXMLMessage sourceMessage;
+	private final long id;
+	
+	// Only changed by the publishing thread, hand-over to the callback thread happens through the publish. 
+	private volatile int attempts = 1;
+	private volatile boolean parked = false;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param owner the copy process which published the message
+	 * @param sourceMessage the source message
+	 * @param id the correlation id, unique per copy process
+	 */
+	InFlightMessage(SimpleQueueCopy owner, BytesXMLMessage sourceMessage, long id)
+	{
+		this.owner = owner;
+		this.sourceMessage = sourceMessage;
+		this.id = id;
+	}
+	
+	/**
+	 * Gets the correlation id.
+	 * @return the id
+	 */
+	long getId()
+	{
+		return id;
+	}
+	
+	/**
+	 * Gets the number of publish attempts.
+	 * @return the attempts
+	 */
+	int getAttempts()
+	{
+		return attempts;
+	}
+	
+	/**
+	 * Increments the number of publish attempts.
+	 */
+	void incrementAttempts()
+	{
+		attempts++;
+	}
+	
+	/**
+	 * Gets if the message is published to the park queue.
+	 * @return true if parked
+	 */
+	boolean isParked()
+	{
+		return parked;
+	}
+	
+	/**
+	 * Marks the message to be published to the park queue.
+	 */
+	void park()
+	{
+		parked = true;
+	}
+
+	/**
+	 * Gets the copy process which published the message.
+	 * @return the owner
+	 */
+	SimpleQueueCopy getOwner()
+	{
+		return owner;
+	}
+	
+	/**
+	 * Routes the publish events of the shared producer to the owner.
+	 */
+	@Override
+	public JCSMPStreamingPublishCorrelatingEventHandler getPublishEventHandler()
+	{
+		return owner;
+	}
+
+	/**
+	 * Gets the source message.
+	 * @return the source message
+	 */
+	BytesXMLMessage getSourceMessage()
+	{
+		return sourceMessage;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return owner.getSourceQueueName() + ":" + sourceMessage.getAckMessageId();
+	}
+}
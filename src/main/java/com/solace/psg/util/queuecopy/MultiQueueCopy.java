@@ -0,0 +1,447 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.ProducerFlowProperties;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+
+/**
+ * Class to copy messages of many queues concurrently. 
+ * All copies share one session per side and one target producer and run on a bounded worker pool.
+ * 
+ *
+ */
+public class MultiQueueCopy
+{
+	private static final Logger logger = LogManager.getLogger(MultiQueueCopy.class);
+	
+	public static final int DEFAULT_PARALLELISM = 4;
+	
+	/**
+	 * Placeholder for the source queue name in a target queue name pattern.
+	 */
+	public static final String QUEUE_PLACEHOLDER = "{queue}";
+	
+	private VPN sourceVpn;
+	private VPN targetVpn;
+	
+	private Map<String, String> queueMapping;
+	
+	private long messageCount;
+	private Map<String, Long> messageCounts;
+	private boolean move;
+	private boolean drain = false;
+	
+	private int parallelism = DEFAULT_PARALLELISM;
+	private int batchSize = SimpleQueueCopy.MAX_BATCH_SIZE;
+	private int windowSize = SimpleQueueCopy.DEFAULT_WINDOW_SIZE;
+	private int maxRetries = SimpleQueueCopy.DEFAULT_MAX_RETRIES;
+	private String parkQueueName;
+	private boolean dmqEligible = false;
+	private long ttl = 0L;
+	private PublishThrottle throttle;
+	
+	private String selector;
+	private Long fromTime;
+	private Long toTime;
+	private String fromMessageId;
+	private String toMessageId;
+	
+	private JCSMPSession sourceSession = null;
+	private JCSMPSession targetSession = null;
+	private XMLMessageProducer targetProducer = null;
+	
+	private List<SimpleQueueCopy> copies = new ArrayList<SimpleQueueCopy>();
+	
+	private long startTime;
+	private long endTime;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param sourceVpn the source VPN
+	 * @param targetVpn the target VPN
+	 * @param queueMapping source queue names mapped to target queue names
+	 * @param messageCount the maximum number of messages to copy per queue
+	 * @param move if true, messages are removed from the source queues
+	 */
+	public MultiQueueCopy(VPN sourceVpn, VPN targetVpn, Map<String, String> queueMapping, long messageCount, boolean move)
+	{
+		if (queueMapping == null || queueMapping.isEmpty())
+			throw new IllegalArgumentException("Parameter queueMapping cannot be null or empty.");
+		
+		for (Map.Entry<String, String> entry : queueMapping.entrySet())
+		{
+			if (isSameQueue(sourceVpn, entry.getKey(), targetVpn, entry.getValue()))
+				throw new IllegalArgumentException("Queue " + entry.getKey() + " cannot be copied onto itself.");
+		}
+		
+		this.sourceVpn = sourceVpn;
+		this.targetVpn = targetVpn;
+		this.queueMapping = queueMapping;
+		this.messageCount = messageCount;
+		this.move = move;
+	}
+	
+	/**
+	 * Sets the number of queues copied concurrently.
+	 * @param parallelism the number of worker threads
+	 */
+	public void setParallelism(int parallelism)
+	{
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parameter parallelism must be greater than 0.");
+		
+		this.parallelism = parallelism;
+	}
+	
+	/**
+	 * Sets the publish batch size of every copy.
+	 * @param batchSize the batch size [1..50]
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Sets the publish window size of the shared target producer.
+	 * @param windowSize the window size [1..255]
+	 */
+	public void setWindowSize(int windowSize)
+	{
+		if (windowSize < 1 || windowSize > SimpleQueueCopy.MAX_WINDOW_SIZE)
+			throw new IllegalArgumentException("Parameter windowSize must be between 1 and " + SimpleQueueCopy.MAX_WINDOW_SIZE + ".");
+		
+		this.windowSize = windowSize;
+	}
+	
+	/**
+	 * Sets the number of publish retries of every copy.
+	 * @param maxRetries the maximum number of retries
+	 */
+	public void setMaxRetries(int maxRetries)
+	{
+		this.maxRetries = maxRetries;
+	}
+	
+	/**
+	 * Sets the park queue on the target for messages which could not be published.
+	 * @param parkQueueName the park queue name
+	 */
+	public void setParkQueueName(String parkQueueName)
+	{
+		this.parkQueueName = parkQueueName;
+	}
+	
+	/**
+	 * Sets drain mode for every copy, which finishes as soon as its source queue is idle.
+	 * @param drain true to drain the queues
+	 */
+	public void setDrain(boolean drain)
+	{
+		this.drain = drain;
+	}
+	
+	/**
+	 * Sets the number of messages to copy per source queue, e.g. the queue depths. 
+	 * Queues not in the map use the common message count.
+	 * @param messageCounts the message count per source queue name
+	 */
+	public void setMessageCounts(Map<String, Long> messageCounts)
+	{
+		this.messageCounts = messageCounts;
+	}
+	
+	/**
+	 * Sets a selector evaluated by the broker for every source queue.
+	 * @param selector the selector
+	 */
+	public void setSelector(String selector)
+	{
+		this.selector = selector;
+	}
+	
+	/**
+	 * Sets a sender timestamp range for every source queue.
+	 * @param fromTime the inclusive start in epoch milliseconds, or null
+	 * @param toTime the inclusive end in epoch milliseconds, or null
+	 */
+	public void setTimeRange(Long fromTime, Long toTime)
+	{
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+	}
+	
+	/**
+	 * Sets a replication group message ID range for every source queue.
+	 * @param fromMessageId the inclusive start, or null
+	 * @param toMessageId the inclusive end, or null
+	 */
+	public void setMessageIdRange(String fromMessageId, String toMessageId)
+	{
+		this.fromMessageId = fromMessageId;
+		this.toMessageId = toMessageId;
+	}
+	
+	/**
+	 * Sets the DMQ eligible flag for all the messages which need to be copied / moved. 
+	 * @param dmqEligible
+	 */
+	public void setDmqEligible(boolean dmqEligible)
+	{
+		this.dmqEligible = dmqEligible;
+	}
+	
+	/**
+	 * Sets the TTL value for all the messages to be processed.  
+	 * @param ttl Time to live in milliseconds
+	 */
+	public void setTtl(long ttl)
+	{
+		this.ttl = ttl;
+	}
+	
+	/**
+	 * Sets the throttle limiting the combined publish rate of all the queues.
+	 * @param throttle the throttle or null for no limit
+	 */
+	public void setThrottle(PublishThrottle throttle)
+	{
+		this.throttle = throttle;
+	}
+	
+	/**
+	 * Copies all the queues and waits for completion.
+	 * @throws JCSMPException
+	 * @throws InterruptedException
+	 */
+	public void copy() throws JCSMPException, InterruptedException
+	{
+		startTime = System.currentTimeMillis();
+		
+		try
+		{
+			logger.info("Connecting to source VPN: {}", sourceVpn.getName());
+			sourceSession = SessionPool.getInstance().acquire(sourceVpn, SimpleQueueCopy.DEFAULT_BUFFER_SIZE, SimpleQueueCopy.DEFAULT_BUFFER_SIZE);
+			logger.info("Connecting to target VPN: {}", targetVpn.getName());
+			targetSession = SessionPool.getInstance().acquire(targetVpn, SimpleQueueCopy.DEFAULT_BUFFER_SIZE, SimpleQueueCopy.DEFAULT_BUFFER_SIZE);
+			
+			ProducerFlowProperties prodFlowProps = new ProducerFlowProperties();
+			prodFlowProps.setWindowSize(windowSize);
+			prodFlowProps.setAckEventMode(JCSMPProperties.SUPPORTED_ACK_EVENT_MODE_WINDOWED);
+			targetProducer = SessionPool.getInstance().acquireProducer(targetSession, prodFlowProps);
+			
+			for (Map.Entry<String, String> entry : queueMapping.entrySet())
+			{
+				long count = messageCount;
+				if (messageCounts != null && messageCounts.containsKey(entry.getKey()))
+					count = messageCounts.get(entry.getKey());
+				
+				SimpleQueueCopy sqc = new SimpleQueueCopy(sourceVpn, targetVpn, entry.getKey(), entry.getValue(), count, move);
+				sqc.setDrain(drain);
+				sqc.setSelector(selector);
+				sqc.setTimeRange(fromTime, toTime);
+				sqc.setMessageIdRange(fromMessageId, toMessageId);
+				sqc.setSharedSessions(sourceSession, targetSession, targetProducer);
+				sqc.setBatchSize(batchSize);
+				sqc.setMaxRetries(maxRetries);
+				sqc.setParkQueueName(parkQueueName);
+				sqc.setDmqEligible(dmqEligible);
+				sqc.setTtl(ttl);
+				sqc.setThrottle(throttle);
+				copies.add(sqc);
+			}
+			
+			ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, copies.size()));
+			CompletableFuture<?>[] completions = new CompletableFuture<?>[copies.size()];
+			for (int i = 0; i < completions.length; i++)
+			{
+				SimpleQueueCopy sqc = copies.get(i);
+				pool.execute(sqc);
+				completions[i] = sqc.getCompletion();
+			}
+			pool.shutdown();
+			
+			try
+			{
+				// Failed copies are reported through their status, only completion matters here.
+				CompletableFuture.allOf(completions).handle((result, ex) -> null).get();
+			}
+			catch (ExecutionException e)
+			{
+				logger.error("Error while waiting for queue copies: {}", e.getMessage());
+			}
+		}
+		finally
+		{
+			endTime = System.currentTimeMillis();
+			
+			if (targetProducer != null)
+				SessionPool.getInstance().releaseProducer(targetSession);
+			SessionPool.getInstance().release(sourceSession);
+			SessionPool.getInstance().release(targetSession);
+			sourceSession = null;
+			targetSession = null;
+			targetProducer = null;
+			
+			logger.info("Multi queue copy finished for {} queues. Total messages copied: {}", copies.size(), getMessagesCopied());
+		}
+	}
+	
+	/**
+	 * Gets the copy processes, one per queue.
+	 * @return the copies
+	 */
+	public List<SimpleQueueCopy> getCopies()
+	{
+		return Collections.unmodifiableList(copies);
+	}
+	
+	/**
+	 * Gets the total number of messages copied.
+	 * @return
+	 */
+	public long getMessagesCopied()
+	{
+		long result = 0;
+		for (SimpleQueueCopy sqc : copies)
+			result += sqc.getMessagesCopied();
+		
+		return result;
+	}
+	
+	/**
+	 * Gets the total number of bytes copied.
+	 * @return
+	 */
+	public long getBytesCopied()
+	{
+		long result = 0;
+		for (SimpleQueueCopy sqc : copies)
+			result += sqc.getBytesCopied();
+		
+		return result;
+	}
+	
+	/**
+	 * Gets the duration of the copy process in milliseconds.
+	 * @return
+	 */
+	public long getElapsedMillis()
+	{
+		return Math.max(1L, endTime - startTime);
+	}
+	
+	/**
+	 * Gets the aggregate message rate in messages per second.
+	 * @return
+	 */
+	public double getMessageRate()
+	{
+		return getMessagesCopied() * 1000.0 / getElapsedMillis();
+	}
+	
+	/**
+	 * Gets the aggregate byte rate in bytes per second.
+	 * @return
+	 */
+	public double getByteRate()
+	{
+		return getBytesCopied() * 1000.0 / getElapsedMillis();
+	}
+	
+	/**
+	 * Checks if a queue name matches a wildcard, where '*' matches any sequence of characters and '?' a single character.
+	 * @param name the queue name
+	 * @param wildcard the wildcard
+	 * @return true if matching
+	 */
+	public static boolean matches(String name, String wildcard)
+	{
+		StringBuilder regex = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char c : wildcard.toCharArray())
+		{
+			if (c == '*' || c == '?')
+			{
+				if (literal.length() > 0)
+				{
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append(c == '*' ? ".*" : ".");
+			}
+			else
+			{
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0)
+			regex.append(Pattern.quote(literal.toString()));
+		
+		return name.matches(regex.toString());
+	}
+	
+	/**
+	 * Checks if a source and a target queue are the same queue, i.e. have the same name on the same VPN of the 
+	 * same host. Copying a queue onto itself duplicates its messages endlessly, moving it loses them.
+	 * @param sourceVpn the source VPN
+	 * @param sourceQueueName the source queue name
+	 * @param targetVpn the target VPN
+	 * @param targetQueueName the target queue name
+	 * @return true if the same queue
+	 */
+	public static boolean isSameQueue(VPN sourceVpn, String sourceQueueName, VPN targetVpn, String targetQueueName)
+	{
+		return Objects.equals(sourceQueueName, targetQueueName) && Objects.equals(sourceVpn.getName(), targetVpn.getName()) 
+				&& Objects.equals(sourceVpn.getUrl(), targetVpn.getUrl());
+	}
+	
+	/**
+	 * Creates a target queue name from a pattern. 
+	 * @param pattern the pattern, where {queue} is replaced by the source queue name. When null, the source name is used.
+	 * @param sourceQueueName the source queue name
+	 * @return the target queue name
+	 */
+	public static String getTargetQueueName(String pattern, String sourceQueueName)
+	{
+		if (pattern == null || pattern.isEmpty())
+			return sourceQueueName;
+		
+		return pattern.replace(QUEUE_PLACEHOLDER, sourceQueueName);
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Token bucket throttle for the publish path, limiting messages per second and/or bytes per second. 
+ * 
+ * Tokens are taken before a publish and may go into debt, the publisher then sleeps until the debt 
+ * is paid back. In adaptive mode the rates are halved on back-off, publishing is paused briefly 
+ * and the rates recover gradually while no back-off occurs. The throttle can be shared by several copies.
+ *
+ */
+public final class PublishThrottle
+{
+	private static final Logger logger = LogManager.getLogger(PublishThrottle.class);
+	
+	// Bucket capacity in seconds of the rate, keeps bursts small.
+	private static final double BURST_SECONDS = 0.1;
+	
+	private static final double MIN_RATE_FACTOR = 0.05;
+	private static final double RECOVERY_PER_SECOND = 0.1;
+	private static final long BACKOFF_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+	private static final long INITIAL_PAUSE = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long MAX_PAUSE = TimeUnit.SECONDS.toNanos(5);
+	
+	private final double messageRate;
+	private final double byteRate;
+	private final boolean adaptive;
+	
+	private double messageTokens;
+	private double byteTokens;
+	private long lastRefill = System.nanoTime();
+	
+	private double rateFactor = 1.0;
+	private long lastBackOff = 0L;
+	private long pause = 0L;
+	private long pauseUntil = 0L;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param messageRate messages per second, 0 for unlimited
+	 * @param byteRate bytes per second, 0 for unlimited
+	 * @param adaptive if true, the throttle backs off when the target is overloaded
+	 */
+	public PublishThrottle(double messageRate, double byteRate, boolean adaptive)
+	{
+		if (messageRate < 0 || byteRate < 0)
+			throw new IllegalArgumentException("Rates must not be negative.");
+		
+		this.messageRate = messageRate;
+		this.byteRate = byteRate;
+		this.adaptive = adaptive;
+		this.messageTokens = getCapacity(messageRate);
+		this.byteTokens = getCapacity(byteRate);
+	}
+	
+	/**
+	 * Gets whether the throttle backs off when the target is overloaded.
+	 * @return
+	 */
+	public boolean isAdaptive()
+	{
+		return adaptive;
+	}
+	
+	/**
+	 * Gets the current rate factor applied to the configured rates.
+	 * @return the factor in [0.05..1]
+	 */
+	public synchronized double getRateFactor()
+	{
+		return rateFactor;
+	}
+	
+	/**
+	 * Takes the tokens for the given messages, blocking as long as needed to keep the configured rates.
+	 * @param messages the number of messages
+	 * @param bytes the total size of the messages
+	 * @throws InterruptedException
+	 */
+	public void acquire(int messages, long bytes) throws InterruptedException
+	{
+		long waitNanos;
+		synchronized (this)
+		{
+			long now = System.nanoTime();
+			refill(now);
+			
+			waitNanos = Math.max(0L, pauseUntil - now);
+			if (messageRate > 0)
+			{
+				messageTokens -= messages;
+				if (messageTokens < 0)
+					waitNanos = Math.max(waitNanos, (long) (-messageTokens / (messageRate * rateFactor) * 1e9));
+			}
+			if (byteRate > 0)
+			{
+				byteTokens -= bytes;
+				if (byteTokens < 0)
+					waitNanos = Math.max(waitNanos, (long) (-byteTokens / (byteRate * rateFactor) * 1e9));
+			}
+		}
+		
+		long deadline = System.nanoTime() + waitNanos;
+		while (waitNanos > 0)
+		{
+			LockSupport.parkNanos(this, waitNanos);
+			if (Thread.interrupted())
+				throw new InterruptedException();
+			waitNanos = deadline - System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Signals that the target is overloaded. In adaptive mode, the rates are halved and publishing 
+	 * is paused with an exponentially growing pause while back-offs keep occurring. 
+	 * At most one back-off per second is applied.
+	 */
+	public void backOff()
+	{
+		if (!adaptive)
+			return;
+		
+		synchronized (this)
+		{
+			long now = System.nanoTime();
+			if (lastBackOff != 0L && now - lastBackOff < BACKOFF_INTERVAL)
+				return;
+			
+			refill(now);
+			boolean consecutive = lastBackOff != 0L && now - lastBackOff < 2 * BACKOFF_INTERVAL + pause;
+			pause = consecutive ? Math.min(MAX_PAUSE, pause * 2) : INITIAL_PAUSE;
+			pauseUntil = now + pause;
+			rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+			lastBackOff = now;
+			
+			logger.info("Backing off publishing for {} ms, rate factor {}.", TimeUnit.NANOSECONDS.toMillis(pause), rateFactor);
+		}
+	}
+	
+	/**
+	 * Adds the tokens accrued since the last refill and recovers the rate factor after a back-off.
+	 * @param now the current nano time
+	 */
+	private void refill(long now)
+	{
+		double elapsed = (now - lastRefill) / 1e9;
+		lastRefill = now;
+		if (elapsed <= 0)
+			return;
+		
+		if (rateFactor < 1.0 && now - lastBackOff > BACKOFF_INTERVAL)
+			rateFactor = Math.min(1.0, rateFactor + RECOVERY_PER_SECOND * elapsed);
+		
+		if (messageRate > 0)
+			messageTokens = Math.min(getCapacity(messageRate), messageTokens + elapsed * messageRate * rateFactor);
+		if (byteRate > 0)
+			byteTokens = Math.min(getCapacity(byteRate), byteTokens + elapsed * byteRate * rateFactor);
+	}
+	
+	/**
+	 * Gets the bucket capacity for a rate.
+	 * @param rate the rate per second
+	 * @return the capacity, at least 1
+	 */
+	private static double getCapacity(double rate)
+	{
+		return Math.max(1.0, rate * BURST_SECONDS);
+	}
+}
@@ -0,0 +1,422 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.MapMessage;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+import com.solacesystems.jcsmp.SDTStream;
+import com.solacesystems.jcsmp.StreamMessage;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.XMLContentMessage;
+
+/**
+ * Reads messages from a queue archive file written by QueueArchiveWriter. 
+ * 
+ * Uncompressed archives can be read through memory mapped windows of the file, 
+ * otherwise records are streamed from the file channel. The archive of an interrupted export ends after its
+ * last complete record.
+ *
+ */
+public class QueueArchiveReader implements Closeable
+{
+	private static final int MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+	private static final int STREAM_BUFFER_SIZE = 65536;
+	private static final int HEADER_SIZE = 6;
+	
+	private final FileChannel channel;
+	private final byte version;
+	private final boolean compressed;
+	
+	// Streamed reading.
+	private DataInputStream input;
+	private byte[] recordBytes = new byte[STREAM_BUFFER_SIZE];
+	
+	// Memory mapped reading.
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long position = HEADER_SIZE;
+	private final long size;
+	
+	private long recordCount = 0;
+	
+	/**
+	 * Initialises a new instance of the class and validates the archive header.
+	 * @param file the archive file
+	 * @param memoryMap if true and the archive is not compressed, the file is memory mapped
+	 * @throws IOException
+	 */
+	public QueueArchiveReader(Path file, boolean memoryMap) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		size = channel.size();
+		
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining())
+			{
+				if (channel.read(header) < 0)
+					throw new IOException("File " + file + " is not a queue archive.");
+			}
+			header.flip();
+			
+			if (header.getInt() != QueueArchiveWriter.MAGIC)
+				throw new IOException("File " + file + " is not a queue archive.");
+			
+			version = header.get();
+			// Version 1 records have no XML content and only text and bytes bodies.
+			if (version < 1 || version > QueueArchiveWriter.VERSION)
+				throw new IOException("Unsupported queue archive version: " + version);
+			
+			compressed = (header.get() & QueueArchiveWriter.FLAG_COMPRESSED) != 0;
+			
+			if (compressed || !memoryMap)
+			{
+				InputStream stream = Channels.newInputStream(channel);
+				stream = compressed ? new GZIPInputStream(stream, STREAM_BUFFER_SIZE) : new BufferedInputStream(stream, STREAM_BUFFER_SIZE);
+				input = new DataInputStream(stream);
+			}
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Gets whether the archive is compressed.
+	 * @return
+	 */
+	public boolean isCompressed()
+	{
+		return compressed;
+	}
+	
+	/**
+	 * Gets the number of records read.
+	 * @return
+	 */
+	public long getRecordCount()
+	{
+		return recordCount;
+	}
+	
+	/**
+	 * Reads the next message.
+	 * @return the message or null at the end of the archive
+	 * @throws IOException
+	 * @throws SDTException
+	 */
+	public BytesXMLMessage next() throws IOException, SDTException
+	{
+		ByteBuffer record = input != null ? readStreamRecord() : readMappedRecord();
+		if (record == null)
+			return null;
+		
+		recordCount++;
+		return decode(record);
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		window = null;
+		if (input != null)
+			input.close();
+		else
+			channel.close();
+	}
+	
+	/**
+	 * Reads a record from the input stream into the reusable record buffer.
+	 * @return the record or null at the end of the archive
+	 * @throws IOException
+	 */
+	private ByteBuffer readStreamRecord() throws IOException
+	{
+		int length;
+		try
+		{
+			length = input.readInt();
+		}
+		catch (EOFException e)
+		{
+			return null;
+		}
+		
+		if (length < 0)
+			throw new IOException("Corrupt queue archive record at record " + recordCount);
+		
+		if (recordBytes.length < length)
+			recordBytes = new byte[length];
+		
+		try
+		{
+			input.readFully(recordBytes, 0, length);
+		}
+		catch (EOFException e)
+		{
+			// The export was interrupted while writing this record, it was never flushed and the message not acknowledged.
+			return null;
+		}
+		
+		return ByteBuffer.wrap(recordBytes, 0, length);
+	}
+	
+	/**
+	 * Reads a record from the mapped window, remapping the window when the record is outside of it.
+	 * @return the record or null at the end of the archive
+	 * @throws IOException
+	 */
+	private ByteBuffer readMappedRecord() throws IOException
+	{
+		if (position + 4 > size)
+			return null;
+		
+		map(position, 4);
+		int length = window.getInt((int) (position - windowStart));
+		if (length < 0)
+			throw new IOException("Corrupt queue archive record at record " + recordCount);
+		
+		// A record cut off at the end of the file was being written when the export was interrupted.
+		if (position + 4 + length > size)
+			return null;
+		
+		map(position, 4 + length);
+		ByteBuffer record = window.duplicate();
+		int offset = (int) (position - windowStart) + 4;
+		record.position(offset);
+		record.limit(offset + length);
+		
+		position += 4 + length;
+		return record.slice();
+	}
+	
+	/**
+	 * Ensures that the given file region is inside the mapped window.
+	 * @param start the start of the region
+	 * @param length the length of the region
+	 * @throws IOException
+	 */
+	private void map(long start, int length) throws IOException
+	{
+		if (window != null && start >= windowStart && start + length <= windowStart + window.limit())
+			return;
+		
+		long mapSize = Math.min(Math.max(MAP_WINDOW_SIZE, length), size - start);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, mapSize);
+		windowStart = start;
+	}
+	
+	/**
+	 * Creates a message from a record.
+	 * @param record the record
+	 * @return the message
+	 * @throws SDTException
+	 */
+	private BytesXMLMessage decode(ByteBuffer record) throws SDTException
+	{
+		byte type = record.get();
+		byte flags = record.get();
+		long ttl = record.getLong();
+		String appMessageId = getString(record);
+		String correlationId = getString(record);
+		String appMessageType = getString(record);
+		SDTMap properties = getMap(record);
+		byte[] content = version > 1 ? getBytes(record) : null;
+		
+		BytesXMLMessage msg;
+		switch (type)
+		{
+			case QueueArchiveWriter.TYPE_TEXT:
+				TextMessage textMsg = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+				textMsg.setText(new String(getBytes(record), StandardCharsets.UTF_8));
+				msg = textMsg;
+				break;
+			case QueueArchiveWriter.TYPE_BYTES:
+				BytesMessage bytesMsg = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+				bytesMsg.setData(getBytes(record));
+				msg = bytesMsg;
+				break;
+			case QueueArchiveWriter.TYPE_MAP:
+				MapMessage mapMsg = JCSMPFactory.onlyInstance().createMessage(MapMessage.class);
+				mapMsg.setMap(getMap(record));
+				msg = mapMsg;
+				break;
+			case QueueArchiveWriter.TYPE_STREAM:
+				StreamMessage streamMsg = JCSMPFactory.onlyInstance().createMessage(StreamMessage.class);
+				streamMsg.setStream(getStream(record));
+				msg = streamMsg;
+				break;
+			case QueueArchiveWriter.TYPE_XML:
+				msg = JCSMPFactory.onlyInstance().createMessage(XMLContentMessage.class);
+				byte[] attachment = getBytes(record);
+				if (attachment.length > 0)
+					msg.writeAttachment(attachment);
+				break;
+			default:
+				throw new SDTException("Unknown message type " + type + " in queue archive record " + recordCount);
+		}
+		
+		if (content != null)
+			msg.writeBytes(content);
+		
+		msg.setDeliveryMode((flags & QueueArchiveWriter.RECORD_FLAG_NON_PERSISTENT) != 0 ? DeliveryMode.NON_PERSISTENT : DeliveryMode.PERSISTENT);
+		msg.setDMQEligible((flags & QueueArchiveWriter.RECORD_FLAG_DMQ_ELIGIBLE) != 0);
+		msg.setTimeToLive(ttl);
+		if (appMessageId != null)
+			msg.setApplicationMessageId(appMessageId);
+		if (correlationId != null)
+			msg.setCorrelationId(correlationId);
+		if (appMessageType != null)
+			msg.setApplicationMessageType(appMessageType);
+		if (!properties.keySet().isEmpty())
+			msg.setProperties(properties);
+		
+		return msg;
+	}
+	
+	/**
+	 * Reads an SDT map.
+	 * @param record the record
+	 * @return the map
+	 * @throws SDTException
+	 */
+	private SDTMap getMap(ByteBuffer record) throws SDTException
+	{
+		int count = record.getInt();
+		SDTMap map = JCSMPFactory.onlyInstance().createMap();
+		for (int i = 0; i < count; i++)
+		{
+			String key = getString(record);
+			map.putObject(key, getValue(record));
+		}
+		
+		return map;
+	}
+	
+	/**
+	 * Reads an SDT stream.
+	 * @param record the record
+	 * @return the stream
+	 * @throws SDTException
+	 */
+	private SDTStream getStream(ByteBuffer record) throws SDTException
+	{
+		int count = record.getInt();
+		SDTStream stream = JCSMPFactory.onlyInstance().createStream();
+		for (int i = 0; i < count; i++)
+			stream.writeObject(getValue(record));
+		
+		return stream;
+	}
+	
+	/**
+	 * Reads a typed SDT value.
+	 * @param record the record
+	 * @return the value
+	 * @throws SDTException
+	 */
+	private Object getValue(ByteBuffer record) throws SDTException
+	{
+		byte type = record.get();
+		switch (type)
+		{
+			case QueueArchiveWriter.PROP_STRING:
+				return getString(record);
+			case QueueArchiveWriter.PROP_BOOLEAN:
+				return record.get() != 0;
+			case QueueArchiveWriter.PROP_BYTE:
+				return record.get();
+			case QueueArchiveWriter.PROP_SHORT:
+				return record.getShort();
+			case QueueArchiveWriter.PROP_INTEGER:
+				return record.getInt();
+			case QueueArchiveWriter.PROP_LONG:
+				return record.getLong();
+			case QueueArchiveWriter.PROP_FLOAT:
+				return record.getFloat();
+			case QueueArchiveWriter.PROP_DOUBLE:
+				return record.getDouble();
+			case QueueArchiveWriter.PROP_CHARACTER:
+				return record.getChar();
+			case QueueArchiveWriter.PROP_BYTES:
+				return getBytes(record);
+			case QueueArchiveWriter.PROP_MAP:
+				return getMap(record);
+			case QueueArchiveWriter.PROP_STREAM:
+				return getStream(record);
+			case QueueArchiveWriter.PROP_TOPIC:
+				return JCSMPFactory.onlyInstance().createTopic(getString(record));
+			case QueueArchiveWriter.PROP_QUEUE:
+				return JCSMPFactory.onlyInstance().createQueue(getString(record));
+			default:
+				throw new SDTException("Unknown value type " + type + " in queue archive record " + recordCount);
+		}
+	}
+	
+	/**
+	 * Reads length prefixed bytes.
+	 * @param record the record
+	 * @return the bytes or null
+	 */
+	private static byte[] getBytes(ByteBuffer record)
+	{
+		int length = record.getInt();
+		if (length < 0)
+			return null;
+		
+		byte[] bytes = new byte[length];
+		record.get(bytes);
+		return bytes;
+	}
+	
+	/**
+	 * Reads a length prefixed UTF-8 string.
+	 * @param record the record
+	 * @return the string or null
+	 */
+	private static String getString(ByteBuffer record)
+	{
+		byte[] bytes = getBytes(record);
+		return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+	}
+}
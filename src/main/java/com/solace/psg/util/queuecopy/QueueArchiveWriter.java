@@ -0,0 +1,460 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.MapMessage;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.SDTMap;
+import com.solacesystems.jcsmp.SDTStream;
+import com.solacesystems.jcsmp.StreamMessage;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLContentMessage;
+
+/**
+ * Writes messages to a queue archive file. 
+ * 
+ * The archive starts with a header (magic, version, flags) followed by length prefixed message records, 
+ * optionally GZIP compressed. Records are appended through a file channel using a single reusable buffer, 
+ * so memory use does not depend on the number of messages. 
+ * 
+ * Each record keeps the message type, the XML content and the attachment, map and stream bodies are stored as 
+ * typed SDT values. Messages with SDT values that cannot be stored are refused with an SDTException.
+ *
+ */
+public class QueueArchiveWriter implements Closeable
+{
+	public static final int MAGIC = 0x53514341; // "SQCA"
+	public static final byte VERSION = 2;
+	public static final byte FLAG_COMPRESSED = 0x01;
+	
+	public static final byte TYPE_BYTES = 0;
+	public static final byte TYPE_TEXT = 1;
+	public static final byte TYPE_MAP = 2;
+	public static final byte TYPE_STREAM = 3;
+	public static final byte TYPE_XML = 4;
+	
+	public static final byte RECORD_FLAG_DMQ_ELIGIBLE = 0x01;
+	public static final byte RECORD_FLAG_NON_PERSISTENT = 0x02;
+	
+	// Property value types.
+	static final byte PROP_STRING = 1;
+	static final byte PROP_BOOLEAN = 2;
+	static final byte PROP_BYTE = 3;
+	static final byte PROP_SHORT = 4;
+	static final byte PROP_INTEGER = 5;
+	static final byte PROP_LONG = 6;
+	static final byte PROP_FLOAT = 7;
+	static final byte PROP_DOUBLE = 8;
+	static final byte PROP_CHARACTER = 9;
+	static final byte PROP_BYTES = 10;
+	static final byte PROP_MAP = 11;
+	static final byte PROP_STREAM = 12;
+	static final byte PROP_TOPIC = 13;
+	static final byte PROP_QUEUE = 14;
+	
+	private static final int INITIAL_BUFFER_SIZE = 65536;
+	
+	private final FileChannel channel;
+	private final OutputStream compressedStream;
+	
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	
+	private long recordCount = 0;
+	private long bytesWritten = 0;
+	
+	/**
+	 * Initialises a new instance of the class and writes the archive header. An existing file is overwritten.
+	 * @param file the archive file
+	 * @param compress if true, the records are GZIP compressed
+	 * @throws IOException
+	 */
+	public QueueArchiveWriter(Path file, boolean compress) throws IOException
+	{
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		
+		ByteBuffer header = ByteBuffer.allocate(6);
+		header.putInt(MAGIC).put(VERSION).put(compress ? FLAG_COMPRESSED : 0);
+		header.flip();
+		writeFully(header);
+		
+		// Sync flush makes flush() write out all data pending in the deflater, otherwise flushed records could still be
+		// held in memory when they are acknowledged.
+		compressedStream = compress ? new GZIPOutputStream(Channels.newOutputStream(channel), INITIAL_BUFFER_SIZE, true) : null;
+	}
+	
+	/**
+	 * Appends a message to the archive.
+	 * @param msg the message
+	 * @throws IOException
+	 * @throws SDTException
+	 */
+	public void write(BytesXMLMessage msg) throws IOException, SDTException
+	{
+		byte type = TYPE_BYTES;
+		byte[] payload = null;
+		if (msg instanceof TextMessage)
+		{
+			type = TYPE_TEXT;
+			String text = ((TextMessage) msg).getText();
+			payload = text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+		}
+		else if (msg instanceof BytesMessage)
+		{
+			payload = ((BytesMessage) msg).getData();
+			if (payload == null)
+				payload = new byte[0];
+		}
+		else if (msg instanceof MapMessage)
+		{
+			type = TYPE_MAP;
+		}
+		else if (msg instanceof StreamMessage)
+		{
+			type = TYPE_STREAM;
+		}
+		else
+		{
+			if (msg instanceof XMLContentMessage)
+				type = TYPE_XML;
+			
+			payload = new byte[msg.getAttachmentContentLength()];
+			msg.readAttachmentBytes(payload);
+		}
+		
+		byte[] content = null;
+		if (msg.hasContent())
+		{
+			content = new byte[msg.getContentLength()];
+			msg.readContentBytes(content);
+		}
+		
+		byte flags = 0;
+		if (msg.isDMQEligible())
+			flags |= RECORD_FLAG_DMQ_ELIGIBLE;
+		if (msg.getDeliveryMode() == DeliveryMode.NON_PERSISTENT)
+			flags |= RECORD_FLAG_NON_PERSISTENT;
+		
+		buffer.clear();
+		buffer.putInt(0); // record length, set below
+		ensureCapacity(10);
+		buffer.put(type).put(flags).putLong(msg.getTimeToLive());
+		putString(msg.getApplicationMessageId());
+		putString(msg.getCorrelationId());
+		putString(msg.getApplicationMessageType());
+		putMap(msg.getProperties());
+		putBytes(content);
+		if (type == TYPE_MAP)
+			putMap(((MapMessage) msg).getMap());
+		else if (type == TYPE_STREAM)
+			putStream(((StreamMessage) msg).getStream());
+		else
+			putBytes(payload);
+		
+		buffer.putInt(0, buffer.position() - 4);
+		buffer.flip();
+		
+		int size = buffer.limit();
+		if (compressedStream != null)
+			compressedStream.write(buffer.array(), 0, size);
+		else
+			writeFully(buffer);
+		
+		recordCount++;
+		bytesWritten += size;
+	}
+	
+	/**
+	 * Flushes the written records and forces them to the storage device.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException
+	{
+		if (compressedStream != null)
+			compressedStream.flush();
+		
+		channel.force(false);
+	}
+	
+	/**
+	 * Gets the number of records written.
+	 * @return
+	 */
+	public long getRecordCount()
+	{
+		return recordCount;
+	}
+	
+	/**
+	 * Gets the number of uncompressed record bytes written.
+	 * @return
+	 */
+	public long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			if (compressedStream != null)
+				compressedStream.close();
+			else
+				channel.force(false);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Writes an SDT map.
+	 * @param map the map, can be null
+	 * @throws SDTException if the map contains a value that cannot be stored
+	 */
+	private void putMap(SDTMap map) throws SDTException
+	{
+		ensureCapacity(4);
+		if (map == null)
+		{
+			buffer.putInt(0);
+			return;
+		}
+		
+		buffer.putInt(map.keySet().size());
+		for (String key : map.keySet())
+		{
+			putString(key);
+			Object value = map.get(key);
+			if (!putValue(value))
+			{
+				// Byte array values are returned as an internal type, read them as byte[] instead.
+				byte[] bytes;
+				try
+				{
+					bytes = map.getBytes(key);
+				}
+				catch (SDTException e)
+				{
+					throw unsupportedValue(value);
+				}
+				putBytesValue(bytes);
+			}
+		}
+	}
+	
+	/**
+	 * Writes an SDT stream. The stream is rewound before and after it is read.
+	 * @param stream the stream, can be null
+	 * @throws SDTException if the stream contains a value that cannot be stored
+	 */
+	private void putStream(SDTStream stream) throws SDTException
+	{
+		ensureCapacity(4);
+		int countPosition = buffer.position();
+		buffer.putInt(0);
+		if (stream == null)
+			return;
+		
+		int count = 0;
+		stream.rewind();
+		while (stream.hasRemaining())
+		{
+			stream.mark();
+			Object value = stream.read();
+			if (!putValue(value))
+			{
+				stream.reset();
+				byte[] bytes;
+				try
+				{
+					bytes = stream.readBytes();
+				}
+				catch (SDTException e)
+				{
+					throw unsupportedValue(value);
+				}
+				putBytesValue(bytes);
+			}
+			count++;
+		}
+		stream.rewind();
+		
+		buffer.putInt(countPosition, count);
+	}
+	
+	/**
+	 * Writes a typed SDT value.
+	 * @param value the value
+	 * @return false if the value is not of a known type and nothing was written
+	 * @throws SDTException
+	 */
+	private boolean putValue(Object value) throws SDTException
+	{
+		ensureCapacity(9);
+		if (value == null || value instanceof String)
+		{
+			buffer.put(PROP_STRING);
+			putString((String) value);
+		}
+		else if (value instanceof Boolean)
+			buffer.put(PROP_BOOLEAN).put((byte) (((Boolean) value) ? 1 : 0));
+		else if (value instanceof Byte)
+			buffer.put(PROP_BYTE).put((Byte) value);
+		else if (value instanceof Short)
+			buffer.put(PROP_SHORT).putShort((Short) value);
+		else if (value instanceof Integer)
+			buffer.put(PROP_INTEGER).putInt((Integer) value);
+		else if (value instanceof Long)
+			buffer.put(PROP_LONG).putLong((Long) value);
+		else if (value instanceof Float)
+			buffer.put(PROP_FLOAT).putFloat((Float) value);
+		else if (value instanceof Double)
+			buffer.put(PROP_DOUBLE).putDouble((Double) value);
+		else if (value instanceof Character)
+			buffer.put(PROP_CHARACTER).putChar((Character) value);
+		else if (value instanceof byte[])
+			putBytesValue((byte[]) value);
+		else if (value instanceof SDTMap)
+		{
+			buffer.put(PROP_MAP);
+			putMap((SDTMap) value);
+		}
+		else if (value instanceof SDTStream)
+		{
+			buffer.put(PROP_STREAM);
+			putStream((SDTStream) value);
+		}
+		else if (value instanceof Topic)
+		{
+			buffer.put(PROP_TOPIC);
+			putString(((Topic) value).getName());
+		}
+		else if (value instanceof Queue)
+		{
+			buffer.put(PROP_QUEUE);
+			putString(((Queue) value).getName());
+		}
+		else
+			return false;
+		
+		return true;
+	}
+	
+	/**
+	 * Writes a byte array SDT value.
+	 * @param bytes the value
+	 */
+	private void putBytesValue(byte[] bytes)
+	{
+		ensureCapacity(1);
+		buffer.put(PROP_BYTES);
+		putBytes(bytes);
+	}
+	
+	/**
+	 * Writes length prefixed bytes, -1 for null.
+	 * @param bytes the bytes
+	 */
+	private void putBytes(byte[] bytes)
+	{
+		if (bytes == null)
+		{
+			ensureCapacity(4);
+			buffer.putInt(-1);
+			return;
+		}
+		
+		ensureCapacity(4 + bytes.length);
+		buffer.putInt(bytes.length).put(bytes);
+	}
+	
+	/**
+	 * Creates the exception for an SDT value that cannot be stored in an archive.
+	 * @param value the value
+	 * @return the exception
+	 */
+	private static SDTException unsupportedValue(Object value)
+	{
+		return new SDTException("Unsupported SDT value type for a queue archive: " + value.getClass().getName());
+	}
+	
+	/**
+	 * Writes a length prefixed UTF-8 string, -1 for null.
+	 * @param value the string
+	 */
+	private void putString(String value)
+	{
+		if (value == null)
+		{
+			ensureCapacity(4);
+			buffer.putInt(-1);
+			return;
+		}
+		
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ensureCapacity(4 + bytes.length);
+		buffer.putInt(bytes.length).put(bytes);
+	}
+	
+	/**
+	 * Grows the record buffer when needed, keeping the data written so far.
+	 * @param size the number of bytes to be written
+	 */
+	private void ensureCapacity(int size)
+	{
+		if (buffer.remaining() >= size)
+			return;
+		
+		ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+		buffer.flip();
+		larger.put(buffer);
+		buffer = larger;
+	}
+	
+	/**
+	 * Writes a buffer completely to the channel.
+	 * @param data the data
+	 * @throws IOException
+	 */
+	private void writeFully(ByteBuffer data) throws IOException
+	{
+		while (data.hasRemaining())
+			channel.write(data);
+	}
+}
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solacesystems.jcsmp.Browser;
+import com.solacesystems.jcsmp.BrowserProperties;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.ConsumerFlowProperties;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.FlowEventArgs;
+import com.solacesystems.jcsmp.FlowEventHandler;
+import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.SDTException;
+
+/**
+ * Exports the messages of a queue to a queue archive file. 
+ * 
+ * Messages are browsed, so the queue is left unchanged, unless they are removed. Removed messages 
+ * are only acknowledged after they have been flushed to disk.
+ *
+ */
+public class QueueExport implements FlowEventHandler
+{
+	private static final Logger logger = LogManager.getLogger(QueueExport.class);
+	
+	public static final int DEFAULT_WAIT_TIMEOUT = 5000;
+	public static final int DEFAULT_IDLE_TIMEOUT = 1000;
+	public static final int DEFAULT_ACK_BATCH_SIZE = 256;
+	
+	private VPN vpn;
+	private String queueName;
+	private Path file;
+	private long messageCount;
+	private boolean remove;
+	private boolean compress = false;
+	
+	private int waitTimeout = DEFAULT_WAIT_TIMEOUT;
+	private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+	private int ackBatchSize = DEFAULT_ACK_BATCH_SIZE;
+	
+	private long messagesExported = 0;
+	private long bytesWritten = 0;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param vpn the VPN of the queue
+	 * @param queueName the queue name
+	 * @param file the archive file
+	 * @param messageCount the maximum number of messages to export, 0 for all
+	 * @param remove if true, the exported messages are removed from the queue
+	 */
+	public QueueExport(VPN vpn, String queueName, Path file, long messageCount, boolean remove)
+	{
+		this.vpn = vpn;
+		this.queueName = queueName;
+		this.file = file;
+		this.messageCount = messageCount > 0 ? messageCount : Long.MAX_VALUE;
+		this.remove = remove;
+	}
+	
+	/**
+	 * Sets whether the archive is compressed.
+	 * @param compress
+	 */
+	public void setCompress(boolean compress)
+	{
+		this.compress = compress;
+	}
+	
+	/**
+	 * Sets the time to wait for the first message in milliseconds.
+	 * @param waitTimeout
+	 */
+	public void setWaitTimeout(int waitTimeout)
+	{
+		this.waitTimeout = waitTimeout;
+	}
+	
+	/**
+	 * Sets the time to wait for further messages in milliseconds before the queue is considered empty.
+	 * @param idleTimeout
+	 */
+	public void setIdleTimeout(int idleTimeout)
+	{
+		this.idleTimeout = idleTimeout;
+	}
+	
+	/**
+	 * Gets the number of exported messages.
+	 * @return
+	 */
+	public long getMessagesExported()
+	{
+		return messagesExported;
+	}
+	
+	/**
+	 * Gets the number of uncompressed bytes written.
+	 * @return
+	 */
+	public long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+	
+	/**
+	 * Exports the queue.
+	 * @return the number of exported messages
+	 * @throws JCSMPException
+	 * @throws IOException
+	 * @throws SDTException
+	 */
+	public long export() throws JCSMPException, IOException, SDTException
+	{
+		logger.info("Exporting queue {} to {}", queueName, file);
+		
+		JCSMPSession session = SessionPool.getInstance().acquire(vpn, SimpleQueueCopy.DEFAULT_BUFFER_SIZE, SimpleQueueCopy.DEFAULT_BUFFER_SIZE);
+		Queue queue = JCSMPFactory.onlyInstance().createQueue(queueName);
+		
+		Browser browser = null;
+		FlowReceiver receiver = null;
+		
+		try (QueueArchiveWriter writer = new QueueArchiveWriter(file, compress))
+		{
+			if (remove)
+			{
+				ConsumerFlowProperties flowProps = new ConsumerFlowProperties();
+				flowProps.setEndpoint(queue);
+				flowProps.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
+				EndpointProperties endpointProps = new EndpointProperties();
+				endpointProps.setAccessType(EndpointProperties.ACCESSTYPE_EXCLUSIVE);
+				receiver = session.createFlow(null, flowProps, endpointProps, this);
+				receiver.start();
+			}
+			else
+			{
+				BrowserProperties browserProps = new BrowserProperties();
+				browserProps.setEndpoint(queue);
+				browserProps.setWaitTimeout(waitTimeout);
+				browser = session.createBrowser(browserProps, this);
+			}
+			
+			List<BytesXMLMessage> unacked = new ArrayList<BytesXMLMessage>(ackBatchSize);
+			int timeout = waitTimeout;
+			while (messagesExported < messageCount)
+			{
+				BytesXMLMessage msg = remove ? receiver.receive(timeout) : browser.getNext(timeout);
+				if (msg == null)
+					break;
+				
+				timeout = idleTimeout;
+				writer.write(msg);
+				messagesExported++;
+				
+				if (remove)
+				{
+					unacked.add(msg);
+					if (unacked.size() >= ackBatchSize)
+						acknowledge(writer, unacked);
+				}
+			}
+			
+			writer.flush();
+			acknowledge(writer, unacked);
+			bytesWritten = writer.getBytesWritten();
+		}
+		finally
+		{
+			if (receiver != null)
+				receiver.close();
+			if (browser != null)
+				browser.close();
+			
+			SessionPool.getInstance().release(session);
+		}
+		
+		logger.info("Exported {} messages from queue {} to {}", messagesExported, queueName, file);
+		return messagesExported;
+	}
+	
+	/**
+	 * Acknowledges the given messages once they are on disk.
+	 * @param writer the archive writer
+	 * @param unacked the messages to acknowledge
+	 * @throws IOException
+	 */
+	private void acknowledge(QueueArchiveWriter writer, List<BytesXMLMessage> unacked) throws IOException
+	{
+		if (unacked.isEmpty())
+			return;
+		
+		writer.flush();
+		for (BytesXMLMessage msg : unacked)
+			msg.ackMessage();
+		
+		unacked.clear();
+	}
+	
+	@Override
+	public void handleEvent(Object source, FlowEventArgs event)
+	{
+		logger.info("Flow event: {}", event);
+	}
+}
@@ -0,0 +1,272 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.ProducerFlowProperties;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.SDTException;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+
+/**
+ * Imports the messages of a queue archive file into a queue. 
+ * 
+ * Messages are read one record at a time and published in batches with a windowed producer, 
+ * so memory use is bounded by the batch and publish window sizes.
+ *
+ */
+public class QueueImport implements JCSMPStreamingPublishCorrelatingEventHandler
+{
+	private static final Logger logger = LogManager.getLogger(QueueImport.class);
+	
+	public static final int DEFAULT_ACK_TIMEOUT = 60000;
+	
+	private VPN vpn;
+	private String queueName;
+	private Path file;
+	private boolean memoryMap = false;
+	
+	private int batchSize = SimpleQueueCopy.MAX_BATCH_SIZE;
+	private int windowSize = SimpleQueueCopy.DEFAULT_WINDOW_SIZE;
+	private int ackTimeout = DEFAULT_ACK_TIMEOUT;
+	
+	private final Object ackMonitor = new Object();
+	private long messagesPublished = 0;
+	private long messagesConfirmed = 0;
+	private long messagesFailed = 0;
+	
+	// Routes the publish events of the shared producer to this import.
+	private final SessionPool.CorrelationKey correlationKey = () -> this;
+	
+	/**
+	 * Initialises a new instance of the class.
+	 * @param vpn the VPN of the queue
+	 * @param queueName the queue name
+	 * @param file the archive file
+	 */
+	public QueueImport(VPN vpn, String queueName, Path file)
+	{
+		this.vpn = vpn;
+		this.queueName = queueName;
+		this.file = file;
+	}
+	
+	/**
+	 * Sets whether an uncompressed archive is memory mapped.
+	 * @param memoryMap
+	 */
+	public void setMemoryMap(boolean memoryMap)
+	{
+		this.memoryMap = memoryMap;
+	}
+	
+	/**
+	 * Sets the number of messages published per send call [1..50].
+	 * @param batchSize
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		if (batchSize < 1 || batchSize > SimpleQueueCopy.MAX_BATCH_SIZE)
+			throw new IllegalArgumentException("Batch size must be between 1 and " + SimpleQueueCopy.MAX_BATCH_SIZE);
+		
+		this.batchSize = batchSize;
+	}
+	
+	/**
+	 * Sets the publish window size [1..255].
+	 * @param windowSize
+	 */
+	public void setWindowSize(int windowSize)
+	{
+		if (windowSize < 1 || windowSize > SimpleQueueCopy.MAX_WINDOW_SIZE)
+			throw new IllegalArgumentException("Window size must be between 1 and " + SimpleQueueCopy.MAX_WINDOW_SIZE);
+		
+		this.windowSize = windowSize;
+	}
+	
+	/**
+	 * Gets the number of messages confirmed by the broker.
+	 * @return
+	 */
+	public long getMessagesImported()
+	{
+		synchronized (ackMonitor)
+		{
+			return messagesConfirmed;
+		}
+	}
+	
+	/**
+	 * Gets the number of messages rejected by the broker.
+	 * @return
+	 */
+	public long getMessagesFailed()
+	{
+		synchronized (ackMonitor)
+		{
+			return messagesFailed;
+		}
+	}
+	
+	/**
+	 * Imports the archive.
+	 * @return the number of imported messages
+	 * @throws JCSMPException
+	 * @throws IOException
+	 * @throws SDTException
+	 * @throws InterruptedException
+	 */
+	public long importMessages() throws JCSMPException, IOException, SDTException, InterruptedException
+	{
+		logger.info("Importing {} to queue {}", file, queueName);
+		
+		JCSMPSession session = SessionPool.getInstance().acquire(vpn, batchSize * SimpleQueueCopy.DEFAULT_BUFFER_SIZE, SimpleQueueCopy.DEFAULT_BUFFER_SIZE);
+		Queue queue = JCSMPFactory.onlyInstance().createQueue(queueName);
+		
+		ProducerFlowProperties prodFlowProps = new ProducerFlowProperties();
+		prodFlowProps.setWindowSize(windowSize);
+		prodFlowProps.setAckEventMode(JCSMPProperties.SUPPORTED_ACK_EVENT_MODE_WINDOWED);
+		
+		XMLMessageProducer producer = null;
+		try (QueueArchiveReader reader = new QueueArchiveReader(file, memoryMap))
+		{
+			producer = SessionPool.getInstance().acquireProducer(session, prodFlowProps);
+			
+			JCSMPSendMultipleEntry[] entries = new JCSMPSendMultipleEntry[batchSize];
+			for (int i = 0; i < batchSize; i++)
+				entries[i] = JCSMPFactory.onlyInstance().createSendMultipleEntry(null, queue);
+			
+			boolean more = true;
+			while (more)
+			{
+				int count = 0;
+				while (count < batchSize)
+				{
+					BytesXMLMessage msg = reader.next();
+					if (msg == null)
+					{
+						more = false;
+						break;
+					}
+					
+					msg.setCorrelationKey(correlationKey);
+					entries[count++].setMessage(msg);
+				}
+				
+				if (count == 0)
+					break;
+				
+				// A send can accept only part of the batch, the rest is sent again. Only accepted messages are counted, 
+				// the others would never be confirmed.
+				int offset = 0;
+				while (offset < count)
+				{
+					int sent;
+					if (count - offset == 1)
+					{
+						producer.send(entries[offset].getMessage(), queue);
+						sent = 1;
+					}
+					else
+					{
+						sent = producer.sendMultiple(entries, offset, count - offset, 0);
+					}
+					
+					if (sent <= 0)
+						throw new JCSMPException("The producer did not accept any of the " + (count - offset) + " remaining messages of the batch.");
+					
+					synchronized (ackMonitor)
+					{
+						messagesPublished += sent;
+					}
+					offset += sent;
+				}
+			}
+			
+			awaitAcks();
+		}
+		finally
+		{
+			if (producer != null)
+				SessionPool.getInstance().releaseProducer(session);
+			
+			SessionPool.getInstance().release(session);
+		}
+		
+		logger.info("Imported {} messages from {} to queue {}, {} failed", getMessagesImported(), file, queueName, getMessagesFailed());
+		return getMessagesImported();
+	}
+	
+	/**
+	 * Waits until all published messages are confirmed or rejected.
+	 * @throws InterruptedException
+	 */
+	private void awaitAcks() throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + ackTimeout;
+		synchronized (ackMonitor)
+		{
+			while (messagesConfirmed + messagesFailed < messagesPublished)
+			{
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0)
+				{
+					logger.warn("Timed out waiting for {} publish acknowledgements.", messagesPublished - messagesConfirmed - messagesFailed);
+					break;
+				}
+				
+				ackMonitor.wait(remaining);
+			}
+		}
+	}
+	
+	@Override
+	public void responseReceivedEx(Object key)
+	{
+		synchronized (ackMonitor)
+		{
+			messagesConfirmed++;
+			ackMonitor.notifyAll();
+		}
+	}
+	
+	@Override
+	public void handleErrorEx(Object key, JCSMPException ex, long timestamp)
+	{
+		logger.error("Failed to publish message to queue {}: {}", queueName, ex.getMessage());
+		synchronized (ackMonitor)
+		{
+			messagesFailed++;
+			ackMonitor.notifyAll();
+		}
+	}
+}
@@ -0,0 +1,314 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under 
+ * an agreement signed between you and Solace.
+ * 
+ */
+package com.solace.psg.util.queuecopy;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPProducerEventHandler;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.ProducerEventArgs;
+import com.solacesystems.jcsmp.ProducerFlowProperties;
+import com.solacesystems.jcsmp.SessionEvent;
+import com.solacesystems.jcsmp.SessionEventArgs;
+import com.solacesystems.jcsmp.SessionEventHandler;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+
+/**
+ * Pool of connected JCSMP sessions keyed by VPN (URL, VPN name and credentials). 
+ * 
+ * Operations acquire a session and release it when done. Released sessions stay connected for the idle 
+ * timeout, so consecutive operations in one process skip the connection setup, and a source and target 
+ * on the same VPN share one session. A session allows only one producer, so operations publishing on a pooled 
+ * session acquire its shared producer. The publish events of the shared producer are routed to the operation 
+ * which published the message through the CorrelationKey set on the message.
+ *
+ */
+public final class SessionPool
+{
+	private static final Logger logger = LogManager.getLogger(SessionPool.class);
+	
+	public static final long DEFAULT_IDLE_TIMEOUT = 300000;
+	
+	private static final SessionPool instance = new SessionPool();
+	
+	private final Map<VPN, PooledSession> sessions = new HashMap<VPN, PooledSession>();
+	
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+	
+	/**
+	 * Correlation key of a message published on a shared producer.
+	 */
+	public interface CorrelationKey
+	{
+		/**
+		 * Gets the handler of the publish events of the message.
+		 * @return the handler of the operation which published the message
+		 */
+		JCSMPStreamingPublishCorrelatingEventHandler getPublishEventHandler();
+	}
+	
+	/**
+	 * Initialises a new instance of the class.
+	 */
+	private SessionPool()
+	{
+	}
+	
+	/**
+	 * Gets the pool instance.
+	 * @return
+	 */
+	public static SessionPool getInstance()
+	{
+		return instance;
+	}
+	
+	/**
+	 * Sets the time in milliseconds an unused session stays connected.
+	 * @param idleTimeout
+	 */
+	public synchronized void setIdleTimeout(long idleTimeout)
+	{
+		this.idleTimeout = idleTimeout;
+	}
+	
+	/**
+	 * Acquires a connected session for a VPN, creating it if needed. The socket buffer sizes apply only 
+	 * when a new session is created.
+	 * @param vpn the VPN
+	 * @param sendBuffer the socket send buffer size
+	 * @param receiveBuffer the socket receive buffer size
+	 * @return the session
+	 * @throws JCSMPException
+	 */
+	public synchronized JCSMPSession acquire(VPN vpn, int sendBuffer, int receiveBuffer) throws JCSMPException
+	{
+		closeIdle();
+		
+		PooledSession pooled = sessions.get(vpn);
+		if (pooled != null && pooled.down)
+		{
+			logger.info("Replacing disconnected session for VPN: {}", vpn.getName());
+			sessions.remove(vpn);
+			close(pooled);
+			pooled = null;
+		}
+		
+		if (pooled == null)
+		{
+			// The key is a copy, so later changes to the caller's VPN do not affect the map.
+			VPN key = new VPN(vpn.getUrl(), vpn.getName(), vpn.getUsername(), vpn.getPassword());
+			pooled = new PooledSession(key);
+			pooled.session = SimpleQueueCopy.createSession(vpn, sendBuffer, receiveBuffer, pooled);
+			sessions.put(key, pooled);
+			logger.info("Connected pooled session for VPN: {}", vpn.getName());
+		}
+		else
+		{
+			logger.debug("Reusing pooled session for VPN: {}", vpn.getName());
+		}
+		
+		pooled.references++;
+		pooled.lastUsed = System.currentTimeMillis();
+		return pooled.session;
+	}
+	
+	/**
+	 * Releases a session acquired from the pool. Flows and producers must be closed by the caller.
+	 * @param session the session
+	 */
+	public synchronized void release(JCSMPSession session)
+	{
+		if (session == null)
+			return;
+		
+		PooledSession pooled = find(session);
+		if (pooled != null)
+		{
+			pooled.references = Math.max(0, pooled.references - 1);
+			pooled.lastUsed = System.currentTimeMillis();
+			return;
+		}
+		
+		// Not pooled anymore, e.g. after close().
+		session.closeSession();
+	}
+	
+	/**
+	 * Acquires the shared producer of a pooled session, creating it if needed. The producer flow properties apply 
+	 * only when a new producer is created. Messages published on it must carry a CorrelationKey.
+	 * @param session the pooled session
+	 * @param properties the producer flow properties
+	 * @return the producer
+	 * @throws JCSMPException
+	 */
+	public synchronized XMLMessageProducer acquireProducer(JCSMPSession session, ProducerFlowProperties properties) throws JCSMPException
+	{
+		PooledSession pooled = find(session);
+		if (pooled == null)
+			throw new IllegalStateException("The session is not pooled.");
+		
+		if (pooled.producer != null && pooled.producer.isClosed())
+		{
+			logger.info("Replacing closed producer for VPN: {}", pooled.vpn.getName());
+			pooled.producer = null;
+		}
+		
+		if (pooled.producer == null)
+			pooled.producer = session.createProducer(properties, pooled, pooled);
+		
+		pooled.producerReferences++;
+		return pooled.producer;
+	}
+	
+	/**
+	 * Releases a shared producer. The producer is closed when no operation uses it anymore.
+	 * @param session the pooled session of the producer
+	 */
+	public synchronized void releaseProducer(JCSMPSession session)
+	{
+		PooledSession pooled = find(session);
+		if (pooled == null || pooled.producer == null)
+			return;
+		
+		pooled.producerReferences = Math.max(0, pooled.producerReferences - 1);
+		if (pooled.producerReferences == 0)
+		{
+			pooled.producer.close();
+			pooled.producer = null;
+		}
+	}
+	
+	/**
+	 * Closes the unused sessions which exceeded the idle timeout.
+	 */
+	public synchronized void closeIdle()
+	{
+		long now = System.currentTimeMillis();
+		Iterator<PooledSession> it = sessions.values().iterator();
+		while (it.hasNext())
+		{
+			PooledSession pooled = it.next();
+			if (pooled.references == 0 && now - pooled.lastUsed >= idleTimeout)
+			{
+				it.remove();
+				close(pooled);
+			}
+		}
+	}
+	
+	/**
+	 * Closes all the sessions.
+	 */
+	public synchronized void close()
+	{
+		for (PooledSession pooled : sessions.values())
+			close(pooled);
+		
+		sessions.clear();
+	}
+	
+	/**
+	 * Gets the number of pooled sessions.
+	 * @return
+	 */
+	public synchronized int size()
+	{
+		return sessions.size();
+	}
+	
+	private PooledSession find(JCSMPSession session)
+	{
+		for (PooledSession pooled : sessions.values())
+		{
+			if (pooled.session == session)
+				return pooled;
+		}
+		
+		return null;
+	}
+	
+	private void close(PooledSession pooled)
+	{
+		if (pooled.references > 0)
+			logger.warn("Closing session for VPN {} which is still in use.", pooled.vpn.getName());
+		
+		if (pooled.producer != null)
+			pooled.producer.close();
+		pooled.session.closeSession();
+		logger.info("Closed pooled session for VPN: {}", pooled.vpn.getName());
+	}
+	
+	/**
+	 * Pooled session with its usage and connection state. Routes the publish events of its shared producer.
+	 */
+	private static class PooledSession implements SessionEventHandler, JCSMPProducerEventHandler, JCSMPStreamingPublishCorrelatingEventHandler
+	{
+		private final VPN vpn;
+		private JCSMPSession session;
+		private XMLMessageProducer producer;
+		private int producerReferences = 0;
+		private int references = 0;
+		private long lastUsed;
+		private volatile boolean down = false;
+		
+		private PooledSession(VPN vpn)
+		{
+			this.vpn = vpn;
+		}
+		
+		@Override
+		public void handleEvent(SessionEventArgs event)
+		{
+			logger.info("Session event for VPN {}: {}", vpn.getName(), event.getInfo());
+			if (event.getEvent() == SessionEvent.DOWN_ERROR)
+				down = true;
+		}
+		
+		@Override
+		public void handleEvent(ProducerEventArgs args)
+		{
+			logger.info("Producer event for VPN {}: {}", vpn.getName(), args.getInfo());
+		}
+		
+		@Override
+		public void responseReceivedEx(Object key)
+		{
+			if (key instanceof CorrelationKey)
+				((CorrelationKey) key).getPublishEventHandler().responseReceivedEx(key);
+		}
+		
+		@Override
+		public void handleErrorEx(Object key, JCSMPException ex, long timestamp)
+		{
+			if (key instanceof CorrelationKey)
+				((CorrelationKey) key).getPublishEventHandler().handleErrorEx(key, ex, timestamp);
+			else
+				logger.error("Publish error for VPN {} without correlation: {}", vpn.getName(), ex.getMessage());
+		}
+	}
+}
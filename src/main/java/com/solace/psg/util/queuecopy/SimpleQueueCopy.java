@@ -3,9 +3,23 @@
  */
 package com.solace.psg.util.queuecopy;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.solacesystems.jcsmp.Browser;
+import com.solacesystems.jcsmp.BrowserProperties;
 import com.solacesystems.jcsmp.BytesXMLMessage;
 import com.solacesystems.jcsmp.CapabilityType;
 import com.solacesystems.jcsmp.ConsumerFlowProperties;
@@ -13,16 +27,21 @@ import com.solacesystems.jcsmp.EndpointProperties;
 import com.solacesystems.jcsmp.FlowEventArgs;
 import com.solacesystems.jcsmp.FlowEventHandler;
 import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.InvalidPropertiesException;
 import com.solacesystems.jcsmp.JCSMPChannelProperties;
+import com.solacesystems.jcsmp.JCSMPErrorResponseException;
+import com.solacesystems.jcsmp.JCSMPErrorResponseSubcodeEx;
 import com.solacesystems.jcsmp.JCSMPException;
 import com.solacesystems.jcsmp.JCSMPFactory;
 import com.solacesystems.jcsmp.JCSMPProducerEventHandler;
 import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
 import com.solacesystems.jcsmp.JCSMPSession;
-import com.solacesystems.jcsmp.JCSMPStreamingPublishEventHandler;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
 import com.solacesystems.jcsmp.ProducerEventArgs;
 import com.solacesystems.jcsmp.ProducerFlowProperties;
 import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.ReplicationGroupMessageId;
 import com.solacesystems.jcsmp.SessionEventArgs;
 import com.solacesystems.jcsmp.SessionEventHandler;
 import com.solacesystems.jcsmp.XMLMessageListener;
@@ -31,9 +50,22 @@ import com.solacesystems.jcsmp.XMLMessageProducer;
 /**
  * A small class to copy messages from one queue to another.
  * 
+ * In the default mode each message is received and published one by one. 
+ * In pipelined mode the source flow delivers asynchronously into a bounded hand-off buffer and 
+ * messages are published in batches with sendMultiple.
+ * 
+ * Messages can be filtered by a selector and a sender timestamp range, both evaluated by the broker, and by a 
+ * replication group message ID range. A filtered copy which does not remove messages browses the source queue, 
+ * so the source messages are neither locked nor flagged as redelivered. A move with a message ID range browses 
+ * as well and removes the messages in the range through the browser, so the messages before the range are 
+ * skipped without being left unacknowledged on a consuming flow.
+ * 
+ * In both modes every published message is tracked in an in-flight map keyed by its correlation id. 
+ * A source message is only acknowledged once the target has confirmed the publish. Rejected publishes 
+ * are re-published, and after the retries are exhausted either parked on a park queue or left on the source.
  *
  */
-public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessageListener, FlowEventHandler, JCSMPProducerEventHandler, JCSMPStreamingPublishEventHandler
+public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessageListener, FlowEventHandler, JCSMPProducerEventHandler, JCSMPStreamingPublishCorrelatingEventHandler
 {
 	private static final Logger logger = LogManager.getLogger(SimpleQueueCopy.class);
 	
@@ -47,6 +79,15 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	public static final int DEFAULT_WINDOW_SIZE = 255;
 	public static final int DEFAULT_TRANSPORT_WINDOW_SIZE = 0;
 	public static final int DEFAULT_BATCH_SIZE = 1; // [1..50]
+	public static final int MAX_BATCH_SIZE = 50;
+	public static final int DEFAULT_HANDOFF_BUFFER_SIZE = 1024;
+	public static final int MAX_WINDOW_SIZE = 255;
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	public static final int DEFAULT_MIN_IDLE_TIMEOUT = 500;
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+	
+	// In drain mode the idle timeout is this multiple of the average gap between received messages.
+	private static final int IDLE_GAP_FACTOR = 20;
 	
 	private String sourceQueueName;
 	private String targetQueueName;
@@ -54,6 +95,9 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	private Queue sourceQueue;
 	private Queue targetQueue;
 	
+	private String parkQueueName;
+	private Queue parkQueue;
+	
 	private JCSMPSession sourceSession = null;
 	private JCSMPSession targetSession = null;
 	
@@ -61,34 +105,109 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	private ProducerFlowProperties prodFlowProps;
 	
 	private FlowReceiver sourceReceiver;
+	private Browser sourceBrowser;
 	private XMLMessageProducer targetProducer;
 		
 	private VPN sourceVpn;
 	private VPN targetVpn;
 	
 	private long messageCount = 0;
-	private long messagesCopied = 0;
+	private final AtomicLong messagesCopied = new AtomicLong();
+	private final AtomicLong bytesCopied = new AtomicLong();
+	
+	// Counters updated from the JCSMP callback threads.
+	private final AtomicLong messagesReceived = new AtomicLong();
+	private final AtomicLong messagesFailed = new AtomicLong();
+	private final AtomicLong messagesParked = new AtomicLong();
+	private long messagesPublished = 0;
+	
+	// Published messages waiting for the target confirmation, keyed by correlation id.
+	private final ConcurrentHashMap<Long, InFlightMessage> inFlight = new ConcurrentHashMap<Long, InFlightMessage>();
+	private final AtomicLong correlationSequence = new AtomicLong();
+	
+	// Rejected messages to be re-published or parked by the publishing thread.
+	private final ConcurrentLinkedQueue<InFlightMessage> retryQueue = new ConcurrentLinkedQueue<InFlightMessage>();
 	
-	private int batchSize = DEFAULT_BATCH_SIZE; // Currently copy only 1 by 1 message
+	// Used only to wake up the publisher when nothing is in flight or a retry is queued.
+	private final Object publishMonitor = new Object();
+	
+	private int maxRetries = DEFAULT_MAX_RETRIES;
+	
+	// Optional publish rate limit, can be shared with other copies.
+	private PublishThrottle throttle;
+	
+	// Optional checkpoint file, saved every checkpointInterval confirmed messages.
+	private Path checkpointFile;
+	private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+	private long lastCheckpointCount = 0;
+	
+	// Source messages handled by the target in receive order, the resume point of a checkpoint.
+	private final CopyProgress progress = new CopyProgress();
+	
+	private int batchSize = DEFAULT_BATCH_SIZE;
     private int bufferSize = DEFAULT_BUFFER_SIZE;
     private int sendBuffer;
     private int receiveBuffer;
     private int transportWindowSize = DEFAULT_TRANSPORT_WINDOW_SIZE;
     private int windowSize = DEFAULT_WINDOW_SIZE;
     private int waitTimeout = 60000;
+    private int minIdleTimeout = DEFAULT_MIN_IDLE_TIMEOUT;
+    
+    // Receive timing for the adaptive idle timeout, written only by the receiving thread. 
+    private volatile long lastReceiveTime = 0L;
+    private volatile long averageReceiveGap = 0L;
     
     // Indicates if messages should be flagged as DMQ eligible.  
 	private boolean dmqEligible = false;
 
 	private long ttl = 0L;
+	
+	// Message filters. The selector and the time range are evaluated by the broker.
+	private String selector;
+	private Long fromTime;
+	private Long toTime;
+	private ReplicationGroupMessageId fromMessageId;
+	private ReplicationGroupMessageId toMessageId;
+	
+	// Exclusive start of a resumed copy, the message ID up to which the checkpoint has copied every message.
+	private ReplicationGroupMessageId afterMessageId;
 
     // Indicates when finished or no more queued messages 
-    private boolean stopped = false;
+    private volatile boolean stopped = false;
     
     // if moved messages are acked on the source.
     private boolean move;
+    
+    // Indicates a message past the message ID range was received.
+    private volatile boolean endOfRange = false;
+    
+    // Indicates if the copy stops as soon as the source queue is idle, instead of waiting the full receive timeout.
+    private boolean drain = false;
+    
+    // Indicates if the asynchronous, batched copy engine is used.
+    private boolean pipelined = false;
+    
+    // Indicates if the sessions and the target producer are owned by the caller.
+    private boolean sharedSessions = false;
+    
+    // Hand-off buffer between the source flow listener and the publisher in pipelined mode. The listener never 
+    // blocks, as the dispatcher thread is shared by all flows of the session. Instead, the source flow is stopped 
+    // when the buffer reaches the high water mark and started again by the publisher at the low water mark.
+    private BlockingQueue<BytesXMLMessage> handoffBuffer;
+    private int handoffHighWater;
+    private int handoffLowWater;
+    
+    // Indicates if the source flow is stopped for back pressure, guarded by flowControl.
+    private boolean receivePaused = false;
+    private final Object flowControl = new Object();
 
-	private int status = STATUS_NOT_STARTED;
+	private volatile int status = STATUS_NOT_STARTED;
+	
+	// Completed when the copy process has finished and disconnected.
+	private final CompletableFuture<SimpleQueueCopy> completion = new CompletableFuture<SimpleQueueCopy>();
+	
+	private volatile long startTime = 0L;
+	private volatile long endTime = 0L;
 	
 	/**
 	 * Initialises a new instance of the class.
@@ -121,10 +240,30 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	public void connect() throws JCSMPException
 	{
 		status = STATUS_INITIALIZING;
+		if (sharedSessions)
+			return;
+		
 		connectSource();
 		connectTarget();
 	}
 	
+	/**
+	 * Uses already connected sessions and a target producer owned by the caller instead of connecting. 
+	 * Publish events of the shared pooled producer reach this instance through the correlation keys. Forces pipelined mode, 
+	 * as the source message acknowledgement relies on the publish correlation.
+	 * @param sourceSession the source session
+	 * @param targetSession the target session
+	 * @param targetProducer the target producer
+	 */
+	void setSharedSessions(JCSMPSession sourceSession, JCSMPSession targetSession, XMLMessageProducer targetProducer)
+	{
+		this.sourceSession = sourceSession;
+		this.targetSession = targetSession;
+		this.targetProducer = targetProducer;
+		this.sharedSessions = true;
+		setPipelined(true);
+	}
+	
 	/**
 	 * Gets if the DMQ eligible flag is set for all the messages which need to be copied / moved. 
 	 * @return
@@ -152,6 +291,290 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 		this.ttl = ttl;
 	}
 	
+	/**
+	 * Gets if the pipelined copy engine is used.
+	 * @return true if pipelined.
+	 */
+	public boolean isPipelined()
+	{
+		return pipelined;
+	}
+
+	/**
+	 * Sets the pipelined copy engine. When enabled the source queue is consumed asynchronously, 
+	 * messages are published in batches and source messages are acknowledged on publish confirmation.
+	 * @param pipelined true to enable the pipelined mode.
+	 */
+	public void setPipelined(boolean pipelined)
+	{
+		this.pipelined = pipelined;
+		if (pipelined && batchSize == DEFAULT_BATCH_SIZE)
+			batchSize = MAX_BATCH_SIZE;
+	}
+	
+	/**
+	 * Sets a JMS-style selector, e.g. "region = 'EU' AND amount > 100", evaluated by the broker.
+	 * @param selector the selector
+	 */
+	public void setSelector(String selector)
+	{
+		this.selector = selector;
+	}
+	
+	/**
+	 * Sets a time range for the messages to be processed. The range is evaluated by the broker against 
+	 * the sender timestamp (JMSTimestamp), so messages without a sender timestamp are excluded.
+	 * @param fromTime the inclusive start in epoch milliseconds, or null
+	 * @param toTime the inclusive end in epoch milliseconds, or null
+	 */
+	public void setTimeRange(Long fromTime, Long toTime)
+	{
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+	}
+	
+	/**
+	 * Sets a replication group message ID range for the messages to be processed. As messages are spooled in 
+	 * ID order, the copy stops at the first message past the end of the range.
+	 * @param fromMessageId the inclusive start, e.g. rmid1:0d77c-b0b2e66aece-00000000-00000001, or null
+	 * @param toMessageId the inclusive end, or null
+	 */
+	public void setMessageIdRange(String fromMessageId, String toMessageId)
+	{
+		this.fromMessageId = parseMessageId(fromMessageId);
+		this.toMessageId = parseMessageId(toMessageId);
+	}
+	
+	/**
+	 * Parses a replication group message ID.
+	 * @param messageId the message ID, or null
+	 * @return the message ID, or null
+	 */
+	static ReplicationGroupMessageId parseMessageId(String messageId)
+	{
+		if (messageId == null)
+			return null;
+		
+		try
+		{
+			return JCSMPFactory.onlyInstance().createReplicationGroupMessageId(messageId.trim());
+		}
+		catch (InvalidPropertiesException e)
+		{
+			throw new IllegalArgumentException("Invalid replication group message ID " + messageId + ".", e);
+		}
+	}
+	
+	/**
+	 * Gets if a message ID range is set.
+	 * @return true if a range is set
+	 */
+	private boolean hasMessageIdRange()
+	{
+		return fromMessageId != null || toMessageId != null || afterMessageId != null;
+	}
+	
+	/**
+	 * Gets if any message filter is set.
+	 * @return true if filtered
+	 */
+	public boolean isFiltered()
+	{
+		return selector != null || fromTime != null || toTime != null || hasMessageIdRange();
+	}
+	
+	/**
+	 * Gets if the source queue is browsed instead of consumed. Used for filtered copies which do not remove messages 
+	 * and for message ID ranges, which the broker cannot filter. A move removes the browsed messages in the range.
+	 * @return true if browsing
+	 */
+	private boolean isBrowsing()
+	{
+		return (!move && isFiltered()) || hasMessageIdRange();
+	}
+	
+	/**
+	 * Builds the broker side selector from a selector and a sender timestamp range.
+	 * @param selector the selector, or null
+	 * @param fromTime the inclusive start in epoch milliseconds, or null
+	 * @param toTime the inclusive end in epoch milliseconds, or null
+	 * @return the combined selector, or null if there is no condition
+	 */
+	public static String buildSelector(String selector, Long fromTime, Long toTime)
+	{
+		StringBuilder sb = new StringBuilder();
+		if (selector != null && !selector.trim().isEmpty())
+			sb.append("(").append(selector.trim()).append(")");
+		if (fromTime != null)
+		{
+			if (sb.length() > 0)
+				sb.append(" AND ");
+			sb.append("JMSTimestamp >= ").append(fromTime);
+		}
+		if (toTime != null)
+		{
+			if (sb.length() > 0)
+				sb.append(" AND ");
+			sb.append("JMSTimestamp <= ").append(toTime);
+		}
+		
+		return sb.length() > 0 ? sb.toString() : null;
+	}
+	
+	/**
+	 * Checks a source message against the message ID range. 
+	 * @param msg the message
+	 * @return 0 if in range, a negative value if before and a positive value if past the range
+	 * @throws JCSMPException if the message ID cannot be compared, e.g. after the queue was restored on another broker
+	 */
+	private int compareToMessageIdRange(BytesXMLMessage msg) throws JCSMPException
+	{
+		if (!hasMessageIdRange())
+			return 0;
+		
+		ReplicationGroupMessageId id = msg.getReplicationGroupMessageId();
+		if (id == null)
+			throw new JCSMPException("Message on source queue " + sourceQueueName + " has no replication group message ID.");
+		
+		if (afterMessageId != null && id.compare(afterMessageId) <= 0)
+			return -1;
+		if (fromMessageId != null && id.compare(fromMessageId) < 0)
+			return -1;
+		if (toMessageId != null && id.compare(toMessageId) > 0)
+			return 1;
+		
+		return 0;
+	}
+	
+	/**
+	 * Gets if drain mode is used.
+	 * @return true if draining
+	 */
+	public boolean isDrain()
+	{
+		return drain;
+	}
+
+	/**
+	 * Sets drain mode. After the first message, the copy finishes when no message arrives within an idle timeout 
+	 * adapted to the observed message rate, instead of the full receive timeout. The message count is typically 
+	 * set to the queue depth read before the copy. 
+	 * @param drain true to drain the queue
+	 */
+	public void setDrain(boolean drain)
+	{
+		this.drain = drain;
+	}
+	
+	/**
+	 * Sets the lower bound of the adaptive idle timeout in drain mode.
+	 * @param minIdleTimeout the timeout in milliseconds
+	 */
+	public void setMinIdleTimeout(int minIdleTimeout)
+	{
+		this.minIdleTimeout = minIdleTimeout;
+	}
+	
+	/**
+	 * Sets the publish window size, the number of messages published without a confirmation.
+	 * @param windowSize the window size [1..255]
+	 */
+	public void setWindowSize(int windowSize)
+	{
+		if (windowSize < 1 || windowSize > MAX_WINDOW_SIZE)
+			throw new IllegalArgumentException("Parameter windowSize must be between 1 and " + MAX_WINDOW_SIZE + ".");
+		
+		this.windowSize = windowSize;
+	}
+	
+	/**
+	 * Sets the number of times a message rejected by the target is re-published before it is parked.
+	 * @param maxRetries the maximum number of retries
+	 */
+	public void setMaxRetries(int maxRetries)
+	{
+		if (maxRetries < 0)
+			throw new IllegalArgumentException("Parameter maxRetries cannot be negative.");
+		
+		this.maxRetries = maxRetries;
+	}
+	
+	/**
+	 * Sets the park queue on the target for messages which could not be published to the target queue. 
+	 * When not set, such messages are left unacknowledged on the source queue.
+	 * @param parkQueueName the park queue name
+	 */
+	public void setParkQueueName(String parkQueueName)
+	{
+		this.parkQueueName = parkQueueName;
+	}
+	
+	/**
+	 * Sets the throttle limiting the publish rate.
+	 * @param throttle the throttle or null for no limit
+	 */
+	public void setThrottle(PublishThrottle throttle)
+	{
+		this.throttle = throttle;
+	}
+	
+	/**
+	 * Sets the checkpoint file which records the progress of the copy.
+	 * @param checkpointFile the checkpoint file or null for no checkpoint
+	 * @param checkpointInterval the number of confirmed messages between checkpoints
+	 */
+	public void setCheckpoint(Path checkpointFile, int checkpointInterval)
+	{
+		if (checkpointInterval < 1)
+			throw new IllegalArgumentException("Parameter checkpointInterval must be greater than 0.");
+		
+		this.checkpointFile = checkpointFile;
+		this.checkpointInterval = checkpointInterval;
+	}
+	
+	/**
+	 * Continues a copy from a checkpoint. The counts are restored, so only the remaining messages are processed. 
+	 * As copied messages are still on the source queue, a copy continues after the last message ID up to which 
+	 * every message was copied. Messages after it which were copied before the interruption are copied again. 
+	 * Moved messages are gone from the source queue, so a move continues with the remaining messages.
+	 * @param checkpoint the checkpoint
+	 */
+	public void resume(CopyCheckpoint checkpoint)
+	{
+		messagesCopied.set(checkpoint.getMessagesCopied());
+		bytesCopied.set(checkpoint.getBytesCopied());
+		messagesPublished = checkpoint.getMessagesCopied();
+		lastCheckpointCount = checkpoint.getMessagesCopied();
+		
+		String last = checkpoint.getLastMessageId();
+		progress.resume(last, checkpoint.getMessagesCopied(), checkpoint.getBytesCopied());
+		if (last != null && !move)
+			afterMessageId = parseMessageId(last);
+		
+		logger.info("Resuming copy of source queue {} after {} messages, last message ID {}.", sourceQueueName, messagesCopied.get(), last);
+	}
+	
+	/**
+	 * Gets the publish batch size.
+	 * @return the batch size
+	 */
+	public int getBatchSize()
+	{
+		return batchSize;
+	}
+
+	/**
+	 * Sets the publish batch size used in pipelined mode.
+	 * @param batchSize the batch size [1..50]
+	 */
+	public void setBatchSize(int batchSize)
+	{
+		if (batchSize < 1 || batchSize > MAX_BATCH_SIZE)
+			throw new IllegalArgumentException("Parameter batchSize must be between 1 and " + MAX_BATCH_SIZE + ".");
+		
+		this.batchSize = batchSize;
+	}
+	
 	/**
 	 * Disconnect.
 	 * @throws JCSMPException 
@@ -170,49 +593,446 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	public void copy() throws InterruptedException, JCSMPException
 	{
 		initFlows();
+		startTime = System.currentTimeMillis();
 		status = STATUS_PROCESSING;
 
 		logger.info("Copy process started for source queue {} and target queue {}", sourceQueueName, targetQueueName);
-		sourceReceiver.start();
+		if (sourceReceiver != null)
+			sourceReceiver.start();
 	
-		while ((messagesCopied < messageCount) && !stopped)
+		if (pipelined && !isBrowsing())
+		{
+			copyPipelined();
+		}
+		else
 		{
-			logger.debug("Messages copied for queue {}, count : {}", sourceQueueName, messagesCopied);
-			copyMessage();
-		}	
+			while ((messagesPublished < messageCount) && !stopped)
+			{
+				logger.debug("Messages copied for queue {}, count : {}", sourceQueueName, messagesCopied);
+				publishRetries();
+				copyMessage();
+				checkpoint();
+			}	
+			
+			awaitPublishAcks();
+		}
 		
+		if (messagesFailed.get() > 0)
+			logger.error("{} messages could not be published to target queue {} and were left on source queue {}.", messagesFailed.get(), targetQueueName, sourceQueueName);
+		if (messagesParked.get() > 0)
+			logger.warn("{} messages could not be published to target queue {} and were parked on queue {}.", messagesParked.get(), targetQueueName, parkQueueName);
+		
+		endTime = System.currentTimeMillis();
 		status = STATUS_COMPLETED;
-		sourceReceiver.stop();
+		if (sourceReceiver != null)
+			sourceReceiver.stop();
+		if (sourceBrowser != null)
+			sourceBrowser.close();
 		logger.info("Copy process finished for source queue {} and target queue {}. total messages copied: {}", sourceQueueName, targetQueueName, messagesCopied);
 	}
 	
 	/**
-	 * Copying a single message.
-	 * @throws JCSMPException 
+	 * Publishes the messages handed over by the source flow listener in batches and waits 
+	 * for the outstanding publish acknowledgements.
+	 * @throws JCSMPException
+	 * @throws InterruptedException
 	 */
-	private void copyMessage() throws JCSMPException
+	private void copyPipelined() throws JCSMPException, InterruptedException
 	{
-		BytesXMLMessage msg = sourceReceiver.receive(waitTimeout);
-		if (msg == null)
+		JCSMPSendMultipleEntry[] entries = new JCSMPSendMultipleEntry[batchSize];
+		for (int i = 0; i < batchSize; i++)
+			entries[i] = JCSMPFactory.onlyInstance().createSendMultipleEntry(null, targetQueue);
+		
+		List<BytesXMLMessage> batch = new ArrayList<BytesXMLMessage>(batchSize);
+		
+		while ((messagesPublished < messageCount) && !stopped)
+		{
+			BytesXMLMessage msg = pollHandoffBuffer();
+			if (msg == null)
+			{
+				stopReceiving();
+				break;
+			}
+			
+			batch.add(msg);
+			handoffBuffer.drainTo(batch, (int) Math.min(batchSize - 1, messageCount - messagesPublished - 1));
+			resumeReceiving();
+			
+			int size = batch.size();
+			if (throttle != null)
+			{
+				long bytes = 0L;
+				for (int i = 0; i < size; i++)
+					bytes += getMessageSize(batch.get(i));
+				throttle(size, bytes);
+			}
+			
+			for (int i = 0; i < size; i++)
+				entries[i].setMessage(createTargetMessage(track(batch.get(i))));
+			
+			int sent = targetProducer.sendMultiple(entries, 0, size, 0);
+			if (sent < size)
+			{
+				// Entries which were not accepted will never be confirmed and are left unacknowledged on the source.
+				for (int i = sent; i < size; i++)
+					complete((InFlightMessage) entries[i].getMessage().getCorrelationKey(), false);
+				logger.error("Only {} of {} messages were published to target queue {}.", sent, size, targetQueueName);
+			}
+			
+			messagesPublished += size;
+			batch.clear();
+			checkpoint();
+			logger.debug("Messages published for queue {}, count : {}", targetQueueName, messagesPublished);
+		}
+		
+		awaitPublishAcks();
+	}
+	
+	/**
+	 * Stops the copy when no more messages are received from the source queue.
+	 */
+	private void stopReceiving()
+	{
+		stopped = true;
+		if (endOfRange)
+		{
+			logger.info("Reached the end of the message ID range on source queue {}.", sourceQueueName);
+		}
+		else if (drain && messagesReceived.get() > 0)
+		{
+			logger.info("Source queue {} drained after {} messages.", sourceQueueName, messagesReceived.get());
+		}
+		else
 		{
-			stopped = true;
 			System.out.println("Received no message for source queue within default receive timeout. Check messageCount.");
 			logger.error("Received no message for source queue {}. Stopping the copy process.", sourceQueueName);
-			//messagesCopied -= 1;
+		}
+	}
+	
+	/**
+	 * Records the arrival of a source message for the adaptive idle timeout.
+	 */
+	private void recordReceive()
+	{
+		long now = System.currentTimeMillis();
+		if (lastReceiveTime > 0L)
+		{
+			long gap = now - lastReceiveTime;
+			averageReceiveGap = averageReceiveGap == 0L ? gap : (averageReceiveGap * 7 + gap) / 8;
+		}
+		lastReceiveTime = now;
+	}
+	
+	/**
+	 * Gets the receive timeout. In drain mode, once messages have been received, it is derived from the 
+	 * average gap between messages, bounded by the minimum idle timeout and the wait timeout.
+	 * @return the timeout in milliseconds
+	 */
+	private int getReceiveTimeout()
+	{
+		if (!drain || lastReceiveTime == 0L)
+			return waitTimeout;
+		
+		long idleTimeout = Math.max(minIdleTimeout, averageReceiveGap * IDLE_GAP_FACTOR);
+		return (int) Math.min(waitTimeout, idleTimeout);
+	}
+	
+	/**
+	 * Takes the next message from the hand-off buffer, re-publishing rejected messages while waiting.
+	 * @return the message or null if none was received within the wait timeout
+	 * @throws InterruptedException
+	 * @throws JCSMPException
+	 */
+	private BytesXMLMessage pollHandoffBuffer() throws InterruptedException, JCSMPException
+	{
+		long deadline = System.currentTimeMillis() + getReceiveTimeout();
+		BytesXMLMessage msg = null;
+		while (msg == null)
+		{
+			publishRetries();
+			
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0 || (endOfRange && handoffBuffer.isEmpty()))
+				break;
+			
+			msg = handoffBuffer.poll(Math.min(remaining, 100L), TimeUnit.MILLISECONDS);
+		}
+		
+		return msg;
+	}
+	
+	/**
+	 * Waits until all published messages have been confirmed by the target, parked or given up, 
+	 * re-publishing rejected messages in the meantime.
+	 * @throws InterruptedException
+	 * @throws JCSMPException
+	 */
+	private void awaitPublishAcks() throws InterruptedException, JCSMPException
+	{
+		long deadline = System.currentTimeMillis() + waitTimeout;
+		while (!inFlight.isEmpty())
+		{
+			if (publishRetries())
+				deadline = System.currentTimeMillis() + waitTimeout;
+			
+			checkpoint();
+			
+			long remaining = deadline - System.currentTimeMillis();
+			if (remaining <= 0)
+			{
+				logger.error("Timed out waiting for {} publish acknowledgements from target queue {}.", inFlight.size(), targetQueueName);
+				break;
+			}
+			
+			synchronized (publishMonitor)
+			{
+				if (!inFlight.isEmpty() && retryQueue.isEmpty())
+					publishMonitor.wait(Math.min(remaining, 100L));
+			}
+		}
+	}
+	
+	/**
+	 * Re-publishes the messages rejected by the target, either to the target queue or to the park queue.
+	 * @return true if any message was re-published
+	 * @throws JCSMPException
+	 */
+	private boolean publishRetries() throws JCSMPException, InterruptedException
+	{
+		boolean result = false;
+		InFlightMessage entry;
+		while ((entry = retryQueue.poll()) != null)
+		{
+			throttle(1, getMessageSize(entry.getSourceMessage()));
+			entry.incrementAttempts();
+			BytesXMLMessage tMsg = createTargetMessage(entry);
+			
+			try
+			{
+				targetProducer.send(tMsg, entry.isParked() ? parkQueue : targetQueue);
+				result = true;
+			}
+			catch (JCSMPException e)
+			{
+				logger.error("Error re-publishing message {}: {}", entry, e.getMessage());
+				complete(entry, false);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Waits for the throttle before publishing. A full publish window is reported to the throttle as back-off.
+	 * @param messages the number of messages to publish
+	 * @param bytes the size of the messages
+	 * @throws InterruptedException
+	 */
+	private void throttle(int messages, long bytes) throws InterruptedException
+	{
+		if (throttle == null)
 			return;
+		
+		if (inFlight.size() >= windowSize)
+			throttle.backOff();
+		
+		throttle.acquire(messages, bytes);
+	}
+	
+	/**
+	 * Saves a checkpoint when the checkpoint interval has been reached.
+	 */
+	private void checkpoint()
+	{
+		if (checkpointFile != null && messagesCopied.get() - lastCheckpointCount >= checkpointInterval)
+			saveCheckpoint(false);
+	}
+	
+	/**
+	 * Saves the progress and settings of the copy to the checkpoint file. Failures are logged, the copy continues.
+	 * @param completed true if the copy finished
+	 */
+	private void saveCheckpoint(boolean completed)
+	{
+		// A copy resumes after the last message ID, so only the messages up to it are counted. 
+		// The messages a move confirmed are all gone from the source queue.
+		long confirmed = messagesCopied.get();
+		long copied = move ? confirmed : progress.getMessagesCopied();
+		long bytes = move ? bytesCopied.get() : progress.getBytesCopied();
+		String last = progress.getLastMessageId();
+		
+		CopyCheckpoint checkpoint = new CopyCheckpoint(sourceVpn.getName(), targetVpn.getName(), sourceQueueName, targetQueueName, move, messageCount);
+		checkpoint.setFilters(selector, fromTime, toTime, toString(fromMessageId), toString(toMessageId));
+		checkpoint.setMessageSettings(dmqEligible, ttl);
+		checkpoint.setProgress(copied, bytes, last, completed);
+		
+		try
+		{
+			checkpoint.save(checkpointFile);
+			lastCheckpointCount = confirmed;
+			logger.debug("Saved checkpoint for source queue {}: {} messages, last message ID {}.", sourceQueueName, copied, last);
+		}
+		catch (IOException e)
+		{
+			logger.error("Error saving checkpoint file {}: {}", checkpointFile, e.getMessage());
+		}
+	}
+	
+	private static String toString(ReplicationGroupMessageId messageId)
+	{
+		return messageId != null ? messageId.toString() : null;
+	}
+	
+	/**
+	 * Removes a confirmed message from the source queue, through the browser when the source queue is browsed.
+	 * @param msg the source message
+	 */
+	private void removeFromSource(BytesXMLMessage msg)
+	{
+		if (sourceBrowser == null)
+		{
+			msg.ackMessage();
+			return;
+		}
+		
+		try
+		{
+			sourceBrowser.remove(msg);
+		}
+		catch (JCSMPException e)
+		{
+			logger.error("Error removing message {} from source queue {}: {}", msg.getReplicationGroupMessageId(), sourceQueueName, e.getMessage());
+		}
+	}
+	
+	/**
+	 * Registers a source message as in flight. Messages are tracked in the order they were received, 
+	 * so the correlation id is also the receive sequence of the progress.
+	 * @param msg the source message
+	 * @return the correlation entry
+	 */
+	private InFlightMessage track(BytesXMLMessage msg)
+	{
+		InFlightMessage entry = new InFlightMessage(this, msg, correlationSequence.incrementAndGet());
+		progress.add(entry.getId(), toString(msg.getReplicationGroupMessageId()), getMessageSize(msg));
+		inFlight.put(entry.getId(), entry);
+		return entry;
+	}
+	
+	/**
+	 * Removes a message from the in-flight map and records the outcome. 
+	 * Confirmed messages are acknowledged on the source in move mode, failed ones stay on the source.
+	 * @param entry the correlation entry
+	 * @param confirmed true if the target confirmed the message
+	 */
+	private void complete(InFlightMessage entry, boolean confirmed)
+	{
+		// Removal guards against duplicate or late events for the same message.
+		if (inFlight.remove(entry.getId()) == null)
+			return;
+		
+		BytesXMLMessage msg = entry.getSourceMessage();
+		if (confirmed)
+		{
+			if (move)
+				removeFromSource(msg);
+			
+			if (entry.isParked())
+			{
+				messagesParked.incrementAndGet();
+			}
+			else
+			{
+				messagesCopied.incrementAndGet();
+				bytesCopied.addAndGet(getMessageSize(msg));
+			}
+		}
+		else
+		{
+			messagesFailed.incrementAndGet();
 		}
+		progress.complete(entry.getId(), confirmed, entry.isParked());
 		
-		BytesXMLMessage tMsg = JCSMPFactory.onlyInstance().createMessage(msg);
+		if (inFlight.isEmpty())
+			signalPublisher();
+	}
+	
+	/**
+	 * Wakes up the publisher waiting for outstanding confirmations.
+	 */
+	private void signalPublisher()
+	{
+		synchronized (publishMonitor)
+		{
+			publishMonitor.notifyAll();
+		}
+	}
+	
+	/**
+	 * Creates a target message copy from a source message and applies the copy settings.
+	 * @param entry the correlation entry of the source message
+	 * @return the target message
+	 */
+	private BytesXMLMessage createTargetMessage(InFlightMessage entry)
+	{
+		BytesXMLMessage tMsg = JCSMPFactory.onlyInstance().createMessage(entry.getSourceMessage());
 		
 		if (dmqEligible)
 			tMsg.setDMQEligible(dmqEligible);
 		if (ttl > 0L)
 			tMsg.setTimeToLive(ttl);
 		
-		targetProducer.send(tMsg, targetQueue);
-		if (move)
-			msg.ackMessage();
-		messagesCopied += 1;
+		// The correlation key carries the source message, so it can be acknowledged when the publish is confirmed.
+		tMsg.setCorrelationKey(entry);
+		
+		return tMsg;
+	}
+	
+	/**
+	 * Copying a single message.
+	 * @throws JCSMPException 
+	 * @throws InterruptedException 
+	 */
+	private void copyMessage() throws JCSMPException, InterruptedException
+	{
+		BytesXMLMessage msg = sourceBrowser != null ? sourceBrowser.getNext(getReceiveTimeout()) : sourceReceiver.receive(getReceiveTimeout());
+		if (msg == null)
+		{
+			stopReceiving();
+			return;
+		}
+		
+		int range = compareToMessageIdRange(msg);
+		if (range > 0)
+		{
+			endOfRange = true;
+			stopReceiving();
+			return;
+		}
+		else if (range < 0)
+		{
+			// Only browsed messages are compared, the skipped ones stay on the source queue untouched.
+			return;
+		}
+		
+		messagesReceived.incrementAndGet();
+		recordReceive();
+		throttle(1, getMessageSize(msg));
+		
+		InFlightMessage entry = track(msg);
+		BytesXMLMessage tMsg = createTargetMessage(entry);
+		
+		try
+		{
+			targetProducer.send(tMsg, targetQueue);
+		}
+		catch (JCSMPException e)
+		{
+			complete(entry, false);
+			throw e;
+		}
+		
+		messagesPublished += 1;
 	}
 
 	/**
@@ -230,6 +1050,8 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
        
         sourceQueue = JCSMPFactory.onlyInstance().createQueue(sourceQueueName);
         targetQueue = JCSMPFactory.onlyInstance().createQueue(targetQueueName);
+        if (parkQueueName != null)
+        	parkQueue = JCSMPFactory.onlyInstance().createQueue(parkQueueName);
         
         consFlowProps.setEndpoint(sourceQueue);
         consFlowProps.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
@@ -245,8 +1067,38 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
         prodFlowProps.setAckEventMode(JCSMPProperties.SUPPORTED_ACK_EVENT_MODE_WINDOWED);
         prodFlowProps.setRtrWindowedAck(true);
         
-        targetProducer = targetSession.getMessageProducer(this);
-        sourceReceiver = sourceSession.createFlow(null, consFlowProps, consEndpointProps, this);   
+        // Publish events reach this instance through the InFlightMessage correlation keys.
+        if (!sharedSessions)
+        	targetProducer = SessionPool.getInstance().acquireProducer(targetSession, prodFlowProps);
+        
+        String effectiveSelector = buildSelector(selector, fromTime, toTime);
+        if (effectiveSelector != null)
+        	logger.info("Using selector for source queue {}: {}", sourceQueueName, effectiveSelector);
+        
+        if (isBrowsing())
+        {
+        	BrowserProperties browserProps = new BrowserProperties();
+        	browserProps.setEndpoint(sourceQueue);
+        	browserProps.setSelector(effectiveSelector);
+        	browserProps.setWaitTimeout(waitTimeout);
+        	sourceBrowser = sourceSession.createBrowser(browserProps, this);
+        	return;
+        }
+        
+        consFlowProps.setSelector(effectiveSelector);
+        
+        if (pipelined)
+        {
+        	// Not bounded, as messages already on their way are still delivered after the flow was stopped.
+        	handoffBuffer = new LinkedBlockingQueue<BytesXMLMessage>();
+        	handoffHighWater = Math.max(DEFAULT_HANDOFF_BUFFER_SIZE, windowSize);
+        	handoffLowWater = handoffHighWater / 2;
+        	sourceReceiver = sourceSession.createFlow(this, consFlowProps, consEndpointProps, this);
+        }
+        else
+        {
+        	sourceReceiver = sourceSession.createFlow(null, consFlowProps, consEndpointProps, this);
+        }
 	}
 
 	/**
@@ -258,6 +1110,29 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 		return status;
 	}
 
+	/**
+	 * Gets the completion of the copy process started with run(). The future completes with this instance 
+	 * as soon as the process has finished, or exceptionally with the error which stopped it.
+	 * @return the completion future
+	 */
+	public CompletableFuture<SimpleQueueCopy> getCompletion()
+	{
+		return completion;
+	}
+	
+	/**
+	 * Gets the elapsed processing time in milliseconds, up to now while the copy is in progress.
+	 * @return
+	 */
+	public long getElapsedMillis()
+	{
+		if (startTime == 0L)
+			return 0L;
+		
+		long end = endTime == 0L ? System.currentTimeMillis() : endTime;
+		return end - startTime;
+	}
+	
 	/**
 	 * Gets processing status as text.
 	 * @return
@@ -277,7 +1152,7 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 				result = "Copying initializing.";
 				break;		
 			case STATUS_PROCESSING:
-				result = "Copying initializing.";
+				result = "Copying in progress.";
 				break;		
 		}
 
@@ -290,12 +1165,58 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	 */
 	public long getMessagesCopied()
 	{
-		return messagesCopied;
+		return messagesCopied.get();
+	}
+	
+	/**
+	 * Gets the number of messages parked on the park queue.
+	 * @return
+	 */
+	public long getMessagesParked()
+	{
+		return messagesParked.get();
+	}
+	
+	/**
+	 * Gets the number of messages which could not be published and were left on the source queue.
+	 * @return
+	 */
+	public long getMessagesFailed()
+	{
+		return messagesFailed.get();
+	}
+	
+	/**
+	 * Gets the payload bytes copied, including attachment and XML content.
+	 * @return
+	 */
+	public long getBytesCopied()
+	{
+		return bytesCopied.get();
+	}
+	
+	/**
+	 * Gets the source queue name.
+	 * @return
+	 */
+	public String getSourceQueueName()
+	{
+		return sourceQueueName;
+	}
+	
+	/**
+	 * Gets the target queue name.
+	 * @return
+	 */
+	public String getTargetQueueName()
+	{
+		return targetQueueName;
 	}
 	
 	@Override
 	public void run()
 	{
+		Exception error = null;
 		try
 		{
 			connect();
@@ -303,34 +1224,47 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 		}
 		catch (InterruptedException e)
 		{
+			error = e;
 			status = STATUS_ERRORED;
 			System.out.println("Thread error while copying messages: " + e.getMessage());
 			logger.error("Thread error while copying messages: {}", e.getMessage());
 		}
 		catch (JCSMPException e)
 		{
+			error = e;
 			status = STATUS_ERRORED;
 			System.out.println("Error while connecting to service: " + e.getMessage());
 			logger.error("Error while connecting to service: {}", e.getMessage());
 		}
 		catch (Exception e)
 		{
+			error = e;
 			status = STATUS_ERRORED;
 			System.out.println("Unhandled error while running the copy process: " + e.getMessage());
 			logger.error("Unhandled error while running the copy process: {}", e.getMessage());
 		}
 		finally
 		{
+			if (checkpointFile != null)
+				saveCheckpoint(status == STATUS_COMPLETED);
+			
 			try
 			{
 				disconnect();
 			}
 			catch (JCSMPException e)
 			{
+				if (error == null)
+					error = e;
 				status = STATUS_ERRORED;
 				System.out.println("Error while disconnecting from service: " + e.getMessage());
 				logger.error("Error while disconnecting from service: {}", e.getMessage());
 			}
+			
+			if (error == null)
+				completion.complete(this);
+			else
+				completion.completeExceptionally(error);
 		}
 	}
 	
@@ -342,36 +1276,7 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	{
 		logger.info( "Connecting to source VPN: {}",  sourceVpn.getName());	
 
-		JCSMPProperties properties = new JCSMPProperties();
-		
-		String host = sourceVpn.getUrl();
-		if (host.toLowerCase().startsWith("tcps:"))	
-		{
-			// If true then use the Trusted store properties.
-			properties.setProperty(JCSMPProperties.SSL_VALIDATE_CERTIFICATE, false);
-		}
-			
-		properties.setProperty(JCSMPProperties.HOST, host); 
-		properties.setProperty(JCSMPProperties.VPN_NAME, sourceVpn.getName());
-		properties.setProperty(JCSMPProperties.USERNAME, sourceVpn.getUsername());
-		properties.setProperty(JCSMPProperties.PASSWORD, sourceVpn.getPassword());
-		properties.setBooleanProperty(JCSMPProperties.REAPPLY_SUBSCRIPTIONS, true);
-		properties.setProperty(JCSMPProperties.CLIENT_NAME, "CL_CLI_" + sourceVpn.getUsername() + "_" + properties.hashCode());		
-		
-        JCSMPChannelProperties cp = (JCSMPChannelProperties) properties.getProperty(JCSMPProperties.CLIENT_CHANNEL_PROPERTIES);
-        
-        cp.setConnectRetries(sourceVpn.getConnectRetries());
-        cp.setReconnectRetries(sourceVpn.getReconnectRetries());
-        cp.setConnectTimeoutInMillis(sourceVpn.getConnectTimeoutInMillis());
-        cp.setReconnectRetryWaitInMillis(sourceVpn.getReconnectRetryWaitInMillis());
-        cp.setConnectRetriesPerHost(sourceVpn.getConnectRetriesPerHost());
-        cp.setKeepAliveIntervalInMillis(sourceVpn.getKeepAliveIntervalInMillis());
-        
-        cp.setSendBuffer(sendBuffer);
-        cp.setReceiveBuffer(receiveBuffer);
-        
-        sourceSession = JCSMPFactory.onlyInstance().createSession(properties, null, this);
-        sourceSession.connect();
+        sourceSession = SessionPool.getInstance().acquire(sourceVpn, sendBuffer, receiveBuffer);
 
         logger.info( "Connected to source VPN: {}",  sourceVpn.getName());	
         
@@ -388,38 +1293,54 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	{
 		logger.info("Connecting to target VPN: {}",  targetVpn.getName());	
 
+        targetSession = SessionPool.getInstance().acquire(targetVpn, sendBuffer, receiveBuffer);
+        
+		logger.info( "Connected to target VPN: {}",  targetVpn.getName());	
+	}
+	
+	/**
+	 * Creates and connects a session to a VPN.
+	 * @param vpn the VPN
+	 * @param sendBuffer the socket send buffer size
+	 * @param receiveBuffer the socket receive buffer size
+	 * @param handler the session event handler
+	 * @return the connected session
+	 * @throws JCSMPException
+	 */
+	static JCSMPSession createSession(VPN vpn, int sendBuffer, int receiveBuffer, SessionEventHandler handler) throws JCSMPException
+	{
 		JCSMPProperties properties = new JCSMPProperties();
-			
-		properties.setProperty(JCSMPProperties.HOST, targetVpn.getUrl()); 
-		properties.setProperty(JCSMPProperties.VPN_NAME, targetVpn.getName());
-		properties.setProperty(JCSMPProperties.USERNAME, targetVpn.getUsername());
-		properties.setProperty(JCSMPProperties.PASSWORD, targetVpn.getPassword());
-		properties.setBooleanProperty(JCSMPProperties.REAPPLY_SUBSCRIPTIONS, true);
-		properties.setProperty(JCSMPProperties.CLIENT_NAME, "CL_CLI_" + targetVpn.getUsername() + "_" + properties.hashCode());
-				
-		String host = targetVpn.getUrl();
+		
+		String host = vpn.getUrl();
 		if (host.toLowerCase().startsWith("tcps:"))	
 		{
 			// If true then use the Trusted store properties.
 			properties.setProperty(JCSMPProperties.SSL_VALIDATE_CERTIFICATE, false);
 		}
-
-		JCSMPChannelProperties cp = (JCSMPChannelProperties) properties.getProperty(JCSMPProperties.CLIENT_CHANNEL_PROPERTIES);
+			
+		properties.setProperty(JCSMPProperties.HOST, host); 
+		properties.setProperty(JCSMPProperties.VPN_NAME, vpn.getName());
+		properties.setProperty(JCSMPProperties.USERNAME, vpn.getUsername());
+		properties.setProperty(JCSMPProperties.PASSWORD, vpn.getPassword());
+		properties.setBooleanProperty(JCSMPProperties.REAPPLY_SUBSCRIPTIONS, true);
+		properties.setProperty(JCSMPProperties.CLIENT_NAME, "CL_CLI_" + vpn.getUsername() + "_" + properties.hashCode());		
+		
+        JCSMPChannelProperties cp = (JCSMPChannelProperties) properties.getProperty(JCSMPProperties.CLIENT_CHANNEL_PROPERTIES);
+        
+        cp.setConnectRetries(vpn.getConnectRetries());
+        cp.setReconnectRetries(vpn.getReconnectRetries());
+        cp.setConnectTimeoutInMillis(vpn.getConnectTimeoutInMillis());
+        cp.setReconnectRetryWaitInMillis(vpn.getReconnectRetryWaitInMillis());
+        cp.setConnectRetriesPerHost(vpn.getConnectRetriesPerHost());
+        cp.setKeepAliveIntervalInMillis(vpn.getKeepAliveIntervalInMillis());
         
-        cp.setConnectRetries(targetVpn.getConnectRetries());
-        cp.setReconnectRetries(targetVpn.getReconnectRetries());
-        cp.setConnectTimeoutInMillis(targetVpn.getConnectTimeoutInMillis());
-        cp.setReconnectRetryWaitInMillis(targetVpn.getReconnectRetryWaitInMillis());
-        cp.setConnectRetriesPerHost(targetVpn.getConnectRetriesPerHost());
-        cp.setKeepAliveIntervalInMillis(targetVpn.getKeepAliveIntervalInMillis());
-
         cp.setSendBuffer(sendBuffer);
         cp.setReceiveBuffer(receiveBuffer);
-
-        targetSession = JCSMPFactory.onlyInstance().createSession(properties, null, this);
-        targetSession.connect();
         
-		logger.info( "Connected to target VPN: {}",  targetVpn.getName());	
+        JCSMPSession session = JCSMPFactory.onlyInstance().createSession(properties, null, handler);
+        session.connect();
+        
+        return session;
 	}
 	
 	/**
@@ -427,10 +1348,25 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	 */
 	public void disconnectSource()
 	{
+		if (sharedSessions)
+		{
+			// Shared sessions are closed by their owner, only the flow is released here.
+			if (sourceReceiver != null)
+				sourceReceiver.close();
+			if (sourceBrowser != null)
+				sourceBrowser.close();
+			return;
+		}
+		
 		logger.info( "Disconnecting from VPN source: {}",  sourceVpn.getName());				
 
-		if (sourceSession != null)
-			sourceSession.closeSession();
+		// The session goes back to the pool, so the flows opened on it are closed here.
+		if (sourceReceiver != null)
+			sourceReceiver.close();
+		if (sourceBrowser != null)
+			sourceBrowser.close();
+		SessionPool.getInstance().release(sourceSession);
+		sourceSession = null;
 		
 		logger.info( "Disconnected from VPN source: {}",  sourceVpn.getName());				
 	}
@@ -440,10 +1376,16 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	 */
 	public void disconnectTarget()
 	{
+		if (sharedSessions)
+			return;
+		
 		logger.info( "Disconnecting from VPN target: {}",  targetVpn.getName());				
 
-		if (targetSession != null)
-			targetSession.closeSession();
+		if (targetProducer != null)
+			SessionPool.getInstance().releaseProducer(targetSession);
+		targetProducer = null;
+		SessionPool.getInstance().release(targetSession);
+		targetSession = null;
 		
 		logger.info( "Disconnected from VPN target: {}",  targetVpn.getName());				
 	}	
@@ -455,21 +1397,73 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	}
 
 	/**
-	 * Implements JCSMPStreamingPublishEventHandler handleError.
+	 * Implements JCSMPStreamingPublishCorrelatingEventHandler handleErrorEx.
+	 * The rejected message is queued for re-publishing, parked once the retries are exhausted, 
+	 * or left unacknowledged on the source queue.
 	 */
 	@Override
-	public void handleError(String var1, JCSMPException var2, long var3)
+	public void handleErrorEx(Object key, JCSMPException ex, long timestamp)
 	{
-		logger.error("Stream publish event error occured: {}, exception: {}, value {}", var1, var2.getMessage(), var3);		
+		logger.error("Stream publish event error occured: {}, exception: {}, value {}", key, ex.getMessage(), timestamp);
+		
+		if (!(key instanceof InFlightMessage))
+			return;
+		
+		InFlightMessage entry = (InFlightMessage) key;
+		if (!inFlight.containsKey(entry.getId()))
+			return;
+		
+		if (throttle != null && isTargetOverloaded(ex))
+			throttle.backOff();
+		
+		if (!entry.isParked() && entry.getAttempts() > maxRetries && parkQueue != null)
+			entry.park();
+		else if (entry.isParked() || entry.getAttempts() > maxRetries)
+		{
+			complete(entry, false);
+			return;
+		}
+		
+		// Publishing is not allowed from the callback thread, the publisher picks the retry up.
+		retryQueue.add(entry);
+		signalPublisher();
 	}
 
 	/**
-	 * Implements JCSMPStreamingPublishEventHandler responseReceived.
+	 * Implements JCSMPStreamingPublishCorrelatingEventHandler responseReceivedEx.
+	 * The source message is acknowledged once the target has confirmed it.
 	 */
 	@Override
-	public void responseReceived(String var1)
+	public void responseReceivedEx(Object key)
+	{
+		logger.trace("Stream publish event response received: {}", key);
+		
+		if (key instanceof InFlightMessage)
+			complete((InFlightMessage) key, true);
+	}
+	
+	/**
+	 * Checks if a publish error indicates that the target spool is full.
+	 * @param ex the publish error
+	 * @return true if the target is over its spool quota
+	 */
+	static boolean isTargetOverloaded(JCSMPException ex)
 	{
-		logger.info("Stream publish event response received: {}", var1);		
+		if (!(ex instanceof JCSMPErrorResponseException))
+			return false;
+		
+		int subcode = ((JCSMPErrorResponseException) ex).getSubcodeEx();
+		return subcode == JCSMPErrorResponseSubcodeEx.SPOOL_OVER_QUOTA || subcode == JCSMPErrorResponseSubcodeEx.MAX_MESSAGE_USAGE_EXCEEDED;
+	}
+	
+	/**
+	 * Gets the size of a message body.
+	 * @param msg the message
+	 * @return size in bytes
+	 */
+	static long getMessageSize(BytesXMLMessage msg)
+	{
+		return (long) msg.getAttachmentContentLength() + msg.getContentLength();
 	}
 
 	/**
@@ -501,12 +1495,63 @@ public class SimpleQueueCopy implements Runnable, SessionEventHandler, XMLMessag
 	}
 
 	/**
-	 * XMLMessageListener onException implementation.
+	 * XMLMessageListener onReceive implementation.
+	 * In pipelined mode the message is handed over to the publisher. The dispatcher thread is shared with the 
+	 * other flows and the events of the session, so it is never blocked: a full buffer stops the source flow.
 	 * @param msg The message received.
 	 */
 	@Override
 	public void onReceive(BytesXMLMessage msg)
 	{
-		logger.trace("XMLListener received message from queue {}, message: {}", sourceQueue, msg.getAckMessageId());		
+		logger.trace("XMLListener received message from queue {}, message: {}", sourceQueue, msg.getAckMessageId());
+		
+		if (!pipelined)
+			return;
+		
+		// Messages beyond the requested count are not acknowledged and stay on the source queue. 
+		if (messagesReceived.incrementAndGet() > messageCount)
+			return;
+		
+		recordReceive();
+		
+		handoffBuffer.add(msg);
+		if (handoffBuffer.size() >= handoffHighWater)
+			pauseReceiving();
+	}
+	
+	/**
+	 * Stops the source flow until the publisher has caught up.
+	 */
+	private void pauseReceiving()
+	{
+		synchronized (flowControl)
+		{
+			if (receivePaused || stopped)
+				return;
+			
+			sourceReceiver.stop();
+			receivePaused = true;
+			logger.debug("Stopped source flow of queue {} with {} messages waiting to be published.", sourceQueueName, handoffBuffer.size());
+		}
+	}
+	
+	/**
+	 * Starts the source flow again once the hand-off buffer is down to the low water mark.
+	 * @throws JCSMPException
+	 */
+	private void resumeReceiving() throws JCSMPException
+	{
+		synchronized (flowControl)
+		{
+			if (!receivePaused || handoffBuffer.size() > handoffLowWater)
+				return;
+			
+			receivePaused = false;
+			if (!stopped)
+			{
+				sourceReceiver.start();
+				logger.debug("Started source flow of queue {} again.", sourceQueueName);
+			}
+		}
 	}
 }
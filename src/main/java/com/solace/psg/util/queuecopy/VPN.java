@@ -19,6 +19,8 @@
  */
 package com.solace.psg.util.queuecopy;
 
+import java.util.Objects;
+
 /**
  * Class to encapsulate properties of SubSub VPN.
  * 
@@ -235,4 +237,25 @@ public class VPN
 	{
 		this.keepAliveIntervalInMillis = keepAliveIntervalInMillis;
 	}
+
+	/**
+	 * VPNs are equal when they connect to the same URL and VPN with the same credentials.
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+			return true;
+		if (!(obj instanceof VPN))
+			return false;
+		
+		VPN other = (VPN) obj;
+		return Objects.equals(url, other.url) && Objects.equals(name, other.name) && Objects.equals(username, other.username) && Objects.equals(password, other.password);
+	}
+	
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(url, name, username);
+	}
 }
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.util.timeseries;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregates rows into fixed time buckets and passes one row per bucket to the next handler.
+ *
+ * Rows are expected in time order, as they are stored in a recording.
+ *
+ */
+public class Downsampler implements SeriesFileReader.RowHandler
+{
+	/**
+	 * Aggregation of the values of a bucket.
+	 */
+	public enum Aggregation
+	{
+		AVG, MIN, MAX, LAST
+	}
+
+	private final long step;
+
+	private final Aggregation aggregation;
+
+	private final SeriesFileReader.RowHandler next;
+
+	private final Map<String, Accumulator> bucket = new LinkedHashMap<String, Accumulator>();
+
+	private long bucketStart = Long.MIN_VALUE;
+
+	/**
+	 * Values of a column in the current bucket.
+	 */
+	private static class Accumulator
+	{
+		long sum;
+
+		long count;
+
+		long min = Long.MAX_VALUE;
+
+		long max = Long.MIN_VALUE;
+
+		long last;
+	}
+
+	/**
+	 * Initialises a new instance of the class.
+	 * @param step the bucket size in milliseconds
+	 * @param aggregation the aggregation
+	 * @param next the handler of the aggregated rows
+	 */
+	public Downsampler(long step, Aggregation aggregation, SeriesFileReader.RowHandler next)
+	{
+		if (step < 1)
+			throw new IllegalArgumentException("Step cannot be less than 1 millisecond.");
+
+		this.step = step;
+		this.aggregation = aggregation;
+		this.next = next;
+	}
+
+	/**
+	 * Adds a row to its bucket, completing the previous bucket when the row starts a new one.
+	 */
+	@Override
+	public void handle(long time, Map<String, Long> row) throws IOException
+	{
+		long start = time - Math.floorMod(time, step);
+		if (start != bucketStart)
+		{
+			finish();
+			bucketStart = start;
+		}
+
+		for (Map.Entry<String, Long> entry : row.entrySet())
+		{
+			long value = entry.getValue();
+			Accumulator acc = bucket.computeIfAbsent(entry.getKey(), name -> new Accumulator());
+			acc.sum += value;
+			acc.count++;
+			acc.min = Math.min(acc.min, value);
+			acc.max = Math.max(acc.max, value);
+			acc.last = value;
+		}
+	}
+
+	/**
+	 * Passes the current bucket to the next handler. Called once more after the last row.
+	 * @throws IOException
+	 */
+	public void finish() throws IOException
+	{
+		if (bucketStart == Long.MIN_VALUE)
+			return;
+
+		Map<String, Long> row = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, Accumulator> entry : bucket.entrySet())
+		{
+			Accumulator acc = entry.getValue();
+			switch (aggregation)
+			{
+				case MIN:
+					row.put(entry.getKey(), acc.min);
+					break;
+				case MAX:
+					row.put(entry.getKey(), acc.max);
+					break;
+				case LAST:
+					row.put(entry.getKey(), acc.last);
+					break;
+				default:
+					row.put(entry.getKey(), Math.round((double) acc.sum / acc.count));
+					break;
+			}
+		}
+
+		next.handle(bucketStart, row);
+		bucket.clear();
+		bucketStart = Long.MIN_VALUE;
+	}
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.util.timeseries;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads the samples of a recording file within a time range.
+ *
+ * Blocks outside of the range are skipped using their headers, only the blocks in the range are decoded.
+ *
+ */
+public class SeriesFileReader implements Closeable
+{
+	private static final Logger logger = LogManager.getLogger(SeriesFileReader.class);
+
+	private final RandomAccessFile file;
+
+	/**
+	 * Row handler.
+	 */
+	public interface RowHandler
+	{
+		/**
+		 * Handles a row.
+		 * @param time the sample time in milliseconds
+		 * @param row the values of the columns present in the row
+		 * @throws IOException
+		 */
+		void handle(long time, Map<String, Long> row) throws IOException;
+	}
+
+	/**
+	 * Header and payload of a block.
+	 */
+	private static class Block
+	{
+		long firstTime;
+
+		long lastTime;
+
+		int rowCount;
+
+		byte[] payload;
+	}
+
+	/**
+	 * Initialises a new instance of the class.
+	 * @param path the recording file
+	 * @throws IOException
+	 */
+	public SeriesFileReader(File path) throws IOException
+	{
+		file = new RandomAccessFile(path, "r");
+		try
+		{
+			if (file.length() < SeriesFormat.FILE_HEADER_SIZE || file.readInt() != SeriesFormat.FILE_MAGIC)
+				throw new IOException("File " + path + " is not a metrics recording.");
+
+			byte version = file.readByte();
+			if (version != SeriesFormat.VERSION)
+				throw new IOException("Unsupported recording file version " + version + ".");
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the names of the columns recorded within a time range.
+	 * @param from the start time in milliseconds, inclusive
+	 * @param to the end time in milliseconds, exclusive
+	 * @return the column names in the order they were first recorded
+	 * @throws IOException
+	 */
+	public Set<String> readColumns(long from, long to) throws IOException
+	{
+		Set<String> names = new LinkedHashSet<String>();
+		long pos = SeriesFormat.FILE_HEADER_SIZE;
+		Block block = new Block();
+		while ((pos = readBlock(pos, from, to, block)) > 0)
+		{
+			if (block.payload == null)
+				continue;
+
+			int[] offset = new int[1];
+			int count = (int) SeriesFormat.readVarLong(block.payload, offset);
+			for (int i = 0; i < count; i++)
+				names.add(readName(block.payload, offset));
+		}
+
+		return names;
+	}
+
+	/**
+	 * Reads the rows within a time range.
+	 * @param from the start time in milliseconds, inclusive
+	 * @param to the end time in milliseconds, exclusive
+	 * @param columnFilter the columns to read, or null for all
+	 * @param handler the row handler
+	 * @return the number of rows read
+	 * @throws IOException
+	 */
+	public long read(long from, long to, Predicate<String> columnFilter, RowHandler handler) throws IOException
+	{
+		long count = 0;
+		long pos = SeriesFormat.FILE_HEADER_SIZE;
+		Block block = new Block();
+		while ((pos = readBlock(pos, from, to, block)) > 0)
+		{
+			if (block.payload != null)
+				count += decode(block, from, to, columnFilter, handler);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Reads the block at a position. The payload is only read when the block overlaps the time range.
+	 * @param pos the block position
+	 * @param from the start time
+	 * @param to the end time
+	 * @param block the block to fill, its payload is null when the block is skipped
+	 * @return the position of the next block or -1 at the end of the file
+	 * @throws IOException
+	 */
+	private long readBlock(long pos, long from, long to, Block block) throws IOException
+	{
+		long length = file.length();
+		if (pos + SeriesFormat.BLOCK_HEADER_SIZE > length)
+			return -1;
+
+		file.seek(pos);
+		if (file.readInt() != SeriesFormat.BLOCK_MAGIC)
+			throw new IOException("Recording is corrupt at position " + pos + ".");
+
+		block.firstTime = file.readLong();
+		block.lastTime = file.readLong();
+		block.rowCount = file.readInt();
+		int payloadLength = file.readInt();
+
+		long next = pos + SeriesFormat.BLOCK_HEADER_SIZE + payloadLength + 4;
+		if (next > length)
+		{
+			logger.warn("Ignoring the incomplete block at the end of the recording.");
+			return -1;
+		}
+
+		block.payload = null;
+		if (block.lastTime >= from && block.firstTime < to)
+		{
+			byte[] payload = new byte[payloadLength];
+			file.readFully(payload);
+
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if ((int) crc.getValue() != file.readInt())
+				throw new IOException("Recording block at position " + pos + " has an invalid checksum.");
+
+			block.payload = payload;
+		}
+
+		return next;
+	}
+
+	/**
+	 * Decodes the rows of a block and passes the rows within the time range to the handler.
+	 * @return the number of rows handled
+	 */
+	private long decode(Block block, long from, long to, Predicate<String> columnFilter, RowHandler handler) throws IOException
+	{
+		byte[] payload = block.payload;
+		int rows = block.rowCount;
+		int[] offset = new int[1];
+
+		int columnCount = (int) SeriesFormat.readVarLong(payload, offset);
+		String[] names = new String[columnCount];
+		for (int i = 0; i < columnCount; i++)
+			names[i] = readName(payload, offset);
+
+		long[] times = new long[rows];
+		times[0] = block.firstTime;
+		for (int i = 1; i < rows; i++)
+			times[i] = times[i - 1] + SeriesFormat.readVarLong(payload, offset);
+
+		int bitmapLength = (rows + 7) / 8;
+		int[] bitmaps = new int[columnCount];
+		long[][] values = new long[columnCount][];
+		for (int c = 0; c < columnCount; c++)
+		{
+			bitmaps[c] = offset[0];
+			offset[0] += bitmapLength;
+
+			// Columns that are not selected still have to be decoded to reach the next column.
+			long[] column = new long[rows];
+			long previous = 0;
+			for (int i = 0; i < rows; i++)
+			{
+				if (isPresent(payload, bitmaps[c], i))
+				{
+					previous += SeriesFormat.readVarLong(payload, offset);
+					column[i] = previous;
+				}
+			}
+
+			if (columnFilter == null || columnFilter.test(names[c]))
+				values[c] = column;
+		}
+
+		long count = 0;
+		for (int i = 0; i < rows; i++)
+		{
+			if (times[i] < from || times[i] >= to)
+				continue;
+
+			Map<String, Long> row = new LinkedHashMap<String, Long>();
+			for (int c = 0; c < columnCount; c++)
+				if (values[c] != null && isPresent(payload, bitmaps[c], i))
+					row.put(names[c], values[c][i]);
+
+			handler.handle(times[i], row);
+			count++;
+		}
+
+		return count;
+	}
+
+	private static boolean isPresent(byte[] payload, int bitmap, int row)
+	{
+		return (payload[bitmap + row / 8] & (1 << (row % 8))) != 0;
+	}
+
+	private static String readName(byte[] payload, int[] offset)
+	{
+		int length = (int) SeriesFormat.readVarLong(payload, offset);
+		String name = new String(payload, offset[0], length, StandardCharsets.UTF_8);
+		offset[0] += length;
+
+		return name;
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		file.close();
+	}
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.util.timeseries;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Appends metric samples to a recording file, one block of rows at a time.
+ *
+ * Rows are kept in memory until a block is full or the writer is flushed, so an interruption loses at most one block.
+ * A block left incomplete by an earlier interruption is cut off when the file is opened again.
+ *
+ */
+public class SeriesFileWriter implements Closeable, Flushable
+{
+	private static final Logger logger = LogManager.getLogger(SeriesFileWriter.class);
+
+	public static final int DEFAULT_BLOCK_ROWS = 60;
+
+	private final RandomAccessFile file;
+
+	private final int blockRows;
+
+	private final long[] times;
+
+	private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+
+	private int rowCount;
+
+	private boolean closed;
+
+	/**
+	 * Values of a column in the current block.
+	 */
+	private static class Column
+	{
+		final long[] values;
+
+		final BitSet present;
+
+		Column(int size)
+		{
+			values = new long[size];
+			present = new BitSet(size);
+		}
+	}
+
+	/**
+	 * Initialises a new instance of the class and opens the file for appending.
+	 * @param path the recording file, created if it does not exist
+	 * @param blockRows the number of rows per block
+	 * @throws IOException
+	 */
+	public SeriesFileWriter(File path, int blockRows) throws IOException
+	{
+		if (blockRows < 1)
+			throw new IllegalArgumentException("Block rows cannot be less than 1.");
+
+		this.blockRows = blockRows;
+		this.times = new long[blockRows];
+
+		file = new RandomAccessFile(path, "rw");
+		try
+		{
+			if (file.length() == 0)
+			{
+				file.writeInt(SeriesFormat.FILE_MAGIC);
+				file.writeByte(SeriesFormat.VERSION);
+			}
+			else
+			{
+				if (file.length() < SeriesFormat.FILE_HEADER_SIZE || readHeader() != SeriesFormat.FILE_MAGIC)
+					throw new IOException("File " + path + " is not a metrics recording.");
+
+				file.setLength(findEnd());
+			}
+
+			file.seek(file.length());
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+	}
+
+	private int readHeader() throws IOException
+	{
+		file.seek(0);
+		int magic = file.readInt();
+		byte version = file.readByte();
+		if (magic == SeriesFormat.FILE_MAGIC && version != SeriesFormat.VERSION)
+			throw new IOException("Unsupported recording file version " + version + ".");
+
+		return magic;
+	}
+
+	/**
+	 * Finds the end of the last complete block. A block with an invalid checksum at the end of the file was only
+	 * partly written and is cut off as well, one followed by further blocks is reported as corruption.
+	 * @return the position after the last complete block
+	 * @throws IOException
+	 */
+	private long findEnd() throws IOException
+	{
+		long length = file.length();
+		long pos = SeriesFormat.FILE_HEADER_SIZE;
+		while (pos + SeriesFormat.BLOCK_HEADER_SIZE <= length)
+		{
+			file.seek(pos);
+			if (file.readInt() != SeriesFormat.BLOCK_MAGIC)
+				break;
+
+			file.seek(pos + SeriesFormat.BLOCK_HEADER_SIZE - 4);
+			int payloadLength = file.readInt();
+			long end = pos + SeriesFormat.BLOCK_HEADER_SIZE + payloadLength + 4;
+			if (payloadLength < 0 || end > length)
+				break;
+
+			if (!isValid(payloadLength))
+			{
+				if (isBlockAt(end))
+					throw new IOException("Recording block at position " + pos + " has an invalid checksum.");
+				break;
+			}
+
+			pos = end;
+		}
+
+		if (pos < length)
+			logger.warn("Dropping {} bytes of an incomplete block at the end of the recording.", length - pos);
+
+		return pos;
+	}
+
+	/**
+	 * Checks the checksum of the block payload at the file position.
+	 * @param payloadLength the payload length
+	 * @return true if the checksum matches
+	 * @throws IOException
+	 */
+	private boolean isValid(int payloadLength) throws IOException
+	{
+		byte[] payload = new byte[payloadLength];
+		file.readFully(payload);
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return (int) crc.getValue() == file.readInt();
+	}
+
+	/**
+	 * Checks if a block header starts at a position.
+	 * @param pos the position
+	 * @return true if a block starts there
+	 * @throws IOException
+	 */
+	private boolean isBlockAt(long pos) throws IOException
+	{
+		if (pos + SeriesFormat.BLOCK_HEADER_SIZE > file.length())
+			return false;
+
+		file.seek(pos);
+		return file.readInt() == SeriesFormat.BLOCK_MAGIC;
+	}
+
+	/**
+	 * Appends a row. The block is written when it is full.
+	 * @param time the sample time in milliseconds
+	 * @param values the values by column name, columns may come and go between rows
+	 * @throws IOException
+	 */
+	public synchronized void append(long time, Map<String, ? extends Number> values) throws IOException
+	{
+		if (closed)
+			throw new IOException("Recording is closed.");
+
+		times[rowCount] = time;
+		for (Map.Entry<String, ? extends Number> entry : values.entrySet())
+		{
+			if (entry.getValue() == null)
+				continue;
+
+			Column column = columns.computeIfAbsent(entry.getKey(), name -> new Column(blockRows));
+			column.values[rowCount] = entry.getValue().longValue();
+			column.present.set(rowCount);
+		}
+
+		if (++rowCount == blockRows)
+			flush();
+	}
+
+	/**
+	 * Writes the buffered rows as a block.
+	 */
+	@Override
+	public synchronized void flush() throws IOException
+	{
+		if (rowCount == 0 || closed)
+			return;
+
+		ByteArrayOutputStream payload = new ByteArrayOutputStream(64 + rowCount * (columns.size() + 1) * 2);
+		SeriesFormat.writeVarLong(payload, columns.size());
+		for (String name : columns.keySet())
+		{
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			SeriesFormat.writeVarLong(payload, bytes.length);
+			payload.write(bytes, 0, bytes.length);
+		}
+
+		for (int i = 1; i < rowCount; i++)
+			SeriesFormat.writeVarLong(payload, times[i] - times[i - 1]);
+
+		byte[] bitmap = new byte[(rowCount + 7) / 8];
+		// Bit i of a column bitmap is set when the column has a value in row i.
+		for (Column column : columns.values())
+		{
+			byte[] bits = column.present.toByteArray();
+			System.arraycopy(bits, 0, bitmap, 0, bits.length);
+			Arrays.fill(bitmap, bits.length, bitmap.length, (byte) 0);
+			payload.write(bitmap, 0, bitmap.length);
+
+			long previous = 0;
+			for (int i = column.present.nextSetBit(0); i >= 0 && i < rowCount; i = column.present.nextSetBit(i + 1))
+			{
+				SeriesFormat.writeVarLong(payload, column.values[i] - previous);
+				previous = column.values[i];
+			}
+		}
+
+		byte[] data = payload.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		// The block is written with a single call to keep a partial block at the end of the file only.
+		ByteBuffer block = ByteBuffer.allocate(SeriesFormat.BLOCK_HEADER_SIZE + data.length + 4);
+		block.putInt(SeriesFormat.BLOCK_MAGIC);
+		block.putLong(times[0]);
+		block.putLong(times[rowCount - 1]);
+		block.putInt(rowCount);
+		block.putInt(data.length);
+		block.put(data);
+		block.putInt((int) crc.getValue());
+		file.write(block.array());
+
+		logger.debug("Recorded block of {} rows and {} columns in {} bytes.", rowCount, columns.size(), block.capacity());
+
+		rowCount = 0;
+		columns.clear();
+	}
+
+	/**
+	 * Writes the buffered rows and closes the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (closed)
+			return;
+
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			closed = true;
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2022 Solace Systems, Inc. All rights reserved.
+ *
+ * http://www.solace.com
+ *
+ * This source is distributed under the terms and conditions
+ * of any contract or contracts between Solace Systems, Inc.
+ * ("Solace") and you or your company.
+ * If there are no contracts in place use of this source
+ * is not authorized.
+ * No support is provided and no distribution, sharing with
+ * others or re-use of this source is authorized unless
+ * specifically stated in the contracts referred to above.
+ *
+ * This product is provided as is and is not supported
+ * by Solace unless such support is provided for under
+ * an agreement signed between you and Solace.
+ *
+ */
+package com.solace.psg.util.timeseries;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Layout of the metrics recording files.
+ *
+ * A file starts with the file magic and version, followed by blocks of samples. Each block has a fixed header with
+ * its magic, first and last timestamp, row count and payload length, so range queries skip blocks without decoding
+ * them. The payload holds the column names, the timestamp deltas and then each column with a presence bitmap and the
+ * deltas of its present values. All deltas are zigzag varints. A CRC32 of the payload ends the block.
+ *
+ */
+final class SeriesFormat
+{
+	static final int FILE_MAGIC = 0x534F4C54;
+
+	static final byte VERSION = 1;
+
+	static final int BLOCK_MAGIC = 0x424C4B31;
+
+	/**
+	 * Size of the file header in bytes.
+	 */
+	static final int FILE_HEADER_SIZE = 5;
+
+	/**
+	 * Size of the block header in bytes.
+	 */
+	static final int BLOCK_HEADER_SIZE = 28;
+
+	/**
+	 * This class should not be instantiated
+	 */
+	private SeriesFormat()
+	{
+	}
+
+	/**
+	 * Writes a signed value as a zigzag varint.
+	 * @param out the output
+	 * @param value the value
+	 */
+	static void writeVarLong(ByteArrayOutputStream out, long value)
+	{
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7FL) != 0)
+		{
+			out.write((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+		out.write((int) v);
+	}
+
+	/**
+	 * Reads a zigzag varint.
+	 * @param in the input
+	 * @param pos the position, advanced past the value
+	 * @return the value
+	 */
+	static long readVarLong(byte[] in, int[] pos)
+	{
+		long v = 0;
+		int shift = 0;
+		while (true)
+		{
+			byte b = in[pos[0]++];
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				break;
+			shift += 7;
+		}
+
+		return (v >>> 1) ^ -(v & 1);
+	}
+}
@@ -0,0 +1,50 @@
+package com.solace.psg.clientcli.daemon;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests which commands are forwarded to the daemon.
+ */
+public class DaemonClientTest extends TestCase
+{
+	public DaemonClientTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testShortCommandsAreForwarded()
+	{
+		assertTrue(DaemonClient.isForwardable(new String[] {"service", "list"}));
+		assertTrue(DaemonClient.isForwardable(new String[] {"service", "queue", "list", "-sn", "top"}));
+		assertTrue(DaemonClient.isForwardable(new String[] {"service", "queue", "stats", "q1"}));
+		assertTrue(DaemonClient.isForwardable(new String[] {"-o", "json", "service", "details"}));
+	}
+
+	public void testNoArgumentsRunLocally()
+	{
+		assertFalse(DaemonClient.isForwardable(new String[0]));
+	}
+
+	public void testLocalCommandsRunLocally()
+	{
+		assertFalse(DaemonClient.isForwardable(new String[] {"daemon", "start"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"shell"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"batch", "steps.txt"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"service", "delete", "-sn", "s1"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"service", "exporter", "-port=9628"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"service", "record", "-f", "m.sts"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"service", "queue", "top"}));
+	}
+
+	public void testRootOutputOptionIsSkipped()
+	{
+		assertFalse(DaemonClient.isForwardable(new String[] {"-o", "jsonl", "service", "queue", "top", "-once"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"-output", "csv", "service", "record", "-f=m.sts"}));
+	}
+
+	public void testWatchedStatsRunLocally()
+	{
+		assertFalse(DaemonClient.isForwardable(new String[] {"service", "queue", "stats", "q1", "-watch=5"}));
+		assertFalse(DaemonClient.isForwardable(new String[] {"service", "queue", "stats", "q1", "-w", "5"}));
+	}
+}
@@ -0,0 +1,55 @@
+package com.solace.psg.clientcli.exporter;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the metric naming and the label escaping of the Prometheus exporter.
+ */
+public class MetricsCollectorTest extends TestCase
+{
+	public MetricsCollectorTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testCumulativeCountsAreCounters()
+	{
+		assertTrue(MetricsCollector.isCounter("spooledMsgCount"));
+		assertTrue(MetricsCollector.isCounter("spooledByteCount"));
+		assertTrue(MetricsCollector.isCounter("redeliveredMsgCount"));
+		assertTrue(MetricsCollector.isCounter("maxTtlExpiredDiscardedMsgCount"));
+	}
+
+	public void testHeldMessageCountsAreGauges()
+	{
+		assertFalse(MetricsCollector.isCounter("txUnackedMsgCount"));
+		assertFalse(MetricsCollector.isCounter("inProgressAckMsgCount"));
+	}
+
+	public void testOtherAttributesAreGauges()
+	{
+		assertFalse(MetricsCollector.isCounter("msgSpoolUsage"));
+		assertFalse(MetricsCollector.isCounter("rxMsgRate"));
+		assertFalse(MetricsCollector.isCounter("bindCount"));
+		assertFalse(MetricsCollector.isCounter("maxMsgSpoolUsage"));
+	}
+
+	public void testToSnakeCase()
+	{
+		assertEquals("msg_spool_usage", MetricsCollector.toSnakeCase("msgSpoolUsage"));
+		assertEquals("rx_msg_rate", MetricsCollector.toSnakeCase("rxMsgRate"));
+		assertEquals("bind_count", MetricsCollector.toSnakeCase("bindCount"));
+		assertEquals("spooled", MetricsCollector.toSnakeCase("spooled"));
+		// Uppercase runs are kept together.
+		assertEquals("max_ttl", MetricsCollector.toSnakeCase("maxTTL"));
+		assertEquals("a_b_c", MetricsCollector.toSnakeCase("a-b.c"));
+	}
+
+	public void testEscape()
+	{
+		assertEquals("orders", MetricsCollector.escape("orders"));
+		assertEquals("a\\\\b", MetricsCollector.escape("a\\b"));
+		assertEquals("say \\\"hi\\\"", MetricsCollector.escape("say \"hi\""));
+		assertEquals("line\\nbreak", MetricsCollector.escape("line\nbreak"));
+	}
+}
@@ -0,0 +1,263 @@
+package com.solace.psg.clientcli.sempv1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+
+import com.solace.psg.sempv1.SempSession;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests checking SEMP v1 sessions out of the pool and handing them back, with stub sessions.
+ */
+public class SempSessionPoolTest extends TestCase
+{
+	private static final String URL = "http://broker:8080/SEMP";
+
+	private final List<StubSession> opened = Collections.synchronizedList(new ArrayList<StubSession>());
+
+	private SempSessionPool pool;
+
+	/**
+	 * Session counting its uses, which fails a test when two callers use it at the same time.
+	 */
+	private static class StubSession extends SempSession
+	{
+		final String password;
+
+		final AtomicBoolean inUse = new AtomicBoolean();
+
+		final AtomicBoolean shared = new AtomicBoolean();
+
+		final AtomicInteger closeCount = new AtomicInteger();
+
+		StubSession(String password)
+		{
+			this.password = password;
+		}
+
+		void use()
+		{
+			if (!inUse.compareAndSet(false, true))
+				shared.set(true);
+			Thread.yield();
+			inUse.set(false);
+		}
+
+		@Override
+		public CloseableHttpResponse execute(String request)
+		{
+			return null;
+		}
+
+		@Override
+		public CloseableHttpResponse executeRequest(String request)
+		{
+			return null;
+		}
+
+		@Override
+		public CloseableHttpResponse executeMore(String request)
+		{
+			return null;
+		}
+
+		@Override
+		public void open()
+		{
+		}
+
+		@Override
+		public void reopen()
+		{
+		}
+
+		@Override
+		public void close()
+		{
+			closeCount.incrementAndGet();
+		}
+	}
+
+	public SempSessionPoolTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		pool = new SempSessionPool((url, username, password) ->
+		{
+			StubSession session = new StubSession(password);
+			opened.add(session);
+			return session;
+		});
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		pool.closeAll();
+	}
+
+	public void testReleasedSessionIsReused() throws Exception
+	{
+		SempSession first = pool.acquire(URL, "admin", "secret");
+		pool.release(first);
+
+		assertSame(first, pool.acquire(URL, "admin", "secret"));
+		assertEquals(1, opened.size());
+		assertEquals(0, opened.get(0).closeCount.get());
+	}
+
+	public void testConcurrentCallersGetTheirOwnSessions() throws Exception
+	{
+		SempSession first = pool.acquire(URL, "admin", "secret");
+		SempSession second = pool.acquire(URL, "admin", "secret");
+
+		assertNotSame(first, second);
+		assertEquals(2, opened.size());
+	}
+
+	public void testSessionsAreKeptPerUser() throws Exception
+	{
+		SempSession admin = pool.acquire(URL, "admin", "secret");
+		pool.release(admin);
+
+		assertNotSame(admin, pool.acquire(URL, "monitor", "secret"));
+		assertNotSame(admin, pool.acquire(URL + "/other", "admin", "secret"));
+	}
+
+	public void testDiscardedSessionIsClosed() throws Exception
+	{
+		SempSession failed = pool.acquire(URL, "admin", "secret");
+		pool.discard(failed);
+
+		assertEquals(1, opened.get(0).closeCount.get());
+		assertNotSame(failed, pool.acquire(URL, "admin", "secret"));
+		assertEquals(2, opened.size());
+	}
+
+	public void testReleaseAfterDiscardIsIgnored() throws Exception
+	{
+		SempSession failed = pool.acquire(URL, "admin", "secret");
+		pool.discard(failed);
+		pool.release(failed);
+
+		assertNotSame(failed, pool.acquire(URL, "admin", "secret"));
+		assertEquals(1, opened.get(0).closeCount.get());
+	}
+
+	public void testChangedPasswordClosesIdleSession() throws Exception
+	{
+		SempSession old = pool.acquire(URL, "admin", "old");
+		pool.release(old);
+
+		SempSession current = pool.acquire(URL, "admin", "new");
+		assertNotSame(old, current);
+		assertEquals("new", ((StubSession) current).password);
+		assertEquals(1, opened.get(0).closeCount.get());
+	}
+
+	public void testIdleSessionsAreCapped() throws Exception
+	{
+		List<SempSession> sessions = new ArrayList<SempSession>();
+		for (int i = 0; i < SempSessionPool.MAX_IDLE_SESSIONS + 2; i++)
+			sessions.add(pool.acquire(URL, "admin", "secret"));
+		for (SempSession session : sessions)
+			pool.release(session);
+
+		assertEquals(2, countClosed());
+
+		// The idle sessions are handed out again before a new one is opened.
+		for (int i = 0; i < SempSessionPool.MAX_IDLE_SESSIONS; i++)
+			pool.acquire(URL, "admin", "secret");
+		assertEquals(SempSessionPool.MAX_IDLE_SESSIONS + 2, opened.size());
+	}
+
+	public void testCloseAllClosesIdleAndReturnedSessions() throws Exception
+	{
+		SempSession idle = pool.acquire(URL, "admin", "secret");
+		SempSession busy = pool.acquire(URL, "admin", "secret");
+		pool.release(idle);
+
+		pool.closeAll();
+		assertEquals(1, ((StubSession) idle).closeCount.get());
+		assertEquals(0, ((StubSession) busy).closeCount.get());
+
+		pool.release(busy);
+		assertEquals(1, ((StubSession) busy).closeCount.get());
+	}
+
+	/**
+	 * Threads check sessions out, use them and release or discard them: a session is never used by two threads
+	 * at once, is closed at most once and every session not idle in the pool at the end is closed.
+	 */
+	public void testConcurrentAcquireReleaseDiscard() throws Exception
+	{
+		int threads = 8;
+		int iterations = 2000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int t = 0; t < threads; t++)
+		{
+			futures.add(executor.submit(() ->
+			{
+				start.await();
+				for (int i = 0; i < iterations; i++)
+				{
+					StubSession session = (StubSession) pool.acquire(URL, "admin", "secret");
+					session.use();
+					if (ThreadLocalRandom.current().nextInt(10) == 0)
+						pool.discard(session);
+					else
+						pool.release(session);
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> future : futures)
+			future.get(60, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		int open = 0;
+		for (StubSession session : opened)
+		{
+			assertFalse("A session was used by two threads at once.", session.shared.get());
+			assertTrue("A session was closed more than once.", session.closeCount.get() <= 1);
+			if (session.closeCount.get() == 0)
+				open++;
+		}
+		assertTrue("Too many open sessions: " + open, open <= SempSessionPool.MAX_IDLE_SESSIONS);
+
+		// The sessions still open are the idle ones, handed out again without opening new sessions.
+		int count = opened.size();
+		for (int i = 0; i < open; i++)
+			pool.acquire(URL, "admin", "secret");
+		assertEquals(count, opened.size());
+	}
+
+	private int countClosed()
+	{
+		int closed = 0;
+		for (StubSession session : opened)
+			if (session.closeCount.get() > 0)
+				closed++;
+		return closed;
+	}
+}
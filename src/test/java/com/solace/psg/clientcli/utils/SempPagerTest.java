@@ -0,0 +1,209 @@
+package com.solace.psg.clientcli.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests reading SEMP v2 collections page by page from a local server.
+ */
+public class SempPagerTest extends TestCase
+{
+	private HttpServer server;
+
+	private String baseUrl;
+
+	// The objects of the served collection.
+	private int objectCount;
+
+	private int status;
+
+	// Indicates if the pages carry the total count of the collection.
+	private boolean reportCount;
+
+	private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+	private final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+
+	public SempPagerTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		status = 200;
+		reportCount = false;
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/SEMP/v2/", this::handle);
+		server.start();
+		baseUrl = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getAddress().getPort();
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		server.stop(0);
+	}
+
+	public void testReadsAllPages() throws Exception
+	{
+		objectCount = 5;
+		SempPager pager = createPager();
+		pager.setPageSize(2);
+		pager.setWhere("queueName==q*");
+		pager.setSelect("queueName");
+
+		List<Integer> pageSizes = new ArrayList<Integer>();
+		List<String> names = new ArrayList<String>();
+		long count = pager.readConfig("queues", objects ->
+		{
+			pageSizes.add(objects.size());
+			for (JsonNode object : objects)
+				names.add(object.path("queueName").asText());
+			return true;
+		});
+
+		assertEquals(5, count);
+		assertEquals(Arrays.asList(2, 2, 1), pageSizes);
+		assertEquals(Arrays.asList("q0", "q1", "q2", "q3", "q4"), names);
+		assertEquals(3, requests.size());
+		assertEquals("/SEMP/v2/config/msgVpns/default/queues?count=2&where=queueName==q*&select=queueName", requests.get(0));
+		assertEquals("/SEMP/v2/config/msgVpns/default/queues?count=2&cursor=2", requests.get(1));
+		assertEquals("Basic YWRtaW46c2VjcmV0", authorizations.get(0));
+		assertEquals("Basic YWRtaW46c2VjcmV0", authorizations.get(2));
+	}
+
+	public void testEmptyCollection() throws Exception
+	{
+		objectCount = 0;
+		List<Integer> pageSizes = new ArrayList<Integer>();
+		long count = createPager().readMonitor("queues", objects -> pageSizes.add(objects.size()));
+
+		assertEquals(0, count);
+		assertEquals(Arrays.asList(0), pageSizes);
+		assertTrue(requests.get(0).startsWith("/SEMP/v2/monitor/msgVpns/default/queues?"));
+	}
+
+	/**
+	 * No more pages are requested once the handler has enough.
+	 */
+	public void testHandlerStopsPaging() throws Exception
+	{
+		objectCount = 10;
+		SempPager pager = createPager();
+		pager.setPageSize(3);
+
+		long count = pager.readConfig("queues", objects -> false);
+
+		assertEquals(3, count);
+		assertEquals(1, requests.size());
+	}
+
+	public void testObjectNameIsOnePathSegment() throws Exception
+	{
+		objectCount = 1;
+		createPager().readConfig("queues", "orders/eu #1", "subscriptions", objects -> true);
+
+		assertTrue(requests.get(0), requests.get(0).startsWith("/SEMP/v2/config/msgVpns/default/queues/orders%2Feu%20%231/subscriptions?"));
+	}
+
+	public void testCountFromMeta() throws Exception
+	{
+		objectCount = 250;
+		reportCount = true;
+		SempPager pager = createPager();
+		pager.setSelect("msgId");
+
+		assertEquals(250, pager.countMonitor("queues", "q1", "msgs"));
+		assertEquals(1, requests.size());
+		assertEquals("/SEMP/v2/monitor/msgVpns/default/queues/q1/msgs?count=100&select=msgId", requests.get(0));
+	}
+
+	/**
+	 * Without a total count from the broker all pages are counted.
+	 */
+	public void testCountByPaging() throws Exception
+	{
+		objectCount = 250;
+		assertEquals(250, createPager().countMonitor("queues", "q1", "msgs"));
+		assertEquals(3, requests.size());
+	}
+
+	public void testErrorStatus() throws Exception
+	{
+		status = 401;
+		try
+		{
+			createPager().readConfig("queues", objects -> true);
+			fail("Expected an IOException.");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("401"));
+		}
+	}
+
+	private SempPager createPager()
+	{
+		return new SempPager(baseUrl, "default", "admin", "secret");
+	}
+
+	/**
+	 * Serves the collection in pages of the requested count, with a cursor to the next page.
+	 */
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		String uri = exchange.getRequestURI().getRawPath() + "?" + exchange.getRequestURI().getQuery();
+		requests.add(uri);
+		authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+
+		int count = Integer.parseInt(getParameter(uri, "count"));
+		String cursor = getParameter(uri, "cursor");
+		int start = cursor == null ? 0 : Integer.parseInt(cursor);
+		int end = Math.min(objectCount, start + count);
+
+		StringBuilder body = new StringBuilder("{\"data\":[");
+		for (int i = start; i < end; i++)
+			body.append(i > start ? "," : "").append("{\"queueName\":\"q").append(i).append("\"}");
+		body.append("],\"meta\":{");
+		if (end < objectCount)
+		{
+			body.append("\"paging\":{\"nextPageUri\":\"").append(baseUrl).append(exchange.getRequestURI().getRawPath())
+					.append("?count=").append(count).append("&cursor=").append(end).append("\"},");
+		}
+		if (reportCount)
+			body.append("\"count\":").append(objectCount).append(",");
+		body.append("\"responseCode\":").append(status).append("}}");
+
+		byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream output = exchange.getResponseBody())
+		{
+			output.write(bytes);
+		}
+	}
+
+	private static String getParameter(String uri, String name)
+	{
+		for (String parameter : uri.substring(uri.indexOf('?') + 1).split("&"))
+		{
+			if (parameter.startsWith(name + "="))
+				return parameter.substring(name.length() + 1);
+		}
+		return null;
+	}
+}
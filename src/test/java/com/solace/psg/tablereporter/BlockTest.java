@@ -0,0 +1,100 @@
+package com.solace.psg.tablereporter;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the placement of the data in a single block.
+ */
+public class BlockTest extends TestCase
+{
+	public BlockTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testTopLeft()
+	{
+		assertEquals(
+				"+------+  \n" +
+				"|ab    |  \n" +
+				"|      |  \n" +
+				"|      |  \n" +
+				"+------+  \n",
+				preview(Block.DATA_TOP_LEFT));
+	}
+
+	public void testCenter()
+	{
+		assertEquals(
+				"+------+  \n" +
+				"|      |  \n" +
+				"|  ab  |  \n" +
+				"|      |  \n" +
+				"+------+  \n",
+				preview(Block.DATA_CENTER));
+	}
+
+	public void testMiddleRight()
+	{
+		assertEquals(
+				"+------+  \n" +
+				"|      |  \n" +
+				"|    ab|  \n" +
+				"|      |  \n" +
+				"+------+  \n",
+				preview(Block.DATA_MIDDLE_RIGHT));
+	}
+
+	public void testBottomRight()
+	{
+		assertEquals(
+				"+------+  \n" +
+				"|      |  \n" +
+				"|      |  \n" +
+				"|    ab|  \n" +
+				"+------+  \n",
+				preview(Block.DATA_BOTTOM_RIGHT));
+	}
+
+	/**
+	 * Data longer than the block width continues on the next line.
+	 */
+	public void testWrap()
+	{
+		Block block = new Block(new Board(10), 6, 2, "abcdefghij");
+		assertEquals(
+				"+------+  \n" +
+				"|abcdef|  \n" +
+				"|ghij  |  \n" +
+				"+------+  \n",
+				block.getPreview());
+	}
+
+	public void testNoGrid()
+	{
+		Block block = new Block(new Board(10), 6, 1, "ab");
+		block.allowGrid(false);
+		block.setDataAlign(Block.DATA_MIDDLE_RIGHT);
+		assertEquals("    ab    \n", block.getPreview());
+	}
+
+	public void testWiderThanBoard()
+	{
+		try
+		{
+			new Block(new Board(10), 11, 1);
+			fail("Expected a RuntimeException.");
+		}
+		catch (RuntimeException e)
+		{
+			// Expected.
+		}
+	}
+
+	private static String preview(int dataAlign)
+	{
+		Block block = new Block(new Board(10), 6, 3, "ab");
+		block.setDataAlign(dataAlign);
+		return block.getPreview();
+	}
+}
@@ -0,0 +1,150 @@
+package com.solace.psg.tablereporter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the rendered tables against the output of the original renderer.
+ */
+public class BoardTest extends TestCase
+{
+	private static final List<String> HEADERS = Arrays.asList("Name", "Count", "State");
+
+	private static final List<List<String>> ROWS = Arrays.asList(
+			Arrays.asList("orders", "42", "up"),
+			Arrays.asList("payments-eu", "7", "down"),
+			Arrays.asList("q", "123456", "up"));
+
+	private static final List<Integer> WIDTHS = Arrays.asList(12, 8, 6);
+
+	private static final List<Integer> ALIGNS = Arrays.asList(Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_RIGHT, Block.DATA_CENTER);
+
+	public BoardTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testFullGrid()
+	{
+		assertEquals(
+				"+------------+--------+------+ \n" +
+				"|Name        |   Count| State| \n" +
+				"+------------+--------+------+ \n" +
+				"|orders      |      42|  up  | \n" +
+				"+------------+--------+------+ \n" +
+				"|payments-eu |       7| down | \n" +
+				"+------------+--------+------+ \n" +
+				"|q           |  123456|  up  | \n" +
+				"+------------+--------+------+ \n",
+				render(Table.GRID_FULL));
+	}
+
+	public void testColumnGrid()
+	{
+		assertEquals(
+				"+------------+--------+------+ \n" +
+				"|Name        |   Count| State| \n" +
+				"+------------+--------+------+ \n" +
+				"|orders      |      42|  up  | \n" +
+				"|payments-eu |       7| down | \n" +
+				"|q           |  123456|  up  | \n" +
+				"+------------+--------+------+ \n",
+				render(Table.GRID_COLUMN));
+	}
+
+	public void testNoGrid()
+	{
+		assertEquals(
+				"Name           Count State   \n" +
+				"orders            42  up     \n" +
+				"payments-eu        7 down    \n" +
+				"q             123456  up     \n",
+				render(Table.GRID_NON));
+	}
+
+	public void testTallRows()
+	{
+		assertEquals(
+				"+------------+--------+------+ \n" +
+				"|Name        |        |      | \n" +
+				"|            |  Count | State| \n" +
+				"+------------+--------+------+ \n" +
+				"|orders      |        |      | \n" +
+				"|            |   42   |      | \n" +
+				"|            |        |    up| \n" +
+				"+------------+--------+------+ \n" +
+				"|payments-eu |        |      | \n" +
+				"|            |    7   |      | \n" +
+				"|            |        |  down| \n" +
+				"+------------+--------+------+ \n" +
+				"|q           |        |      | \n" +
+				"|            | 123456 |      | \n" +
+				"|            |        |    up| \n" +
+				"+------------+--------+------+ \n",
+				renderTall());
+	}
+
+	public void testAppendedTables()
+	{
+		assertEquals(
+				"+------------+--------+------+---------+---------+          \n" +
+				"|Name        |   Count| State|Key      |    Value|          \n" +
+				"+------------+--------+------+---------+---------+          \n" +
+				"|orders      |      42|  up  |a        |        1|          \n" +
+				"+------------+--------+------+b        |        2|          \n" +
+				"|payments-eu |       7| down +---------+---------+          \n" +
+				"+------------+--------+------+                              \n" +
+				"|q           |  123456|  up  |                              \n" +
+				"+------------+--------+------+                              \n",
+				renderAppended());
+	}
+
+	/**
+	 * Rendering the board again gives the same text.
+	 */
+	public void testRebuild()
+	{
+		Board board = new Board(Board.getRecommendedWidth(WIDTHS, true));
+		board.setInitialBlock(createTable(board, Table.GRID_FULL).tableToBlocks());
+		String first = board.build().getPreview();
+		assertEquals(first, board.invalidate().build().getPreview());
+	}
+
+	private static String render(int gridMode)
+	{
+		Board board = new Board(Board.getRecommendedWidth(WIDTHS, gridMode != Table.GRID_NON));
+		board.setInitialBlock(createTable(board, gridMode).tableToBlocks());
+		return board.build().getPreview();
+	}
+
+	private static String renderTall()
+	{
+		Board board = new Board(Board.getRecommendedWidth(WIDTHS, true));
+		Table table = createTable(board, Table.GRID_FULL);
+		table.setHeaderHeight(2);
+		table.setRowHeight(3);
+		table.setColAlignsList(Arrays.asList(Block.DATA_TOP_LEFT, Block.DATA_CENTER, Block.DATA_BOTTOM_RIGHT));
+		board.setInitialBlock(table.tableToBlocks());
+		return board.build().getPreview();
+	}
+
+	private static String renderAppended()
+	{
+		Board board = new Board(60);
+		Block first = createTable(board, Table.GRID_FULL).tableToBlocks();
+		board.setInitialBlock(first);
+		Table second = new Table(board, 20, Arrays.asList("Key", "Value"),
+				Arrays.asList(Arrays.asList("a", "1"), Arrays.asList("b", "2")), Arrays.asList(9, 9));
+		board.appendTableTo(first.getMostRightBlock().getIndex(), Board.APPEND_RIGHT, second);
+		return board.build().getPreview();
+	}
+
+	private static Table createTable(Board board, int gridMode)
+	{
+		Table table = new Table(board, Board.getRecommendedWidth(WIDTHS, gridMode != Table.GRID_NON), HEADERS, ROWS, WIDTHS, ALIGNS);
+		table.setGridMode(gridMode);
+		return table;
+	}
+}
@@ -0,0 +1,66 @@
+package com.solace.psg.tablereporter;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the character buffer the blocks are drawn on.
+ */
+public class CanvasTest extends TestCase
+{
+	public CanvasTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testEmpty()
+	{
+		assertEquals("", new Canvas(4, 2).toString());
+	}
+
+	public void testPut()
+	{
+		Canvas canvas = new Canvas(4, 2);
+		canvas.put(1, 0, 'x');
+		canvas.put(0, 1, "abcd");
+		assertEquals(" x  \nabcd\n", canvas.toString());
+	}
+
+	/**
+	 * Only the lines up to the last one written are returned.
+	 */
+	public void testTrailingLinesOmitted()
+	{
+		Canvas canvas = new Canvas(3, 5);
+		canvas.put(0, 1, 'x');
+		assertEquals("   \nx  \n", canvas.toString());
+	}
+
+	public void testCrossingKept()
+	{
+		Canvas canvas = new Canvas(3, 1);
+		canvas.put(0, 0, "+-+");
+		canvas.put(0, 0, "|a|");
+		assertEquals("+a+\n", canvas.toString());
+	}
+
+	public void testGrows()
+	{
+		Canvas canvas = new Canvas(2, 1);
+		canvas.put(0, 0, 'a');
+		canvas.put(1, 4, 'b');
+		canvas.put(0, 9, 'c');
+		assertEquals("a \n  \n  \n  \n b\n  \n  \n  \n  \nc \n", canvas.toString());
+	}
+
+	/**
+	 * Characters outside of the width are dropped rather than wrapped to the next line.
+	 */
+	public void testOutsideIgnored()
+	{
+		Canvas canvas = new Canvas(2, 1);
+		canvas.put(-1, 0, 'x');
+		canvas.put(0, -1, 'x');
+		canvas.put(1, 0, "abc");
+		assertEquals(" a\n", canvas.toString());
+	}
+}
@@ -0,0 +1,174 @@
+package com.solace.psg.tablereporter;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests writing tables row by row.
+ */
+public class TableWriterTest extends TestCase
+{
+	private static final List<String> HEADERS = Arrays.asList("Name", "Count", "State");
+
+	private static final List<List<String>> ROWS = Arrays.asList(
+			Arrays.asList("orders", "42", "up"),
+			Arrays.asList("payments-eu", "7", "down"),
+			Arrays.asList("q", "123456", "up"));
+
+	private static final List<Integer> WIDTHS = Arrays.asList(12, 8, 6);
+
+	private static final List<Integer> ALIGNS = Arrays.asList(Block.DATA_MIDDLE_LEFT, Block.DATA_MIDDLE_RIGHT, Block.DATA_CENTER);
+
+	private StringWriter out;
+
+	public TableWriterTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		out = new StringWriter();
+	}
+
+	/**
+	 * The output has the layout of a table rendered with GRID_COLUMN, without the space the board leaves on the right.
+	 */
+	public void testSameLayoutAsTable() throws Exception
+	{
+		try (TableWriter writer = new TableWriter(out, HEADERS, WIDTHS).setColAlignsList(ALIGNS))
+		{
+			for (List<String> row : ROWS)
+				writer.writeRow(row);
+		}
+
+		Board board = new Board(Board.getRecommendedWidth(WIDTHS, true));
+		Table table = new Table(board, Board.getRecommendedWidth(WIDTHS, true), HEADERS, ROWS, WIDTHS, ALIGNS);
+		table.setGridMode(Table.GRID_COLUMN);
+		board.setInitialBlock(table.tableToBlocks());
+		String expected = board.build().getPreview().replace(" \n", "\n");
+
+		assertEquals(expected, out.toString());
+		assertEquals(
+				"+------------+--------+------+\n" +
+				"|Name        |   Count| State|\n" +
+				"+------------+--------+------+\n" +
+				"|orders      |      42|  up  |\n" +
+				"|payments-eu |       7| down |\n" +
+				"|q           |  123456|  up  |\n" +
+				"+------------+--------+------+\n",
+				out.toString());
+	}
+
+	public void testSampledWidths() throws Exception
+	{
+		try (TableWriter writer = new TableWriter(out, HEADERS, 10, 0))
+		{
+			for (List<String> row : ROWS)
+				writer.writeRow(row);
+		}
+
+		assertEquals(
+				"+-----------+------+-----+\n" +
+				"|Name       |Count |State|\n" +
+				"+-----------+------+-----+\n" +
+				"|orders     |42    |up   |\n" +
+				"|payments-eu|7     |down |\n" +
+				"|q          |123456|up   |\n" +
+				"+-----------+------+-----+\n",
+				out.toString());
+	}
+
+	/**
+	 * Values longer than the maximum width are cut, the rows after the sample do not change the widths.
+	 */
+	public void testMaxWidthAndLateRows() throws Exception
+	{
+		try (TableWriter writer = new TableWriter(out, Arrays.asList("Name"), 1, 4))
+		{
+			writer.writeRow(Arrays.asList("ab"));
+			writer.writeRow(Arrays.asList("abcdefgh"));
+		}
+
+		assertEquals(
+				"+----+\n" +
+				"|Name|\n" +
+				"+----+\n" +
+				"|ab  |\n" +
+				"|abcd|\n" +
+				"+----+\n",
+				out.toString());
+	}
+
+	public void testSampleHeldBack() throws Exception
+	{
+		TableWriter writer = new TableWriter(out, HEADERS, 2, 0);
+		writer.writeRow(ROWS.get(0));
+		assertEquals("", out.toString());
+
+		writer.writeRow(ROWS.get(1));
+		assertEquals(5, out.toString().split("\n").length);
+
+		writer.writeRow(ROWS.get(2));
+		assertEquals(6, out.toString().split("\n").length);
+
+		writer.close();
+		assertEquals(7, out.toString().split("\n").length);
+		assertEquals(3, writer.getRowCount());
+	}
+
+	public void testNoRows() throws Exception
+	{
+		new TableWriter(out, Arrays.asList("A", "B"), 10, 0).close();
+
+		assertEquals(
+				"+-+-+\n" +
+				"|A|B|\n" +
+				"+-+-+\n" +
+				"+-+-+\n",
+				out.toString());
+	}
+
+	public void testFinishOnce() throws Exception
+	{
+		TableWriter writer = new TableWriter(out, Arrays.asList("A"), Arrays.asList(1));
+		writer.finish();
+		String text = out.toString();
+		writer.close();
+		assertEquals(text, out.toString());
+	}
+
+	public void testNullAndMultiLineValues() throws Exception
+	{
+		try (TableWriter writer = new TableWriter(out, Arrays.asList("A", "B"), Arrays.asList(3, 3)))
+		{
+			writer.writeRow(Arrays.asList(null, "a\nb"));
+		}
+
+		assertEquals(
+				"+---+---+\n" +
+				"|A  |B  |\n" +
+				"+---+---+\n" +
+				"|   |a b|\n" +
+				"+---+---+\n",
+				out.toString());
+	}
+
+	public void testRowSizeMismatch() throws Exception
+	{
+		TableWriter writer = new TableWriter(out, HEADERS, WIDTHS);
+		try
+		{
+			writer.writeRow(Arrays.asList("a", "b"));
+			fail("Expected a RuntimeException.");
+		}
+		catch (RuntimeException e)
+		{
+			// Expected.
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package com.solace.psg.util.provision;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests reading YAML and CSV provisioning manifests.
+ */
+public class QueueManifestTest extends TestCase
+{
+	private Path file;
+
+	public QueueManifestTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		if (file != null)
+			Files.deleteIfExists(file);
+	}
+
+	public void testYamlQueuesObject() throws Exception
+	{
+		List<QueueSpec> queues = load(".yaml",
+				"queues:",
+				"  - name: orders",
+				"    accessType: exclusive",
+				"    quota: 1000",
+				"    maxTtl: 60",
+				"    respectTtl: true",
+				"    dmq: orders.dmq",
+				"    subscriptions: [ \"orders/>\", \"returns/>\" ]",
+				"  - name: orders.dmq");
+
+		assertEquals(2, queues.size());
+		QueueSpec orders = queues.get(0);
+		assertEquals("orders", orders.getName());
+		assertEquals(QueueSpec.EXCLUSIVE, orders.getAccessType());
+		assertTrue(orders.isExclusive());
+		assertEquals(Long.valueOf(1000), orders.getQuota());
+		assertEquals(Long.valueOf(60), orders.getMaxTtl());
+		assertEquals(Boolean.TRUE, orders.getRespectTtl());
+		assertEquals("orders.dmq", orders.getDmq());
+		assertEquals(Arrays.asList("orders/>", "returns/>"), orders.getSubscriptions());
+
+		QueueSpec dmq = queues.get(1);
+		assertEquals("orders.dmq", dmq.getName());
+		assertNull(dmq.getAccessType());
+		assertNull(dmq.getQuota());
+		assertNull(dmq.getMaxTtl());
+		assertNull(dmq.getRespectTtl());
+		assertTrue(dmq.getSubscriptions().isEmpty());
+	}
+
+	public void testYamlList() throws Exception
+	{
+		List<QueueSpec> queues = load(".yml",
+				"- name: a",
+				"  accessType: non-exclusive",
+				"- name: b");
+
+		assertEquals(2, queues.size());
+		assertEquals("a", queues.get(0).getName());
+		assertFalse(queues.get(0).isExclusive());
+		assertEquals("b", queues.get(1).getName());
+	}
+
+	public void testEmptyYaml() throws Exception
+	{
+		assertTrue(load(".yaml", "queues:").isEmpty());
+	}
+
+	public void testYamlNotAList() throws Exception
+	{
+		assertInvalid(".yaml", "queues: orders");
+	}
+
+	public void testCsv() throws Exception
+	{
+		List<QueueSpec> queues = load(".csv",
+				"# Queues of the order service",
+				"name,accessType,quota,maxTtl,respectTtl,dmq,subscriptions",
+				"orders,exclusive,1000,60,true,orders.dmq,orders/>;returns/>",
+				"",
+				"\"orders,eu\",NON-EXCLUSIVE,,,,,\"a/\"\"b\"\"\"",
+				"orders.dmq");
+
+		assertEquals(3, queues.size());
+		QueueSpec orders = queues.get(0);
+		assertEquals("orders", orders.getName());
+		assertTrue(orders.isExclusive());
+		assertEquals(Long.valueOf(1000), orders.getQuota());
+		assertEquals(Long.valueOf(60), orders.getMaxTtl());
+		assertEquals(Boolean.TRUE, orders.getRespectTtl());
+		assertEquals("orders.dmq", orders.getDmq());
+		assertEquals(Arrays.asList("orders/>", "returns/>"), orders.getSubscriptions());
+
+		// Quoted values can contain commas and escaped quotes, empty values are unset.
+		QueueSpec quoted = queues.get(1);
+		assertEquals("orders,eu", quoted.getName());
+		assertFalse(quoted.isExclusive());
+		assertNull(quoted.getQuota());
+		assertNull(quoted.getDmq());
+		assertEquals(Arrays.asList("a/\"b\""), quoted.getSubscriptions());
+
+		// Missing trailing columns are unset.
+		QueueSpec dmq = queues.get(2);
+		assertEquals("orders.dmq", dmq.getName());
+		assertNull(dmq.getAccessType());
+		assertTrue(dmq.getSubscriptions().isEmpty());
+	}
+
+	public void testCsvColumnsInAnyOrder() throws Exception
+	{
+		List<QueueSpec> queues = load(".csv",
+				"Quota, Name",
+				"500,orders");
+
+		assertEquals(1, queues.size());
+		assertEquals("orders", queues.get(0).getName());
+		assertEquals(Long.valueOf(500), queues.get(0).getQuota());
+	}
+
+	public void testCsvWithoutNameColumn() throws Exception
+	{
+		assertInvalid(".csv", "queue,quota", "orders,1000");
+	}
+
+	public void testCsvInvalidNumber() throws Exception
+	{
+		assertInvalid(".csv", "name,quota", "orders,lots");
+	}
+
+	public void testDuplicateName() throws Exception
+	{
+		assertInvalid(".csv", "name", "orders", "orders");
+	}
+
+	public void testInvalidAccessType() throws Exception
+	{
+		assertInvalid(".yaml", "- name: orders", "  accessType: shared");
+	}
+
+	public void testMissingName() throws Exception
+	{
+		assertInvalid(".yaml", "- quota: 100");
+	}
+
+	private List<QueueSpec> load(String suffix, String... lines) throws IOException
+	{
+		file = File.createTempFile("manifest", suffix).toPath();
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+		return QueueManifest.load(file);
+	}
+
+	private void assertInvalid(String suffix, String... lines)
+	{
+		try
+		{
+			load(suffix, lines);
+			fail("Expected an IOException.");
+		}
+		catch (IOException e)
+		{
+			// Expected.
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.solace.psg.util.queuecopy;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the resume point of a copy when the target confirms messages out of order.
+ */
+public class CopyProgressTest extends TestCase
+{
+	private Path file;
+
+	public CopyProgressTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		file = File.createTempFile("copycheckpoint", ".properties").toPath();
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		Files.deleteIfExists(file);
+	}
+
+	public void testInOrder()
+	{
+		CopyProgress progress = receive(3);
+		progress.complete(1, true, false);
+		progress.complete(2, true, false);
+		progress.complete(3, true, false);
+
+		assertEquals("id3", progress.getLastMessageId());
+		assertEquals(3, progress.getMessagesCopied());
+		assertEquals(30, progress.getBytesCopied());
+	}
+
+	/**
+	 * A message confirmed before an earlier one does not move the progress past the earlier one.
+	 */
+	public void testOutOfOrder()
+	{
+		CopyProgress progress = receive(5);
+		progress.complete(2, true, false);
+		progress.complete(3, true, false);
+		assertNull(progress.getLastMessageId());
+		assertEquals(0, progress.getMessagesCopied());
+
+		progress.complete(1, true, false);
+		assertEquals("id3", progress.getLastMessageId());
+		assertEquals(3, progress.getMessagesCopied());
+
+		progress.complete(5, true, false);
+		assertEquals("id3", progress.getLastMessageId());
+
+		progress.complete(4, true, false);
+		assertEquals("id5", progress.getLastMessageId());
+		assertEquals(5, progress.getMessagesCopied());
+	}
+
+	/**
+	 * Nothing after a failed message is passed, it is copied again on resume.
+	 */
+	public void testFailedMessageStopsProgress()
+	{
+		CopyProgress progress = receive(4);
+		progress.complete(1, true, false);
+		progress.complete(3, true, false);
+		progress.complete(2, false, false);
+		progress.complete(4, true, false);
+
+		assertEquals("id1", progress.getLastMessageId());
+		assertEquals(1, progress.getMessagesCopied());
+
+		progress.add(5, "id5", 10);
+		progress.complete(5, true, false);
+		assertEquals("id1", progress.getLastMessageId());
+	}
+
+	/**
+	 * A parked message is passed but not counted as copied.
+	 */
+	public void testParkedMessage()
+	{
+		CopyProgress progress = receive(3);
+		progress.complete(2, true, true);
+		progress.complete(1, true, false);
+		progress.complete(3, true, false);
+
+		assertEquals("id3", progress.getLastMessageId());
+		assertEquals(2, progress.getMessagesCopied());
+		assertEquals(20, progress.getBytesCopied());
+	}
+
+	public void testUnknownAndDuplicateCompletions()
+	{
+		CopyProgress progress = receive(2);
+		progress.complete(1, true, false);
+		progress.complete(1, true, false);
+		progress.complete(7, true, false);
+
+		assertEquals("id1", progress.getLastMessageId());
+		assertEquals(1, progress.getMessagesCopied());
+	}
+
+	/**
+	 * Saves a checkpoint while a message is still unconfirmed and resumes from it: the checkpoint points before 
+	 * the unconfirmed message and keeps the progress until the resumed copy passes it.
+	 */
+	public void testCheckpointWithUnconfirmedMessage() throws Exception
+	{
+		CopyProgress progress = receive(4);
+		progress.complete(1, true, false);
+		progress.complete(3, true, false);
+		progress.complete(4, true, false);
+
+		CopyCheckpoint checkpoint = new CopyCheckpoint("src", "dst", "q1", "q2", false, 100);
+		checkpoint.setProgress(progress.getMessagesCopied(), progress.getBytesCopied(), progress.getLastMessageId(), false);
+		checkpoint.save(file);
+
+		CopyCheckpoint loaded = CopyCheckpoint.load(file);
+		assertEquals("id1", loaded.getLastMessageId());
+		assertEquals(1, loaded.getMessagesCopied());
+		assertEquals(10, loaded.getBytesCopied());
+		assertFalse(loaded.isCompleted());
+
+		CopyProgress resumed = new CopyProgress();
+		resumed.resume(loaded.getLastMessageId(), loaded.getMessagesCopied(), loaded.getBytesCopied());
+		resumed.add(1, "id2", 10);
+		resumed.add(2, "id3", 10);
+		assertEquals("id1", resumed.getLastMessageId());
+
+		resumed.complete(2, true, false);
+		assertEquals("id1", resumed.getLastMessageId());
+
+		resumed.complete(1, true, false);
+		assertEquals("id3", resumed.getLastMessageId());
+		assertEquals(3, resumed.getMessagesCopied());
+		assertEquals(30, resumed.getBytesCopied());
+	}
+
+	/**
+	 * Receives messages id1..idN of 10 bytes each.
+	 */
+	private static CopyProgress receive(int count)
+	{
+		CopyProgress progress = new CopyProgress();
+		for (int i = 1; i <= count; i++)
+			progress.add(i, "id" + i, 10);
+		return progress;
+	}
+}
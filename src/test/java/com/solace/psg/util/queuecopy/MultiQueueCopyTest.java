@@ -0,0 +1,104 @@
+package com.solace.psg.util.queuecopy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the queue name wildcards and target queue names of multi queue copies.
+ */
+public class MultiQueueCopyTest extends TestCase
+{
+	public MultiQueueCopyTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testExactName()
+	{
+		assertTrue(MultiQueueCopy.matches("orders", "orders"));
+		assertFalse(MultiQueueCopy.matches("orders2", "orders"));
+		assertFalse(MultiQueueCopy.matches("order", "orders"));
+		assertFalse(MultiQueueCopy.matches("Orders", "orders"));
+	}
+
+	public void testStar()
+	{
+		assertTrue(MultiQueueCopy.matches("orders", "*"));
+		assertTrue(MultiQueueCopy.matches("", "*"));
+		assertTrue(MultiQueueCopy.matches("orders", "orders*"));
+		assertTrue(MultiQueueCopy.matches("orders/eu/1", "orders*"));
+		assertTrue(MultiQueueCopy.matches("eu-orders-dmq", "*orders*"));
+		assertTrue(MultiQueueCopy.matches("q.eu.dmq", "q*dmq"));
+		assertFalse(MultiQueueCopy.matches("payments", "orders*"));
+		assertFalse(MultiQueueCopy.matches("q.eu.dmq2", "q*dmq"));
+	}
+
+	public void testQuestionMark()
+	{
+		assertTrue(MultiQueueCopy.matches("q1", "q?"));
+		assertFalse(MultiQueueCopy.matches("q", "q?"));
+		assertFalse(MultiQueueCopy.matches("q12", "q?"));
+		assertTrue(MultiQueueCopy.matches("q12", "q??"));
+		assertTrue(MultiQueueCopy.matches("q12x", "q?*"));
+	}
+
+	/**
+	 * Characters with a meaning in regular expressions only match themselves.
+	 */
+	public void testRegexCharactersAreLiteral()
+	{
+		assertTrue(MultiQueueCopy.matches("a.b", "a.b"));
+		assertFalse(MultiQueueCopy.matches("axb", "a.b"));
+		assertTrue(MultiQueueCopy.matches("q(1)+[x]", "q(1)+[x]"));
+		assertFalse(MultiQueueCopy.matches("q1", "q(1)"));
+		assertTrue(MultiQueueCopy.matches("a$b^c", "a$*"));
+		assertTrue(MultiQueueCopy.matches("a\\Eb", "a\\E*"));
+		assertFalse(MultiQueueCopy.matches("ab", "a|b"));
+	}
+
+	public void testSameQueue()
+	{
+		VPN vpn = new VPN("tcp://host:55555", "default", "user", "pw");
+		VPN sameWithOtherUser = new VPN("tcp://host:55555", "default", "other", "pw2");
+		VPN otherVpn = new VPN("tcp://host:55555", "other", "user", "pw");
+		VPN otherHost = new VPN("tcp://host2:55555", "default", "user", "pw");
+
+		assertTrue(MultiQueueCopy.isSameQueue(vpn, "q1", vpn, "q1"));
+		assertTrue(MultiQueueCopy.isSameQueue(vpn, "q1", sameWithOtherUser, "q1"));
+		assertFalse(MultiQueueCopy.isSameQueue(vpn, "q1", vpn, "q2"));
+		assertFalse(MultiQueueCopy.isSameQueue(vpn, "q1", otherVpn, "q1"));
+		assertFalse(MultiQueueCopy.isSameQueue(vpn, "q1", otherHost, "q1"));
+	}
+
+	/**
+	 * A wildcard without a target pattern maps every queue onto itself on the same VPN.
+	 */
+	public void testCopyOntoItselfRejected()
+	{
+		VPN vpn = new VPN("tcp://host:55555", "default", "user", "pw");
+		Map<String, String> mapping = new LinkedHashMap<String, String>();
+		mapping.put("q1", MultiQueueCopy.getTargetQueueName("{queue}.copy", "q1"));
+		new MultiQueueCopy(vpn, vpn, mapping, 10, false);
+
+		mapping.put("q2", MultiQueueCopy.getTargetQueueName(null, "q2"));
+		try
+		{
+			new MultiQueueCopy(vpn, vpn, mapping, 10, false);
+			fail("Expected an IllegalArgumentException.");
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("q2"));
+		}
+	}
+
+	public void testTargetQueueName()
+	{
+		assertEquals("orders", MultiQueueCopy.getTargetQueueName(null, "orders"));
+		assertEquals("orders", MultiQueueCopy.getTargetQueueName("", "orders"));
+		assertEquals("orders.copy", MultiQueueCopy.getTargetQueueName("{queue}.copy", "orders"));
+		assertEquals("archive", MultiQueueCopy.getTargetQueueName("archive", "orders"));
+	}
+}
@@ -0,0 +1,131 @@
+package com.solace.psg.util.queuecopy;
+
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the publish rate limits and the adaptive back-off. The timings only check lower bounds and generous upper
+ * bounds, so they hold on a loaded machine.
+ */
+public class PublishThrottleTest extends TestCase
+{
+	public PublishThrottleTest(String testName)
+	{
+		super(testName);
+	}
+
+	public void testNegativeRate()
+	{
+		try
+		{
+			new PublishThrottle(-1, 0, false);
+			fail("Expected an IllegalArgumentException.");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// Expected.
+		}
+	}
+
+	public void testUnlimited() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(0, 0, false);
+		long elapsed = time(() ->
+		{
+			for (int i = 0; i < 100000; i++)
+				throttle.acquire(1, 1000);
+		});
+		assertTrue("Took " + elapsed + " ms.", elapsed < 1000);
+	}
+
+	/**
+	 * 60 messages at 100 per second with a burst of 10 take about half a second.
+	 */
+	public void testMessageRate() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(100, 0, false);
+		long elapsed = time(() ->
+		{
+			for (int i = 0; i < 60; i++)
+				throttle.acquire(1, 0);
+		});
+		assertTrue("Took " + elapsed + " ms.", elapsed >= 400 && elapsed < 3000);
+	}
+
+	/**
+	 * 5000 bytes at 10000 bytes per second with a burst of 1000 take about 0.4 seconds.
+	 */
+	public void testByteRate() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(0, 10000, false);
+		long elapsed = time(() ->
+		{
+			for (int i = 0; i < 5; i++)
+				throttle.acquire(1, 1000);
+		});
+		assertTrue("Took " + elapsed + " ms.", elapsed >= 300 && elapsed < 3000);
+	}
+
+	public void testBackOffIgnoredWhenNotAdaptive() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(1000, 0, false);
+		throttle.backOff();
+		assertEquals(1.0, throttle.getRateFactor(), 0.0);
+		long elapsed = time(() -> throttle.acquire(1, 0));
+		assertTrue("Took " + elapsed + " ms.", elapsed < 50);
+	}
+
+	/**
+	 * A back-off halves the rate and pauses publishing, a second back-off within a second is ignored.
+	 */
+	public void testBackOff() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(1000, 0, true);
+		long elapsed = time(() ->
+		{
+			throttle.backOff();
+			throttle.backOff();
+			throttle.acquire(1, 0);
+		});
+		assertEquals(0.5, throttle.getRateFactor(), 0.01);
+		assertTrue("Took " + elapsed + " ms.", elapsed >= 80 && elapsed < 3000);
+	}
+
+	public void testRateRecovers() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(1000, 0, true);
+		throttle.backOff();
+		Thread.sleep(1500);
+		throttle.acquire(1, 0);
+		assertTrue(throttle.getRateFactor() > 0.5);
+	}
+
+	public void testInterrupted() throws Exception
+	{
+		PublishThrottle throttle = new PublishThrottle(1, 0, false);
+		throttle.acquire(1, 0);
+		Thread.currentThread().interrupt();
+		try
+		{
+			throttle.acquire(5, 0);
+			fail("Expected an InterruptedException.");
+		}
+		catch (InterruptedException e)
+		{
+			assertFalse(Thread.currentThread().isInterrupted());
+		}
+	}
+
+	private interface Action
+	{
+		void run() throws InterruptedException;
+	}
+
+	private static long time(Action action) throws InterruptedException
+	{
+		long start = System.nanoTime();
+		action.run();
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,314 @@
+package com.solace.psg.util.queuecopy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.MapMessage;
+import com.solacesystems.jcsmp.SDTMap;
+import com.solacesystems.jcsmp.SDTStream;
+import com.solacesystems.jcsmp.StreamMessage;
+import com.solacesystems.jcsmp.TextMessage;
+import com.solacesystems.jcsmp.Topic;
+import com.solacesystems.jcsmp.XMLContentMessage;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests writing and reading queue archives, including archives of an interrupted export.
+ */
+public class QueueArchiveTest extends TestCase
+{
+	private Path file;
+
+	public QueueArchiveTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		file = File.createTempFile("queuearchive", ".sqa").toPath();
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		Files.deleteIfExists(file);
+	}
+
+	public void testRoundTripCompressed() throws Exception
+	{
+		roundTrip(true, false);
+	}
+
+	public void testRoundTripUncompressed() throws Exception
+	{
+		roundTrip(false, false);
+	}
+
+	public void testRoundTripMemoryMapped() throws Exception
+	{
+		roundTrip(false, true);
+	}
+
+	/**
+	 * Kills an export after a flush: the records written after the flush never reach the file, the flushed ones
+	 * must all be imported.
+	 */
+	public void testKilledCompressedExportKeepsFlushedRecords() throws Exception
+	{
+		assertEquals(50, exportAndKill(true, 50, 20));
+	}
+
+	/**
+	 * Uncompressed records are written straight to the file, flushing only forces them to the storage device.
+	 */
+	public void testKilledUncompressedExportKeepsFlushedRecords() throws Exception
+	{
+		assertEquals(70, exportAndKill(false, 50, 20));
+	}
+
+	/**
+	 * A record cut off by the end of the file ends the archive.
+	 */
+	public void testTruncatedRecordEndsArchive() throws Exception
+	{
+		try (QueueArchiveWriter writer = new QueueArchiveWriter(file, false))
+		{
+			for (int i = 0; i < 3; i++)
+				writer.write(createText(i));
+		}
+
+		long size = Files.size(file);
+		try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file, StandardOpenOption.WRITE))
+		{
+			channel.truncate(size - 5);
+		}
+
+		assertEquals(2, countRecords(false));
+		assertEquals(2, countRecords(true));
+	}
+
+	/**
+	 * Map, stream and XML content messages keep their type and body.
+	 */
+	public void testStructuredMessagesRoundTrip() throws Exception
+	{
+		SDTStream nestedStream = JCSMPFactory.onlyInstance().createStream();
+		nestedStream.writeString("inner");
+		SDTMap body = JCSMPFactory.onlyInstance().createMap();
+		body.putString("s", "text");
+		body.putDouble("d", 1.5);
+		body.putBytes("bytes", new byte[] {4, 5});
+		body.putStream("stream", nestedStream);
+		body.putDestination("topic", JCSMPFactory.onlyInstance().createTopic("a/b"));
+		MapMessage mapMsg = JCSMPFactory.onlyInstance().createMessage(MapMessage.class);
+		mapMsg.setMap(body);
+
+		SDTStream stream = JCSMPFactory.onlyInstance().createStream();
+		stream.writeInteger(7);
+		stream.writeBytes(new byte[] {8, 9, 10});
+		stream.writeString(null);
+		stream.writeMap(JCSMPFactory.onlyInstance().createMap());
+		StreamMessage streamMsg = JCSMPFactory.onlyInstance().createMessage(StreamMessage.class);
+		streamMsg.setStream(stream);
+
+		XMLContentMessage xmlMsg = JCSMPFactory.onlyInstance().createMessage(XMLContentMessage.class);
+		xmlMsg.setXMLContent("<order id=\"1\"/>");
+
+		TextMessage textMsg = createText(1);
+		textMsg.writeBytes("<meta/>".getBytes("UTF-8"));
+
+		try (QueueArchiveWriter writer = new QueueArchiveWriter(file, false))
+		{
+			writer.write(mapMsg);
+			writer.write(streamMsg);
+			writer.write(xmlMsg);
+			writer.write(textMsg);
+		}
+
+		try (QueueArchiveReader reader = new QueueArchiveReader(file, false))
+		{
+			BytesXMLMessage first = reader.next();
+			assertTrue(first instanceof MapMessage);
+			SDTMap map = ((MapMessage) first).getMap();
+			assertEquals(5, map.keySet().size());
+			assertEquals("text", map.getString("s"));
+			assertEquals(Double.valueOf(1.5), map.getDouble("d"));
+			assertEquals(2, map.getBytes("bytes").length);
+			assertEquals("inner", map.getStream("stream").readString());
+			assertTrue(map.getDestination("topic") instanceof Topic);
+			assertEquals("a/b", map.getDestination("topic").getName());
+
+			BytesXMLMessage second = reader.next();
+			assertTrue(second instanceof StreamMessage);
+			SDTStream readStream = ((StreamMessage) second).getStream();
+			assertEquals(Integer.valueOf(7), readStream.readInteger());
+			byte[] bytes = readStream.readBytes();
+			assertEquals(3, bytes.length);
+			assertEquals(10, bytes[2]);
+			assertNull(readStream.readString());
+			assertTrue(readStream.readMap().keySet().isEmpty());
+			assertFalse(readStream.hasRemaining());
+
+			BytesXMLMessage third = reader.next();
+			assertTrue(third instanceof XMLContentMessage);
+			assertEquals("<order id=\"1\"/>", ((XMLContentMessage) third).getXMLContent());
+
+			BytesXMLMessage fourth = reader.next();
+			assertTrue(fourth instanceof TextMessage);
+			assertEquals("message 1", ((TextMessage) fourth).getText());
+			byte[] content = new byte[fourth.getContentLength()];
+			fourth.readContentBytes(content);
+			assertEquals("<meta/>", new String(content, "UTF-8"));
+
+			assertNull(reader.next());
+		}
+	}
+
+	public void testNotAnArchive() throws Exception
+	{
+		Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		try
+		{
+			new QueueArchiveReader(file, false).close();
+			fail("Expected an IOException.");
+		}
+		catch (IOException e)
+		{
+			// Expected.
+		}
+	}
+
+	private void roundTrip(boolean compress, boolean memoryMap) throws Exception
+	{
+		SDTMap nested = JCSMPFactory.onlyInstance().createMap();
+		nested.putString("inner", "value");
+		SDTMap properties = JCSMPFactory.onlyInstance().createMap();
+		properties.putString("s", "text");
+		properties.putInteger("i", 42);
+		properties.putLong("l", Long.MAX_VALUE);
+		properties.putBoolean("b", true);
+		properties.putBytes("bytes", new byte[] {1, 2, 3});
+		properties.putMap("map", nested);
+
+		TextMessage text = createText(1);
+		text.setApplicationMessageId("app-1");
+		text.setCorrelationId("corr-1");
+		text.setApplicationMessageType("type-1");
+		text.setTimeToLive(60000);
+		text.setDMQEligible(true);
+		text.setProperties(properties);
+
+		BytesMessage bytes = JCSMPFactory.onlyInstance().createMessage(BytesMessage.class);
+		bytes.setData(new byte[] {(byte) 0xff, 0, 7});
+		bytes.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+
+		try (QueueArchiveWriter writer = new QueueArchiveWriter(file, compress))
+		{
+			writer.write(text);
+			writer.write(bytes);
+			assertEquals(2, writer.getRecordCount());
+		}
+
+		try (QueueArchiveReader reader = new QueueArchiveReader(file, memoryMap))
+		{
+			assertEquals(compress, reader.isCompressed());
+
+			BytesXMLMessage first = reader.next();
+			assertTrue(first instanceof TextMessage);
+			assertEquals("message 1", ((TextMessage) first).getText());
+			assertEquals("app-1", first.getApplicationMessageId());
+			assertEquals("corr-1", first.getCorrelationId());
+			assertEquals("type-1", first.getApplicationMessageType());
+			assertEquals(60000, first.getTimeToLive());
+			assertTrue(first.isDMQEligible());
+			assertEquals(DeliveryMode.PERSISTENT, first.getDeliveryMode());
+			assertEquals("text", first.getProperties().getString("s"));
+			assertEquals(Integer.valueOf(42), first.getProperties().getInteger("i"));
+			assertEquals(Long.valueOf(Long.MAX_VALUE), first.getProperties().getLong("l"));
+			assertEquals(Boolean.TRUE, first.getProperties().getBoolean("b"));
+			assertEquals(3, first.getProperties().getBytes("bytes").length);
+			assertEquals("value", first.getProperties().getMap("map").getString("inner"));
+
+			BytesXMLMessage second = reader.next();
+			assertTrue(second instanceof BytesMessage);
+			byte[] data = ((BytesMessage) second).getData();
+			assertEquals(3, data.length);
+			assertEquals((byte) 0xff, data[0]);
+			assertEquals(DeliveryMode.NON_PERSISTENT, second.getDeliveryMode());
+			assertFalse(second.isDMQEligible());
+
+			assertNull(reader.next());
+			assertEquals(2, reader.getRecordCount());
+		}
+	}
+
+	/**
+	 * Writes and flushes records, writes more without flushing and reads the file as it would be found after the
+	 * process was killed at that point.
+	 * @return the number of records read back
+	 */
+	private long exportAndKill(boolean compress, int flushed, int unflushed) throws Exception
+	{
+		Path copy = File.createTempFile("queuearchive", ".killed").toPath();
+		QueueArchiveWriter writer = new QueueArchiveWriter(file, compress);
+		try
+		{
+			for (int i = 0; i < flushed; i++)
+				writer.write(createText(i));
+			writer.flush();
+
+			for (int i = flushed; i < flushed + unflushed; i++)
+				writer.write(createText(i));
+
+			// The file content at the time of the kill, the writer is never closed for it.
+			Files.copy(file, copy, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+		}
+		finally
+		{
+			writer.close();
+		}
+
+		try (QueueArchiveReader reader = new QueueArchiveReader(copy, false))
+		{
+			long count = 0;
+			BytesXMLMessage msg;
+			while ((msg = reader.next()) != null)
+			{
+				assertEquals("message " + count, ((TextMessage) msg).getText());
+				count++;
+			}
+			return count;
+		}
+		finally
+		{
+			Files.deleteIfExists(copy);
+		}
+	}
+
+	private long countRecords(boolean memoryMap) throws Exception
+	{
+		try (QueueArchiveReader reader = new QueueArchiveReader(file, memoryMap))
+		{
+			while (reader.next() != null)
+				;
+			return reader.getRecordCount();
+		}
+	}
+
+	private static TextMessage createText(int i)
+	{
+		TextMessage msg = JCSMPFactory.onlyInstance().createMessage(TextMessage.class);
+		msg.setText("message " + i);
+		return msg;
+	}
+}
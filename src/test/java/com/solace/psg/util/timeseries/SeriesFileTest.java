@@ -0,0 +1,276 @@
+package com.solace.psg.util.timeseries;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests writing, reading and recovering metrics recordings.
+ */
+public class SeriesFileTest extends TestCase
+{
+	private File file;
+
+	public SeriesFileTest(String testName)
+	{
+		super(testName);
+	}
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		file = File.createTempFile("series", ".sts");
+		file.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		file.delete();
+	}
+
+	public void testRoundTrip() throws Exception
+	{
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			for (int i = 0; i < 10; i++)
+				writer.append(1000L * i, row(i));
+		}
+
+		List<Long> times = new ArrayList<Long>();
+		List<Map<String, Long>> rows = new ArrayList<Map<String, Long>>();
+		try (SeriesFileReader reader = new SeriesFileReader(file))
+		{
+			assertEquals(10, reader.read(0, Long.MAX_VALUE, null, (time, row) ->
+			{
+				times.add(time);
+				rows.add(row);
+			}));
+			assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(reader.readColumns(0, Long.MAX_VALUE)));
+		}
+
+		for (int i = 0; i < 10; i++)
+		{
+			assertEquals(1000L * i, times.get(i).longValue());
+			assertEquals(row(i), rows.get(i));
+		}
+	}
+
+	public void testTimeRangeAndColumnFilter() throws Exception
+	{
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			for (int i = 0; i < 10; i++)
+				writer.append(1000L * i, row(i));
+		}
+
+		List<Long> times = new ArrayList<Long>();
+		try (SeriesFileReader reader = new SeriesFileReader(file))
+		{
+			reader.read(3000, 7000, "a"::equals, (time, row) ->
+			{
+				times.add(time);
+				assertEquals(Long.valueOf(time / 1000 * 10), row.get("a"));
+				assertFalse(row.containsKey("b"));
+			});
+		}
+
+		assertEquals(Arrays.asList(3000L, 4000L, 5000L, 6000L), times);
+	}
+
+	public void testReopenAppends() throws Exception
+	{
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			for (int i = 0; i < 6; i++)
+				writer.append(1000L * i, row(i));
+		}
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			for (int i = 6; i < 9; i++)
+				writer.append(1000L * i, row(i));
+		}
+
+		assertEquals(9, countRows());
+	}
+
+	/**
+	 * A block cut off by an interruption is dropped when the recording is opened again.
+	 */
+	public void testTruncatedTailIsCut() throws Exception
+	{
+		writeBlocks(3);
+		long complete = file.length();
+		appendBlock(3);
+		truncate(file.length() - 7);
+
+		assertEquals(6, countRows());
+
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			assertEquals(complete, file.length());
+			writer.append(100000L, row(1));
+		}
+
+		assertEquals(7, countRows());
+	}
+
+	/**
+	 * A last block of the full length but with content that was never written is dropped as well.
+	 */
+	public void testCorruptTailIsCut() throws Exception
+	{
+		writeBlocks(3);
+		long complete = file.length();
+		appendBlock(3);
+		corrupt(file.length() - 6);
+
+		// Opening the writer cuts the corrupt block.
+		SeriesFileWriter writer = new SeriesFileWriter(file, 4);
+		try
+		{
+			assertEquals(complete, file.length());
+		}
+		finally
+		{
+			writer.close();
+		}
+
+		assertEquals(6, countRows());
+	}
+
+	/**
+	 * A corrupt block followed by good blocks is not cut off with them.
+	 */
+	public void testCorruptBlockBeforeTailIsReported() throws Exception
+	{
+		writeBlocks(3);
+		long length = file.length();
+		corrupt(SeriesFormat.FILE_HEADER_SIZE + SeriesFormat.BLOCK_HEADER_SIZE + 1);
+
+		try
+		{
+			new SeriesFileWriter(file, 4).close();
+			fail("Expected an IOException.");
+		}
+		catch (IOException e)
+		{
+			assertEquals(length, file.length());
+		}
+
+		try
+		{
+			countRows();
+			fail("Expected an IOException.");
+		}
+		catch (IOException e)
+		{
+			// Expected.
+		}
+	}
+
+	public void testNotARecording() throws Exception
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.writeLong(42L);
+		}
+
+		try
+		{
+			new SeriesFileReader(file).close();
+			fail("Expected an IOException.");
+		}
+		catch (IOException e)
+		{
+			// Expected.
+		}
+	}
+
+	public void testDownsampler() throws Exception
+	{
+		List<Long> buckets = new ArrayList<Long>();
+		List<Long> values = new ArrayList<Long>();
+		Downsampler downsampler = new Downsampler(10000, Downsampler.Aggregation.MAX, (time, row) ->
+		{
+			buckets.add(time);
+			values.add(row.get("a"));
+		});
+
+		for (int i = 0; i < 25; i++)
+			downsampler.handle(1000L * i, row(i));
+		downsampler.finish();
+
+		assertEquals(Arrays.asList(0L, 10000L, 20000L), buckets);
+		assertEquals(Arrays.asList(90L, 190L, 240L), values);
+	}
+
+	/**
+	 * Column a is in every row, column b only in the even rows.
+	 */
+	private static Map<String, Long> row(int i)
+	{
+		Map<String, Long> row = new LinkedHashMap<String, Long>();
+		row.put("a", i * 10L);
+		if (i % 2 == 0)
+			row.put("b", -i * 1000000L);
+		return row;
+	}
+
+	private void writeBlocks(int blocks) throws IOException
+	{
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			for (int i = 0; i < blocks * 2; i++)
+			{
+				// Flushes after every second row, so the blocks have 2 rows each.
+				writer.append(1000L * i, row(i));
+				if (i % 2 == 1)
+					writer.flush();
+			}
+		}
+	}
+
+	private void appendBlock(int rows) throws IOException
+	{
+		try (SeriesFileWriter writer = new SeriesFileWriter(file, 4))
+		{
+			for (int i = 0; i < rows; i++)
+				writer.append(50000L + 1000L * i, row(i));
+		}
+	}
+
+	private void truncate(long length) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(length);
+		}
+	}
+
+	private void corrupt(long pos) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.seek(pos);
+			int b = raf.read();
+			raf.seek(pos);
+			raf.write(b ^ 0xFF);
+		}
+	}
+
+	private long countRows() throws IOException
+	{
+		try (SeriesFileReader reader = new SeriesFileReader(file))
+		{
+			return reader.read(0, Long.MAX_VALUE, null, (time, row) -> {});
+		}
+	}
+}